@@ -0,0 +1,125 @@
+// 构建时处理静态资源，在 process-classes 阶段对 target/classes/static 执行：
+// 1. 内容指纹：把 HTML 中引用的脚本、样式和图片改写为 Spring 内容版本策略的文件名（api.js -> api-<md5>.js），
+//    运行时由 spring.web.resources.chain.strategy.content 解析，文件内容变化后地址随之变化，可以长期缓存。
+//    已改写过的引用会按当前内容重新计算，增量构建时 HTML 未重新复制也不会引用旧版本。
+// 2. 预压缩：为 1KB 以上的文本文件生成 .gz 和 .br，运行时由 spring.web.resources.chain.compressed
+//    按 Accept-Encoding 直接返回预压缩文件，不再逐次压缩。压缩后没有变小的文件不生成；源文件未修改时跳过。
+
+import com.aayushatharva.brotli4j.Brotli4jLoader
+import com.aayushatharva.brotli4j.encoder.Encoder
+
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.file.Files
+import java.nio.file.InvalidPathException
+import java.nio.file.Path
+import java.security.MessageDigest
+import java.util.regex.Matcher
+import java.util.regex.Pattern
+import java.util.zip.CRC32
+import java.util.zip.Deflater
+
+def extensions = ['html', 'css', 'js', 'json', 'svg', 'txt'] as Set
+def minSize = 1024
+
+Path root = Path.of(project.build.outputDirectory, 'static')
+if (!Files.isDirectory(root)) {
+    return
+}
+
+List<Path> files = []
+Files.walk(root).withCloseable { stream -> stream.forEach { if (Files.isRegularFile(it)) files << it } }
+
+// ==================== 内容指纹 ====================
+// 相对路径引用：src="js/api.js"、href="css/theme.css"、url('data/picture/LOGO.png')
+Pattern reference = Pattern.compile(/((?:src|href)="|url\(')([^"'#?:]+)(["'])/)
+Pattern version = Pattern.compile(/-[0-9a-f]{32}(?=\.[^.\/]+$)/)
+Map<Path, String> hashes = [:]
+// 文件系统编码不支持路径中的字符（如非 UTF-8 区域设置下的中文文件名）时保留原引用
+def resolve = { Path html, String path ->
+    try {
+        html.resolveSibling(path).normalize()
+    } catch (InvalidPathException ignored) {
+        null
+    }
+}
+int rewritten = 0
+for (Path html : files.findAll { it.fileName.toString().endsWith('.html') }) {
+    String content = Files.readString(html)
+    Matcher matcher = reference.matcher(content)
+    StringBuilder result = new StringBuilder()
+    while (matcher.find()) {
+        String path = version.matcher(matcher.group(2)).replaceFirst('')
+        Path asset = resolve(html, path)
+        String replacement = matcher.group(0)
+        if (asset != null && asset.startsWith(root) && Files.isRegularFile(asset) && !path.endsWith('.html')) {
+            String hash = hashes.computeIfAbsent(asset) {
+                MessageDigest.getInstance('MD5').digest(Files.readAllBytes(it)).encodeHex().toString()
+            }
+            int dot = path.lastIndexOf('.')
+            replacement = matcher.group(1) + path.substring(0, dot) + '-' + hash + path.substring(dot) + matcher.group(3)
+        }
+        matcher.appendReplacement(result, Matcher.quoteReplacement(replacement))
+    }
+    matcher.appendTail(result)
+    if (result.toString() != content) {
+        Files.writeString(html, result.toString())
+        rewritten++
+    }
+}
+log.info("静态资源指纹: 改写 ${rewritten} 个页面，引用 ${hashes.size()} 个资源".toString())
+
+// ==================== 预压缩 ====================
+// 最高压缩级别的 gzip，JDK 的 GZIPOutputStream 不能设置压缩级别
+def gzip = { byte[] data ->
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true)
+    deflater.setInput(data)
+    deflater.finish()
+    ByteArrayOutputStream out = new ByteArrayOutputStream(data.length)
+    out.write([0x1f, 0x8b, 8, 0, 0, 0, 0, 0, 2, 0xff] as byte[])
+    byte[] buffer = new byte[8192]
+    while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer))
+    }
+    deflater.end()
+    CRC32 crc = new CRC32()
+    crc.update(data)
+    out.write(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN)
+            .putInt((int) crc.value).putInt(data.length).array())
+    out.toByteArray()
+}
+
+Brotli4jLoader.ensureAvailability()
+Encoder.Parameters brotli = new Encoder.Parameters().setQuality(11)
+def encoders = [
+        gz: gzip,
+        br: { byte[] data -> Encoder.compress(data, brotli) }
+]
+
+int written = 0
+long saved = 0
+for (Path file : files) {
+    String name = file.fileName.toString()
+    int dot = name.lastIndexOf('.')
+    if (dot < 0 || !extensions.contains(name.substring(dot + 1))
+            || Files.size(file) < minSize) {
+        continue
+    }
+    byte[] source = null
+    encoders.each { String suffix, Closure encoder ->
+        Path target = file.resolveSibling(name + '.' + suffix)
+        if (Files.exists(target) && Files.getLastModifiedTime(target) >= Files.getLastModifiedTime(file)) {
+            return
+        }
+        source = source ?: Files.readAllBytes(file)
+        byte[] compressed = encoder(source)
+        if (compressed.length < source.length) {
+            Files.write(target, compressed)
+            written++
+            saved += source.length - compressed.length
+        } else {
+            Files.deleteIfExists(target)
+        }
+    }
+}
+log.info("预压缩静态资源: 生成 ${written} 个文件，节省 ${saved >> 10} KB".toString())
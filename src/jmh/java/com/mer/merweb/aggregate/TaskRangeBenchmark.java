@@ -0,0 +1,99 @@
+package com.mer.merweb.aggregate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mer.merweb.config.ProxyProperties;
+import com.mer.merweb.proxy.ProxyRoute;
+import com.mer.merweb.proxy.RouteGroup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务日期范围查询（{@link TaskRangeIndex}）
+ * 索引 documents 个任务，开始日期均匀分布在三年内，持续 1 到 30 天；
+ * month 和 week 是日历月视图、周视图的窗口，scan 是逐个比较全部任务日期的做法（日历页面现在在浏览器中这样筛选）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+@State(Scope.Benchmark)
+public class TaskRangeBenchmark {
+
+	private static final String AUTHORIZATION = "Bearer benchmark";
+
+	private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+
+	@Param({"10000", "50000"})
+	public int documents;
+
+	private TaskRangeIndex index;
+	private TaskRangeIndex.Window month;
+	private TaskRangeIndex.Window week;
+	private int[] starts;
+	private int[] ends;
+
+	@Setup
+	public void setUp() {
+		ProxyProperties.TaskRange config = new ProxyProperties.TaskRange();
+		index = new TaskRangeIndex(new ObjectMapper(), config, System::nanoTime);
+		ProxyRoute route = ProxyRoute.get("/tasks/all").group(RouteGroup.TASKS).observedBy(TaskRangeIndex.NAME).build();
+		Random random = new Random(42);
+		starts = new int[documents];
+		ends = new int[documents];
+		// 按每页 100 条分批读入，与经过网关的任务列表一致
+		for (int start = 0; start < documents; start += 100) {
+			StringBuilder json = new StringBuilder("{\"list\":[");
+			for (int i = start; i < Math.min(start + 100, documents); i++) {
+				starts[i] = random.nextInt(3 * 365);
+				ends[i] = starts[i] + random.nextInt(30);
+				json.append(i > start ? "," : "")
+						.append("{\"task_id\":").append(i)
+						.append(",\"title\":\"任务 ").append(i).append('"')
+						.append(",\"startAt\":\"").append(FIRST_DAY.plusDays(starts[i])).append('"')
+						.append(",\"dueAt\":\"").append(FIRST_DAY.plusDays(ends[i])).append("\"}");
+			}
+			index.observe(route, AUTHORIZATION, 200, json.append("]}").toString().getBytes(StandardCharsets.UTF_8));
+		}
+		month = index.parseWindow("2025-03-01", "2025-03-31");
+		week = index.parseWindow("2025-03-10", "2025-03-16");
+	}
+
+	@Benchmark
+	public Map<String, Object> month() {
+		return index.query(month, AUTHORIZATION);
+	}
+
+	@Benchmark
+	public Map<String, Object> week() {
+		return index.query(week, AUTHORIZATION);
+	}
+
+	@Benchmark
+	public int scan() {
+		int from = (int) (month.from().toEpochDay() - FIRST_DAY.toEpochDay());
+		int to = (int) (month.to().toEpochDay() - FIRST_DAY.toEpochDay());
+		int hits = 0;
+		for (int i = 0; i < documents; i++) {
+			if (starts[i] <= to && ends[i] >= from) {
+				hits++;
+			}
+		}
+		return hits;
+	}
+}
@@ -0,0 +1,91 @@
+package com.mer.merweb.aggregate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mer.merweb.config.ProxyProperties;
+import com.mer.merweb.proxy.ProxyRoute;
+import com.mer.merweb.proxy.RouteGroup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务关键词搜索（{@link TaskSearchIndex}）
+ * 索引 documents 个任务，标题和描述从固定的词表中按编号轮换组合；
+ * common 命中约五分之一的任务，rare 只命中少数任务，twoTerms 是两个关键词同时命中
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+@State(Scope.Benchmark)
+public class TaskSearchBenchmark {
+
+	private static final String AUTHORIZATION = "Bearer benchmark";
+
+	private static final String[] TITLES = {"周报整理与提交", "登录界面动效优化", "任务列表接口定义", "邮件验证码服务联调",
+			"仪表盘左右分栏布局"};
+
+	private static final String[] DESCRIPTIONS = {"汇总各成员产出，统一模板，上传至项目盘并发送邮件通知。",
+			"替换为渐隐动画，调整输入框聚焦样式，统一配色变量。", "约定筛选字段：id、name、owner、dateRange；返回分页数据结构。",
+			"后端开通邮件服务，前端接入发送与倒计时控件。"};
+
+	private static final String[] PEOPLE = {"Alice", "Bob", "Carol", "David", "Eve", "Frank", "Grace"};
+
+	@Param({"10000", "50000"})
+	public int documents;
+
+	private TaskSearchIndex index;
+	private TaskSearchIndex.Query common;
+	private TaskSearchIndex.Query rare;
+	private TaskSearchIndex.Query twoTerms;
+
+	@Setup
+	public void setUp() {
+		ProxyProperties.TaskSearch config = new ProxyProperties.TaskSearch();
+		index = new TaskSearchIndex(new ObjectMapper(), config, System::nanoTime);
+		ProxyRoute route = ProxyRoute.get("/tasks/all").group(RouteGroup.TASKS).observedBy(TaskSearchIndex.NAME).build();
+		// 按每页 100 条分批读入，与经过网关的任务列表一致
+		for (int start = 1; start <= documents; start += 100) {
+			StringBuilder json = new StringBuilder("{\"list\":[");
+			for (int i = start; i < Math.min(start + 100, documents + 1); i++) {
+				json.append(i > start ? "," : "")
+						.append("{\"task_id\":").append(i)
+						.append(",\"title\":\"").append(TITLES[i % TITLES.length]).append(' ').append(i).append('"')
+						.append(",\"description\":\"").append(DESCRIPTIONS[i % DESCRIPTIONS.length]).append('"')
+						.append(",\"creator\":{\"name\":\"").append(PEOPLE[i % PEOPLE.length]).append("\"}}");
+			}
+			index.observe(route, AUTHORIZATION, 200, json.append("]}").toString().getBytes(StandardCharsets.UTF_8));
+		}
+		common = index.parseQuery("周报", null, "10");
+		rare = index.parseQuery(Integer.toString(documents - 7), null, "10");
+		twoTerms = index.parseQuery("邮件 Carol", null, "10");
+	}
+
+	@Benchmark
+	public Map<String, Object> common() {
+		return index.search(common, AUTHORIZATION);
+	}
+
+	@Benchmark
+	public Map<String, Object> rare() {
+		return index.search(rare, AUTHORIZATION);
+	}
+
+	@Benchmark
+	public Map<String, Object> twoTerms() {
+		return index.search(twoTerms, AUTHORIZATION);
+	}
+}
@@ -0,0 +1,82 @@
+package com.mer.merweb.proxy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mer.merweb.config.ProxyProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * 错误响应体的处理
+ * perCallObjectMapper 是最初控制器 catch 块中的写法（每次 new ObjectMapper() 解析后端的 4xx 响应体），
+ * sharedObjectMapper 复用同一个 ObjectMapper，passthrough 是现在的做法：4xx 响应按字节原样透传，不解析；
+ * failureBody 是连接失败时按路由生成的错误响应体（{@link FailureBodies}）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+@State(Scope.Benchmark)
+public class ErrorBodyBenchmark {
+
+	private String errorBody;
+	private byte[] errorBytes;
+	private PassthroughProxy passthroughProxy;
+	private ObjectMapper sharedMapper;
+	private BiFunction<ProxyExchange, Exception, Object> failureBody;
+	private Exception failure;
+
+	@Setup
+	public void setUp() {
+		errorBody = "{\"error\":true,\"code\":401,\"message\":\"用户名或密码错误\",\"detail\":{\"remaining_attempts\":4}}";
+		errorBytes = errorBody.getBytes(StandardCharsets.UTF_8);
+		sharedMapper = new ObjectMapper();
+		passthroughProxy = new PassthroughProxy(new SimpleClientHttpRequestFactory(), new ProxyProperties());
+		failureBody = FailureBodies.error("连接后端失败");
+		failure = new ConnectException("Connection refused");
+	}
+
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public Map<String, Object> perCallObjectMapper() throws IOException {
+		return new ObjectMapper().readValue(errorBody, Map.class);
+	}
+
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public Map<String, Object> sharedObjectMapper() throws IOException {
+		return sharedMapper.readValue(errorBody, Map.class);
+	}
+
+	@Benchmark
+	public long passthrough() throws IOException {
+		MockClientHttpResponse upstream = new MockClientHttpResponse(errorBytes, HttpStatus.UNAUTHORIZED);
+		upstream.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+		return passthroughProxy.copy(upstream, new MockHttpServletResponse());
+	}
+
+	@Benchmark
+	public Object failureBody() {
+		return failureBody.apply(null, failure);
+	}
+}
@@ -0,0 +1,75 @@
+package com.mer.merweb.proxy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * 基准测试使用的后端响应体
+ * 内容按固定规则生成，不含随机数，多次运行的输入完全相同
+ */
+final class Payloads {
+
+	private Payloads() {
+	}
+
+	/**
+	 * 任务列表一页，每个任务带创建人和两名指派成员，字段与后端 /tasks/all 一致
+	 */
+	static byte[] tasks(int count) {
+		StringBuilder json = new StringBuilder(count * 420);
+		json.append("{\"list\":[");
+		for (int i = 1; i <= count; i++) {
+			if (i > 1) {
+				json.append(',');
+			}
+			int team = 50 + i % 8;
+			json.append("{\"task_id\":").append(i)
+					.append(",\"title\":\"任务 ").append(i).append(" 周报整理与提交\"")
+					.append(",\"description\":\"汇总各成员产出，统一模板，上传至项目盘并发送邮件通知。\"")
+					.append(",\"status\":\"").append(i % 3 == 0 ? "done" : "doing").append('"')
+					.append(",\"priority\":").append(i % 4)
+					.append(",\"progress\":").append(i * 7 % 101)
+					.append(",\"start_date\":\"2025-09-15\",\"end_date\":\"2025-09-18\"")
+					.append(",\"team_id\":").append(team)
+					.append(",\"creator\":{\"id\":").append(i % 40).append(",\"name\":\"Alice\",\"team_id\":").append(team).append('}')
+					.append(",\"assignees\":[")
+					.append("{\"id\":").append(i % 40 + 1).append(",\"name\":\"Bob\",\"team_id\":").append(team).append("},")
+					.append("{\"id\":").append(i % 40 + 2).append(",\"name\":\"Carol\",\"team_id\":").append(50 + (i + 1) % 8).append('}')
+					.append("]}");
+		}
+		json.append("],\"total\":").append(count).append(",\"page\":1,\"pageSize\":").append(count).append('}');
+		return json.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * 按天的任务统计，与后端 /tasks/statistic 一致
+	 */
+	static byte[] dailyStatistics(int days) {
+		LocalDate start = LocalDate.of(2025, 1, 1);
+		LocalDate end = start.plusDays(days - 1L);
+		StringBuilder json = new StringBuilder(days * 80);
+		json.append("{\"startDate\":\"").append(start).append("\",\"endDate\":\"").append(end).append("\",\"daily\":[");
+		for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+			if (!day.equals(start)) {
+				json.append(',');
+			}
+			json.append("{\"date\":\"").append(day).append("\",\"taskCreateCount\":").append(day.getDayOfMonth())
+					.append(",\"taskCompleteCount\":").append(day.getDayOfYear() % 9).append('}');
+		}
+		json.append("]}");
+		return json.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * 按名称取响应体：tasks-10、tasks-100、tasks-1000、statistic-30、statistic-365
+	 */
+	static byte[] named(String name) {
+		int separator = name.indexOf('-');
+		int size = Integer.parseInt(name.substring(separator + 1));
+		return switch (name.substring(0, separator)) {
+			case "tasks" -> tasks(size);
+			case "statistic" -> dailyStatistics(size);
+			default -> throw new IllegalArgumentException("未知的响应体: " + name);
+		};
+	}
+}
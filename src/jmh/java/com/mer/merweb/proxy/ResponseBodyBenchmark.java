@@ -0,0 +1,83 @@
+package com.mer.merweb.proxy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mer.merweb.config.ProxyProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应体处理：透传与 Map 往返
+ * passthrough 按字节把后端响应复制到 Servlet 响应（{@link PassthroughProxy#copy}），
+ * buffered 读入内存并复制白名单响应头、计算 ETag（{@link BufferedResponse#of}），
+ * mapRoundTrip 是最初控制器中的写法：Jackson 反序列化成 Map 再序列化写出
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+@State(Scope.Benchmark)
+public class ResponseBodyBenchmark {
+
+	@Param({"tasks-10", "tasks-100", "tasks-1000", "statistic-30", "statistic-365"})
+	public String payload;
+
+	private byte[] body;
+	private HttpHeaders upstreamHeaders;
+	private PassthroughProxy passthroughProxy;
+	private ObjectMapper objectMapper;
+
+	@Setup
+	public void setUp() {
+		body = Payloads.named(payload);
+		// 后端的典型响应头，其中只有一部分在透传白名单中
+		upstreamHeaders = new HttpHeaders();
+		upstreamHeaders.setContentType(MediaType.APPLICATION_JSON);
+		upstreamHeaders.setContentLength(body.length);
+		upstreamHeaders.set(HttpHeaders.DATE, "Sat, 18 Oct 2025 08:00:00 GMT");
+		upstreamHeaders.set(HttpHeaders.CONNECTION, "keep-alive");
+		upstreamHeaders.set("Keep-Alive", "timeout=60");
+		upstreamHeaders.set(HttpHeaders.VARY, "Origin");
+		upstreamHeaders.set(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+		upstreamHeaders.setCacheControl("no-cache");
+		passthroughProxy = new PassthroughProxy(new SimpleClientHttpRequestFactory(), new ProxyProperties());
+		objectMapper = new ObjectMapper();
+	}
+
+	@Benchmark
+	public long passthrough() throws IOException {
+		MockClientHttpResponse upstream = new MockClientHttpResponse(body, HttpStatus.OK);
+		upstream.getHeaders().putAll(upstreamHeaders);
+		return passthroughProxy.copy(upstream, new MockHttpServletResponse());
+	}
+
+	@Benchmark
+	public BufferedResponse buffered() {
+		return BufferedResponse.of(HttpStatus.OK, upstreamHeaders, body);
+	}
+
+	@Benchmark
+	public byte[] mapRoundTrip() throws IOException {
+		Map<?, ?> parsed = objectMapper.readValue(body, Map.class);
+		return objectMapper.writeValueAsBytes(parsed);
+	}
+}
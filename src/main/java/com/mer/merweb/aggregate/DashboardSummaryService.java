@@ -0,0 +1,165 @@
+package com.mer.merweb.aggregate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mer.merweb.config.ProxyProperties;
+import com.mer.merweb.proxy.BufferedResponse;
+import com.mer.merweb.proxy.UpstreamFetcher;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 统计周报汇总
+ * 统计周报页面打开时要分别请求重要事项、个人任务、可见任务和四个统计接口，这里合并为一次请求：
+ * 各分项同时访问后端，每个分项单独计时（mer.proxy.dashboard.timeout），
+ * 超时或失败的分项只标记错误，其他分项照常返回，一个慢接口不会拖住整个页面。
+ * 超时只是不再等待，后端调用不会中断：Servlet 模式下阻塞在读取响应上的线程无法取消，
+ * 调用完成后结果照常写入网关缓存，下次打开页面时可以直接使用。
+ * 分项经过代理引擎访问后端，与单独调用时一样使用网关缓存、按天缓存和请求合并。
+ */
+@Component
+public class DashboardSummaryService {
+
+    private static final String DEFAULT_TIME_UNIT = "day";
+    private static final int DEFAULT_DAYS = 7;
+
+    private final UpstreamFetcher fetcher;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+
+    public DashboardSummaryService(UpstreamFetcher fetcher, ObjectMapper objectMapper, ProxyProperties properties) {
+        this.fetcher = fetcher;
+        this.objectMapper = objectMapper;
+        this.timeout = properties.getDashboard().getTimeout();
+    }
+
+    /**
+     * 汇总的统计日期范围
+     *
+     * @param timeUnit 登录趋势的统计粒度（day、week、month）
+     */
+    public record Range(String timeUnit, LocalDate startDate, LocalDate endDate) {
+    }
+
+    /**
+     * 校验统计日期范围，未传日期时默认最近 7 天（含今天）
+     *
+     * @throws IllegalArgumentException 日期格式不是 yyyy-MM-dd 或开始日期晚于结束日期
+     */
+    public Range parseRange(String timeUnit, String startDate, String endDate) {
+        LocalDate end = parseDate("endDate", endDate, LocalDate.now());
+        LocalDate start = parseDate("startDate", startDate, end.minusDays(DEFAULT_DAYS - 1));
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("开始日期不能晚于结束日期");
+        }
+        return new Range(timeUnit == null || timeUnit.isEmpty() ? DEFAULT_TIME_UNIT : timeUnit, start, end);
+    }
+
+    /**
+     * 并发获取所有分项
+     *
+     * @return {"ok": true, "partial": false, "sections": {"importantTasks": {"ok": true, "status": 200, "data": {...}}}}
+     * 失败的分项为 {"ok": false, "error": "timeout" | "unavailable" | "upstream" | "invalid", ...}，
+     * partial 表示是否有分项失败
+     */
+    public Mono<Map<String, Object>> summarize(Range range, String authorization) {
+        Map<String, String> dates = Map.of(
+                "startDate", range.startDate().toString(),
+                "endDate", range.endDate().toString());
+        Map<String, String> loginDates = Map.of(
+                "timeUnit", range.timeUnit(),
+                "startDate", range.startDate().toString(),
+                "endDate", range.endDate().toString());
+        List<Section> sections = List.of(
+                new Section("importantTasks", "/company-tasks/important", Map.of()),
+                new Section("personalTasks", "/tasks/personal", Map.of()),
+                new Section("viewableTasks", "/tasks/myView", Map.of()),
+                new Section("loginTrend", "/login/statistic", loginDates),
+                new Section("passwordResets", "/user/statistic", Map.of()),
+                new Section("taskStatistic", "/tasks/statistic", dates),
+                new Section("journalStatistic", "/journals/statistic", dates));
+
+        return Flux.fromIterable(sections)
+                .flatMap(section -> Mono.defer(() -> Mono.fromFuture(
+                                fetcher.fetch(section.path(), section.query(), authorization).toFuture(), true))
+                        .timeout(timeout)
+                        .map(this::success)
+                        .onErrorResume(TimeoutException.class, e -> Mono.just(error("timeout", "后端响应超时")))
+                        .onErrorResume(e -> Mono.just(error("unavailable", "请求后端失败")))
+                        .map(result -> Map.entry(section.name(), result)), sections.size())
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .map(results -> {
+                    Map<String, Object> ordered = new LinkedHashMap<>();
+                    boolean partial = false;
+                    for (Section section : sections) {
+                        Map<String, Object> result = results.get(section.name());
+                        partial |= !Boolean.TRUE.equals(result.get("ok"));
+                        ordered.put(section.name(), result);
+                    }
+                    Map<String, Object> summary = new LinkedHashMap<>();
+                    summary.put("ok", true);
+                    summary.put("partial", partial);
+                    summary.put("range", Map.of(
+                            "timeUnit", range.timeUnit(),
+                            "startDate", range.startDate().toString(),
+                            "endDate", range.endDate().toString()));
+                    summary.put("sections", ordered);
+                    return summary;
+                });
+    }
+
+    /**
+     * 后端返回的响应，非 2xx 时保留后端的响应体，页面可以显示其中的错误信息
+     */
+    private Map<String, Object> success(BufferedResponse response) {
+        JsonNode data;
+        try {
+            data = response.body().length == 0 ? null : objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            Map<String, Object> result = error("invalid", "后端返回的不是 JSON");
+            result.put("status", response.status().value());
+            return result;
+        }
+        boolean ok = response.status().is2xxSuccessful();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("ok", ok);
+        result.put("status", response.status().value());
+        if (!ok) {
+            result.put("error", "upstream");
+        }
+        result.put("data", data);
+        return result;
+    }
+
+    private static Map<String, Object> error(String error, String message) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("ok", false);
+        result.put("error", error);
+        result.put("message", message);
+        return result;
+    }
+
+    private static LocalDate parseDate(String name, String value, LocalDate defaultValue) {
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("日期格式无效: " + name + "=" + value);
+        }
+    }
+
+    private record Section(String name, String path, Map<String, String> query) {
+    }
+}
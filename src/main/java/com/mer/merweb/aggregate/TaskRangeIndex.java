@@ -0,0 +1,501 @@
+package com.mer.merweb.aggregate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mer.merweb.config.ProxyProperties;
+import com.mer.merweb.proxy.ProxyRoute;
+import com.mer.merweb.proxy.ResponseObserver;
+import com.mer.merweb.proxy.TokenRevocationListener;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * 任务日期范围索引
+ * 与 {@link TaskSearchIndex} 一样从经过网关的任务读取和创建响应中收集任务，按开始、结束日期建立区间树：
+ * 以（开始日期, 任务编号）为键的 treap，每个节点另记子树中最晚的结束日期，
+ * 查询与日期窗口重叠的任务时跳过最晚结束日期早于窗口的子树、在开始日期晚于窗口处停止，
+ * 不需要遍历全部任务，耗时 O(k·log n)，k 为与窗口重叠的任务数。
+ * 同一任务再次读到时按新的日期替换原来的节点；登录凭证只能查到自己读取过的任务
+ * （从最后一次读取起保留 visibilityTtl，退出登录或令牌失效时立即清除），
+ * 任务数达到 maxDocuments 后新任务不再加入索引，读取过这些任务的登录凭证查询时 incomplete 为 true。
+ * 日期取字段值的前 10 个字符（yyyy-MM-dd），不做时区换算。
+ */
+@Component
+public class TaskRangeIndex implements ResponseObserver, TokenRevocationListener, MeterBinder {
+
+    public static final String NAME = "task-range";
+
+    private static final String[] ID_FIELDS = {"taskId", "task_id", "id"};
+    private static final String[] START_FIELDS = {"startDate", "start_date", "startAt", "start_at"};
+    private static final String[] END_FIELDS = {"endDate", "end_date", "dueAt", "due_at"};
+
+    /**
+     * {@link #upsert(Entry)} 的返回值：新任务没有日期，不需要加入索引
+     */
+    private static final int UNDATED = -1;
+
+    /**
+     * {@link #upsert(Entry)} 的返回值：索引已满，任务没有加入索引
+     */
+    private static final int FULL = -2;
+
+    /**
+     * 解析后的日期窗口，两端都包含在内
+     */
+    public record Window(LocalDate from, LocalDate to) {
+    }
+
+    /**
+     * 一个任务的索引记录，日期是 epoch day
+     *
+     * @param task 后端返回的任务，原样作为查询结果
+     */
+    private record Entry(String id, JsonNode task, int start, int end) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final int maxDocuments;
+    private final int maxDays;
+    private final int maxResults;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> docIds = new HashMap<>();
+
+    /**
+     * 按任务编号存放的索引记录，任务没有日期时为 null
+     */
+    private Entry[] entries = new Entry[1024];
+    private Node root;
+    private volatile int documentCount;
+    private volatile int intervalCount;
+
+    private final TaskVisibility visibility;
+
+    private final LongAdder queries = new LongAdder();
+
+    @Autowired
+    public TaskRangeIndex(ObjectMapper objectMapper, ProxyProperties properties) {
+        this(objectMapper, properties.getTaskRange(), System::nanoTime);
+    }
+
+    TaskRangeIndex(ObjectMapper objectMapper, ProxyProperties.TaskRange config, LongSupplier clock) {
+        this.objectMapper = objectMapper;
+        this.maxDocuments = config.getMaxDocuments();
+        this.maxDays = config.getMaxDays();
+        this.maxResults = config.getMaxResults();
+        this.visibility = new TaskVisibility(config.getMaximumSessions(), config.getVisibilityTtl(), clock);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void revoked(String token) {
+        visibility.revoke(token);
+    }
+
+    /**
+     * 读取任务列表（list、data、data.list）、任务详情（task、data.task 或任务本身）和创建任务的响应
+     */
+    @Override
+    public void observe(ProxyRoute route, String authorization, int status, byte[] body) {
+        if (status < 200 || status >= 300) {
+            return;
+        }
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(body);
+        } catch (IOException e) {
+            return;
+        }
+        List<Entry> parsed = new ArrayList<>();
+        for (JsonNode task : tasks(root)) {
+            String id = task.isObject() ? text(task, ID_FIELDS) : null;
+            if (id != null) {
+                parsed.add(entry(id, task));
+            }
+        }
+        if (!parsed.isEmpty()) {
+            index(parsed, authorization);
+        }
+    }
+
+    /**
+     * 校验查询的日期窗口
+     *
+     * @throws IllegalArgumentException 未传日期、日期格式无效、开始晚于结束或跨度超过 maxDays
+     */
+    public Window parseWindow(String from, String to) {
+        LocalDate start = parseDate("from", from);
+        LocalDate end = parseDate("to", to);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("开始日期不能晚于结束日期");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= maxDays) {
+            throw new IllegalArgumentException("日期范围最多 " + maxDays + " 天");
+        }
+        return new Window(start, end);
+    }
+
+    /**
+     * 登录凭证读取过的任务中与窗口重叠的任务，按开始日期排序，最多返回 maxResults 个；
+     * daily 是窗口内每天进行中的任务数（包括没有任务的日期），按全部命中的任务统计
+     *
+     * @return {"from": 开始日期, "to": 结束日期, "list": [任务...], "total": 命中数, "truncated": list 是否被截断,
+     * "incomplete": 读取过的任务中有没有加入索引的, "daily": [{"date": 日期, "count": 任务数}...]}
+     */
+    public Map<String, Object> query(Window window, String authorization) {
+        queries.increment();
+        int from = (int) window.from().toEpochDay();
+        int to = (int) window.to().toEpochDay();
+        int[] counts = new int[to - from + 2];
+        List<JsonNode> list = new ArrayList<>();
+        int total = 0;
+        TaskVisibility.Snapshot readable = visibility.snapshot(authorization);
+        if (readable != null) {
+            lock.readLock().lock();
+            try {
+                List<Node> hits = new ArrayList<>();
+                collect(root, from, to, hits);
+                for (Node node : hits) {
+                    if (!readable.ids().get(node.docId)) {
+                        continue;
+                    }
+                    // 差分数组：任务在窗口内的第一天加一、最后一天的次日减一，最后求前缀和
+                    counts[Math.max(node.start(), from) - from]++;
+                    counts[Math.min(node.end, to) - from + 1]--;
+                    if (total++ < maxResults) {
+                        list.add(entries[node.docId].task());
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        List<Map<String, Object>> daily = new ArrayList<>(to - from + 1);
+        int running = 0;
+        for (int day = from; day <= to; day++) {
+            running += counts[day - from];
+            Map<String, Object> bucket = new LinkedHashMap<>();
+            bucket.put("date", LocalDate.ofEpochDay(day).toString());
+            bucket.put("count", running);
+            daily.add(bucket);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", window.from().toString());
+        result.put("to", window.to().toString());
+        result.put("list", list);
+        result.put("total", total);
+        result.put("truncated", total > list.size());
+        result.put("incomplete", readable != null && readable.incomplete());
+        result.put("daily", daily);
+        return result;
+    }
+
+    /**
+     * 索引的任务数、有日期的任务数和查询次数
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("documents", documentCount);
+        stats.put("intervals", intervalCount);
+        stats.put("full", documentCount >= maxDocuments);
+        stats.put("sessions", visibility.size());
+        stats.put("queries", queries.sum());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("mer.proxy.task.range.intervals", this, index -> index.intervalCount)
+                .description("任务日期范围索引中有日期的任务数")
+                .register(registry);
+        FunctionCounter.builder("mer.proxy.task.range.queries", queries, LongAdder::sum)
+                .description("任务日期范围查询次数")
+                .register(registry);
+    }
+
+    /**
+     * 把任务加入索引，已有的任务按新的日期替换，并记为登录凭证可以查询
+     */
+    private void index(List<Entry> parsed, String authorization) {
+        int[] ids = new int[parsed.size()];
+        int count = 0;
+        boolean skipped = false;
+        lock.writeLock().lock();
+        try {
+            for (Entry entry : parsed) {
+                int docId = upsert(entry);
+                if (docId >= 0) {
+                    ids[count++] = docId;
+                }
+                skipped |= docId == FULL;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        visibility.grant(authorization, ids, count, skipped);
+    }
+
+    /**
+     * 加入或替换一个任务，调用方持有写锁；任务没有日期时只移除原来的节点
+     *
+     * @param entry 没有日期的任务 start 为 {@link Integer#MIN_VALUE}
+     * @return 任务编号，新任务没有日期时返回 {@link #UNDATED}，索引已满时返回 {@link #FULL}
+     */
+    private int upsert(Entry entry) {
+        boolean dated = entry.start() != Integer.MIN_VALUE;
+        Integer existing = docIds.get(entry.id());
+        int docId;
+        if (existing != null) {
+            docId = existing;
+            Entry previous = entries[docId];
+            if (previous != null) {
+                if (dated && previous.start() == entry.start() && previous.end() == entry.end()) {
+                    entries[docId] = entry;
+                    return docId;
+                }
+                root = delete(root, key(previous.start(), docId));
+                intervalCount--;
+            }
+        } else {
+            if (!dated) {
+                return UNDATED;
+            }
+            if (documentCount >= maxDocuments) {
+                return FULL;
+            }
+            docId = documentCount;
+            if (docId == entries.length) {
+                entries = Arrays.copyOf(entries, docId * 2);
+            }
+            docIds.put(entry.id(), docId);
+            documentCount = docId + 1;
+        }
+        if (!dated) {
+            entries[docId] = null;
+            return docId;
+        }
+        entries[docId] = entry;
+        root = insert(root, new Node(key(entry.start(), docId), entry.end()));
+        intervalCount++;
+        return docId;
+    }
+
+    /**
+     * 按开始日期顺序收集与 [from, to] 重叠的节点，调用方持有读锁
+     */
+    private static void collect(Node node, int from, int to, List<Node> hits) {
+        if (node == null || node.maxEnd < from) {
+            return;
+        }
+        collect(node.left, from, to, hits);
+        if (node.start() > to) {
+            return;
+        }
+        if (node.end >= from) {
+            hits.add(node);
+        }
+        collect(node.right, from, to, hits);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.key < node.key) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node delete(Node node, long key) {
+        if (node == null) {
+            return null;
+        }
+        if (key < node.key) {
+            node.left = delete(node.left, key);
+        } else if (key > node.key) {
+            node.right = delete(node.right, key);
+        } else {
+            return merge(node.left, node.right);
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * 合并两棵 treap，left 中的键都小于 right 中的键
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        node.update();
+        left.right = node;
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        node.update();
+        right.left = node;
+        return right;
+    }
+
+    /**
+     * 开始日期在高 32 位，任务编号非负，按 long 比较即先按开始日期、再按编号排序
+     */
+    private static long key(int start, int docId) {
+        return (long) start << 32 | docId;
+    }
+
+    private static List<JsonNode> tasks(JsonNode root) {
+        JsonNode data = root.path("data");
+        JsonNode list = root.isArray() ? root : root.path("list").isArray() ? root.path("list")
+                : data.isArray() ? data : data.path("list");
+        if (list.isArray()) {
+            List<JsonNode> tasks = new ArrayList<>(list.size());
+            list.forEach(tasks::add);
+            return tasks;
+        }
+        JsonNode task = root.path("task").isObject() ? root.path("task")
+                : data.path("task").isObject() ? data.path("task") : data.isObject() ? data : root;
+        return List.of(task);
+    }
+
+    /**
+     * 任务的索引记录：只有开始或结束日期时按一天处理，开始晚于结束时交换；都没有时 start 为 {@link Integer#MIN_VALUE}
+     */
+    private static Entry entry(String id, JsonNode task) {
+        LocalDate start = date(text(task, START_FIELDS));
+        LocalDate end = date(text(task, END_FIELDS));
+        if (start == null && end == null) {
+            return new Entry(id, task, Integer.MIN_VALUE, Integer.MIN_VALUE);
+        }
+        int first = (int) (start != null ? start : end).toEpochDay();
+        int last = (int) (end != null ? end : start).toEpochDay();
+        return new Entry(id, task, Math.min(first, last), Math.max(first, last));
+    }
+
+    /**
+     * 取前 10 个字符按 yyyy-MM-dd 解析，无法解析时返回 null
+     */
+    private static LocalDate date(String value) {
+        if (value == null || value.length() < 10) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.substring(0, 10));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static LocalDate parseDate(String name, String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("缺少必填参数: " + name);
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("日期格式无效: " + name + "=" + value);
+        }
+    }
+
+    private static String text(JsonNode node, String[] names) {
+        for (String name : names) {
+            JsonNode value = node.path(name);
+            if (value.isValueNode() && !value.isNull() && !value.asText().isEmpty()) {
+                return value.asText();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 区间树的节点，优先级由任务编号散列得到，相同的插入顺序总是得到相同的树
+     */
+    private static final class Node {
+
+        private final long key;
+        private final int end;
+        private final int docId;
+        private final int priority;
+        private int maxEnd;
+        private Node left;
+        private Node right;
+
+        private Node(long key, int end) {
+            this.key = key;
+            this.end = end;
+            this.docId = (int) key;
+            int h = docId * 0x9E3779B9;
+            h = (h ^ h >>> 16) * 0x85EBCA6B;
+            h = (h ^ h >>> 13) * 0xC2B2AE35;
+            this.priority = h ^ h >>> 16;
+            this.maxEnd = end;
+        }
+
+        private int start() {
+            return (int) (key >> 32);
+        }
+
+        private void update() {
+            int max = end;
+            if (left != null && left.maxEnd > max) {
+                max = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > max) {
+                max = right.maxEnd;
+            }
+            maxEnd = max;
+        }
+    }
+}
@@ -0,0 +1,713 @@
+package com.mer.merweb.aggregate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mer.merweb.config.ProxyProperties;
+import com.mer.merweb.proxy.ProxyRoute;
+import com.mer.merweb.proxy.ResponseObserver;
+import com.mer.merweb.proxy.TokenRevocationListener;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+
+/**
+ * 任务关键词搜索索引
+ * 从经过网关的任务读取（列表、详情）和创建响应中收集任务，按标题、人员、描述、详情建立倒排索引，
+ * 文本统一为 NFKC 小写后按连续的文字和数字切分：每个字单独作为一个词，相邻两个字组成二元词，中文不需要分词；
+ * 倒排表是按编号升序的 int 数组，任务编号是网关内部分配的连续整数。
+ * 搜索时取关键词所有二元词（单个字的关键词取该字）的倒排表求交集，再核对字段中确实包含关键词、按命中的字段排序。
+ * 登录凭证只能搜到自己读取过的任务（从最后一次读取起保留 visibilityTtl，退出登录或令牌失效时立即清除），
+ * 不会把其他用户可见的任务返回给调用方；任务数达到 maxDocuments 后新任务不再加入索引，
+ * 读取过这些任务的登录凭证搜索时 incomplete 为 true。
+ * 后端没有经过网关的删除接口，已删除的任务会保留到下次读取时被新内容覆盖或网关重启。
+ */
+@Component
+public class TaskSearchIndex implements ResponseObserver, TokenRevocationListener, MeterBinder {
+
+    public static final String NAME = "task-search";
+
+    private static final String[] ID_FIELDS = {"taskId", "task_id", "id"};
+    private static final String[] NAME_FIELDS = {"title", "name"};
+    private static final String[] PEOPLE_FIELDS = {"publisher", "owner", "creator", "assignee", "assignees"};
+    private static final String[] SUMMARY_FIELDS = {"summary", "description"};
+    private static final String[] DETAILS_FIELDS = {"details"};
+
+    /**
+     * 各字段命中时的得分，依次为标题、人员、摘要、详情
+     */
+    private static final int[] WEIGHTS = {8, 4, 2, 1};
+
+    /**
+     * 标题以第一个关键词开头时的额外得分
+     */
+    private static final int PREFIX_BONUS = 2;
+
+    /**
+     * 倒排表字段位之外的一位，表示标题以该词开头
+     */
+    private static final int TITLE_START = 1 << 4;
+
+    /**
+     * 任务文本中字段之间的分隔符，不是文字或数字，不会出现在关键词中间
+     */
+    private static final char SEPARATOR = '\0';
+
+    /**
+     * 解析后的搜索条件
+     *
+     * @param terms 规范化后的关键词，按空白拆分
+     */
+    public record Query(List<String> terms, int page, int pageSize) {
+    }
+
+    /**
+     * 一个任务的索引记录
+     *
+     * @param task   后端返回的任务，原样作为搜索结果
+     * @param text   规范化后的标题、人员、摘要、详情，按得分从高到低的顺序用 {@link #SEPARATOR} 连接
+     * @param tokens 升序、去重的词编码
+     * @param masks  每个词出现在哪些字段，第 f 位对应 {@link #WEIGHTS}[f]，另有 {@link #TITLE_START}
+     */
+    private record Document(String id, JsonNode task, char[] text, int[] tokens, byte[] masks) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final int maxDocuments;
+    private final int maxQueryLength;
+    private final int maxPageSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> docIds = new HashMap<>();
+    private final Map<Integer, Postings> postings = new HashMap<>();
+    private Document[] documents = new Document[1024];
+
+    /**
+     * 与 documents 对应的任务文本，搜索时核对关键词只访问这里，减少随机访问内存的次数
+     */
+    private char[][] texts = new char[1024][];
+    private volatile int documentCount;
+    private volatile int tokenCount;
+
+    private final TaskVisibility visibility;
+
+    private final LongAdder searches = new LongAdder();
+
+    @Autowired
+    public TaskSearchIndex(ObjectMapper objectMapper, ProxyProperties properties) {
+        this(objectMapper, properties.getTaskSearch(), System::nanoTime);
+    }
+
+    TaskSearchIndex(ObjectMapper objectMapper, ProxyProperties.TaskSearch config, LongSupplier clock) {
+        this.objectMapper = objectMapper;
+        this.maxDocuments = config.getMaxDocuments();
+        this.maxQueryLength = config.getMaxQueryLength();
+        this.maxPageSize = config.getMaxPageSize();
+        this.visibility = new TaskVisibility(config.getMaximumSessions(), config.getVisibilityTtl(), clock);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void revoked(String token) {
+        visibility.revoke(token);
+    }
+
+    /**
+     * 读取任务列表（list、data、data.list）、任务详情（task、data.task 或任务本身）和创建任务的响应
+     */
+    @Override
+    public void observe(ProxyRoute route, String authorization, int status, byte[] body) {
+        if (status < 200 || status >= 300) {
+            return;
+        }
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(body);
+        } catch (IOException e) {
+            return;
+        }
+        List<Document> parsed = new ArrayList<>();
+        for (JsonNode task : tasks(root)) {
+            Document document = document(task);
+            if (document != null) {
+                parsed.add(document);
+            }
+        }
+        if (!parsed.isEmpty()) {
+            index(parsed, authorization);
+        }
+    }
+
+    /**
+     * 校验搜索参数
+     *
+     * @throws IllegalArgumentException 未传关键词、关键词过长或不含文字和数字、分页参数无效
+     */
+    public Query parseQuery(String q, String page, String pageSize) {
+        if (q == null || q.isBlank()) {
+            throw new IllegalArgumentException("缺少必填参数: q");
+        }
+        if (q.length() > maxQueryLength) {
+            throw new IllegalArgumentException("搜索关键词最多 " + maxQueryLength + " 个字符");
+        }
+        List<String> terms = new ArrayList<>();
+        for (String term : normalize(q).split("\\s+")) {
+            if (queryTokens(term).length > 0 && !terms.contains(term)) {
+                terms.add(term);
+            }
+        }
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("搜索关键词需要包含文字或数字");
+        }
+        int pageNumber = positiveInt(page, 1, "page");
+        int size = positiveInt(pageSize, 10, "pageSize");
+        if (size > maxPageSize) {
+            throw new IllegalArgumentException("每页最多 " + maxPageSize + " 条");
+        }
+        return new Query(List.copyOf(terms), pageNumber, size);
+    }
+
+    /**
+     * 在登录凭证读取过的任务中搜索，按得分从高到低、同分按加入索引的先后排序
+     *
+     * @return {"list": [任务...], "total": 命中数, "page": 页码, "pageSize": 每页条数,
+     * "incomplete": 读取过的任务中有没有加入索引的}
+     */
+    public Map<String, Object> search(Query query, String authorization) {
+        searches.increment();
+        TaskVisibility.Snapshot readable = visibility.snapshot(authorization);
+        List<JsonNode> list = new ArrayList<>();
+        int total = 0;
+        if (readable != null) {
+            lock.readLock().lock();
+            try {
+                int[] hits = match(query.terms(), readable.ids());
+                total = hits.length;
+                long from = (long) (query.page() - 1) * query.pageSize();
+                for (int i = (int) Math.min(from, total); i < Math.min(total, from + query.pageSize()); i++) {
+                    list.add(documents[hits[i]].task());
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("list", list);
+        result.put("total", total);
+        result.put("page", query.page());
+        result.put("pageSize", query.pageSize());
+        result.put("incomplete", readable != null && readable.incomplete());
+        return result;
+    }
+
+    /**
+     * 索引的任务数、词数和搜索次数
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("documents", documentCount);
+        stats.put("tokens", tokenCount);
+        stats.put("full", documentCount >= maxDocuments);
+        stats.put("sessions", visibility.size());
+        stats.put("searches", searches.sum());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("mer.proxy.task.search.documents", this, index -> index.documentCount)
+                .description("任务搜索索引中的任务数")
+                .register(registry);
+        Gauge.builder("mer.proxy.task.search.tokens", this, index -> index.tokenCount)
+                .description("任务搜索索引中的词数")
+                .register(registry);
+        FunctionCounter.builder("mer.proxy.task.search.queries", searches, LongAdder::sum)
+                .description("任务关键词搜索次数")
+                .register(registry);
+    }
+
+    /**
+     * 把任务加入索引，已有的任务按新内容替换，并记为登录凭证可以搜索
+     */
+    private void index(List<Document> parsed, String authorization) {
+        int[] ids = new int[parsed.size()];
+        int count = 0;
+        lock.writeLock().lock();
+        try {
+            for (Document document : parsed) {
+                int docId = upsert(document);
+                if (docId >= 0) {
+                    ids[count++] = docId;
+                }
+            }
+            tokenCount = postings.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        visibility.grant(authorization, ids, count, count < parsed.size());
+    }
+
+    /**
+     * 加入或替换一个任务，调用方持有写锁
+     *
+     * @return 任务编号，索引已满时返回 -1
+     */
+    private int upsert(Document document) {
+        int[] current = document.tokens();
+        byte[] masks = document.masks();
+        Integer existing = docIds.get(document.id());
+        if (existing == null) {
+            if (documentCount >= maxDocuments) {
+                return -1;
+            }
+            int docId = documentCount;
+            if (docId == documents.length) {
+                documents = Arrays.copyOf(documents, docId * 2);
+                texts = Arrays.copyOf(texts, docId * 2);
+            }
+            documents[docId] = document;
+            texts[docId] = document.text();
+            docIds.put(document.id(), docId);
+            for (int k = 0; k < current.length; k++) {
+                postings.computeIfAbsent(current[k], key -> new Postings()).add(docId, masks[k]);
+            }
+            documentCount = docId + 1;
+            return docId;
+        }
+        int docId = existing;
+        Document previous = documents[docId];
+        int[] old = previous.tokens();
+        // 两个数组都升序，按归并的方式找出删除、新增和所在字段变化的词
+        int i = 0;
+        int j = 0;
+        while (i < old.length || j < current.length) {
+            if (j == current.length || i < old.length && old[i] < current[j]) {
+                int token = old[i++];
+                Postings list = postings.get(token);
+                list.remove(docId);
+                if (list.size == 0) {
+                    postings.remove(token);
+                }
+            } else if (i == old.length || current[j] < old[i]) {
+                postings.computeIfAbsent(current[j], key -> new Postings()).add(docId, masks[j]);
+                j++;
+            } else {
+                if (previous.masks()[i] != masks[j]) {
+                    postings.get(current[j]).add(docId, masks[j]);
+                }
+                i++;
+                j++;
+            }
+        }
+        documents[docId] = document;
+        texts[docId] = document.text();
+        return docId;
+    }
+
+    /**
+     * 命中的任务编号，按得分从高到低、同分按编号排序，调用方持有读锁
+     */
+    private int[] match(List<String> terms, BitSet readable) {
+        List<Postings> lists = new ArrayList<>();
+        int[][] termLists = new int[terms.size()][];
+        boolean[] exact = new boolean[terms.size()];
+        for (int t = 0; t < terms.size(); t++) {
+            int[] tokens = queryTokens(terms.get(t));
+            termLists[t] = new int[tokens.length];
+            for (int k = 0; k < tokens.length; k++) {
+                Postings list = postings.get(tokens[k]);
+                if (list == null) {
+                    return new int[0];
+                }
+                int l = lists.indexOf(list);
+                if (l < 0) {
+                    l = lists.size();
+                    lists.add(list);
+                }
+                termLists[t][k] = l;
+            }
+            exact[t] = isSingleToken(terms.get(t));
+        }
+
+        // 遍历最短的倒排表，在其余倒排表中从上次的位置向后查找
+        int driver = 0;
+        for (int l = 1; l < lists.size(); l++) {
+            if (lists.get(l).size < lists.get(driver).size) {
+                driver = l;
+            }
+        }
+        Postings smallest = lists.get(driver);
+        int[] cursors = new int[lists.size()];
+        int[] positions = new int[lists.size()];
+        int[] hits = new int[Math.min(smallest.size, 64)];
+        int[] scores = new int[hits.length];
+        int count = 0;
+        int maxScore = 0;
+        candidates:
+        for (int k = 0; k < smallest.size; k++) {
+            int docId = smallest.ids[k];
+            if (!readable.get(docId)) {
+                continue;
+            }
+            positions[driver] = k;
+            for (int l = 0; l < lists.size(); l++) {
+                if (l == driver) {
+                    continue;
+                }
+                Postings list = lists.get(l);
+                int found = gallop(list.ids, cursors[l], list.size, docId);
+                cursors[l] = found >= 0 ? found + 1 : -found - 1;
+                if (found < 0) {
+                    continue candidates;
+                }
+                positions[l] = found;
+            }
+            int score = score(docId, terms, termLists, exact, lists, positions);
+            if (score > 0) {
+                if (count == hits.length) {
+                    hits = Arrays.copyOf(hits, count * 2);
+                    scores = Arrays.copyOf(scores, count * 2);
+                }
+                hits[count] = docId;
+                scores[count++] = score;
+                maxScore = Math.max(maxScore, score);
+            }
+        }
+
+        // 得分是不大的整数，按得分计数排序，同分的任务保持编号升序
+        int[] starts = new int[maxScore + 2];
+        for (int k = 0; k < count; k++) {
+            starts[maxScore - scores[k] + 1]++;
+        }
+        for (int b = 1; b < starts.length; b++) {
+            starts[b] += starts[b - 1];
+        }
+        int[] ordered = new int[count];
+        for (int k = 0; k < count; k++) {
+            ordered[starts[maxScore - scores[k]]++] = hits[k];
+        }
+        return ordered;
+    }
+
+    /**
+     * 在 ids[from, size) 中查找 key：先按 1、2、4…的步长向后跳，再在最后一段中二分
+     * 相邻的候选在各倒排表中的位置通常也相邻，比每次在剩余部分二分查找的比较次数少
+     *
+     * @return 与 {@link Arrays#binarySearch(int[], int, int, int)} 相同
+     */
+    private static int gallop(int[] ids, int from, int size, int key) {
+        int probe = from;
+        int step = 1;
+        while (probe < size && ids[probe] < key) {
+            from = probe + 1;
+            probe += step;
+            step <<= 1;
+        }
+        return Arrays.binarySearch(ids, from, Math.min(probe + 1, size), key);
+    }
+
+    /**
+     * 每个关键词取包含它的字段中最高的得分，有关键词不在任何字段中时为 0（二元词都命中但不相邻）
+     * 倒排表记录了词所在的字段和是否在标题开头，只有一个词的关键词不需要再读取任务文本
+     *
+     * @param positions 任务在各倒排表中的位置
+     */
+    private int score(int docId, List<String> terms, int[][] termLists, boolean[] exact,
+                      List<Postings> lists, int[] positions) {
+        int score = 0;
+        boolean titleStart = false;
+        for (int t = 0; t < terms.size(); t++) {
+            int mask = -1;
+            for (int l : termLists[t]) {
+                mask &= lists.get(l).masks[positions[l]];
+            }
+            // 字段按得分从高到低排列，第一个命中的字段得分最高
+            int field = Integer.numberOfTrailingZeros(mask & (TITLE_START - 1));
+            if (field >= WEIGHTS.length) {
+                return 0;
+            }
+            String term = terms.get(t);
+            if (!exact[t]) {
+                field = firstField(texts[docId], term);
+                if (field < 0) {
+                    return 0;
+                }
+            }
+            if (t == 0) {
+                titleStart = exact[0] ? (mask & TITLE_START) != 0 : field == 0 && startsWith(texts[docId], term);
+            }
+            score += WEIGHTS[field];
+        }
+        return titleStart ? score + PREFIX_BONUS : score;
+    }
+
+    /**
+     * 关键词在任务文本中第一次出现的位置所在的字段，没有出现时返回 -1
+     */
+    private static int firstField(char[] text, String term) {
+        int field = 0;
+        char first = term.charAt(0);
+        candidates:
+        for (int i = 0; i + term.length() <= text.length; i++) {
+            char c = text[i];
+            if (c == SEPARATOR) {
+                field++;
+            } else if (c == first) {
+                for (int k = 1; k < term.length(); k++) {
+                    if (text[i + k] != term.charAt(k)) {
+                        continue candidates;
+                    }
+                }
+                return field;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(char[] text, String prefix) {
+        if (prefix.length() > text.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text[i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<JsonNode> tasks(JsonNode root) {
+        JsonNode data = root.path("data");
+        JsonNode list = root.isArray() ? root : root.path("list").isArray() ? root.path("list")
+                : data.isArray() ? data : data.path("list");
+        if (list.isArray()) {
+            List<JsonNode> tasks = new ArrayList<>(list.size());
+            list.forEach(tasks::add);
+            return tasks;
+        }
+        JsonNode task = root.path("task").isObject() ? root.path("task")
+                : data.path("task").isObject() ? data.path("task") : data.isObject() ? data : root;
+        return List.of(task);
+    }
+
+    /**
+     * 任务的索引记录，没有编号或标题时返回 null
+     */
+    private static Document document(JsonNode task) {
+        String id = task.isObject() ? text(task, ID_FIELDS) : null;
+        String name = id != null ? text(task, NAME_FIELDS) : null;
+        if (name == null) {
+            return null;
+        }
+        String[] fields = {normalize(name), normalize(people(task)),
+                normalize(join(task, SUMMARY_FIELDS)), normalize(join(task, DETAILS_FIELDS))};
+        int[][] fieldTokens = new int[fields.length][];
+        IntStream.Builder all = IntStream.builder();
+        for (int f = 0; f < fields.length; f++) {
+            IntStream.Builder tokens = IntStream.builder();
+            addTokens(fields[f], tokens);
+            fieldTokens[f] = tokens.build().distinct().toArray();
+            for (int token : fieldTokens[f]) {
+                all.add(token);
+            }
+        }
+        int[] tokens = all.build().sorted().distinct().toArray();
+        byte[] masks = new byte[tokens.length];
+        for (int f = 0; f < fields.length; f++) {
+            for (int token : fieldTokens[f]) {
+                masks[Arrays.binarySearch(tokens, token)] |= (byte) (1 << f);
+            }
+        }
+        String title = fields[0];
+        if (!title.isEmpty() && Character.isLetterOrDigit(title.charAt(0))) {
+            masks[Arrays.binarySearch(tokens, title.charAt(0))] |= TITLE_START;
+            if (title.length() > 1 && Character.isLetterOrDigit(title.charAt(1))) {
+                masks[Arrays.binarySearch(tokens, bigram(title.charAt(0), title.charAt(1)))] |= TITLE_START;
+            }
+        }
+        return new Document(id, task, String.join(String.valueOf(SEPARATOR), fields).toCharArray(), tokens, masks);
+    }
+
+    /**
+     * 发布人、负责人、创建人和指派成员的名字，字段可以是名字本身、{name} 对象或数组
+     */
+    private static String people(JsonNode task) {
+        StringBuilder people = new StringBuilder();
+        for (String field : PEOPLE_FIELDS) {
+            JsonNode value = task.path(field);
+            for (JsonNode person : value.isArray() ? value : List.of(value)) {
+                JsonNode name = person.isObject() ? person.path("name") : person;
+                if (name.isValueNode() && !name.isNull()) {
+                    people.append(name.asText()).append('\n');
+                }
+            }
+        }
+        return people.toString();
+    }
+
+    private static String join(JsonNode task, String[] names) {
+        StringBuilder text = new StringBuilder();
+        for (String name : names) {
+            JsonNode value = task.path(name);
+            if (value.isValueNode() && !value.isNull()) {
+                text.append(value.asText()).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    private static String text(JsonNode node, String[] names) {
+        for (String name : names) {
+            JsonNode value = node.path(name);
+            if (value.isValueNode() && !value.isNull() && !value.asText().isEmpty()) {
+                return value.asText();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 全角转半角、兼容字符统一写法并转为小写
+     */
+    static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 文本中每个连续的文字和数字片段：每个字一个词，相邻两个字一个二元词
+     */
+    private static void addTokens(String text, IntStream.Builder tokens) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                tokens.add(c);
+                if (i + 1 < text.length() && Character.isLetterOrDigit(text.charAt(i + 1))) {
+                    tokens.add(bigram(c, text.charAt(i + 1)));
+                }
+            }
+        }
+    }
+
+    /**
+     * 关键词对应的词：每个片段取全部二元词，只有一个字的片段取该字
+     */
+    static int[] queryTokens(String term) {
+        IntStream.Builder tokens = IntStream.builder();
+        int i = 0;
+        while (i < term.length()) {
+            if (!Character.isLetterOrDigit(term.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < term.length() && Character.isLetterOrDigit(term.charAt(i))) {
+                i++;
+            }
+            if (i - start == 1) {
+                tokens.add(term.charAt(start));
+            }
+            for (int k = start; k + 1 < i; k++) {
+                tokens.add(bigram(term.charAt(k), term.charAt(k + 1)));
+            }
+        }
+        return tokens.build().distinct().toArray();
+    }
+
+    /**
+     * 关键词是否正好是一个词（一到两个文字或数字），这时倒排表命中即说明字段包含关键词
+     */
+    private static boolean isSingleToken(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            if (!Character.isLetterOrDigit(term.charAt(i))) {
+                return false;
+            }
+        }
+        return term.length() <= 2;
+    }
+
+    /**
+     * 二元词的编码，第一个字在高 16 位；文字和数字都不小于 '0'，编码不会与单字（不超过 0xFFFF）重复
+     */
+    private static int bigram(char first, char second) {
+        return first << 16 | second;
+    }
+
+    private static int positiveInt(String value, int defaultValue, String name) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed >= 1) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // 与小于 1 的值一样按无效处理
+        }
+        throw new IllegalArgumentException("参数无效: " + name);
+    }
+
+    /**
+     * 一个词的倒排表：包含该词的任务编号（升序）和该词在任务中出现的字段
+     */
+    private static final class Postings {
+
+        private int[] ids = new int[4];
+        private byte[] masks = new byte[4];
+        private int size;
+
+        /**
+         * 加入任务，任务已在表中时更新出现的字段
+         */
+        void add(int docId, byte mask) {
+            int index = size;
+            if (size > 0 && ids[size - 1] >= docId) {
+                int found = Arrays.binarySearch(ids, 0, size, docId);
+                if (found >= 0) {
+                    masks[found] = mask;
+                    return;
+                }
+                index = -found - 1;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                masks = Arrays.copyOf(masks, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            System.arraycopy(masks, index, masks, index + 1, size - index);
+            ids[index] = docId;
+            masks[index] = mask;
+            size++;
+        }
+
+        void remove(int docId) {
+            int found = Arrays.binarySearch(ids, 0, size, docId);
+            if (found >= 0) {
+                System.arraycopy(ids, found + 1, ids, found, size - found - 1);
+                System.arraycopy(masks, found + 1, masks, found, size - found - 1);
+                size--;
+            }
+        }
+    }
+}
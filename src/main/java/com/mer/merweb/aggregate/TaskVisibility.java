@@ -0,0 +1,88 @@
+package com.mer.merweb.aggregate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mer.merweb.proxy.TokenVerdictCache;
+
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.function.LongSupplier;
+
+/**
+ * 登录凭证可以查到的任务，{@link TaskSearchIndex} 和 {@link TaskRangeIndex} 共用
+ * 以去掉 Bearer 前缀的令牌为键（与 {@link TokenVerdictCache} 相同），记录令牌读取过的任务编号。
+ * 记录从令牌最后一次经过网关成功读取任务起保留 ttl，查询不延长保留时间，
+ * 令牌退出登录或被后端判定无效时由 {@link #revoke(String)} 立即清除。
+ */
+final class TaskVisibility {
+
+    /**
+     * 查询时的可见任务
+     *
+     * @param ids        可见的任务编号，调用方可以修改
+     * @param incomplete 令牌读取过的任务中有因索引已满没有加入索引的
+     */
+    record Snapshot(BitSet ids, boolean incomplete) {
+    }
+
+    private static final class Session {
+
+        private final BitSet ids = new BitSet();
+        private boolean incomplete;
+    }
+
+    private final Cache<String, Session> sessions;
+
+    TaskVisibility(long maximumSessions, Duration ttl, LongSupplier clock) {
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maximumSessions)
+                .expireAfterWrite(ttl)
+                .ticker(clock::getAsLong)
+                .build();
+    }
+
+    /**
+     * 记录令牌读取了 ids 的前 count 个任务，并重新开始计算保留时间
+     *
+     * @param incomplete 这次读取的任务中有没有加入索引的
+     */
+    void grant(String authorization, int[] ids, int count, boolean incomplete) {
+        String token = TokenVerdictCache.token(authorization);
+        if (token == null || count == 0 && !incomplete) {
+            return;
+        }
+        // compute 算作写入，刷新保留时间
+        sessions.asMap().compute(token, (key, session) -> {
+            Session current = session != null ? session : new Session();
+            synchronized (current) {
+                for (int i = 0; i < count; i++) {
+                    current.ids.set(ids[i]);
+                }
+                current.incomplete |= incomplete;
+            }
+            return current;
+        });
+    }
+
+    /**
+     * 令牌当前可见的任务，没有记录时为 null
+     */
+    Snapshot snapshot(String authorization) {
+        String token = TokenVerdictCache.token(authorization);
+        Session session = token != null ? sessions.getIfPresent(token) : null;
+        if (session == null) {
+            return null;
+        }
+        synchronized (session) {
+            return new Snapshot((BitSet) session.ids.clone(), session.incomplete);
+        }
+    }
+
+    void revoke(String token) {
+        sessions.invalidate(token);
+    }
+
+    long size() {
+        return sessions.estimatedSize();
+    }
+}
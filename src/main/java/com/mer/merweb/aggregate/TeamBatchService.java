@@ -0,0 +1,181 @@
+package com.mer.merweb.aggregate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mer.merweb.config.ProxyProperties;
+import com.mer.merweb.proxy.BufferedResponse;
+import com.mer.merweb.proxy.UpstreamFetcher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 批量查询团队和部门名称
+ * 列表页中每个团队原本要分别请求 /api/team/{id} 和 /api/team/department/{id}，这里合并为一次请求：
+ * 编号去重后先取网关缓存，未命中的再并发访问后端（并发数受 mer.proxy.batch.concurrency 限制），
+ * 访问结果同样写入缓存，与单个查询接口共用。
+ */
+@Component
+public class TeamBatchService {
+
+    private static final String TEAM_PATH = "/team/";
+    private static final String DEPARTMENT_PATH = "/team/department/";
+
+    private final UpstreamFetcher fetcher;
+    private final ObjectMapper objectMapper;
+    private final int maxIds;
+    private final int concurrency;
+
+    public TeamBatchService(UpstreamFetcher fetcher, ObjectMapper objectMapper, ProxyProperties properties) {
+        this.fetcher = fetcher;
+        this.objectMapper = objectMapper;
+        this.maxIds = properties.getBatch().getMaxIds();
+        this.concurrency = properties.getBatch().getConcurrency();
+    }
+
+    /**
+     * 校验并去重团队编号，保持首次出现的顺序
+     * 支持 ids=1,2,3 和 ids=1&ids=2 两种写法
+     *
+     * @throws IllegalArgumentException 未传编号、编号不是数字或数量超过上限
+     */
+    public List<String> parseIds(List<String> rawIds) {
+        if (rawIds == null || rawIds.isEmpty()) {
+            throw new IllegalArgumentException("缺少必填参数: ids");
+        }
+        Set<String> ids = new LinkedHashSet<>();
+        for (String raw : rawIds) {
+            // 参数重复出现时 Spring 不再按逗号拆分
+            for (String part : raw.split(",")) {
+                String id = part.trim();
+                if (id.isEmpty()) {
+                    continue;
+                }
+                String normalized = normalizeId(id);
+                if (normalized == null) {
+                    throw new IllegalArgumentException("团队编号无效: " + id);
+                }
+                ids.add(normalized);
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("缺少必填参数: ids");
+        }
+        if (ids.size() > maxIds) {
+            throw new IllegalArgumentException("单次最多查询 " + maxIds + " 个团队");
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * 团队和部门名称，查询失败时对应名称为 null
+     */
+    public record TeamNames(String teamName, String departmentName) {
+    }
+
+    /**
+     * 统一团队编号的写法，07 和 7 视为同一个团队
+     *
+     * @return 规范化后的编号，不是数字时返回 null
+     */
+    public static String normalizeId(String id) {
+        try {
+            return Long.toString(Long.parseLong(id.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 查询团队和部门名称
+     * 单个编号查询失败时对应名称为 null，不影响其他编号；后端以 401 拒绝登录凭证时整体没有结果
+     *
+     * @return {"ok": true, "teams": {"7": {"team_name": "...", "department_name": "..."}}}，
+     * 后端返回 401 时为空
+     */
+    public Mono<Map<String, Object>> resolve(List<String> ids, String authorization) {
+        return fetchAll(ids, authorization)
+                .filter(all -> all.values().stream()
+                        .noneMatch(response -> response.status().value() == HttpStatus.UNAUTHORIZED.value()))
+                .map(all -> {
+                    Map<String, Object> teams = new LinkedHashMap<>();
+                    names(ids, all).forEach((id, name) -> {
+                        Map<String, Object> team = new LinkedHashMap<>();
+                        team.put("team_name", name.teamName());
+                        team.put("department_name", name.departmentName());
+                        teams.put(id, team);
+                    });
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("ok", true);
+                    result.put("teams", teams);
+                    return result;
+                });
+    }
+
+    /**
+     * 按编号查询名称，返回的映射保持 ids 的顺序
+     *
+     * @param ids 已规范化、去重的团队编号
+     */
+    public Mono<Map<String, TeamNames>> lookup(List<String> ids, String authorization) {
+        return fetchAll(ids, authorization).map(all -> names(ids, all));
+    }
+
+    /**
+     * 读取每个编号的团队和部门响应，先取网关缓存，未命中的再访问后端
+     * 访问后端失败的路径不在结果中
+     *
+     * @return 以请求路径为键的后端响应
+     */
+    private Mono<Map<String, BufferedResponse>> fetchAll(List<String> ids, String authorization) {
+        Map<String, BufferedResponse> responses = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String id : ids) {
+            for (String path : List.of(TEAM_PATH + id, DEPARTMENT_PATH + id)) {
+                BufferedResponse cached = fetcher.cached(path, authorization);
+                if (cached != null) {
+                    responses.put(path, cached);
+                } else {
+                    misses.add(path);
+                }
+            }
+        }
+
+        return Flux.fromIterable(misses)
+                .flatMap(path -> fetcher.fetch(path, authorization)
+                        .map(response -> Map.entry(path, response))
+                        .onErrorResume(e -> Mono.empty()), concurrency)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue, () -> responses);
+    }
+
+    private Map<String, TeamNames> names(List<String> ids, Map<String, BufferedResponse> responses) {
+        Map<String, TeamNames> names = new LinkedHashMap<>();
+        for (String id : ids) {
+            names.put(id, new TeamNames(textField(responses.get(TEAM_PATH + id), "team_name"),
+                    textField(responses.get(DEPARTMENT_PATH + id), "department_name")));
+        }
+        return names;
+    }
+
+    private String textField(BufferedResponse response, String name) {
+        if (response == null || response.status().value() != HttpStatus.OK.value()) {
+            return null;
+        }
+        try {
+            JsonNode value = objectMapper.readTree(response.body()).get(name);
+            return value != null && value.isTextual() ? value.asText() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
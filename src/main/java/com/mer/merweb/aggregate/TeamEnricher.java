@@ -0,0 +1,109 @@
+package com.mer.merweb.aggregate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mer.merweb.proxy.BufferedResponse;
+import com.mer.merweb.proxy.ResponseEnricher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 任务列表补充团队和部门名称（enrich=team）
+ * 列表中凡是带 team_id（或 teamId）的对象，如任务本身、创建人、指派成员，
+ * 都补上 team_name 和 department_name；同一页中的团队编号去重后一次批量查询，与 /api/team/batch 共用网关缓存。
+ * 后端已经给出的名称不覆盖，查不到的名称不补。
+ */
+@Component
+public class TeamEnricher implements ResponseEnricher {
+
+    public static final String NAME = "team";
+
+    /**
+     * 查找 team_id 的最大嵌套层数：响应 → list → 任务 → assignees → 成员
+     */
+    private static final int MAX_DEPTH = 5;
+
+    private static final List<String> TEAM_ID_FIELDS = List.of("team_id", "teamId");
+
+    private final TeamBatchService teamBatchService;
+    private final ObjectMapper objectMapper;
+
+    public TeamEnricher(TeamBatchService teamBatchService, ObjectMapper objectMapper) {
+        this.teamBatchService = teamBatchService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public Mono<BufferedResponse> enrich(BufferedResponse response, String authorization) {
+        if (response.status().value() != HttpStatus.OK.value()) {
+            return Mono.just(response);
+        }
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            return Mono.just(response);
+        }
+        Map<String, List<ObjectNode>> owners = new LinkedHashMap<>();
+        collect(root, 0, owners);
+        if (owners.isEmpty()) {
+            return Mono.just(response);
+        }
+
+        return teamBatchService.lookup(new ArrayList<>(owners.keySet()), authorization).map(names -> {
+            names.forEach((id, name) -> {
+                for (ObjectNode owner : owners.get(id)) {
+                    if (name.teamName() != null && !owner.hasNonNull("team_name")) {
+                        owner.put("team_name", name.teamName());
+                    }
+                    if (name.departmentName() != null && !owner.hasNonNull("department_name")) {
+                        owner.put("department_name", name.departmentName());
+                    }
+                }
+            });
+            try {
+                return response.withBody(objectMapper.writeValueAsBytes(root));
+            } catch (IOException e) {
+                return response;
+            }
+        });
+    }
+
+    /**
+     * 按团队编号收集需要补充名称的对象
+     */
+    private static void collect(JsonNode node, int depth, Map<String, List<ObjectNode>> owners) {
+        if (depth > MAX_DEPTH) {
+            return;
+        }
+        if (node instanceof ObjectNode object) {
+            for (String field : TEAM_ID_FIELDS) {
+                JsonNode value = object.get(field);
+                String id = value != null && (value.isIntegralNumber() || value.isTextual())
+                        ? TeamBatchService.normalizeId(value.asText()) : null;
+                if (id != null) {
+                    owners.computeIfAbsent(id, key -> new ArrayList<>()).add(object);
+                    break;
+                }
+            }
+        }
+        if (node.isContainerNode()) {
+            for (JsonNode child : node) {
+                collect(child, depth + 1, owners);
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.mer.merweb.config;
+
+import com.mer.merweb.proxy.AdaptiveConcurrencyLimiter;
+import com.mer.merweb.proxy.ServerTiming;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 网关入口的并发限制和过载保护
+ * 在安全过滤器之前执行，/api 下的请求先申请 {@link AdaptiveConcurrencyLimiter} 的许可，
+ * 超出上限且排队已满或等待超时的请求直接返回 503 和 Retry-After，不再进入鉴权和代理。
+ * 429 留给按客户端的限流，这里拒绝的原因是网关整体过载，与客户端无关。
+ * 只有代理引擎标记后端过载或不可用（{@link AdaptiveConcurrencyLimiter#UPSTREAM_DROPPED}）的请求收缩上限，
+ * 响应状态码本身不作为依据，网关自行返回的 502、503 不会让上限收缩。
+ */
+@Configuration
+public class ConcurrencyLimitConfig {
+
+    static final String OVERLOADED_BODY =
+            "{\"error\":true,\"message\":\"网关繁忙，请稍后重试\",\"reason\":\"overloaded\"}";
+
+    /**
+     * 需要限制的请求，CORS 预检请求不经过后端，不占用名额
+     */
+    static boolean limited(HttpMethod method, String path) {
+        return path.startsWith("/api/") && !HttpMethod.OPTIONS.equals(method);
+    }
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class Servlet {
+
+        @Bean
+        public FilterRegistrationBean<OncePerRequestFilter> concurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter) {
+            FilterRegistrationBean<OncePerRequestFilter> registration =
+                    new FilterRegistrationBean<>(new LimitFilter(limiter));
+            registration.addUrlPatterns("/api/*");
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+            registration.setEnabled(limiter.isEnabled());
+            return registration;
+        }
+    }
+
+    private static class LimitFilter extends OncePerRequestFilter {
+
+        private final AdaptiveConcurrencyLimiter limiter;
+
+        LimitFilter(AdaptiveConcurrencyLimiter limiter) {
+            this.limiter = limiter;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                        FilterChain chain) throws ServletException, IOException {
+            String path = request.getRequestURI().substring(request.getContextPath().length());
+            if (!limited(HttpMethod.valueOf(request.getMethod()), path)) {
+                chain.doFilter(request, response);
+                return;
+            }
+            long start = System.nanoTime();
+            AdaptiveConcurrencyLimiter.Permit permit = await(limiter.acquire());
+            if (request.getAttribute(ServerTiming.ATTRIBUTE) instanceof ServerTiming timing) {
+                timing.add(ServerTiming.Phase.QUEUE, System.nanoTime() - start);
+            }
+            if (permit == null) {
+                writeOverloaded(response);
+                return;
+            }
+
+            boolean async = false;
+            try {
+                chain.doFilter(request, response);
+                if (request.isAsyncStarted()) {
+                    // 代理响应在异步线程中写出，结束时再归还许可
+                    request.getAsyncContext().addListener(new PermitListener(permit));
+                    async = true;
+                }
+            } catch (IOException | ServletException | RuntimeException e) {
+                release(permit, request.getAttribute(AdaptiveConcurrencyLimiter.UPSTREAM_DROPPED), false);
+                throw e;
+            } finally {
+                if (!async) {
+                    release(permit, request.getAttribute(AdaptiveConcurrencyLimiter.UPSTREAM_DROPPED), true);
+                }
+            }
+        }
+
+        /**
+         * 等待排队结果，最长等待时间由限流器控制
+         */
+        private static AdaptiveConcurrencyLimiter.Permit await(CompletableFuture<AdaptiveConcurrencyLimiter.Permit> future)
+                throws ServletException {
+            if (future == null) {
+                return null;
+            }
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                future.cancel(false);
+                // 等待者已被唤醒时归还名额
+                future.thenAccept(AdaptiveConcurrencyLimiter.Permit::onIgnore);
+                Thread.currentThread().interrupt();
+                throw new ServletException(e);
+            } catch (ExecutionException | CancellationException e) {
+                return null;
+            }
+        }
+
+        private static void writeOverloaded(HttpServletResponse response) throws IOException {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write(OVERLOADED_BODY);
+        }
+    }
+
+    /**
+     * 按代理引擎的标记归还许可：后端过载或不可用时收缩上限，否则请求正常完成时耗时计入上限调整
+     *
+     * @param dropped   请求属性 {@link AdaptiveConcurrencyLimiter#UPSTREAM_DROPPED} 的值
+     * @param completed 请求是否正常完成，网关内部异常结束的请求不计入
+     */
+    private static void release(AdaptiveConcurrencyLimiter.Permit permit, Object dropped, boolean completed) {
+        if (Boolean.TRUE.equals(dropped)) {
+            permit.onDropped();
+        } else if (completed) {
+            permit.onSuccess();
+        } else {
+            permit.onIgnore();
+        }
+    }
+
+    private static class PermitListener implements AsyncListener {
+
+        private final AdaptiveConcurrencyLimiter.Permit permit;
+
+        PermitListener(AdaptiveConcurrencyLimiter.Permit permit) {
+            this.permit = permit;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(permit, event.getSuppliedRequest().getAttribute(AdaptiveConcurrencyLimiter.UPSTREAM_DROPPED), true);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            permit.onDropped();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            permit.onDropped();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    static class Reactive {
+
+        @Bean
+        @Order(Ordered.HIGHEST_PRECEDENCE + 10)
+        public WebFilter concurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter) {
+            return (exchange, chain) -> {
+                if (!limiter.isEnabled() || !limited(exchange.getRequest().getMethod(),
+                        exchange.getRequest().getPath().pathWithinApplication().value())) {
+                    return chain.filter(exchange);
+                }
+                long start = System.nanoTime();
+                CompletableFuture<AdaptiveConcurrencyLimiter.Permit> future = limiter.acquire();
+                if (future == null) {
+                    return writeOverloaded(exchange.getResponse());
+                }
+                return Mono.fromFuture(future, true)
+                        .doOnNext(permit -> {
+                            ServerTiming timing = exchange.getAttribute(ServerTiming.ATTRIBUTE);
+                            if (timing != null) {
+                                timing.add(ServerTiming.Phase.QUEUE, System.nanoTime() - start);
+                            }
+                        })
+                        .onErrorResume(e -> e instanceof TimeoutException || e instanceof CancellationException,
+                                e -> Mono.empty())
+                        .flatMap(permit -> chain.filter(exchange)
+                                .doOnSuccess(ignored -> release(permit,
+                                        exchange.getAttribute(AdaptiveConcurrencyLimiter.UPSTREAM_DROPPED), true))
+                                .doOnError(e -> release(permit,
+                                        exchange.getAttribute(AdaptiveConcurrencyLimiter.UPSTREAM_DROPPED), false))
+                                .doOnCancel(permit::onIgnore)
+                                .then(Mono.just(true)))
+                        .switchIfEmpty(Mono.defer(() -> writeOverloaded(exchange.getResponse()).then(Mono.just(true))))
+                        .doOnCancel(() -> {
+                            // 仍在排队时放弃等待，已被唤醒但尚未使用的名额归还
+                            future.cancel(false);
+                            future.thenAccept(AdaptiveConcurrencyLimiter.Permit::onIgnore);
+                        })
+                        .then();
+            };
+        }
+
+        private static Mono<Void> writeOverloaded(ServerHttpResponse response) {
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            DataBuffer buffer = response.bufferFactory().wrap(OVERLOADED_BODY.getBytes(StandardCharsets.UTF_8));
+            return response.writeWith(Mono.just(buffer));
+        }
+    }
+}
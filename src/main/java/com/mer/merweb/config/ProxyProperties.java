@@ -0,0 +1,1122 @@
+package com.mer.merweb.config;
+
+import com.mer.merweb.proxy.RouteGroup;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 代理网关配置
+ * 对应 application.properties 中 mer.proxy.* 前缀的配置项
+ */
+@ConfigurationProperties(prefix = "mer.proxy")
+public class ProxyProperties {
+
+    /**
+     * 后端服务地址
+     */
+    private String backendUrl = "http://localhost:8080/api";
+
+    /**
+     * 透传响应体时使用的缓冲区大小（字节）
+     */
+    private int bufferSize = 8192;
+
+    /**
+     * 网关读入内存的后端响应体上限（字节），合并、缓存、补充、预取等需要完整响应的处理都受此限制；
+     * 超过时不读入内存，能够直接透传的请求改为透传
+     */
+    private int maxBufferedSize = 4 * 1024 * 1024;
+
+    private final Pool pool = new Pool();
+
+    private final Cache cache = new Cache();
+
+    private final Batch batch = new Batch();
+
+    private final Statistics statistics = new Statistics();
+
+    private final Coalescing coalescing = new Coalescing();
+
+    private final Dashboard dashboard = new Dashboard();
+
+    private final Resilience resilience = new Resilience();
+
+    private final Limiter limiter = new Limiter();
+
+    private final ServerTiming serverTiming = new ServerTiming();
+
+    private final TokenCache tokenCache = new TokenCache();
+
+    private final RateLimit rateLimit = new RateLimit();
+
+    private final Prefetch prefetch = new Prefetch();
+
+    private final TaskSearch taskSearch = new TaskSearch();
+
+    private final TaskRange taskRange = new TaskRange();
+
+    private final Management management = new Management();
+
+    public String getBackendUrl() {
+        return backendUrl;
+    }
+
+    public void setBackendUrl(String backendUrl) {
+        this.backendUrl = backendUrl;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getMaxBufferedSize() {
+        return maxBufferedSize;
+    }
+
+    public void setMaxBufferedSize(int maxBufferedSize) {
+        this.maxBufferedSize = maxBufferedSize;
+    }
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    public Coalescing getCoalescing() {
+        return coalescing;
+    }
+
+    public Dashboard getDashboard() {
+        return dashboard;
+    }
+
+    public Resilience getResilience() {
+        return resilience;
+    }
+
+    public Limiter getLimiter() {
+        return limiter;
+    }
+
+    public ServerTiming getServerTiming() {
+        return serverTiming;
+    }
+
+    public TokenCache getTokenCache() {
+        return tokenCache;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public Prefetch getPrefetch() {
+        return prefetch;
+    }
+
+    public TaskSearch getTaskSearch() {
+        return taskSearch;
+    }
+
+    public TaskRange getTaskRange() {
+        return taskRange;
+    }
+
+    public Management getManagement() {
+        return management;
+    }
+
+    /**
+     * 上游连接池配置
+     */
+    public static class Pool {
+
+        /**
+         * 连接池最大连接数
+         */
+        private int maxTotal = 200;
+
+        /**
+         * 每个路由（目标主机）的最大连接数，网关只连一个后端，默认与总数相同
+         */
+        private int maxPerRoute = 200;
+
+        /**
+         * 建立 TCP 连接超时
+         */
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        /**
+         * 读取响应超时（两次数据包之间的最长等待）
+         */
+        private Duration readTimeout = Duration.ofSeconds(30);
+
+        /**
+         * 从连接池获取连接的最长等待时间
+         */
+        private Duration acquireTimeout = Duration.ofSeconds(3);
+
+        /**
+         * 后端未返回 Keep-Alive 时，连接默认保持的时长
+         */
+        private Duration keepAlive = Duration.ofSeconds(30);
+
+        /**
+         * 空闲超过该时长的连接会被后台线程回收
+         */
+        private Duration idleTimeout = Duration.ofSeconds(60);
+
+        /**
+         * 连接空闲超过该时长后，再次使用前先校验是否仍然可用
+         */
+        private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+        /**
+         * 连接最长存活时间，超过后不再复用
+         */
+        private Duration timeToLive = Duration.ofMinutes(5);
+
+        public int getMaxTotal() {
+            return maxTotal;
+        }
+
+        public void setMaxTotal(int maxTotal) {
+            this.maxTotal = maxTotal;
+        }
+
+        public int getMaxPerRoute() {
+            return maxPerRoute;
+        }
+
+        public void setMaxPerRoute(int maxPerRoute) {
+            this.maxPerRoute = maxPerRoute;
+        }
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getReadTimeout() {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+
+        public Duration getAcquireTimeout() {
+            return acquireTimeout;
+        }
+
+        public void setAcquireTimeout(Duration acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+        }
+
+        public Duration getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public Duration getValidateAfterInactivity() {
+            return validateAfterInactivity;
+        }
+
+        public void setValidateAfterInactivity(Duration validateAfterInactivity) {
+            this.validateAfterInactivity = validateAfterInactivity;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+
+    /**
+     * 网关响应缓存配置，只对路由表中声明了 cached() 的接口生效
+     */
+    public static class Cache {
+
+        /**
+         * 每个路由最多缓存的响应数，超出后按访问频率淘汰
+         */
+        private long maximumSize = 10000;
+
+        /**
+         * 成功响应的缓存时长
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+
+        /**
+         * 404 响应的缓存时长，为 0 时不缓存
+         */
+        private Duration negativeTtl = Duration.ofMinutes(1);
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getNegativeTtl() {
+            return negativeTtl;
+        }
+
+        public void setNegativeTtl(Duration negativeTtl) {
+            this.negativeTtl = negativeTtl;
+        }
+    }
+
+    /**
+     * 网关批量查询接口配置
+     */
+    public static class Batch {
+
+        /**
+         * 单次批量查询最多的编号数
+         */
+        private int maxIds = 100;
+
+        /**
+         * 单次批量查询中同时访问后端的最大请求数
+         */
+        private int concurrency = 8;
+
+        public int getMaxIds() {
+            return maxIds;
+        }
+
+        public void setMaxIds(int maxIds) {
+            this.maxIds = maxIds;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+    }
+
+    /**
+     * 统计接口按天缓存配置
+     */
+    public static class Statistics {
+
+        /**
+         * 最多缓存的天数（每个接口、每个登录凭证的每一天算一个）
+         */
+        private long maxBuckets = 100000;
+
+        /**
+         * 历史日期统计的缓存时长，过期后重新向后端获取，用于兜底后端修正历史数据的情况
+         */
+        private Duration ttl = Duration.ofHours(24);
+
+        public long getMaxBuckets() {
+            return maxBuckets;
+        }
+
+        public void setMaxBuckets(long maxBuckets) {
+            this.maxBuckets = maxBuckets;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * 并发请求合并配置，合并范围在路由表中按接口设置
+     */
+    public static class Coalescing {
+
+        /**
+         * 总开关：为 true 时路由表中声明 coalesce 的接口合并并发的相同 GET 请求，
+         * 为 false 时所有接口都不合并，不需要逐个修改路由表
+         */
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    /**
+     * 统计周报汇总接口配置
+     */
+    public static class Dashboard {
+
+        /**
+         * 每个分项访问后端的最长等待时间，超时的分项标记为失败，不影响其他分项
+         */
+        private Duration timeout = Duration.ofSeconds(3);
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * 按路由分组熔断和限制并发
+     * 各分组分别配置，如 mer.proxy.resilience.groups.statistics.max-concurrent-calls=10，未配置的分组使用默认值
+     */
+    public static class Resilience {
+
+        /**
+         * 是否启用熔断和并发限制
+         */
+        private boolean enabled = true;
+
+        private final Map<RouteGroup, Policy> groups = new EnumMap<>(RouteGroup.class);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Map<RouteGroup, Policy> getGroups() {
+            return groups;
+        }
+
+        /**
+         * 分组的策略，未配置时返回默认值
+         */
+        public Policy policy(RouteGroup group) {
+            return groups.getOrDefault(group, new Policy());
+        }
+    }
+
+    /**
+     * 一个路由分组的熔断和并发限制策略
+     */
+    public static class Policy {
+
+        /**
+         * 同时访问后端的最大请求数，超出的请求直接返回 503，不排队等待
+         */
+        private int maxConcurrentCalls = 50;
+
+        /**
+         * 按最近多少次调用计算失败率和慢调用比例
+         */
+        private int slidingWindowSize = 50;
+
+        /**
+         * 至少累计多少次调用后才计算失败率，避免少量调用就触发熔断
+         */
+        private int minimumNumberOfCalls = 20;
+
+        /**
+         * 失败率（连接失败、超时和 5xx 响应）达到该百分比时熔断
+         */
+        private float failureRateThreshold = 50;
+
+        /**
+         * 慢调用比例达到该百分比时熔断
+         */
+        private float slowCallRateThreshold = 80;
+
+        /**
+         * 后端超过该时长才返回响应头的调用记为慢调用
+         */
+        private Duration slowCallDuration = Duration.ofSeconds(5);
+
+        /**
+         * 熔断后等待多久进入半开状态，放行少量请求探测后端是否恢复
+         */
+        private Duration waitInOpenState = Duration.ofSeconds(10);
+
+        /**
+         * 半开状态放行的探测请求数，全部完成后按失败率决定关闭还是重新熔断
+         */
+        private int permittedCallsInHalfOpenState = 5;
+
+        public int getMaxConcurrentCalls() {
+            return maxConcurrentCalls;
+        }
+
+        public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+        }
+
+        public int getSlidingWindowSize() {
+            return slidingWindowSize;
+        }
+
+        public void setSlidingWindowSize(int slidingWindowSize) {
+            this.slidingWindowSize = slidingWindowSize;
+        }
+
+        public int getMinimumNumberOfCalls() {
+            return minimumNumberOfCalls;
+        }
+
+        public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+            this.minimumNumberOfCalls = minimumNumberOfCalls;
+        }
+
+        public float getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(float failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public float getSlowCallRateThreshold() {
+            return slowCallRateThreshold;
+        }
+
+        public void setSlowCallRateThreshold(float slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+
+        public Duration getSlowCallDuration() {
+            return slowCallDuration;
+        }
+
+        public void setSlowCallDuration(Duration slowCallDuration) {
+            this.slowCallDuration = slowCallDuration;
+        }
+
+        public Duration getWaitInOpenState() {
+            return waitInOpenState;
+        }
+
+        public void setWaitInOpenState(Duration waitInOpenState) {
+            this.waitInOpenState = waitInOpenState;
+        }
+
+        public int getPermittedCallsInHalfOpenState() {
+            return permittedCallsInHalfOpenState;
+        }
+
+        public void setPermittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+            this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+        }
+    }
+
+    /**
+     * 网关入口的自适应并发限制，只作用于 /api 下的请求
+     */
+    public static class Limiter {
+
+        /**
+         * 是否启用
+         */
+        private boolean enabled = true;
+
+        /**
+         * 启动时允许同时处理的请求数，之后按响应耗时自动调整
+         */
+        private int initialLimit = 100;
+
+        private int minLimit = 20;
+
+        private int maxLimit = 1000;
+
+        /**
+         * 响应耗时超过长期平均值的多少倍时开始收缩并发上限
+         */
+        private double tolerance = 2.0;
+
+        /**
+         * 每次调整向新上限靠拢的比例，越小越平稳
+         */
+        private double smoothing = 0.2;
+
+        /**
+         * 后端过载（502、503、504 或连接失败）时上限乘以该系数
+         */
+        private double backoffRatio = 0.9;
+
+        /**
+         * 超出上限时最多排队的请求数，再多的请求直接返回 503
+         */
+        private int maxQueue = 100;
+
+        /**
+         * 排队的最长等待时间，超时返回 503
+         */
+        private Duration maxWait = Duration.ofMillis(100);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getTolerance() {
+            return tolerance;
+        }
+
+        public void setTolerance(double tolerance) {
+            this.tolerance = tolerance;
+        }
+
+        public double getSmoothing() {
+            return smoothing;
+        }
+
+        public void setSmoothing(double smoothing) {
+            this.smoothing = smoothing;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+
+        public int getMaxQueue() {
+            return maxQueue;
+        }
+
+        public void setMaxQueue(int maxQueue) {
+            this.maxQueue = maxQueue;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+    }
+
+    /**
+     * 接口响应的 Server-Timing 响应头，浏览器开发者工具中可以看到各阶段耗时
+     */
+    public static class ServerTiming {
+
+        /**
+         * 是否输出，耗时信息会暴露网关内部情况，默认关闭
+         */
+        private boolean enabled = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    /**
+     * 令牌校验结果缓存配置
+     */
+    public static class TokenCache {
+
+        /**
+         * 是否启用，关闭后所有请求都交给后端鉴权
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最多记录的令牌数，超出后按访问频率淘汰
+         */
+        private long maximumSize = 10000;
+
+        /**
+         * 有效令牌的记录时长，有效的记录不跳过后端鉴权
+         */
+        private Duration validTtl = Duration.ofMinutes(10);
+
+        /**
+         * 无效令牌的记录时长，期间携带该令牌的请求由网关直接返回 401
+         */
+        private Duration rejectedTtl = Duration.ofMinutes(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getValidTtl() {
+            return validTtl;
+        }
+
+        public void setValidTtl(Duration validTtl) {
+            this.validTtl = validTtl;
+        }
+
+        public Duration getRejectedTtl() {
+            return rejectedTtl;
+        }
+
+        public void setRejectedTtl(Duration rejectedTtl) {
+            this.rejectedTtl = rejectedTtl;
+        }
+    }
+
+    /**
+     * 登录、验证码等接口的限流
+     * 各策略分别配置，如 mer.proxy.rate-limit.policies.login.account-capacity=5，未配置的策略使用默认值
+     */
+    public static class RateLimit {
+
+        /**
+         * 是否启用限流
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最多记录的客户端 IP 和账号数，超出后按访问频率淘汰
+         */
+        private long maximumKeys = 100000;
+
+        /**
+         * 多久没有请求的 IP 和账号不再记录，应不短于令牌从耗尽到恢复满额的时间
+         */
+        private Duration idleTimeout = Duration.ofMinutes(30);
+
+        /**
+         * 需要从请求体中读取账号时，请求体的最大字节数，超出时返回 413
+         */
+        private int maxBodySize = 16384;
+
+        private final Map<String, RatePolicy> policies = new LinkedHashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaximumKeys() {
+            return maximumKeys;
+        }
+
+        public void setMaximumKeys(long maximumKeys) {
+            this.maximumKeys = maximumKeys;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public int getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        public void setMaxBodySize(int maxBodySize) {
+            this.maxBodySize = maxBodySize;
+        }
+
+        public Map<String, RatePolicy> getPolicies() {
+            return policies;
+        }
+
+        /**
+         * 策略的配置，未配置时返回默认值
+         */
+        public RatePolicy policy(String name) {
+            return policies.getOrDefault(name, new RatePolicy());
+        }
+    }
+
+    /**
+     * 一个限流策略：同一客户端 IP、同一账号各有一个令牌桶
+     * 桶满时可以连续请求 capacity 次，之后每 refillPeriod 恢复一次
+     */
+    public static class RatePolicy {
+
+        /**
+         * 同一客户端 IP 可以连续请求的次数
+         */
+        private int ipCapacity = 20;
+
+        /**
+         * 同一客户端 IP 每隔多久恢复一次请求机会
+         */
+        private Duration ipRefillPeriod = Duration.ofSeconds(3);
+
+        /**
+         * 同一账号可以连续请求的次数
+         */
+        private int accountCapacity = 5;
+
+        /**
+         * 同一账号每隔多久恢复一次请求机会
+         */
+        private Duration accountRefillPeriod = Duration.ofMinutes(1);
+
+        public int getIpCapacity() {
+            return ipCapacity;
+        }
+
+        public void setIpCapacity(int ipCapacity) {
+            this.ipCapacity = ipCapacity;
+        }
+
+        public Duration getIpRefillPeriod() {
+            return ipRefillPeriod;
+        }
+
+        public void setIpRefillPeriod(Duration ipRefillPeriod) {
+            this.ipRefillPeriod = ipRefillPeriod;
+        }
+
+        public int getAccountCapacity() {
+            return accountCapacity;
+        }
+
+        public void setAccountCapacity(int accountCapacity) {
+            this.accountCapacity = accountCapacity;
+        }
+
+        public Duration getAccountRefillPeriod() {
+            return accountRefillPeriod;
+        }
+
+        public void setAccountRefillPeriod(Duration accountRefillPeriod) {
+            this.accountRefillPeriod = accountRefillPeriod;
+        }
+    }
+
+    /**
+     * 分页列表预取下一页，预取的接口在路由表中声明
+     */
+    public static class Prefetch {
+
+        /**
+         * 是否预取，默认关闭
+         */
+        private boolean enabled = false;
+
+        /**
+         * 预取结果的保留时长，超过后不再使用，避免返回过旧的数据
+         */
+        private Duration ttl = Duration.ofSeconds(15);
+
+        /**
+         * 最多为多少个登录凭证保留预取结果，每个凭证每个接口只保留最近一次预取的一页
+         */
+        private long maximumSessions = 10000;
+
+        /**
+         * 同时进行的预取请求数上限，已满时不再预取
+         */
+        private int maxConcurrent = 4;
+
+        /**
+         * 入口并发或路由分组并发的占用比例达到该值时不预取，预取不与前台请求争抢后端
+         */
+        private double maxLoad = 0.5;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public long getMaximumSessions() {
+            return maximumSessions;
+        }
+
+        public void setMaximumSessions(long maximumSessions) {
+            this.maximumSessions = maximumSessions;
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public double getMaxLoad() {
+            return maxLoad;
+        }
+
+        public void setMaxLoad(double maxLoad) {
+            this.maxLoad = maxLoad;
+        }
+    }
+
+    /**
+     * 任务关键词搜索索引配置
+     */
+    public static class TaskSearch {
+
+        /**
+         * 索引的任务数上限，达到后新读到的任务不再加入索引，读取过这些任务的登录凭证搜索结果中 incomplete 为 true
+         */
+        private int maxDocuments = 100000;
+
+        /**
+         * 最多为多少个登录凭证记录可搜索的任务
+         */
+        private long maximumSessions = 10000;
+
+        /**
+         * 登录凭证最后一次读取任务后，读取过的任务在多长时间内可以被它搜索到，搜索不延长这段时间；
+         * 超过后需要重新读取任务列表，退出登录或令牌被后端判定无效时立即失效
+         */
+        private Duration visibilityTtl = Duration.ofMinutes(30);
+
+        /**
+         * 搜索关键词的最大长度
+         */
+        private int maxQueryLength = 64;
+
+        /**
+         * 每页最多返回的任务数
+         */
+        private int maxPageSize = 100;
+
+        public int getMaxDocuments() {
+            return maxDocuments;
+        }
+
+        public void setMaxDocuments(int maxDocuments) {
+            this.maxDocuments = maxDocuments;
+        }
+
+        public long getMaximumSessions() {
+            return maximumSessions;
+        }
+
+        public void setMaximumSessions(long maximumSessions) {
+            this.maximumSessions = maximumSessions;
+        }
+
+        public Duration getVisibilityTtl() {
+            return visibilityTtl;
+        }
+
+        public void setVisibilityTtl(Duration visibilityTtl) {
+            this.visibilityTtl = visibilityTtl;
+        }
+
+        public int getMaxQueryLength() {
+            return maxQueryLength;
+        }
+
+        public void setMaxQueryLength(int maxQueryLength) {
+            this.maxQueryLength = maxQueryLength;
+        }
+
+        public int getMaxPageSize() {
+            return maxPageSize;
+        }
+
+        public void setMaxPageSize(int maxPageSize) {
+            this.maxPageSize = maxPageSize;
+        }
+    }
+
+    /**
+     * 任务日期范围索引配置
+     */
+    public static class TaskRange {
+
+        /**
+         * 索引的任务数上限，达到后新读到的任务不再加入索引，读取过这些任务的登录凭证查询结果中 incomplete 为 true
+         */
+        private int maxDocuments = 100000;
+
+        /**
+         * 最多为多少个登录凭证记录可查询的任务
+         */
+        private long maximumSessions = 10000;
+
+        /**
+         * 登录凭证最后一次读取任务后，读取过的任务在多长时间内可以被它查询到，查询不延长这段时间；
+         * 超过后需要重新读取任务列表，退出登录或令牌被后端判定无效时立即失效
+         */
+        private Duration visibilityTtl = Duration.ofMinutes(30);
+
+        /**
+         * 一次查询的日期范围最多包含多少天
+         */
+        private int maxDays = 366;
+
+        /**
+         * 一次查询最多返回的任务数，超过时只返回开始日期最早的部分，按天统计的任务数不受影响
+         */
+        private int maxResults = 1000;
+
+        public int getMaxDocuments() {
+            return maxDocuments;
+        }
+
+        public void setMaxDocuments(int maxDocuments) {
+            this.maxDocuments = maxDocuments;
+        }
+
+        public long getMaximumSessions() {
+            return maximumSessions;
+        }
+
+        public void setMaximumSessions(long maximumSessions) {
+            this.maximumSessions = maximumSessions;
+        }
+
+        public Duration getVisibilityTtl() {
+            return visibilityTtl;
+        }
+
+        public void setVisibilityTtl(Duration visibilityTtl) {
+            this.visibilityTtl = visibilityTtl;
+        }
+
+        public int getMaxDays() {
+            return maxDays;
+        }
+
+        public void setMaxDays(int maxDays) {
+            this.maxDays = maxDays;
+        }
+
+        public int getMaxResults() {
+            return maxResults;
+        }
+
+        public void setMaxResults(int maxResults) {
+            this.maxResults = maxResults;
+        }
+    }
+
+    /**
+     * 运行指标（/actuator，健康检查除外）和网关状态接口（/gateway）的访问限制
+     */
+    public static class Management {
+
+        /**
+         * 允许访问的客户端地址，IP 或 CIDR 网段；其他地址返回 403
+         * 按连接的对端地址判断，网关前面有反向代理时需要在代理上屏蔽这两个路径，或设置 management.server.port
+         */
+        private List<String> allowedAddresses = List.of("127.0.0.1", "::1");
+
+        public List<String> getAllowedAddresses() {
+            return allowedAddresses;
+        }
+
+        public void setAllowedAddresses(List<String> allowedAddresses) {
+            this.allowedAddresses = allowedAddresses;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.mer.merweb.config;
+
+import com.mer.merweb.aggregate.TaskRangeIndex;
+import com.mer.merweb.aggregate.TaskSearchIndex;
+import com.mer.merweb.aggregate.TeamEnricher;
+import com.mer.merweb.proxy.CoalescingScope;
+import com.mer.merweb.proxy.DailyBuckets;
+import com.mer.merweb.proxy.FailureBodies;
+import com.mer.merweb.proxy.ProxyRoute;
+import com.mer.merweb.proxy.RouteTable;
+import com.mer.merweb.proxy.TokenRole;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.mer.merweb.proxy.RouteGroup.*;
+
+/**
+ * 代理路由表
+ * 新增接口只需在此处声明一行路由，路径变量写作 {name} 或 {name:number}，
+ * 后端地址默认与网关路径相同（相对于 mer.proxy.backend-url）。
+ */
+@Configuration
+public class ProxyRouteConfig {
+
+    @Bean
+    public RouteTable proxyRouteTable() {
+        return RouteTable.of(
+            // ==================== 认证与账号 ====================
+            ProxyRoute.post("/login", "/login/").upstream("/login").group(AUTH).anonymous().token(TokenRole.ISSUE)
+                    .rateLimit("login", "username", "email")
+                    .onServerError((exchange, status) -> ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                            .body(Map.of("error", true, "message", "后端服务器错误: " + status)))
+                    .onFailure(FailureBodies.error("连接后端失败")),
+            ProxyRoute.post("/send-verification-code/").group(AUTH).anonymous()
+                    .rateLimit("verification-code", "email")
+                    .onFailure(FailureBodies.error("发送验证码失败")),
+            // 后端接口路径不带末尾斜杠
+            ProxyRoute.post("/forgot-password/reset").group(AUTH).anonymous()
+                    .rateLimit("password-reset", "email")
+                    .onFailure(FailureBodies.error("重置密码失败")),
+            ProxyRoute.post("/user/logout").group(AUTH).token(TokenRole.REVOKE)
+                    .onFailure(FailureBodies.okMessage("退出登录失败")),
+
+            // ==================== 用户管理 ====================
+            // 分页列表开启预取（mer.proxy.prefetch.enabled）时在后台预取下一页
+            ProxyRoute.get("/user").group(USER)
+                    .query("page", "1").query("pageSize", "10")
+                    .query("keyword").query("role_id").query("team_id")
+                    .prefetch("page", "pageSize")
+                    .onFailure(FailureBodies.error("获取用户列表失败")),
+            ProxyRoute.get("/user/{userId:number}").group(USER)
+                    .onFailure(FailureBodies.error("获取用户详情失败")),
+            ProxyRoute.post("/user").group(USER)
+                    .onFailure(FailureBodies.okMessage("创建用户失败")),
+            ProxyRoute.put("/user/{userId:number}").group(USER)
+                    .onFailure(FailureBodies.okMessage("更新用户失败")),
+            // 每个页面打开时都会查询当前用户，同一用户并发的查询合并为一次
+            ProxyRoute.get("/user/profile").group(USER).token(TokenRole.VERIFY)
+                    .coalesce(CoalescingScope.AUTHORIZATION)
+                    .onFailure(FailureBodies.fixed(Map.of("ok", false, "error", "Internal Server Error"))),
+            ProxyRoute.put("/user/profile").group(USER)
+                    .onFailure(FailureBodies.fixed(Map.of("ok", false, "error", "Internal Server Error"))),
+
+            // ==================== 个人日志 ====================
+            // 不传递date参数，让后端查询所有日期的日志
+            ProxyRoute.get("/journals/").group(JOURNALS)
+                    .query("page", "1").query("pageSize", "9")
+                    .prefetch("page", "pageSize")
+                    // 后端500错误，返回更友好的错误信息
+                    .onServerError((exchange, status) -> ResponseEntity.ok(Map.of(
+                            "list", List.of(),
+                            "total", 0,
+                            "page", exchange.queryInt("page", 1),
+                            "pageSize", exchange.queryInt("pageSize", 9),
+                            "error", true,
+                            "message", "日志数据加载失败，可能存在数据不一致问题。请联系管理员检查数据库。")))
+                    .onFailure((exchange, e) -> Map.of(
+                            "error", true,
+                            "message", "获取日志列表失败: " + e.getMessage(),
+                            "list", List.of(),
+                            "total", 0)),
+            ProxyRoute.post("/journals/").group(JOURNALS)
+                    .onFailure(FailureBodies.okMessage("创建日志失败")),
+            ProxyRoute.delete("/journals/{journalId:number}").group(JOURNALS)
+                    .onFailure(FailureBodies.okMessage("删除日志失败")),
+
+            // ==================== 团队管理 ====================
+            // 团队、部门名称几乎不变，且列表和日历中同一团队会被反复查询，在网关缓存
+            ProxyRoute.get("/team/{teamId:number}").group(TEAM).cached()
+                    .onFailure(FailureBodies.okMessage("查询编号对应团队失败")),
+            ProxyRoute.get("/team/department/{teamId:number}").group(TEAM).cached()
+                    .onFailure(FailureBodies.okMessage("查询团队所属部门失败")),
+
+            // ==================== 任务管理 ====================
+            // 任务列表支持 enrich=team，由网关补充团队和部门名称，页面不必逐个查询
+            // 读取和创建任务的响应加入网关的搜索索引（/api/tasks/search）和日期范围索引（/api/tasks/range）
+            ProxyRoute.get("/tasks/all").group(TASKS)
+                    .query("status").query("priority").query("page", "1").query("pageSize", "10")
+                    .enrichable(TeamEnricher.NAME).prefetch("page", "pageSize").observedBy(TaskSearchIndex.NAME, TaskRangeIndex.NAME)
+                    .onFailure(FailureBodies.error("获取所有任务失败")),
+            ProxyRoute.get("/tasks/{taskId:number}").group(TASKS).observedBy(TaskSearchIndex.NAME, TaskRangeIndex.NAME)
+                    .onFailure(FailureBodies.error("获取任务详情失败")),
+            ProxyRoute.post("/tasks").group(TASKS).observedBy(TaskSearchIndex.NAME, TaskRangeIndex.NAME)
+                    .onFailure(FailureBodies.okError("创建任务失败")),
+            // 仪表盘的个人任务会被多个组件同时请求，同一用户并发的相同请求合并为一次
+            ProxyRoute.get("/tasks/personal").group(TASKS)
+                    .query("status").query("priority").query("page", "1").query("pageSize", "10")
+                    .coalesce(CoalescingScope.AUTHORIZATION).enrichable(TeamEnricher.NAME).observedBy(TaskSearchIndex.NAME, TaskRangeIndex.NAME)
+                    .onFailure(FailureBodies.okError("获取个人任务失败")),
+            ProxyRoute.get("/tasks/myView").group(TASKS)
+                    .query("status").query("priority").query("page", "1").query("pageSize", "10")
+                    .enrichable(TeamEnricher.NAME).observedBy(TaskSearchIndex.NAME, TaskRangeIndex.NAME)
+                    .onFailure(FailureBodies.okError("获取可见任务失败")),
+            // 公司重要任务对所有人相同，仪表盘同时打开时不同用户的请求也合并
+            ProxyRoute.get("/company-tasks/important").group(TASKS).coalesce(CoalescingScope.SHARED)
+                    .onFailure(FailureBodies.fixed(Map.of("tasks", List.of()))),
+            ProxyRoute.put("/company-tasks").group(TASKS)
+                    .onFailure(FailureBodies.error("连接后端失败")),
+
+            // ==================== 评论 ====================
+            ProxyRoute.post("/comments").group(COMMENTS)
+                    .onFailure(FailureBodies.code("评论创建失败")),
+            ProxyRoute.get("/comments").group(COMMENTS)
+                    .required("ownerType").required("ownerId").query("page", "1").query("pageSize", "10")
+                    .prefetch("page", "pageSize")
+                    .onFailure((exchange, e) -> Map.of(
+                            "list", List.of(),
+                            "total", 0,
+                            "page", exchange.queryInt("page", 1),
+                            "pageSize", exchange.queryInt("pageSize", 10))),
+            ProxyRoute.delete("/comments/{commentId}").group(COMMENTS)
+                    .query("userId")
+                    .onFailure(FailureBodies.code("删除评论失败")),
+
+            // ==================== 统计 ====================
+            // 统计接口的历史日期按天缓存，只有包含今天的部分访问后端；密码重置统计是当前快照，不缓存
+            ProxyRoute.get("/login/statistic").group(STATISTICS)
+                    .required("timeUnit").required("startDate").required("endDate")
+                    .dailyBuckets(DailyBuckets.of("points", "timeBucket").when("timeUnit", "day"))
+                    .onFailure(FailureBodies.error("获取登录趋势统计失败")),
+            ProxyRoute.get("/user/statistic").group(STATISTICS)
+                    .onFailure(FailureBodies.error("获取密码重置统计失败")),
+            ProxyRoute.get("/tasks/statistic").group(STATISTICS)
+                    .required("startDate").required("endDate")
+                    .dailyBuckets(DailyBuckets.of("daily", "date"))
+                    .onFailure(FailureBodies.error("获取任务统计失败")),
+            ProxyRoute.get("/journals/statistic").group(STATISTICS)
+                    .required("startDate").required("endDate")
+                    .dailyBuckets(DailyBuckets.of("daily", "date"))
+                    .onFailure(FailureBodies.error("获取日志和评论统计失败"))
+        );
+    }
+}
@@ -0,0 +1,55 @@
+package com.mer.merweb.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.util.matcher.IpAddressServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.OrServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+
+import java.util.List;
+
+/**
+ * 响应式模式的安全配置，与 SecurityConfig 保持一致
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, ProxyProperties properties) {
+        List<ServerWebExchangeMatcher> allowed = properties.getManagement().getAllowedAddresses().stream()
+                .<ServerWebExchangeMatcher>map(IpAddressServerWebExchangeMatcher::new)
+                .toList();
+        http
+            .authorizeExchange(auth -> auth
+                .pathMatchers(
+                    "/",
+                    "/index.html",
+                    "/login.html",
+                    "/css/**",
+                    "/js/**",
+                    "/images/**",
+                    "/favicon.ico"
+                ).permitAll()
+                .pathMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                .matchers(allowed.isEmpty() ? exchange -> ServerWebExchangeMatcher.MatchResult.notMatch()
+                        : new OrServerWebExchangeMatcher(allowed)).permitAll()
+                .pathMatchers("/actuator/**", "/gateway/**").denyAll()
+                .anyExchange().permitAll()
+            )
+            // 没有登录方式，拒绝时与 Servlet 模式一样返回 403
+            .exceptionHandling(exceptions -> exceptions
+                .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN)))
+            .csrf(csrf -> csrf.disable())
+            .formLogin(form -> form.disable())
+            .httpBasic(basic -> basic.disable())
+            .logout(logout -> logout.disable());
+
+        return http.build();
+    }
+}
@@ -0,0 +1,114 @@
+package com.mer.merweb.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.netty.channel.ChannelOption;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 响应式模式的内嵌服务器和上游 HTTP 客户端配置
+ * 服务端和 WebClient 都基于 Reactor Netty，共用同一组事件循环线程，等待后端响应时不占用线程。
+ * 连接池沿用 mer.proxy.pool.* 配置：max-total 为每个后端地址的最大连接数，
+ * keep-alive 和 validate-after-inactivity 只对 Servlet 模式的 HttpClient 生效。
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(ProxyProperties.class)
+public class ReactiveUpstreamClientConfig {
+
+    /**
+     * classpath 中同时存在 Tomcat 时 Spring Boot 默认使用 Tomcat 的响应式适配，这里显式指定 Netty
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider upstreamConnectionProvider(ProxyProperties properties, MeterRegistry meterRegistry) {
+        ProxyProperties.Pool pool = properties.getPool();
+        return ConnectionProvider.builder("upstream")
+                .maxConnections(pool.getMaxTotal())
+                .pendingAcquireTimeout(pool.getAcquireTimeout())
+                .maxIdleTime(pool.getIdleTimeout())
+                .maxLifeTime(pool.getTimeToLive())
+                // 后台定期清理过期和空闲连接
+                .evictInBackground(pool.getIdleTimeout())
+                .metrics(true, () -> new PoolMetrics(meterRegistry))
+                .build();
+    }
+
+    /**
+     * 连接池的占用、空闲和等待连接数，每个后端地址一组，与 Servlet 模式的连接池指标对应
+     * 直接注册到应用的 MeterRegistry，不经过 Micrometer 全局注册表
+     */
+    static class PoolMetrics implements ConnectionProvider.MeterRegistrar {
+
+        private static final String PREFIX = "mer.proxy.upstream.pool.";
+
+        private final MeterRegistry registry;
+        private final Map<String, List<Meter>> meters = new ConcurrentHashMap<>();
+
+        PoolMetrics(MeterRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public void registerMetrics(String poolName, String id, SocketAddress remoteAddress,
+                                    ConnectionPoolMetrics metrics) {
+            Tags tags = Tags.of("pool", poolName, "remote", remoteAddress.toString());
+            meters.put(id, List.of(
+                    gauge("allocated", "已建立的连接数", metrics, ConnectionPoolMetrics::allocatedSize, tags),
+                    gauge("leased", "正在使用的连接数", metrics, ConnectionPoolMetrics::acquiredSize, tags),
+                    gauge("idle", "空闲连接数", metrics, ConnectionPoolMetrics::idleSize, tags),
+                    gauge("pending", "等待获取连接的请求数", metrics, ConnectionPoolMetrics::pendingAcquireSize, tags),
+                    gauge("max", "最大连接数", metrics, ConnectionPoolMetrics::maxAllocatedSize, tags)));
+        }
+
+        @Override
+        public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+            List<Meter> removed = meters.remove(id);
+            if (removed != null) {
+                removed.forEach(registry::remove);
+            }
+        }
+
+        private Meter gauge(String name, String description, ConnectionPoolMetrics metrics,
+                            ToDoubleFunction<ConnectionPoolMetrics> value, Tags tags) {
+            return Gauge.builder(PREFIX + name, metrics, value)
+                    .description(description)
+                    .tags(tags)
+                    .register(registry);
+        }
+    }
+
+    @Bean
+    public WebClient upstreamWebClient(WebClient.Builder builder, ConnectionProvider upstreamConnectionProvider,
+                                       ProxyProperties properties) {
+        ProxyProperties.Pool pool = properties.getPool();
+        HttpClient httpClient = HttpClient.create(upstreamConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) pool.getConnectTimeout().toMillis())
+                .responseTimeout(pool.getReadTimeout());
+        // 解码器读入内存的上限与 mer.proxy.max-buffered-size 一致，默认的 256KB 放不下较大的任务列表
+        return builder.clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(properties.getMaxBufferedSize()))
+                .build();
+    }
+}
@@ -1,15 +1,25 @@
 package com.mer.merweb.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.List;
 
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, ProxyProperties properties) throws Exception {
+        List<RequestMatcher> allowed = properties.getManagement().getAllowedAddresses().stream()
+                .<RequestMatcher>map(IpAddressMatcher::new)
+                .toList();
         http
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers(
@@ -21,6 +31,10 @@ public class SecurityConfig {
                     "/images/**",
                     "/favicon.ico"
                 ).permitAll()
+                // 运行指标和网关状态只对允许的地址开放，健康检查供负载均衡探测
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                .requestMatchers(allowed.isEmpty() ? request -> false : new OrRequestMatcher(allowed)).permitAll()
+                .requestMatchers("/actuator/**", "/gateway/**").denyAll()
                 .anyRequest().permitAll()
             )
             .csrf(csrf -> csrf.disable())
@@ -0,0 +1,98 @@
+package com.mer.merweb.config;
+
+import com.mer.merweb.proxy.ServerTiming;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+
+/**
+ * 接口响应的 Server-Timing 响应头（mer.proxy.server-timing.enabled）
+ * 最先执行的过滤器为 /api 下的请求创建 {@link ServerTiming} 放入请求属性，
+ * 并发限制、代理引擎和透传代理在各自的阶段累加耗时，响应提交前写入响应头。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "mer.proxy.server-timing", name = "enabled", havingValue = "true")
+public class ServerTimingConfig {
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class Servlet {
+
+        @Bean
+        public FilterRegistrationBean<OncePerRequestFilter> serverTimingFilter() {
+            FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(
+                    new OncePerRequestFilter() {
+                        @Override
+                        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                                        FilterChain chain) throws ServletException, IOException {
+                            ServerTiming timing = new ServerTiming(System.nanoTime());
+                            request.setAttribute(ServerTiming.ATTRIBUTE, timing);
+                            TimingResponse timingResponse = new TimingResponse(response, timing);
+                            chain.doFilter(request, timingResponse);
+                            // 没有响应体的响应（如 304）不会触发提交回调
+                            if (!request.isAsyncStarted() && !response.isCommitted()) {
+                                timingResponse.onResponseCommitted();
+                            }
+                        }
+                    });
+            registration.addUrlPatterns("/api/*");
+            // 在并发限制之前，排队时间也要计入
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+            return registration;
+        }
+    }
+
+    /**
+     * 响应提交（写出响应体、flush、sendError）前写入 Server-Timing
+     */
+    private static class TimingResponse extends OnCommittedResponseWrapper {
+
+        private final ServerTiming timing;
+
+        TimingResponse(HttpServletResponse response, ServerTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            setHeader(ServerTiming.HEADER, timing.header(System.nanoTime()));
+        }
+    }
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    static class Reactive {
+
+        @Bean
+        @Order(Ordered.HIGHEST_PRECEDENCE)
+        public WebFilter serverTimingFilter() {
+            return (exchange, chain) -> {
+                if (!exchange.getRequest().getPath().pathWithinApplication().value().startsWith("/api/")) {
+                    return chain.filter(exchange);
+                }
+                ServerTiming timing = new ServerTiming(System.nanoTime());
+                exchange.getAttributes().put(ServerTiming.ATTRIBUTE, timing);
+                exchange.getResponse().beforeCommit(() -> {
+                    exchange.getResponse().getHeaders().set(ServerTiming.HEADER, timing.header(System.nanoTime()));
+                    return Mono.empty();
+                });
+                return chain.filter(exchange);
+            };
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.mer.merweb.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * 静态资源缓存策略
+ * 构建时 HTML 中的脚本、样式和图片引用已改写为内容指纹文件名（api-&lt;md5&gt;.js），内容变化后地址随之变化，
+ * 这些资源可以缓存一年且无需校验；页面和未带指纹的资源每次使用前校验，发布后立即生效。
+ * 接口响应不经过这里处理。
+ */
+@Configuration
+public class StaticResourceCacheConfig {
+
+    /**
+     * 带内容指纹的资源
+     */
+    static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    /**
+     * 页面和未带指纹的资源
+     */
+    static final String REVALIDATE = "no-cache";
+
+    /**
+     * Spring 内容版本策略的文件名：名称-32 位 MD5.扩展名
+     */
+    private static final Pattern VERSIONED = Pattern.compile("-[0-9a-f]{32}\\.[^./]+$");
+
+    /**
+     * 返回静态资源的缓存策略，接口请求返回 null
+     */
+    static String cacheControl(HttpMethod method, String path) {
+        if (!HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method)
+                || path.startsWith("/api/") || path.startsWith("/gateway/")) {
+            return null;
+        }
+        return VERSIONED.matcher(path).find() ? IMMUTABLE : REVALIDATE;
+    }
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class Servlet {
+
+        @Bean
+        public OncePerRequestFilter staticResourceCacheFilter() {
+            return new OncePerRequestFilter() {
+                @Override
+                protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                                FilterChain chain) throws ServletException, IOException {
+                    String path = request.getRequestURI().substring(request.getContextPath().length());
+                    String cacheControl = cacheControl(HttpMethod.valueOf(request.getMethod()), path);
+                    if (cacheControl == null) {
+                        chain.doFilter(request, response);
+                        return;
+                    }
+                    // 响应提交时才写入的 Spring Security 缓存头会因为已有 Cache-Control 而跳过
+                    response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+                    chain.doFilter(request, IMMUTABLE.equals(cacheControl) ? new RevalidateOnError(response) : response);
+                }
+            };
+        }
+    }
+
+    /**
+     * 带指纹的地址找不到资源时不能长期缓存错误响应
+     */
+    private static class RevalidateOnError extends HttpServletResponseWrapper {
+
+        RevalidateOnError(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            revalidateOnError(sc);
+            super.setStatus(sc);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            revalidateOnError(sc);
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            revalidateOnError(sc);
+            super.sendError(sc, msg);
+        }
+
+        private void revalidateOnError(int sc) {
+            if (sc >= 400) {
+                setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE);
+            }
+        }
+    }
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    static class Reactive {
+
+        @Bean
+        public WebFilter staticResourceCacheFilter() {
+            return (exchange, chain) -> {
+                String cacheControl = cacheControl(exchange.getRequest().getMethod(),
+                        exchange.getRequest().getPath().pathWithinApplication().value());
+                if (cacheControl != null) {
+                    ServerHttpResponse response = exchange.getResponse();
+                    // 在 Spring Security 写入缓存头之后执行，覆盖其 no-store
+                    response.beforeCommit(() -> {
+                        HttpStatusCode status = response.getStatusCode();
+                        HttpHeaders headers = response.getHeaders();
+                        headers.setCacheControl(status != null && status.isError() ? REVALIDATE : cacheControl);
+                        headers.remove(HttpHeaders.PRAGMA);
+                        headers.remove(HttpHeaders.EXPIRES);
+                        return Mono.empty();
+                    });
+                }
+                return chain.filter(exchange);
+            };
+        }
+    }
+}
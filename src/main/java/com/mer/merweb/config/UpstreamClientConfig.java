@@ -0,0 +1,80 @@
+package com.mer.merweb.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+/**
+ * 上游（后端服务）HTTP 客户端配置
+ * 所有代理请求共用一个带连接池、长连接和超时控制的 HttpClient；响应式模式见 ReactiveUpstreamClientConfig
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@EnableConfigurationProperties(ProxyProperties.class)
+public class UpstreamClientConfig {
+
+    @Bean
+    public PoolingHttpClientConnectionManager upstreamConnectionManager(ProxyProperties properties) {
+        ProxyProperties.Pool pool = properties.getPool();
+        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(pool.getConnectTimeout()))
+                .setSocketTimeout(Timeout.of(pool.getReadTimeout()))
+                .setValidateAfterInactivity(TimeValue.of(pool.getValidateAfterInactivity()))
+                .setTimeToLive(TimeValue.of(pool.getTimeToLive()))
+                .build();
+
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(pool.getMaxTotal())
+                .setMaxConnPerRoute(pool.getMaxPerRoute())
+                .setDefaultConnectionConfig(connectionConfig)
+                .build();
+    }
+
+    /**
+     * 连接池的占用、空闲和等待连接数
+     */
+    @Bean
+    public MeterBinder upstreamConnectionPoolMetrics(PoolingHttpClientConnectionManager upstreamConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(upstreamConnectionManager, "upstream");
+    }
+
+    @Bean
+    public CloseableHttpClient upstreamHttpClient(PoolingHttpClientConnectionManager upstreamConnectionManager,
+                                                  ProxyProperties properties) {
+        ProxyProperties.Pool pool = properties.getPool();
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(pool.getAcquireTimeout()))
+                .setResponseTimeout(Timeout.of(pool.getReadTimeout()))
+                // 后端响应未携带 Keep-Alive 头时使用的默认保持时长
+                .setConnectionKeepAlive(TimeValue.of(pool.getKeepAlive()))
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(upstreamConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                // 网关为所有用户共用连接，不能在客户端保存 Cookie
+                .disableCookieManagement()
+                // 后台线程定期清理过期和空闲连接
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(pool.getIdleTimeout()))
+                .build();
+    }
+
+    @Bean
+    public ClientHttpRequestFactory upstreamRequestFactory(CloseableHttpClient upstreamHttpClient) {
+        return new HttpComponentsClientHttpRequestFactory(upstreamHttpClient);
+    }
+}
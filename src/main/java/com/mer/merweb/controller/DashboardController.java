@@ -0,0 +1,44 @@
+package com.mer.merweb.controller;
+
+import com.mer.merweb.aggregate.DashboardSummaryService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * 统计周报汇总
+ * 路径比代理控制器的 /api/** 更具体，优先匹配；Servlet 与响应式两种模式通用
+ */
+@RestController
+@RequestMapping("/api/dashboard")
+@CrossOrigin(origins = {"http://localhost:8001", "http://127.0.0.1:8001"})
+public class DashboardController {
+
+    private final DashboardSummaryService dashboardSummaryService;
+
+    public DashboardController(DashboardSummaryService dashboardSummaryService) {
+        this.dashboardSummaryService = dashboardSummaryService;
+    }
+
+    /**
+     * 一次获取统计周报的所有分项，单个分项失败不影响其他分项
+     * GET /api/dashboard/summary?timeUnit=day&startDate=2024-10-25&endDate=2024-10-31
+     */
+    @GetMapping("/summary")
+    public Mono<ResponseEntity<Map<String, Object>>> getSummary(
+            @RequestParam(value = "timeUnit", required = false) String timeUnit,
+            @RequestParam(value = "startDate", required = false) String startDate,
+            @RequestParam(value = "endDate", required = false) String endDate,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        DashboardSummaryService.Range range;
+        try {
+            range = dashboardSummaryService.parseRange(timeUnit, startDate, endDate);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("error", true, "message", e.getMessage())));
+        }
+        return dashboardSummaryService.summarize(range, authorization).map(ResponseEntity::ok);
+    }
+}
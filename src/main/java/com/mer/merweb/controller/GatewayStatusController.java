@@ -0,0 +1,177 @@
+package com.mer.merweb.controller;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import com.mer.merweb.aggregate.TaskRangeIndex;
+import com.mer.merweb.aggregate.TaskSearchIndex;
+import com.mer.merweb.proxy.AdaptiveConcurrencyLimiter;
+import com.mer.merweb.proxy.DailyBucketCache;
+import com.mer.merweb.proxy.NextPagePrefetcher;
+import com.mer.merweb.proxy.RateLimiter;
+import com.mer.merweb.proxy.RequestCoalescer;
+import com.mer.merweb.proxy.ResponseCache;
+import com.mer.merweb.proxy.RouteGroupGuard;
+import com.mer.merweb.proxy.TokenVerdictCache;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 网关自身运行状态
+ * 不经过后端，直接返回网关内部的统计信息；Servlet 与响应式两种模式通用
+ */
+@RestController
+@RequestMapping("/gateway")
+public class GatewayStatusController {
+
+    private final ObjectProvider<PoolingHttpClientConnectionManager> connectionManagerProvider;
+    private final ResponseCache responseCache;
+    private final DailyBucketCache dailyBucketCache;
+    private final RequestCoalescer coalescer;
+    private final RouteGroupGuard guard;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final TokenVerdictCache tokenVerdicts;
+    private final RateLimiter rateLimiter;
+    private final NextPagePrefetcher prefetcher;
+    private final TaskSearchIndex taskSearchIndex;
+    private final TaskRangeIndex taskRangeIndex;
+
+    public GatewayStatusController(ObjectProvider<PoolingHttpClientConnectionManager> connectionManagerProvider,
+                                   ResponseCache responseCache, DailyBucketCache dailyBucketCache,
+                                   RequestCoalescer coalescer, RouteGroupGuard guard,
+                                   AdaptiveConcurrencyLimiter limiter, TokenVerdictCache tokenVerdicts,
+                                   RateLimiter rateLimiter, NextPagePrefetcher prefetcher,
+                                   TaskSearchIndex taskSearchIndex, TaskRangeIndex taskRangeIndex) {
+        this.connectionManagerProvider = connectionManagerProvider;
+        this.responseCache = responseCache;
+        this.dailyBucketCache = dailyBucketCache;
+        this.coalescer = coalescer;
+        this.guard = guard;
+        this.limiter = limiter;
+        this.tokenVerdicts = tokenVerdicts;
+        this.rateLimiter = rateLimiter;
+        this.prefetcher = prefetcher;
+        this.taskSearchIndex = taskSearchIndex;
+        this.taskRangeIndex = taskRangeIndex;
+    }
+
+    /**
+     * 上游连接池统计，只有 Servlet 模式的 HttpClient 连接池提供
+     * GET /gateway/pool
+     */
+    @GetMapping("/pool")
+    public ResponseEntity<Map<String, Object>> getPoolStats() {
+        PoolingHttpClientConnectionManager connectionManager = connectionManagerProvider.getIfAvailable();
+        if (connectionManager == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Map<String, Object> routes = new LinkedHashMap<>();
+        for (HttpRoute route : connectionManager.getRoutes()) {
+            routes.put(route.getTargetHost().toURI(), toMap(connectionManager.getStats(route)));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("total", toMap(connectionManager.getTotalStats()));
+        result.put("routes", routes);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 网关响应缓存统计（命中、未命中、淘汰次数），键为路由路径模式，dailyBuckets 为统计接口按天缓存
+     * GET /gateway/caches
+     */
+    @GetMapping("/caches")
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> result = responseCache.stats();
+        result.put("dailyBuckets", dailyBucketCache.stats());
+        return result;
+    }
+
+    /**
+     * 并发请求合并统计（实际访问后端次数、被合并的请求数），键为路由路径模式
+     * GET /gateway/coalescing
+     */
+    @GetMapping("/coalescing")
+    public Map<String, Object> getCoalescingStats() {
+        return coalescer.stats();
+    }
+
+    /**
+     * 各路由分组的熔断状态（CLOSED、OPEN、HALF_OPEN）、失败率、慢调用比例和并发占用，键为分组名
+     * GET /gateway/resilience
+     */
+    @GetMapping("/resilience")
+    public Map<String, Object> getResilienceStats() {
+        return guard.stats();
+    }
+
+    /**
+     * 入口并发限制的当前上限、处理中和排队的请求数、因过载拒绝的请求数
+     * GET /gateway/limiter
+     */
+    @GetMapping("/limiter")
+    public Map<String, Object> getLimiterStats() {
+        return limiter.stats();
+    }
+
+    /**
+     * 令牌校验结果缓存中有效、无效的令牌数和网关直接返回 401 的请求数
+     * GET /gateway/tokens
+     */
+    @GetMapping("/tokens")
+    public Map<String, Object> getTokenStats() {
+        return tokenVerdicts.stats();
+    }
+
+    /**
+     * 登录、验证码等接口限流记录的客户端 IP 和账号数，按范围（ip、account）统计的拒绝次数
+     * GET /gateway/rate-limits
+     */
+    @GetMapping("/rate-limits")
+    public Map<String, Object> getRateLimitStats() {
+        return rateLimiter.stats();
+    }
+
+    /**
+     * 分页列表预取下一页的次数、因预算不足放弃的次数、被使用的次数和正在进行的预取数
+     * GET /gateway/prefetch
+     */
+    @GetMapping("/prefetch")
+    public Map<String, Object> getPrefetchStats() {
+        return prefetcher.stats();
+    }
+
+    /**
+     * 任务搜索索引中的任务数、词数、可搜索的登录凭证数和搜索次数
+     * GET /gateway/task-search
+     */
+    @GetMapping("/task-search")
+    public Map<String, Object> getTaskSearchStats() {
+        return taskSearchIndex.stats();
+    }
+
+    /**
+     * 任务日期范围索引中的任务数、有日期的任务数、可查询的登录凭证数和查询次数
+     * GET /gateway/task-range
+     */
+    @GetMapping("/task-range")
+    public Map<String, Object> getTaskRangeStats() {
+        return taskRangeIndex.stats();
+    }
+
+    private static Map<String, Object> toMap(PoolStats stats) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("leased", stats.getLeased());
+        map.put("pending", stats.getPending());
+        map.put("available", stats.getAvailable());
+        map.put("max", stats.getMax());
+        return map;
+    }
+}
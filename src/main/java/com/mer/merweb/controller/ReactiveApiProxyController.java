@@ -0,0 +1,35 @@
+package com.mer.merweb.controller;
+
+import com.mer.merweb.proxy.ReactiveProxyEngine;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * 后端接口代理（响应式模式）
+ * spring.main.web-application-type=reactive 时代替 ApiProxyController，路由表和接口行为相同。
+ */
+@RestController
+@RequestMapping("/api")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@CrossOrigin(origins = {"http://localhost:8001", "http://127.0.0.1:8001"})
+public class ReactiveApiProxyController {
+
+    private static final String API_PREFIX = "/api";
+
+    private final ReactiveProxyEngine proxyEngine;
+
+    public ReactiveApiProxyController(ReactiveProxyEngine proxyEngine) {
+        this.proxyEngine = proxyEngine;
+    }
+
+    /**
+     * 响应由代理引擎直接写出
+     */
+    @RequestMapping("/**")
+    public Mono<Void> proxy(ServerWebExchange exchange) {
+        String path = exchange.getRequest().getPath().pathWithinApplication().value().substring(API_PREFIX.length());
+        return proxyEngine.handle(path, exchange);
+    }
+}
@@ -0,0 +1,74 @@
+package com.mer.merweb.controller;
+
+import com.mer.merweb.aggregate.TaskRangeIndex;
+import com.mer.merweb.aggregate.TaskSearchIndex;
+import com.mer.merweb.proxy.TokenVerdictCache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * 任务关键词搜索和日期范围查询
+ * 路径比代理控制器的 /api/** 更具体，优先匹配；Servlet 与响应式两种模式通用
+ */
+@RestController
+@RequestMapping("/api/tasks")
+@CrossOrigin(origins = {"http://localhost:8001", "http://127.0.0.1:8001"})
+public class TaskSearchController {
+
+    private final TaskSearchIndex taskSearchIndex;
+    private final TaskRangeIndex taskRangeIndex;
+    private final TokenVerdictCache tokenVerdicts;
+
+    public TaskSearchController(TaskSearchIndex taskSearchIndex, TaskRangeIndex taskRangeIndex,
+                                TokenVerdictCache tokenVerdicts) {
+        this.taskSearchIndex = taskSearchIndex;
+        this.taskRangeIndex = taskRangeIndex;
+        this.tokenVerdicts = tokenVerdicts;
+    }
+
+    /**
+     * 在当前用户读取过的任务中按标题、人员、描述搜索，多个关键词用空格分隔，需要同时命中
+     * GET /api/tasks/search?q=周报&page=1&pageSize=10
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> search(
+            @RequestParam(value = "q", required = false) String q,
+            @RequestParam(value = "page", required = false) String page,
+            @RequestParam(value = "pageSize", required = false) String pageSize,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (tokenVerdicts.isRejected(authorization)) {
+            return tokenVerdicts.rejection();
+        }
+        TaskSearchIndex.Query query;
+        try {
+            query = taskSearchIndex.parseQuery(q, page, pageSize);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", true, "message", e.getMessage()));
+        }
+        return ResponseEntity.ok(taskSearchIndex.search(query, authorization));
+    }
+
+    /**
+     * 当前用户读取过的任务中与日期窗口重叠的任务，以及窗口内每天的任务数，供日历月视图和热力图使用
+     * GET /api/tasks/range?from=2025-09-01&to=2025-09-30
+     */
+    @GetMapping("/range")
+    public ResponseEntity<?> range(
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (tokenVerdicts.isRejected(authorization)) {
+            return tokenVerdicts.rejection();
+        }
+        TaskRangeIndex.Window window;
+        try {
+            window = taskRangeIndex.parseWindow(from, to);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", true, "message", e.getMessage()));
+        }
+        return ResponseEntity.ok(taskRangeIndex.query(window, authorization));
+    }
+}
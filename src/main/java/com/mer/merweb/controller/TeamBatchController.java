@@ -0,0 +1,52 @@
+package com.mer.merweb.controller;
+
+import com.mer.merweb.aggregate.TeamBatchService;
+import com.mer.merweb.proxy.TokenVerdictCache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 团队批量查询
+ * 路径比代理控制器的 /api/** 更具体，优先匹配；Servlet 与响应式两种模式通用
+ */
+@RestController
+@RequestMapping("/api/team")
+@CrossOrigin(origins = {"http://localhost:8001", "http://127.0.0.1:8001"})
+public class TeamBatchController {
+
+    private final TeamBatchService teamBatchService;
+    private final TokenVerdictCache tokenVerdicts;
+
+    public TeamBatchController(TeamBatchService teamBatchService, TokenVerdictCache tokenVerdicts) {
+        this.teamBatchService = teamBatchService;
+        this.tokenVerdicts = tokenVerdicts;
+    }
+
+    /**
+     * 批量获取团队和部门名称
+     * GET /api/team/batch?ids=1,2,3
+     * 未登录、令牌已知无效或后端返回 401 时返回 401，不返回全部为 null 的名称
+     */
+    @GetMapping("/batch")
+    public Mono<ResponseEntity<Object>> getTeams(
+            @RequestParam(value = "ids", required = false) List<String> ids,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (authorization == null || authorization.isBlank() || tokenVerdicts.isRejected(authorization)) {
+            return Mono.just(tokenVerdicts.rejection());
+        }
+        List<String> teamIds;
+        try {
+            teamIds = teamBatchService.parseIds(ids);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("error", true, "message", e.getMessage())));
+        }
+        return teamBatchService.resolve(teamIds, authorization)
+                .map(ResponseEntity::<Object>ok)
+                .defaultIfEmpty(tokenVerdicts.rejection());
+    }
+}
@@ -0,0 +1,288 @@
+package com.mer.merweb.proxy;
+
+import com.mer.merweb.config.ProxyProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 网关入口的自适应并发限制
+ * 同时处理的请求数不超过动态上限，上限按响应耗时调整（梯度算法）：
+ * 短期平均耗时接近长期平均值时逐步放大上限，后端变慢、短期耗时超过长期平均值的 tolerance 倍时按比例收缩；
+ * 后端返回 502、503、504 或连接失败时按 backoffRatio 成倍收缩（AIMD），由代理引擎在请求属性 {@link #UPSTREAM_DROPPED} 中标记，
+ * 网关自行生成的 503（分组熔断、并发已满）、改写的 502 等响应与后端是否过载无关，不收缩。
+ * 超出上限的请求短暂排队，排队已满或等待超时的请求由调用方返回 503，后端变慢时不会把网关线程和内存全部占满。
+ */
+@Component
+public class AdaptiveConcurrencyLimiter implements MeterBinder {
+
+    /**
+     * 请求属性名（Servlet 请求属性、响应式 exchange 属性），值为 {@link Boolean#TRUE}：
+     * 处理请求时访问的后端返回了 502、503、504 或连接失败
+     */
+    public static final String UPSTREAM_DROPPED = AdaptiveConcurrencyLimiter.class.getName() + ".upstreamDropped";
+
+    /**
+     * 短期平均耗时的权重，约等于最近 10 次请求的平均
+     */
+    private static final double SHORT_WEIGHT = 0.1;
+
+    /**
+     * 长期平均耗时的权重，约等于最近 600 次请求的平均
+     */
+    private static final double LONG_WEIGHT = 1.0 / 600;
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final LongSupplier clock;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<CompletableFuture<Permit>> queue = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private double shortRtt;
+    private double longRtt;
+
+    private final LongAdder shed = new LongAdder();
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(ProxyProperties properties) {
+        this(properties.getLimiter(), System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(ProxyProperties.Limiter config, LongSupplier clock) {
+        this.enabled = config.isEnabled();
+        this.minLimit = config.getMinLimit();
+        this.maxLimit = config.getMaxLimit();
+        this.tolerance = config.getTolerance();
+        this.smoothing = config.getSmoothing();
+        this.backoffRatio = config.getBackoffRatio();
+        this.maxQueue = config.getMaxQueue();
+        this.maxWaitNanos = config.getMaxWait().toNanos();
+        this.clock = clock;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, config.getInitialLimit()));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 后端响应是否说明后端过载或不可用
+     */
+    public static boolean dropped(int status) {
+        return status == HttpStatus.BAD_GATEWAY.value()
+                || status == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || status == HttpStatus.GATEWAY_TIMEOUT.value();
+    }
+
+    /**
+     * 申请处理一个请求
+     * 未达上限时立即获得许可；否则排队，最长等待 maxWait 后以 TimeoutException 结束；排队已满时返回 null
+     * 拿到的许可必须调用 {@link Permit#onSuccess()}、{@link Permit#onDropped()} 或 {@link Permit#onIgnore()} 归还
+     */
+    public CompletableFuture<Permit> acquire() {
+        CompletableFuture<Permit> waiter;
+        synchronized (lock) {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return CompletableFuture.completedFuture(new Permit(clock.getAsLong(), inFlight));
+            }
+            if (queue.size() >= maxQueue) {
+                shed.increment();
+                return null;
+            }
+            waiter = new CompletableFuture<>();
+            queue.add(waiter);
+        }
+        waiter.orTimeout(maxWaitNanos, TimeUnit.NANOSECONDS).whenComplete((permit, error) -> {
+            if (error != null) {
+                synchronized (lock) {
+                    queue.remove(waiter);
+                }
+                if (error instanceof TimeoutException) {
+                    shed.increment();
+                }
+            }
+        });
+        return waiter;
+    }
+
+    /**
+     * 当前上限、处理中和排队的请求数、被拒绝的请求总数以及平均耗时（毫秒）
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (lock) {
+            stats.put("enabled", enabled);
+            stats.put("limit", (int) limit);
+            stats.put("inFlight", inFlight);
+            stats.put("queued", queue.size());
+            stats.put("shortRttMillis", shortRtt / 1_000_000);
+            stats.put("longRttMillis", longRtt / 1_000_000);
+        }
+        stats.put("shed", shed.sum());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("mer.proxy.limiter.limit", this, AdaptiveConcurrencyLimiter::limit)
+                .description("入口当前的并发上限")
+                .register(registry);
+        Gauge.builder("mer.proxy.limiter.in.flight", this, limiter -> {
+                    synchronized (limiter.lock) {
+                        return limiter.inFlight;
+                    }
+                })
+                .description("入口正在处理的请求数")
+                .register(registry);
+        Gauge.builder("mer.proxy.limiter.queued", this, limiter -> {
+                    synchronized (limiter.lock) {
+                        return limiter.queue.size();
+                    }
+                })
+                .description("入口排队等待的请求数")
+                .register(registry);
+        FunctionCounter.builder("mer.proxy.limiter.shed", shed, LongAdder::sum)
+                .description("因网关过载拒绝的请求数")
+                .register(registry);
+    }
+
+    /**
+     * 处理中的请求数占当前上限的比例，未启用时为 0
+     */
+    public double utilization() {
+        if (!enabled) {
+            return 0;
+        }
+        synchronized (lock) {
+            return inFlight / limit;
+        }
+    }
+
+    int limit() {
+        synchronized (lock) {
+            return (int) limit;
+        }
+    }
+
+    private void release(Permit permit, Outcome outcome) {
+        List<CompletableFuture<Permit>> ready;
+        List<Permit> granted;
+        synchronized (lock) {
+            inFlight--;
+            if (outcome == Outcome.SUCCESS) {
+                sample(clock.getAsLong() - permit.start, permit.inFlight);
+            } else if (outcome == Outcome.DROPPED) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            }
+            ready = new ArrayList<>();
+            granted = new ArrayList<>();
+            while (inFlight < (int) limit && !queue.isEmpty()) {
+                inFlight++;
+                ready.add(queue.poll());
+                granted.add(new Permit(clock.getAsLong(), inFlight));
+            }
+        }
+        // 在锁外唤醒排队的请求，等待者已超时或取消时归还名额
+        for (int i = 0; i < ready.size(); i++) {
+            if (!ready.get(i).complete(granted.get(i))) {
+                granted.get(i).onIgnore();
+            }
+        }
+    }
+
+    /**
+     * 梯度算法：gradient = tolerance × 长期耗时 / 短期耗时，限制在 [0.5, 1]；
+     * 新上限 = 上限 × gradient + √上限（允许少量排队），再按 smoothing 平滑
+     */
+    private void sample(long rtt, int inFlightAtStart) {
+        if (longRtt == 0) {
+            shortRtt = rtt;
+            longRtt = rtt;
+            return;
+        }
+        shortRtt += (rtt - shortRtt) * SHORT_WEIGHT;
+        longRtt += (rtt - longRtt) * LONG_WEIGHT;
+        // 负载下降后长期平均值仍停留在高位，加快回落，否则上限会长期偏大
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        // 实际并发远低于上限时耗时说明不了上限是否合适
+        if (inFlightAtStart < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + newLimit * smoothing));
+    }
+
+    private enum Outcome {
+        SUCCESS, DROPPED, IGNORED
+    }
+
+    /**
+     * 一个请求的处理许可，只有第一次归还生效
+     */
+    public final class Permit {
+
+        private final long start;
+        private final int inFlight;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long start, int inFlight) {
+            this.start = start;
+            this.inFlight = inFlight;
+        }
+
+        /**
+         * 请求正常完成，耗时计入上限调整
+         */
+        public void onSuccess() {
+            release(Outcome.SUCCESS);
+        }
+
+        /**
+         * 后端过载或连接失败，收缩上限
+         */
+        public void onDropped() {
+            release(Outcome.DROPPED);
+        }
+
+        /**
+         * 不计入上限调整，如客户端中途断开
+         */
+        public void onIgnore() {
+            release(Outcome.IGNORED);
+        }
+
+        private void release(Outcome outcome) {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveConcurrencyLimiter.this.release(this, outcome);
+            }
+        }
+    }
+}
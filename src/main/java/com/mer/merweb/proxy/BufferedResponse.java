@@ -0,0 +1,164 @@
+package com.mer.merweb.proxy;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 完整读入内存的后端响应
+ * 只保留允许透传的响应头，响应体较小、需要缓存或共享给多个请求时使用
+ */
+public record BufferedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+
+    /**
+     * 304 响应保留的响应头
+     */
+    private static final List<String> NOT_MODIFIED_HEADERS = List.of(
+            HttpHeaders.ETAG,
+            HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.EXPIRES,
+            HttpHeaders.LAST_MODIFIED
+    );
+
+    private static final String REVALIDATE = "private, no-cache";
+
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    /**
+     * 按透传白名单复制后端响应头，Content-Length 以实际读取的响应体长度为准
+     * 后端没有给出 ETag 的 200 响应按响应体摘要生成强 ETag；后端没有给出 Cache-Control 时使用 private, no-cache，
+     * 浏览器可以保存响应但每次使用前用 ETag 校验（否则 Spring Security 默认的 no-store 会让浏览器从不发送 If-None-Match）
+     * 只有读入内存的响应才有网关生成的 ETag，边读边写透传的响应见 {@link PassthroughProxy#CONDITIONAL_HEADERS}
+     */
+    public static BufferedResponse of(HttpStatusCode status, HttpHeaders upstreamHeaders, byte[] body) {
+        HttpHeaders headers = new HttpHeaders();
+        for (String name : PassthroughProxy.RESPONSE_HEADERS) {
+            List<String> values = upstreamHeaders.get(name);
+            if (values != null) {
+                headers.addAll(name, values);
+            }
+        }
+        headers.setContentLength(body.length);
+        if (status.value() == HttpStatus.OK.value() && !headers.containsKey(HttpHeaders.ETAG)) {
+            headers.setETag(etag(body));
+        }
+        if (status.value() == HttpStatus.OK.value() && !headers.containsKey(HttpHeaders.CACHE_CONTROL)) {
+            headers.setCacheControl(REVALIDATE);
+        }
+        return new BufferedResponse(status, HttpHeaders.readOnlyHttpHeaders(headers), body);
+    }
+
+    /**
+     * 按条件请求头判断浏览器缓存的版本是否仍然有效，只有 200 响应参与判断
+     * If-None-Match 优先，未携带时才比较 If-Modified-Since 与 Last-Modified
+     *
+     * @param ifNoneMatch     请求头 If-None-Match，可以为 null
+     * @param ifModifiedSince 请求头 If-Modified-Since，可以为 null
+     */
+    public boolean isNotModified(String ifNoneMatch, String ifModifiedSince) {
+        if (status.value() != HttpStatus.OK.value()) {
+            return false;
+        }
+        if (ifNoneMatch != null) {
+            String etag = headers.getETag();
+            return etag != null && matches(ifNoneMatch, etag);
+        }
+        long lastModified = headers.getLastModified();
+        if (ifModifiedSince == null || lastModified < 0) {
+            return false;
+        }
+        try {
+            ZonedDateTime since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return lastModified / 1000 <= since.toEpochSecond();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 客户端接受 gzip 时把强 ETag 改为弱 ETag
+     * 压缩后的字节与原响应不同，强 ETag 只能标识同一份字节；Tomcat 也不会压缩带强 ETag 的响应
+     *
+     * @param acceptEncoding 请求头 Accept-Encoding，可以为 null
+     */
+    public BufferedResponse forEncoding(String acceptEncoding) {
+        String etag = headers.getETag();
+        if (etag == null || etag.startsWith("W/") || acceptEncoding == null
+                || !acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip")) {
+            return this;
+        }
+        HttpHeaders weak = new HttpHeaders();
+        weak.putAll(headers);
+        weak.setETag("W/" + etag);
+        return new BufferedResponse(status, HttpHeaders.readOnlyHttpHeaders(weak), body);
+    }
+
+    /**
+     * 替换响应体，网关改写过的响应不再沿用后端的 ETag 和 Last-Modified，200 响应按新的响应体重新生成 ETag
+     */
+    public BufferedResponse withBody(byte[] newBody) {
+        HttpHeaders rewritten = new HttpHeaders();
+        rewritten.putAll(headers);
+        rewritten.remove(HttpHeaders.ETAG);
+        rewritten.remove(HttpHeaders.LAST_MODIFIED);
+        rewritten.setContentLength(newBody.length);
+        if (status.value() == HttpStatus.OK.value()) {
+            rewritten.setETag(etag(newBody));
+        }
+        return new BufferedResponse(status, HttpHeaders.readOnlyHttpHeaders(rewritten), newBody);
+    }
+
+    /**
+     * 对应的 304 响应，只保留缓存校验相关的响应头，没有响应体
+     */
+    public BufferedResponse notModified() {
+        HttpHeaders notModified = new HttpHeaders();
+        for (String name : NOT_MODIFIED_HEADERS) {
+            List<String> values = headers.get(name);
+            if (values != null) {
+                notModified.addAll(name, values);
+            }
+        }
+        return new BufferedResponse(HttpStatus.NOT_MODIFIED, HttpHeaders.readOnlyHttpHeaders(notModified), EMPTY_BODY);
+    }
+
+    /**
+     * If-None-Match 使用弱比较：忽略 W/ 前缀，* 匹配任意版本
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        String current = weak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || weak(tag).equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String weak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    /**
+     * 响应体 SHA-256 摘要的前 128 位
+     */
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.mer.merweb.proxy;
+
+/**
+ * 合并并发请求的范围
+ */
+public enum CoalescingScope {
+
+    /**
+     * 路径、查询参数和 Authorization 都相同的请求才合并，适用于与调用者身份相关的接口
+     */
+    AUTHORIZATION,
+
+    /**
+     * 不区分调用者，路径和查询参数相同的请求都合并；只有 200 响应共享，其他响应由等待的请求自行访问后端。
+     * 等待者不会再经过后端鉴权，只用于所有登录用户看到的结果都相同的接口
+     */
+    SHARED
+}
@@ -0,0 +1,295 @@
+package com.mer.merweb.proxy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mer.merweb.config.ProxyProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 统计接口按天缓存
+ * 已经过去的日期统计不会再变化，按“接口 + 登录凭证 + 日期”缓存每一天的统计；请求的日期范围中
+ * 已缓存的历史日期直接取缓存，未缓存的连续日期段和今天及以后的部分各访问一次后端，再按原格式拼装响应。
+ * 缓存按登录凭证隔离，不会把管理员的统计数据返回给其他调用者。
+ */
+@Component
+public class DailyBucketCache implements MeterBinder {
+
+    public static final String START_DATE = "startDate";
+    public static final String END_DATE = "endDate";
+
+    /**
+     * 单次请求最多拆分的日期段，缺口过于零散时合并为一段
+     */
+    private static final int MAX_SEGMENTS = 4;
+
+    /**
+     * 超过一年的日期范围直接透传
+     */
+    private static final long MAX_DAYS = 366;
+
+    private final Cache<BucketKey, ArrayNode> buckets;
+    private final Cache<TemplateKey, ObjectNode> templates;
+    private final ObjectMapper objectMapper;
+    private final Clock clock = Clock.systemDefaultZone();
+
+    public DailyBucketCache(ProxyProperties properties, ObjectMapper objectMapper) {
+        ProxyProperties.Statistics config = properties.getStatistics();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(config.getMaxBuckets())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        this.templates = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(config.getTtl())
+                .build();
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 拼装后的响应
+     *
+     * @param cacheStatus X-Cache 响应头的取值：HIT 全部来自缓存，PARTIAL 部分来自缓存，MISS 全部来自后端
+     */
+    public record Assembled(BufferedResponse response, String cacheStatus) {
+    }
+
+    /**
+     * 请求是否可以按天拼装；按周、按月统计，日期无法解析或范围过大的请求直接透传
+     */
+    public boolean applies(ProxyExchange exchange) {
+        DailyBuckets config = exchange.getRoute().getDailyBuckets();
+        if (config == null) {
+            return false;
+        }
+        if (config.unitParam() != null && !config.unitValue().equals(exchange.query(config.unitParam()))) {
+            return false;
+        }
+        LocalDate start = parseDate(exchange.query(START_DATE));
+        LocalDate end = parseDate(exchange.query(END_DATE));
+        return start != null && end != null && !start.isAfter(end)
+                && ChronoUnit.DAYS.between(start, end) < MAX_DAYS;
+    }
+
+    /**
+     * 按天拼装统计响应，调用前需确认 {@link #applies} 为 true
+     * 任一段后端响应不是 200 时原样返回该响应；响应格式无法识别时整个范围透传，均不写入缓存
+     *
+     * @param loader 访问后端，参数为替换了 startDate、endDate 的请求上下文
+     */
+    public Mono<Assembled> assemble(ProxyExchange exchange, String authorization,
+                                    Function<ProxyExchange, Mono<BufferedResponse>> loader) {
+        ProxyRoute route = exchange.getRoute();
+        DailyBuckets config = route.getDailyBuckets();
+        String scope = scope(authorization);
+        LocalDate start = parseDate(exchange.query(START_DATE));
+        LocalDate end = parseDate(exchange.query(END_DATE));
+        LocalDate today = LocalDate.now(clock);
+
+        Map<LocalDate, ArrayNode> days = new HashMap<>();
+        List<LocalDate[]> segments = new ArrayList<>();
+        LocalDate segmentStart = null;
+        for (LocalDate day = start; !day.isAfter(end) && day.isBefore(today); day = day.plusDays(1)) {
+            ArrayNode cached = buckets.getIfPresent(new BucketKey(route, scope, day));
+            if (cached != null) {
+                days.put(day, cached);
+                if (segmentStart != null) {
+                    segments.add(new LocalDate[]{segmentStart, day.minusDays(1)});
+                    segmentStart = null;
+                }
+            } else if (segmentStart == null) {
+                segmentStart = day;
+            }
+        }
+        if (!end.isBefore(today)) {
+            // 今天的统计仍在变化，与之前缺失的日期连成一段访问后端
+            LocalDate openStart = start.isAfter(today) ? start : today;
+            segments.add(new LocalDate[]{segmentStart != null ? segmentStart : openStart, end});
+        } else if (segmentStart != null) {
+            segments.add(new LocalDate[]{segmentStart, end});
+        }
+        if (segments.size() > MAX_SEGMENTS) {
+            segments = List.<LocalDate[]>of(new LocalDate[]{segments.get(0)[0], segments.get(segments.size() - 1)[1]});
+        }
+
+        ObjectNode cachedTemplate = templates.getIfPresent(new TemplateKey(route, scope));
+        if (segments.isEmpty() && cachedTemplate != null) {
+            return Mono.fromCallable(() -> new Assembled(render(exchange, cachedTemplate, days, start, end), "HIT"));
+        }
+        if (segments.isEmpty()) {
+            // 响应模板已淘汰，重新访问整个范围
+            segments = List.<LocalDate[]>of(new LocalDate[]{start, end});
+        }
+
+        boolean partial = !days.isEmpty();
+        return Flux.fromIterable(segments)
+                .concatMap(segment -> loader.apply(exchange
+                                .withQuery(START_DATE, segment[0].toString())
+                                .withQuery(END_DATE, segment[1].toString()))
+                        .map(response -> new Segment(segment[0], segment[1], response)))
+                .collectList()
+                .flatMap(loaded -> {
+                    for (Segment segment : loaded) {
+                        if (segment.response().status().value() != HttpStatus.OK.value()) {
+                            return Mono.just(new Assembled(segment.response(), "MISS"));
+                        }
+                    }
+                    ObjectNode latest = null;
+                    for (Segment segment : loaded) {
+                        ObjectNode body = parse(segment.response().body(), config);
+                        Map<LocalDate, ArrayNode> fetched = body != null
+                                ? group((ArrayNode) body.get(config.arrayField()), config, segment) : null;
+                        if (fetched == null) {
+                            // 响应格式无法识别，放弃拼装，整个范围原样透传
+                            return loader.apply(exchange).map(response -> new Assembled(response, "MISS"));
+                        }
+                        for (LocalDate day = segment.start(); !day.isAfter(segment.end()); day = day.plusDays(1)) {
+                            ArrayNode items = fetched.getOrDefault(day, objectMapper.createArrayNode());
+                            days.put(day, items);
+                            if (day.isBefore(today)) {
+                                buckets.put(new BucketKey(route, scope, day), items);
+                            }
+                        }
+                        latest = body;
+                    }
+                    latest.set(config.arrayField(), objectMapper.createArrayNode());
+                    templates.put(new TemplateKey(route, scope), latest);
+                    ObjectNode template = latest;
+                    return Mono.fromCallable(() -> new Assembled(render(exchange, template, days, start, end),
+                            partial ? "PARTIAL" : "MISS"));
+                });
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = buckets.stats();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("size", buckets.estimatedSize());
+        map.put("hits", stats.hitCount());
+        map.put("misses", stats.missCount());
+        map.put("hitRate", stats.hitRate());
+        map.put("evictions", stats.evictionCount());
+        return map;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, buckets, "proxy.daily-buckets", "route", ProxyMetrics.NO_ROUTE);
+    }
+
+    /**
+     * 以最近一次后端响应为模板，替换日期范围和每日统计数组
+     */
+    private BufferedResponse render(ProxyExchange exchange, ObjectNode template, Map<LocalDate, ArrayNode> days,
+                                    LocalDate start, LocalDate end) throws IOException {
+        DailyBuckets config = exchange.getRoute().getDailyBuckets();
+        ObjectNode result = template.deepCopy();
+        if (result.has(START_DATE)) {
+            result.put(START_DATE, exchange.query(START_DATE));
+        }
+        if (result.has(END_DATE)) {
+            result.put(END_DATE, exchange.query(END_DATE));
+        }
+        ArrayNode items = result.putArray(config.arrayField());
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            ArrayNode dayItems = days.get(day);
+            if (dayItems != null) {
+                items.addAll(dayItems);
+            }
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return BufferedResponse.of(HttpStatus.OK, headers, objectMapper.writeValueAsBytes(result));
+    }
+
+    /**
+     * 解析响应体，不是 JSON 对象或缺少每日统计数组时返回 null
+     */
+    private ObjectNode parse(byte[] body, DailyBuckets config) {
+        try {
+            JsonNode node = objectMapper.readTree(body);
+            return node instanceof ObjectNode object && object.get(config.arrayField()) instanceof ArrayNode
+                    ? object : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 按日期分组，只保留本段范围内的日期；任一元素日期无法解析时返回 null
+     */
+    private Map<LocalDate, ArrayNode> group(ArrayNode items, DailyBuckets config, Segment segment) {
+        Map<LocalDate, ArrayNode> result = new HashMap<>();
+        for (JsonNode item : items) {
+            String text = item.path(config.dateField()).asText();
+            LocalDate day = parseDate(text.length() > 10 ? text.substring(0, 10) : text);
+            if (day == null) {
+                return null;
+            }
+            if (!day.isBefore(segment.start()) && !day.isAfter(segment.end())) {
+                result.computeIfAbsent(day, d -> objectMapper.createArrayNode()).add(item);
+            }
+        }
+        return result;
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static String scope(String authorization) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(authorization.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Segment(LocalDate start, LocalDate end, BufferedResponse response) {
+    }
+
+    private record BucketKey(ProxyRoute route, String scope, LocalDate day) {
+    }
+
+    private record TemplateKey(ProxyRoute route, String scope) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.mer.merweb.proxy;
+
+/**
+ * 按天分桶的统计接口响应格式
+ * 响应体为 JSON 对象，arrayField 数组中每个元素是一天的统计，dateField 为 yyyy-MM-dd 格式的日期；
+ * 请求通过 startDate、endDate 查询参数指定日期范围。
+ *
+ * @param arrayField 每日统计数组的字段名
+ * @param dateField  数组元素中日期的字段名
+ * @param unitParam  统计粒度参数名，为 null 时总是按天统计
+ * @param unitValue  按天统计时粒度参数的取值
+ */
+public record DailyBuckets(String arrayField, String dateField, String unitParam, String unitValue) {
+
+    public static DailyBuckets of(String arrayField, String dateField) {
+        return new DailyBuckets(arrayField, dateField, null, null);
+    }
+
+    /**
+     * 只有粒度参数等于指定值时按天分桶（如 timeUnit=day），按周、按月统计的桶边界随请求范围变化，直接透传
+     */
+    public DailyBuckets when(String unitParam, String unitValue) {
+        return new DailyBuckets(arrayField, dateField, unitParam, unitValue);
+    }
+}
@@ -0,0 +1,49 @@
+package com.mer.merweb.proxy;
+
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * 连接后端失败时的响应体格式
+ * 与前端已适配的各接口错误格式保持一致
+ */
+public final class FailureBodies {
+
+    private FailureBodies() {
+    }
+
+    /**
+     * {"error": true, "message": "操作失败: 原因"}
+     */
+    public static BiFunction<ProxyExchange, Exception, Object> error(String action) {
+        return (exchange, e) -> Map.of("error", true, "message", action + ": " + e.getMessage());
+    }
+
+    /**
+     * {"ok": false, "message": "操作失败: 原因"}
+     */
+    public static BiFunction<ProxyExchange, Exception, Object> okMessage(String action) {
+        return (exchange, e) -> Map.of("ok", false, "message", action + ": " + e.getMessage());
+    }
+
+    /**
+     * {"ok": false, "error": "操作失败: 原因"}
+     */
+    public static BiFunction<ProxyExchange, Exception, Object> okError(String action) {
+        return (exchange, e) -> Map.of("ok", false, "error", action + ": " + e.getMessage());
+    }
+
+    /**
+     * {"code": 500, "message": "操作失败: 原因"}
+     */
+    public static BiFunction<ProxyExchange, Exception, Object> code(String action) {
+        return (exchange, e) -> Map.of("code", 500, "message", action + ": " + e.getMessage());
+    }
+
+    /**
+     * 固定的响应体
+     */
+    public static BiFunction<ProxyExchange, Exception, Object> fixed(Object body) {
+        return (exchange, e) -> body;
+    }
+}
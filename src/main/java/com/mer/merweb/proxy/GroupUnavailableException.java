@@ -0,0 +1,61 @@
+package com.mer.merweb.proxy;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 路由分组熔断或并发已满，网关没有访问后端直接拒绝
+ * 代理引擎把它转换为 503 响应，不计入熔断的失败率
+ */
+public class GroupUnavailableException extends RuntimeException {
+
+    /**
+     * 拒绝原因：circuit_open 熔断中，bulkhead_full 并发已满
+     */
+    public static final String CIRCUIT_OPEN = "circuit_open";
+    public static final String BULKHEAD_FULL = "bulkhead_full";
+
+    private final RouteGroup group;
+    private final String reason;
+    private final long retryAfterSeconds;
+
+    public GroupUnavailableException(RouteGroup group, String reason, String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.group = group;
+        this.reason = reason;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public RouteGroup getGroup() {
+        return group;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * 503 响应，沿用路由的失败响应格式，另外带上拒绝原因和分组，Retry-After 给出建议的重试间隔
+     *
+     * @param failureBody 路由按本异常生成的失败响应体
+     */
+    public ResponseEntity<Object> toResponse(Object failureBody) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        if (failureBody instanceof Map<?, ?> map) {
+            map.forEach((key, value) -> body.put(String.valueOf(key), value));
+        } else {
+            body.put("error", true);
+            body.put("message", getMessage());
+        }
+        body.put("reason", reason);
+        body.put("group", group.name().toLowerCase(Locale.ROOT));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(body);
+    }
+}
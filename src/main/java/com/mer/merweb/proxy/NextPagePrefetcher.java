@@ -0,0 +1,222 @@
+package com.mer.merweb.proxy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mer.merweb.config.ProxyProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 分页列表预取下一页
+ * 用户通常按顺序翻页：返回第 N 页后，在后台用同一个登录凭证和相同的筛选条件请求第 N+1 页，
+ * 结果按登录凭证保留 ttl，用户翻到下一页时直接返回（响应头 X-Cache: PREFETCH），省去一次后端往返。
+ * 预取不能与前台请求争抢后端：同时进行的预取数有上限，入口或路由分组的并发占用较高、熔断器不在关闭状态时不预取；
+ * 每个登录凭证每个接口只保留最近一次预取的一页，同一凭证发出修改请求（非 GET）后丢弃其全部预取结果。
+ */
+@Component
+public class NextPagePrefetcher implements MeterBinder {
+
+    /**
+     * 使用预取结果时响应头 X-Cache 的值
+     */
+    public static final String CACHE_STATUS = "PREFETCH";
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxConcurrent;
+    private final double maxLoad;
+    private final RouteResolver resolver;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final RouteGroupGuard guard;
+    private final ObjectMapper objectMapper;
+    private final LongSupplier clock;
+
+    /**
+     * 键为登录凭证，值为该凭证各接口最近一次预取的一页
+     */
+    private final Cache<String, Map<ProxyRoute, Prefetched>> sessions;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    @Autowired
+    public NextPagePrefetcher(ProxyProperties properties, RouteResolver resolver, AdaptiveConcurrencyLimiter limiter,
+                              RouteGroupGuard guard, ObjectMapper objectMapper) {
+        this(properties.getPrefetch(), resolver, limiter, guard, objectMapper, System::nanoTime);
+    }
+
+    NextPagePrefetcher(ProxyProperties.Prefetch config, RouteResolver resolver, AdaptiveConcurrencyLimiter limiter,
+                       RouteGroupGuard guard, ObjectMapper objectMapper, LongSupplier clock) {
+        this.enabled = config.isEnabled();
+        this.ttlNanos = config.getTtl().toNanos();
+        this.maxConcurrent = config.getMaxConcurrent();
+        this.maxLoad = config.getMaxLoad();
+        this.resolver = resolver;
+        this.limiter = limiter;
+        this.guard = guard;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSessions())
+                .expireAfterAccess(config.getTtl())
+                .ticker(clock::getAsLong)
+                .build();
+    }
+
+    /**
+     * 路由是否预取下一页，没有登录凭证的请求不预取
+     */
+    public boolean applies(ProxyRoute route, String authorization) {
+        return enabled && route.getPrefetch() != null && authorization != null && !authorization.isEmpty();
+    }
+
+    /**
+     * 取出预取的结果，取出后即移除；没有预取、后端地址不同或已超过 ttl 时返回 null
+     * 预取仍在进行时返回尚未完成的结果，预取失败或后端未返回 200 时结果为 null，调用方自行访问后端
+     *
+     * @param uri 当前请求的后端地址
+     */
+    public CompletableFuture<BufferedResponse> take(ProxyRoute route, String uri, String authorization) {
+        Map<ProxyRoute, Prefetched> pages = sessions.getIfPresent(authorization);
+        Prefetched prefetched = pages != null ? pages.get(route) : null;
+        if (prefetched == null || !prefetched.uri().equals(uri) || !pages.remove(route, prefetched)
+                || clock.getAsLong() - prefetched.createdAt() > ttlNanos) {
+            return null;
+        }
+        return prefetched.response().thenApply(response -> {
+            if (response != null) {
+                hits.increment();
+            }
+            return response;
+        });
+    }
+
+    /**
+     * 返回第 N 页后调用，预算允许时在后台预取第 N+1 页
+     * 响应不是 200、已经是最后一页（响应体的 total 不超过已返回的条数）时不预取
+     *
+     * @param served 返回给用户的第 N 页
+     * @param loader 按下一页的上下文访问后端，不能阻塞调用线程
+     */
+    public void schedule(ProxyExchange exchange, String authorization, BufferedResponse served,
+                         Function<ProxyExchange, Mono<BufferedResponse>> loader) {
+        ProxyRoute route = exchange.getRoute();
+        Pagination pagination = route.getPrefetch();
+        if (!applies(route, authorization) || served.status().value() != HttpStatus.OK.value()) {
+            return;
+        }
+        int page = exchange.queryInt(pagination.pageParam(), 0);
+        int pageSize = exchange.queryInt(pagination.pageSizeParam(), 0);
+        if (page < 1 || pageSize < 1 || isLastPage(served.body(), (long) page * pageSize)) {
+            return;
+        }
+        ProxyExchange next = exchange.withQuery(pagination.pageParam(), Integer.toString(page + 1));
+        String uri = resolver.upstreamUri(next).toString();
+        Map<ProxyRoute, Prefetched> pages = sessions.get(authorization, key -> new ConcurrentHashMap<>());
+        Prefetched existing = pages.get(route);
+        if (existing != null && existing.uri().equals(uri) && clock.getAsLong() - existing.createdAt() <= ttlNanos) {
+            return;
+        }
+        if (!reserve(route)) {
+            skipped.increment();
+            return;
+        }
+
+        CompletableFuture<BufferedResponse> response = new CompletableFuture<>();
+        pages.put(route, new Prefetched(uri, clock.getAsLong(), response));
+        scheduled.increment();
+        Mono.defer(() -> loader.apply(next))
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .subscribe(
+                        buffered -> response.complete(buffered.status().value() == HttpStatus.OK.value()
+                                ? buffered : null),
+                        e -> response.complete(null),
+                        () -> response.complete(null));
+    }
+
+    /**
+     * 丢弃登录凭证的全部预取结果，同一凭证发出修改请求后调用
+     */
+    public void invalidate(String authorization) {
+        if (enabled && authorization != null && !authorization.isEmpty()) {
+            sessions.invalidate(authorization);
+        }
+    }
+
+    /**
+     * 发起的预取次数、因预算不足放弃的次数、被使用的预取次数和正在进行的预取数
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("scheduled", scheduled.sum());
+        stats.put("skipped", skipped.sum());
+        stats.put("hits", hits.sum());
+        stats.put("inFlight", inFlight.get());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("mer.proxy.prefetch", scheduled, LongAdder::sum)
+                .description("分页列表预取下一页的次数")
+                .tag("result", "scheduled")
+                .register(registry);
+        FunctionCounter.builder("mer.proxy.prefetch", skipped, LongAdder::sum)
+                .description("分页列表预取下一页的次数")
+                .tag("result", "skipped")
+                .register(registry);
+        FunctionCounter.builder("mer.proxy.prefetch", hits, LongAdder::sum)
+                .description("分页列表预取下一页的次数")
+                .tag("result", "hit")
+                .register(registry);
+    }
+
+    /**
+     * 占用一个预取名额，同时进行的预取已满或后端繁忙时返回 false
+     */
+    private boolean reserve(ProxyRoute route) {
+        if (limiter.utilization() >= maxLoad || guard.utilization(route.getGroup()) >= maxLoad) {
+            return false;
+        }
+        if (inFlight.incrementAndGet() > maxConcurrent) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 响应体顶层的 total 不超过已返回的条数时为最后一页；没有 total 字段时无法判断，按还有下一页处理
+     */
+    private boolean isLastPage(byte[] body, long returned) {
+        try {
+            JsonNode total = objectMapper.readTree(body).path("total");
+            return total.canConvertToLong() && total.asLong() <= returned;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private record Prefetched(String uri, long createdAt, CompletableFuture<BufferedResponse> response) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.mer.merweb.proxy;
+
+/**
+ * 分页列表的查询参数
+ *
+ * @param pageParam     页码参数名，页码从 1 开始
+ * @param pageSizeParam 每页条数参数名
+ */
+public record Pagination(String pageParam, String pageSizeParam) {
+}
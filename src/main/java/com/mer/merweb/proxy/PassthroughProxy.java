@@ -0,0 +1,237 @@
+package com.mer.merweb.proxy;
+
+import com.mer.merweb.config.ProxyProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 透传代理
+ * 将后端响应的状态码、必要的响应头和响应体字节直接写入 Servlet 输出流，
+ * 不再反序列化成 Map 再由 Jackson 重新序列化；请求体同样按字节流转发给后端。
+ * 需要完整读入内存的响应不超过 maxBufferedSize，超过时抛出 {@link ResponseTooLargeException}。
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class PassthroughProxy {
+
+    /**
+     * 允许从后端透传给浏览器的响应头，连接相关的逐跳头和后端 CORS 头不透传
+     */
+    static final List<String> RESPONSE_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.CONTENT_LENGTH,
+            HttpHeaders.CONTENT_LANGUAGE,
+            HttpHeaders.CONTENT_DISPOSITION,
+            HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.EXPIRES,
+            HttpHeaders.ETAG,
+            HttpHeaders.LAST_MODIFIED,
+            HttpHeaders.WWW_AUTHENTICATE
+    );
+
+    /**
+     * GET 请求转发给后端的条件请求头，后端支持时可以直接返回 304
+     * 边读边写透传的响应在读到响应体之前已经写出响应头，网关不生成 ETag，只透传后端自己的 ETag 和 Last-Modified；
+     * 后端不给校验值时这类响应不能条件请求；经过网关缓存、合并、预取或改写的接口读入内存，由 {@link BufferedResponse#of} 生成 ETag
+     */
+    static final List<String> CONDITIONAL_HEADERS = List.of(
+            HttpHeaders.IF_NONE_MATCH,
+            HttpHeaders.IF_MODIFIED_SINCE
+    );
+
+    private final ClientHttpRequestFactory requestFactory;
+    private final int bufferSize;
+    private final int maxBufferedSize;
+
+    public PassthroughProxy(ClientHttpRequestFactory upstreamRequestFactory, ProxyProperties properties) {
+        this.requestFactory = upstreamRequestFactory;
+        this.bufferSize = properties.getBufferSize();
+        this.maxBufferedSize = properties.getMaxBufferedSize();
+    }
+
+    /**
+     * 向后端发起请求，返回尚未读取响应体的后端响应，调用方负责关闭
+     * 调用方可以先检查后端状态码，再决定透传还是改写响应
+     *
+     * @param request 需要转发请求体（POST、PUT、PATCH）或条件请求头（GET）时传入当前请求，否则为 null
+     */
+    public ClientHttpResponse execute(HttpMethod method, URI uri, String authorization,
+                                      HttpServletRequest request) throws IOException {
+        ClientHttpRequest upstreamRequest = requestFactory.createRequest(uri, method);
+
+        HttpHeaders headers = upstreamRequest.getHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        if (authorization != null && !authorization.isEmpty()) {
+            headers.set(HttpHeaders.AUTHORIZATION, authorization);
+        }
+
+        if (request != null && HttpMethod.GET.equals(method)) {
+            for (String name : CONDITIONAL_HEADERS) {
+                String value = request.getHeader(name);
+                if (value != null) {
+                    headers.set(name, value);
+                }
+            }
+        } else if (request != null) {
+            String contentType = request.getContentType();
+            headers.set(HttpHeaders.CONTENT_TYPE,
+                    contentType != null ? contentType : MediaType.APPLICATION_JSON_VALUE);
+            long contentLength = request.getContentLengthLong();
+            if (contentLength >= 0) {
+                headers.setContentLength(contentLength);
+            }
+            if (upstreamRequest instanceof StreamingHttpOutputMessage streaming) {
+                streaming.setBody(out -> transfer(request.getInputStream(), out, null));
+            } else {
+                transfer(request.getInputStream(), upstreamRequest.getBody(), null);
+            }
+        }
+
+        return upstreamRequest.execute();
+    }
+
+    /**
+     * 向后端发起不带请求体的请求，并把响应完整读入内存
+     *
+     * @param timing 当前请求的分阶段耗时，不需要记录时为 null
+     * @throws ResponseTooLargeException 响应体超过 maxBufferedSize，此时最多读取 maxBufferedSize + 1 字节
+     */
+    public BufferedResponse fetch(HttpMethod method, URI uri, String authorization,
+                                  ServerTiming timing) throws IOException {
+        long start = System.nanoTime();
+        try (ClientHttpResponse upstream = execute(method, uri, authorization, null)) {
+            HttpStatusCode status = upstream.getStatusCode();
+            long headers = System.nanoTime();
+            if (upstream.getHeaders().getContentLength() > maxBufferedSize) {
+                throw new ResponseTooLargeException(maxBufferedSize, status);
+            }
+            byte[] body = upstream.getBody().readNBytes(maxBufferedSize + 1);
+            if (body.length > maxBufferedSize) {
+                throw new ResponseTooLargeException(maxBufferedSize, status);
+            }
+            if (timing != null) {
+                timing.add(ServerTiming.Phase.UPSTREAM, headers - start);
+                timing.add(ServerTiming.Phase.TRANSFER, System.nanoTime() - headers);
+            }
+            return BufferedResponse.of(status, upstream.getHeaders(), body);
+        }
+    }
+
+    /**
+     * 写出已读入内存的后端响应
+     */
+    public void write(BufferedResponse buffered, HttpServletResponse response) throws IOException {
+        response.setStatus(buffered.status().value());
+        buffered.headers().forEach((name, values) -> {
+            for (String value : values) {
+                response.addHeader(name, value);
+            }
+        });
+        response.getOutputStream().write(buffered.body());
+    }
+
+    /**
+     * 把后端响应的状态码、白名单响应头和响应体写入 Servlet 响应
+     *
+     * @return 写出的响应体字节数
+     */
+    public long copy(ClientHttpResponse upstream, HttpServletResponse response) throws IOException {
+        return copy(upstream, response, null);
+    }
+
+    /**
+     * 与 {@link #copy} 相同地边读边写，同时在内存中保留响应体的副本，调用方需要查看响应体时使用（如登录响应中的令牌）
+     * 读完后端响应体、写出最后一块之前把副本交给 onBuffered，客户端收到完整响应时副本已经处理完；
+     * 超过 maxBufferedSize 时丢弃副本、不调用 onBuffered，响应照常透传
+     *
+     * @return 写出的响应体字节数
+     */
+    public long copyBuffered(ClientHttpResponse upstream, HttpServletResponse response,
+                             Consumer<byte[]> onBuffered) throws IOException {
+        boolean fits = upstream.getHeaders().getContentLength() <= maxBufferedSize;
+        return copy(upstream, response, fits ? onBuffered : null);
+    }
+
+    private long copy(ClientHttpResponse upstream, HttpServletResponse response,
+                      Consumer<byte[]> onBuffered) throws IOException {
+        response.setStatus(upstream.getStatusCode().value());
+        copyHeaders(upstream.getHeaders(), response);
+
+        try {
+            return transfer(upstream.getBody(), response.getOutputStream(), onBuffered);
+        } catch (IOException e) {
+            // 尚未提交的响应清空后交由调用方返回错误信息，已提交的只能中断连接
+            if (!response.isCommitted()) {
+                response.reset();
+            }
+            throw e;
+        }
+    }
+
+    private static void copyHeaders(HttpHeaders headers, HttpServletResponse response) {
+        for (String name : RESPONSE_HEADERS) {
+            List<String> values = headers.get(name);
+            if (values != null) {
+                for (String value : values) {
+                    response.addHeader(name, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param onBuffered 需要响应体副本时传入：始终留一块不写出，读完后先交出副本再写出最后一块；
+     *                   超过 maxBufferedSize 时不调用；不需要时为 null
+     */
+    private long transfer(InputStream in, OutputStream out, Consumer<byte[]> onBuffered) throws IOException {
+        ByteArrayOutputStream kept = onBuffered != null ? new ByteArrayOutputStream() : null;
+        byte[] buffer = new byte[bufferSize];
+        byte[] pending = kept != null ? new byte[bufferSize] : null;
+        int pendingLength = 0;
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+            if (kept == null) {
+                out.write(buffer, 0, read);
+                continue;
+            }
+            if (total <= maxBufferedSize) {
+                kept.write(buffer, 0, read);
+            }
+            if (pendingLength > 0) {
+                out.write(pending, 0, pendingLength);
+            }
+            byte[] written = pending;
+            pending = buffer;
+            buffer = written;
+            pendingLength = read;
+        }
+        if (kept != null && total <= maxBufferedSize) {
+            onBuffered.accept(kept.toByteArray());
+        }
+        if (pendingLength > 0) {
+            out.write(pending, 0, pendingLength);
+        }
+        out.flush();
+        return total;
+    }
+}
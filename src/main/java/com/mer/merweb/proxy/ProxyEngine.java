@@ -0,0 +1,534 @@
+package com.mer.merweb.proxy;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+
+/**
+ * 通用代理引擎（Servlet 模式）
+ * 按路由表匹配请求、拼装后端地址并透传响应，所有接口共用一套请求头处理和异常处理逻辑。
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ProxyEngine implements UpstreamFetcher {
+
+    private final RouteResolver resolver;
+    private final PassthroughProxy proxy;
+    private final ResponseCache responseCache;
+    private final DailyBucketCache dailyBucketCache;
+    private final RequestCoalescer coalescer;
+    private final RouteGroupGuard guard;
+    private final ObjectProvider<ResponseEnricher> enrichers;
+    private final ObjectProvider<ResponseObserver> observers;
+    private final ProxyMetrics metrics;
+    private final TokenVerdictCache tokenVerdicts;
+    private final RateLimiter rateLimiter;
+    private final NextPagePrefetcher prefetcher;
+
+    /**
+     * 补充响应的实现大多要经过本引擎调用其他接口，延迟到使用时再获取，避免循环依赖
+     */
+    public ProxyEngine(RouteResolver resolver, PassthroughProxy proxy, ResponseCache responseCache,
+                       DailyBucketCache dailyBucketCache, RequestCoalescer coalescer, RouteGroupGuard guard,
+                       ObjectProvider<ResponseEnricher> enrichers, ObjectProvider<ResponseObserver> observers,
+                       ProxyMetrics metrics, TokenVerdictCache tokenVerdicts, RateLimiter rateLimiter,
+                       NextPagePrefetcher prefetcher) {
+        this.resolver = resolver;
+        this.proxy = proxy;
+        this.responseCache = responseCache;
+        this.dailyBucketCache = dailyBucketCache;
+        this.coalescer = coalescer;
+        this.guard = guard;
+        this.enrichers = enrichers;
+        this.observers = observers;
+        this.metrics = metrics;
+        this.tokenVerdicts = tokenVerdicts;
+        this.rateLimiter = rateLimiter;
+        this.prefetcher = prefetcher;
+    }
+
+    /**
+     * 处理一次代理请求
+     *
+     * @param path 去掉 /api 前缀后的请求路径，保持请求 URI 中的编码形式
+     * @return 网关自行生成的响应；响应已透传写出时返回 null
+     */
+    public ResponseEntity<?> handle(String path, HttpServletRequest request, HttpServletResponse response) {
+        HttpMethod method = HttpMethod.valueOf(request.getMethod());
+        RouteResolver.Resolution resolution = resolver.resolve(method, path, request::getParameter);
+        if (resolution.rejection() != null) {
+            return resolution.rejection();
+        }
+
+        ProxyExchange exchange = resolution.exchange();
+        long start = System.nanoTime();
+        if (request.getAttribute(ServerTiming.ATTRIBUTE) instanceof ServerTiming timing) {
+            timing.enterHandler(start);
+        }
+        ResponseEntity<?> result = null;
+        try {
+            TokenVerdictCache.Verdict verdict = tokenVerdicts.admit(exchange.getRoute(),
+                    request.getHeader(HttpHeaders.AUTHORIZATION));
+            if (verdict != null && !verdict.valid()) {
+                result = tokenVerdicts.rejection();
+                return result;
+            }
+            result = dispatch(exchange, method, request, response);
+            return result;
+        } finally {
+            metrics.recordRequest(exchange.getRoute(),
+                    result != null ? result.getStatusCode().value() : response.getStatus(),
+                    System.nanoTime() - start);
+        }
+    }
+
+    private ResponseEntity<?> dispatch(ProxyExchange exchange, HttpMethod method, HttpServletRequest request,
+                                       HttpServletResponse response) {
+        ProxyRoute route = exchange.getRoute();
+        if (rateLimiter.applies(route)) {
+            try {
+                request = limit(route, request);
+            } catch (RateLimitExceededException e) {
+                return e.toResponse(route.failureBody().apply(exchange, e));
+            } catch (IOException e) {
+                return failure(exchange, e);
+            }
+            if (request == null) {
+                return rateLimiter.bodyTooLarge();
+            }
+        }
+        String authorization = route.isForwardAuthorization() ? request.getHeader(HttpHeaders.AUTHORIZATION) : null;
+        if (!HttpMethod.GET.equals(method)) {
+            prefetcher.invalidate(authorization);
+        }
+        URI uri = resolver.upstreamUri(exchange);
+        if (route.isCached() && authorization != null && !authorization.isEmpty()) {
+            return handleCached(exchange, method, uri, authorization, request, response);
+        }
+        if (authorization != null && !authorization.isEmpty() && dailyBucketCache.applies(exchange)) {
+            return handleDailyBuckets(exchange, authorization, request, response);
+        }
+        ResponseEnricher enricher = enricher(exchange);
+        if (enricher != null) {
+            return handleEnriched(exchange, enricher, uri, authorization, request, response);
+        }
+        if (prefetcher.applies(route, authorization)) {
+            return handlePrefetched(exchange, uri, authorization, request, response);
+        }
+        if (coalescer.applies(route)) {
+            BufferedResponse buffered;
+            try {
+                buffered = loadCoalesced(route, uri, authorization);
+            } catch (ResponseTooLargeException e) {
+                // 响应太大时不合并，直接透传
+                return stream(exchange, method, uri, authorization, request, response);
+            } catch (Exception e) {
+                return failure(exchange, e);
+            }
+            return writeBuffered(exchange, buffered, null, request, response);
+        }
+        return stream(exchange, method, uri, authorization, request, response);
+    }
+
+    /**
+     * 边读边写地透传后端响应，不把响应体完整读入内存
+     */
+    private ResponseEntity<?> stream(ProxyExchange exchange, HttpMethod method, URI uri, String authorization,
+                                     HttpServletRequest request, HttpServletResponse response) {
+        ProxyRoute route = exchange.getRoute();
+        RouteGroupGuard.Permit permit;
+        try {
+            permit = guard.acquire(route.getGroup());
+        } catch (GroupUnavailableException e) {
+            return failure(exchange, e);
+        }
+        boolean forwardBody = route.isForwardBody() && !HttpMethod.GET.equals(method);
+        long start = System.nanoTime();
+        Integer upstreamStatus = null;
+        try (ClientHttpResponse upstream = proxy.execute(method, uri, authorization,
+                forwardBody || HttpMethod.GET.equals(method) ? request : null)) {
+            BiFunction<ProxyExchange, HttpStatusCode, ResponseEntity<?>> serverErrorHandler = route.serverErrorHandler();
+            HttpStatusCode status = upstream.getStatusCode();
+            permit.complete(status);
+            upstreamStatus = status.value();
+            if (AdaptiveConcurrencyLimiter.dropped(upstreamStatus)) {
+                request.setAttribute(AdaptiveConcurrencyLimiter.UPSTREAM_DROPPED, Boolean.TRUE);
+            }
+            long elapsed = System.nanoTime() - start;
+            metrics.recordUpstream(route, upstreamStatus, elapsed);
+            if (request.getAttribute(ServerTiming.ATTRIBUTE) instanceof ServerTiming timing) {
+                timing.add(ServerTiming.Phase.UPSTREAM, elapsed);
+            }
+            if (forwardBody) {
+                metrics.recordRequestSize(route, request.getContentLengthLong());
+            }
+            tokenVerdicts.observe(route, authorization, upstreamStatus, upstream.getHeaders());
+            if (serverErrorHandler != null && status.is5xxServerError()) {
+                return serverErrorHandler.apply(exchange, status);
+            }
+            boolean issuesToken = route.getTokenRole() == TokenRole.ISSUE;
+            if ((issuesToken || !route.getObservers().isEmpty()) && status.is2xxSuccessful()) {
+                long size = proxy.copyBuffered(upstream, response, body -> {
+                    if (issuesToken) {
+                        tokenVerdicts.issued(body);
+                    }
+                    observe(route, authorization, status.value(), body);
+                });
+                metrics.recordResponseSize(route, size);
+                return null;
+            }
+            metrics.recordResponseSize(route, proxy.copy(upstream, response));
+            return null;
+        } catch (Exception e) {
+            permit.fail(e);
+            if (upstreamStatus == null) {
+                metrics.recordUpstream(route, null, System.nanoTime() - start);
+                request.setAttribute(AdaptiveConcurrencyLimiter.UPSTREAM_DROPPED, Boolean.TRUE);
+            }
+            return failure(exchange, e);
+        } finally {
+            permit.release();
+        }
+    }
+
+    /**
+     * 为限流的路由取令牌，需要按账号限流时把请求体读入内存，转发时从内存重新读取
+     *
+     * @return 转发给后端时使用的请求；请求体超过 maxBodySize 时返回 null
+     * @throws RateLimitExceededException 客户端 IP 或账号超限
+     */
+    private HttpServletRequest limit(ProxyRoute route, HttpServletRequest request) throws IOException {
+        byte[] body = null;
+        if (rateLimiter.readsBody(route)) {
+            body = request.getInputStream().readNBytes(rateLimiter.getMaxBodySize() + 1);
+            if (body.length > rateLimiter.getMaxBodySize()) {
+                return null;
+            }
+            request = new BufferedBodyRequest(request, body);
+        }
+        rateLimiter.acquire(route, request.getRemoteAddr(), body);
+        return request;
+    }
+
+    /**
+     * 经过网关缓存的请求，响应头 X-Cache 标明是否命中
+     */
+    private ResponseEntity<?> handleCached(ProxyExchange exchange, HttpMethod method, URI uri,
+                                           String authorization, HttpServletRequest request,
+                                           HttpServletResponse response) {
+        ResponseCache.Result result;
+        try {
+            result = loadCached(exchange.getRoute(), method, uri, authorization);
+        } catch (Exception e) {
+            return failure(exchange, e);
+        }
+        return writeBuffered(exchange, result.response(), result.hit() ? "HIT" : "MISS", request, response);
+    }
+
+    /**
+     * 统计接口按天拼装，后端调用在当前线程依次执行
+     */
+    private ResponseEntity<?> handleDailyBuckets(ProxyExchange exchange, String authorization,
+                                                 HttpServletRequest request, HttpServletResponse response) {
+        DailyBucketCache.Assembled assembled;
+        try {
+            assembled = dailyBucketCache.assemble(exchange, authorization, segment -> Mono.fromCallable(() ->
+                    load(segment.getRoute(), resolver.upstreamUri(segment), authorization))).block();
+        } catch (Exception e) {
+            return failure(exchange, Exceptions.unwrap(e) instanceof Exception cause ? cause : e);
+        }
+        return writeBuffered(exchange, assembled.response(), assembled.cacheStatus(), request, response);
+    }
+
+    /**
+     * 读入完整响应交给 enrich 参数选择的实现改写，改写时的后端调用在 boundedElastic 线程池中执行
+     */
+    private ResponseEntity<?> handleEnriched(ProxyExchange exchange, ResponseEnricher enricher, URI uri,
+                                             String authorization, HttpServletRequest request,
+                                             HttpServletResponse response) {
+        BufferedResponse enriched;
+        try {
+            BufferedResponse buffered = load(exchange.getRoute(), uri, authorization);
+            long start = System.nanoTime();
+            enriched = enricher.enrich(buffered, authorization).block();
+            if (request.getAttribute(ServerTiming.ATTRIBUTE) instanceof ServerTiming timing) {
+                timing.add(ServerTiming.Phase.SERIALIZE, System.nanoTime() - start);
+            }
+        } catch (ResponseTooLargeException e) {
+            // 响应太大时不补充，直接透传
+            return stream(exchange, HttpMethod.GET, uri, authorization, request, response);
+        } catch (Exception e) {
+            return failure(exchange, Exceptions.unwrap(e) instanceof Exception cause ? cause : e);
+        }
+        return writeBuffered(exchange, enriched, null, request, response);
+    }
+
+    /**
+     * 分页列表优先使用预取的结果，返回后在后台预取下一页，预取在 boundedElastic 线程池中访问后端
+     */
+    private ResponseEntity<?> handlePrefetched(ProxyExchange exchange, URI uri, String authorization,
+                                               HttpServletRequest request, HttpServletResponse response) {
+        ProxyRoute route = exchange.getRoute();
+        BufferedResponse buffered;
+        String cacheStatus = null;
+        try {
+            CompletableFuture<BufferedResponse> prefetched = prefetcher.take(route, uri.toString(), authorization);
+            buffered = prefetched != null ? prefetched.join() : null;
+            if (buffered != null) {
+                cacheStatus = NextPagePrefetcher.CACHE_STATUS;
+            } else {
+                buffered = load(route, uri, authorization);
+            }
+        } catch (ResponseTooLargeException e) {
+            // 响应太大时不预取下一页，直接透传
+            return stream(exchange, HttpMethod.GET, uri, authorization, request, response);
+        } catch (Exception e) {
+            return failure(exchange, e);
+        }
+        prefetcher.schedule(exchange, authorization, buffered, next -> Mono.fromCallable(() ->
+                        fetchUpstream(route, HttpMethod.GET, resolver.upstreamUri(next), authorization))
+                .subscribeOn(Schedulers.boundedElastic()));
+        return writeBuffered(exchange, buffered, cacheStatus, request, response);
+    }
+
+    /**
+     * 写出完整读入内存的响应，浏览器缓存的版本仍然有效时返回 304
+     */
+    private ResponseEntity<?> writeBuffered(ProxyExchange exchange, BufferedResponse buffered, String cacheStatus,
+                                            HttpServletRequest request, HttpServletResponse response) {
+        BiFunction<ProxyExchange, HttpStatusCode, ResponseEntity<?>> serverErrorHandler =
+                exchange.getRoute().serverErrorHandler();
+        if (serverErrorHandler != null && buffered.status().is5xxServerError()) {
+            return serverErrorHandler.apply(exchange, buffered.status());
+        }
+        long start = System.nanoTime();
+        buffered = buffered.forEncoding(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (buffered.isNotModified(request.getHeader(HttpHeaders.IF_NONE_MATCH),
+                request.getHeader(HttpHeaders.IF_MODIFIED_SINCE))) {
+            buffered = buffered.notModified();
+        }
+        if (request.getAttribute(ServerTiming.ATTRIBUTE) instanceof ServerTiming timing) {
+            timing.add(ServerTiming.Phase.SERIALIZE, System.nanoTime() - start);
+        }
+        try {
+            if (cacheStatus != null) {
+                response.setHeader(ResponseCache.HEADER, cacheStatus);
+            }
+            proxy.write(buffered, response);
+            metrics.recordResponseSize(exchange.getRoute(), buffered.body().length);
+            return null;
+        } catch (Exception e) {
+            return failure(exchange, e);
+        }
+    }
+
+    /**
+     * 经过缓存读取完整响应，未命中时由当前线程访问后端，同一个键的并发请求等待同一个结果
+     */
+    private ResponseCache.Result loadCached(ProxyRoute route, HttpMethod method, URI uri,
+                                            String authorization) throws Exception {
+        ResponseCache.Lookup lookup = responseCache.lookup(route, uri.toString());
+        if (lookup.isOwner()) {
+            BufferedResponse buffered;
+            try {
+                buffered = fetchUpstream(route, method, uri, authorization);
+            } catch (Exception e) {
+                lookup.fail(e);
+                throw e;
+            }
+            lookup.complete(buffered);
+            return new ResponseCache.Result(buffered, false);
+        }
+
+        BufferedResponse buffered;
+        try {
+            buffered = lookup.future().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+        if (!responseCache.isCacheable(buffered)) {
+            // 其他请求拿到的是与身份相关的响应，不能共用
+            return new ResponseCache.Result(fetchUpstream(route, method, uri, authorization), false);
+        }
+        return new ResponseCache.Result(buffered, true);
+    }
+
+    /**
+     * 读取 GET 请求的完整响应，路由开启合并时与相同的并发请求共用一次后端调用
+     */
+    private BufferedResponse load(ProxyRoute route, URI uri, String authorization) throws Exception {
+        return coalescer.applies(route) ? loadCoalesced(route, uri, authorization)
+                : fetchUpstream(route, HttpMethod.GET, uri, authorization);
+    }
+
+    private BufferedResponse loadCoalesced(ProxyRoute route, URI uri, String authorization) throws Exception {
+        RequestCoalescer.Flight flight = coalescer.join(route, uri.toString(), authorization);
+        if (flight.isLeader()) {
+            BufferedResponse buffered;
+            try {
+                buffered = fetchUpstream(route, HttpMethod.GET, uri, authorization);
+            } catch (Exception e) {
+                flight.fail(e);
+                throw e;
+            }
+            flight.complete(buffered);
+            return buffered;
+        }
+
+        try {
+            BufferedResponse shared = flight.future().join();
+            if (flight.adopt(shared)) {
+                return shared;
+            }
+        } catch (CancellationException e) {
+            // 领头请求已取消，自行访问后端
+        } catch (CompletionException e) {
+            if (!(e.getCause() instanceof CancellationException)) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        }
+        return fetchUpstream(route, HttpMethod.GET, uri, authorization);
+    }
+
+    @Override
+    public BufferedResponse cached(String path, String authorization) {
+        ProxyExchange exchange = resolver.resolveInternal(HttpMethod.GET, path, Map.of());
+        ProxyRoute route = exchange.getRoute();
+        if (!route.isCached() || authorization == null || authorization.isEmpty()
+                || tokenVerdicts.isRejected(authorization)) {
+            return null;
+        }
+        return responseCache.getIfPresent(route, resolver.upstreamUri(exchange).toString());
+    }
+
+    /**
+     * 阻塞的后端调用在 boundedElastic 线程池中执行，调用方可以用 flatMap 的并发数控制同时访问后端的请求数
+     */
+    @Override
+    public Mono<BufferedResponse> fetch(String path, Map<String, String> query, String authorization) {
+        return Mono.defer(() -> {
+            ProxyExchange exchange = resolver.resolveInternal(HttpMethod.GET, path, query);
+            ProxyRoute route = exchange.getRoute();
+            String forwarded = route.isForwardAuthorization() ? authorization : null;
+            if (forwarded != null && tokenVerdicts.isRejected(forwarded)) {
+                return Mono.just(tokenVerdicts.rejectedResponse());
+            }
+            URI uri = resolver.upstreamUri(exchange);
+            if (route.isCached() && forwarded != null && !forwarded.isEmpty()) {
+                return Mono.fromCallable(() -> loadCached(route, HttpMethod.GET, uri, forwarded).response());
+            }
+            if (forwarded != null && !forwarded.isEmpty() && dailyBucketCache.applies(exchange)) {
+                return dailyBucketCache.assemble(exchange, forwarded, segment -> Mono.fromCallable(() ->
+                                load(segment.getRoute(), resolver.upstreamUri(segment), forwarded)))
+                        .map(DailyBucketCache.Assembled::response);
+            }
+            return Mono.fromCallable(() -> load(route, uri, forwarded));
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * 经过路由分组的熔断和并发限制访问后端
+     *
+     * @throws GroupUnavailableException 分组熔断中或并发已满
+     */
+    private BufferedResponse fetchUpstream(ProxyRoute route, HttpMethod method, URI uri,
+                                           String authorization) throws Exception {
+        RouteGroupGuard.Permit permit = guard.acquire(route.getGroup());
+        long start = System.nanoTime();
+        try {
+            BufferedResponse buffered = proxy.fetch(method, uri, authorization, currentTiming());
+            permit.complete(buffered.status());
+            metrics.recordUpstream(route, buffered.status().value(), System.nanoTime() - start);
+            if (AdaptiveConcurrencyLimiter.dropped(buffered.status().value())) {
+                markDropped();
+            }
+            tokenVerdicts.observe(route, authorization, buffered);
+            observe(route, authorization, buffered.status().value(), buffered.body());
+            return buffered;
+        } catch (ResponseTooLargeException e) {
+            // 后端已正常响应，只是响应体太大，按状态码记录
+            permit.complete(e.getStatus());
+            metrics.recordUpstream(route, e.getStatus().value(), System.nanoTime() - start);
+            if (AdaptiveConcurrencyLimiter.dropped(e.getStatus().value())) {
+                markDropped();
+            }
+            throw e;
+        } catch (Exception e) {
+            permit.fail(e);
+            metrics.recordUpstream(route, null, System.nanoTime() - start);
+            markDropped();
+            throw e;
+        } finally {
+            permit.release();
+        }
+    }
+
+    /**
+     * 当前线程正在处理的请求的分阶段耗时；在 boundedElastic 线程池中执行的后端调用不属于某个请求，返回 null
+     */
+    private static ServerTiming currentTiming() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null && attributes.getAttribute(ServerTiming.ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST) instanceof ServerTiming timing ? timing : null;
+    }
+
+    /**
+     * 在当前线程正在处理的请求上标记后端过载或不可用，入口并发限制据此收缩上限；
+     * 在 boundedElastic 线程池中执行的后端调用（预取、网关内部调用）不属于某个请求，不标记
+     */
+    private static void markDropped() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(AdaptiveConcurrencyLimiter.UPSTREAM_DROPPED, Boolean.TRUE,
+                    RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    /**
+     * 把完整读入的后端响应交给路由声明的 {@link ResponseObserver}
+     */
+    private void observe(ProxyRoute route, String authorization, int status, byte[] body) {
+        if (!route.getObservers().isEmpty()) {
+            observers.forEach(observer -> {
+                if (route.getObservers().contains(observer.name())) {
+                    observer.observe(route, authorization, status, body);
+                }
+            });
+        }
+    }
+
+    private ResponseEnricher enricher(ProxyExchange exchange) {
+        String name = exchange.getEnrichment();
+        return name == null ? null
+                : enrichers.stream().filter(enricher -> enricher.name().equals(name)).findFirst().orElse(null);
+    }
+
+    private static ResponseEntity<?> failure(ProxyExchange exchange, Exception e) {
+        if (e instanceof GroupUnavailableException rejected) {
+            return rejected.toResponse(exchange.getRoute().failureBody().apply(exchange, rejected));
+        }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(exchange.getRoute().failureBody().apply(exchange, e));
+    }
+}
@@ -0,0 +1,76 @@
+package com.mer.merweb.proxy;
+
+/**
+ * 一次代理请求的上下文
+ * 路由策略中的回调通过它读取路径变量和已解析的查询参数，
+ * 不依赖具体的 Web 容器，Servlet 与响应式两种模式共用
+ */
+public final class ProxyExchange {
+
+    private final ProxyRoute route;
+    private final String[] pathVariables;
+    private final String[] queryValues;
+    private final String enrichment;
+
+    ProxyExchange(RouteMatch match, String[] queryValues, String enrichment) {
+        this(match.route(), match.pathVariables(), queryValues, enrichment);
+    }
+
+    private ProxyExchange(ProxyRoute route, String[] pathVariables, String[] queryValues, String enrichment) {
+        this.route = route;
+        this.pathVariables = pathVariables;
+        this.queryValues = queryValues;
+        this.enrichment = enrichment;
+    }
+
+    public ProxyRoute getRoute() {
+        return route;
+    }
+
+    /**
+     * 请求要求的响应补充方式（enrich 参数），路由未声明或请求未携带时返回 null
+     */
+    public String getEnrichment() {
+        return enrichment;
+    }
+
+    /**
+     * 已应用默认值的查询参数，路由未声明该参数或请求未携带时返回 null
+     */
+    public String query(String name) {
+        int index = route.queryIndex(name);
+        return index >= 0 ? queryValues[index] : null;
+    }
+
+    /**
+     * 查询参数按整数读取，无法解析时返回默认值
+     */
+    public int queryInt(String name, int defaultValue) {
+        String value = query(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 替换一个已声明查询参数的取值，返回新的上下文
+     */
+    ProxyExchange withQuery(String name, String value) {
+        String[] values = queryValues.clone();
+        values[route.queryIndex(name)] = value;
+        return new ProxyExchange(route, pathVariables, values, enrichment);
+    }
+
+    String[] pathVariables() {
+        return pathVariables;
+    }
+
+    String[] queryValues() {
+        return queryValues;
+    }
+}
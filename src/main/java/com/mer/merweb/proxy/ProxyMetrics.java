@@ -0,0 +1,109 @@
+package com.mer.merweb.proxy;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 代理接口的运行指标
+ * 标签取路由表中的路径模式（如 /team/{teamId:number}）而不是实际请求地址，指标数量只随路由数增长：
+ * <ul>
+ *     <li>mer.proxy.requests：网关处理耗时，从匹配路由到写完响应，包括缓存命中和请求合并</li>
+ *     <li>mer.proxy.upstream：访问后端的耗时，透传请求到收到响应头为止，其余到读完响应体为止</li>
+ *     <li>mer.proxy.request.size、mer.proxy.response.size：转发的请求体和写出的响应体字节数</li>
+ * </ul>
+ * 耗时直方图的分桶在 application.properties 的 management.metrics.distribution.* 中配置，p50、p95、p99 由直方图计算。
+ */
+@Component
+public class ProxyMetrics {
+
+    public static final String REQUESTS = "mer.proxy.requests";
+    public static final String UPSTREAM = "mer.proxy.upstream";
+    public static final String REQUEST_SIZE = "mer.proxy.request.size";
+    public static final String RESPONSE_SIZE = "mer.proxy.response.size";
+
+    /**
+     * 没有拿到后端响应（连接失败、超时、分组不可用）时的 status 标签
+     */
+    static final String NO_RESPONSE = "none";
+
+    /**
+     * 不属于单个路由的网关缓存的 route 标签
+     * Prometheus 要求同名指标的标签键一致，各缓存的 cache.* 指标都带 route 标签
+     */
+    static final String NO_ROUTE = "none";
+
+    private final MeterRegistry registry;
+
+    public ProxyMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 记录一次代理请求的网关处理耗时
+     *
+     * @param status 返回给浏览器的状态码
+     */
+    public void recordRequest(ProxyRoute route, int status, long nanos) {
+        Timer.builder(REQUESTS)
+                .description("网关处理代理请求的耗时")
+                .tags(tags(route))
+                .tag("status", statusClass(status))
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次后端调用的耗时
+     *
+     * @param status 后端响应的状态码，没有拿到响应时为 null
+     */
+    public void recordUpstream(ProxyRoute route, Integer status, long nanos) {
+        Timer.builder(UPSTREAM)
+                .description("访问后端的耗时")
+                .tags(tags(route))
+                .tag("status", status != null ? statusClass(status) : NO_RESPONSE)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录转发给后端的请求体大小，长度未知时不记录
+     */
+    public void recordRequestSize(ProxyRoute route, long bytes) {
+        if (bytes >= 0) {
+            summary(REQUEST_SIZE, "转发给后端的请求体大小", route).record(bytes);
+        }
+    }
+
+    /**
+     * 记录写出给浏览器的响应体大小
+     */
+    public void recordResponseSize(ProxyRoute route, long bytes) {
+        summary(RESPONSE_SIZE, "写出的响应体大小", route).record(bytes);
+    }
+
+    private DistributionSummary summary(String name, String description, ProxyRoute route) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit("bytes")
+                .tags(tags(route))
+                .register(registry);
+    }
+
+    private static Tags tags(ProxyRoute route) {
+        return Tags.of(
+                "route", route.getPattern(),
+                "method", route.getMethod().name(),
+                "group", route.getGroup().name().toLowerCase(Locale.ROOT));
+    }
+
+    private static String statusClass(int status) {
+        return status >= 100 && status < 600 ? status / 100 + "xx" : NO_RESPONSE;
+    }
+}
@@ -0,0 +1,407 @@
+package com.mer.merweb.proxy;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * 代理路由定义
+ * 描述一个网关接口：请求方法、路径模式、后端地址模板、允许转发的查询参数以及路由策略。
+ * 通过 {@link #get(String...)} 等方法创建构建器，在 {@code ProxyRouteConfig} 中集中声明。
+ */
+public final class ProxyRoute {
+
+    private final HttpMethod method;
+    private final List<RoutePattern> patterns;
+    private final UpstreamTemplate upstream;
+    private final QueryParam[] queryParams;
+    private final String[] encodedQueryNames;
+    private final RouteGroup group;
+    private final boolean forwardAuthorization;
+    private final boolean forwardBody;
+    private final boolean cached;
+    private final DailyBuckets dailyBuckets;
+    private final CoalescingScope coalescing;
+    private final Set<String> enrichments;
+    private final Set<String> observers;
+    private final TokenRole tokenRole;
+    private final RateLimitRule rateLimit;
+    private final Pagination prefetch;
+    private final BiFunction<ProxyExchange, Exception, Object> failureBody;
+    private final BiFunction<ProxyExchange, HttpStatusCode, ResponseEntity<?>> serverErrorHandler;
+
+    private ProxyRoute(Builder builder) {
+        this.method = builder.method;
+        this.patterns = List.copyOf(builder.patterns);
+        RoutePattern first = patterns.get(0);
+        for (RoutePattern pattern : patterns) {
+            if (!pattern.variables().equals(first.variables())) {
+                throw new IllegalArgumentException("同一路由的多个路径必须声明相同的变量: " + pattern.pattern());
+            }
+        }
+        String template = builder.upstream != null ? builder.upstream : defaultUpstream(first);
+        this.upstream = UpstreamTemplate.compile(template, first.variables());
+        this.queryParams = builder.queryParams.toArray(new QueryParam[0]);
+        this.encodedQueryNames = new String[queryParams.length];
+        for (int i = 0; i < queryParams.length; i++) {
+            StringBuilder name = new StringBuilder();
+            UriEncoding.appendQueryComponent(name, queryParams[i].name());
+            encodedQueryNames[i] = name.toString();
+        }
+        this.group = builder.group;
+        this.forwardAuthorization = builder.forwardAuthorization;
+        this.forwardBody = HttpMethod.POST.equals(method) || HttpMethod.PUT.equals(method)
+                || HttpMethod.PATCH.equals(method);
+        this.cached = builder.cached;
+        this.dailyBuckets = builder.dailyBuckets;
+        this.coalescing = HttpMethod.GET.equals(method) ? builder.coalescing : null;
+        this.enrichments = Set.copyOf(builder.enrichments);
+        this.observers = Set.copyOf(builder.observers);
+        this.tokenRole = builder.tokenRole;
+        this.rateLimit = builder.rateLimit;
+        this.prefetch = builder.prefetch;
+        this.failureBody = builder.failureBody;
+        this.serverErrorHandler = builder.serverErrorHandler;
+    }
+
+    public static Builder get(String... patterns) {
+        return new Builder(HttpMethod.GET, patterns);
+    }
+
+    public static Builder post(String... patterns) {
+        return new Builder(HttpMethod.POST, patterns);
+    }
+
+    public static Builder put(String... patterns) {
+        return new Builder(HttpMethod.PUT, patterns);
+    }
+
+    public static Builder delete(String... patterns) {
+        return new Builder(HttpMethod.DELETE, patterns);
+    }
+
+    public HttpMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * 路由的主路径模式，用作日志和指标中的路由名称
+     */
+    public String getPattern() {
+        return patterns.get(0).pattern();
+    }
+
+    public RouteGroup getGroup() {
+        return group;
+    }
+
+    public boolean isForwardAuthorization() {
+        return forwardAuthorization;
+    }
+
+    public boolean isForwardBody() {
+        return forwardBody;
+    }
+
+    public boolean isCached() {
+        return cached;
+    }
+
+    public DailyBuckets getDailyBuckets() {
+        return dailyBuckets;
+    }
+
+    /**
+     * 合并并发请求的范围，未声明合并的路由和非 GET 路由为 null
+     */
+    public CoalescingScope getCoalescing() {
+        return coalescing;
+    }
+
+    /**
+     * 路由支持的响应补充方式，请求通过 enrich 参数选择
+     */
+    public Set<String> getEnrichments() {
+        return enrichments;
+    }
+
+    /**
+     * 读取路由响应的 {@link ResponseObserver} 名称
+     */
+    public Set<String> getObservers() {
+        return observers;
+    }
+
+    /**
+     * 路由在登录态中的作用，与登录态无关的路由为 null
+     */
+    public TokenRole getTokenRole() {
+        return tokenRole;
+    }
+
+    /**
+     * 路由的限流方式，不限流的路由为 null
+     */
+    public RateLimitRule getRateLimit() {
+        return rateLimit;
+    }
+
+    /**
+     * 预取下一页时使用的分页参数，不预取的路由为 null
+     */
+    public Pagination getPrefetch() {
+        return prefetch;
+    }
+
+    List<RoutePattern> patterns() {
+        return patterns;
+    }
+
+    UpstreamTemplate upstream() {
+        return upstream;
+    }
+
+    QueryParam[] queryParams() {
+        return queryParams;
+    }
+
+    String encodedQueryName(int index) {
+        return encodedQueryNames[index];
+    }
+
+    int queryIndex(String name) {
+        for (int i = 0; i < queryParams.length; i++) {
+            if (queryParams[i].name().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    int variableCount() {
+        return patterns.get(0).variables().size();
+    }
+
+    BiFunction<ProxyExchange, Exception, Object> failureBody() {
+        return failureBody;
+    }
+
+    BiFunction<ProxyExchange, HttpStatusCode, ResponseEntity<?>> serverErrorHandler() {
+        return serverErrorHandler;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + getPattern() + " -> " + upstream;
+    }
+
+    private static String defaultUpstream(RoutePattern pattern) {
+        StringBuilder template = new StringBuilder();
+        for (RoutePattern.Segment segment : pattern.segments()) {
+            template.append('/');
+            if (segment.isVariable()) {
+                template.append('{').append(segment.variable()).append('}');
+            } else {
+                template.append(segment.literal());
+            }
+        }
+        return template.toString();
+    }
+
+    public static final class Builder {
+
+        private final HttpMethod method;
+        private final List<RoutePattern> patterns = new ArrayList<>();
+        private final List<QueryParam> queryParams = new ArrayList<>();
+        private String upstream;
+        private RouteGroup group;
+        private boolean forwardAuthorization = true;
+        private boolean cached;
+        private DailyBuckets dailyBuckets;
+        private CoalescingScope coalescing;
+        private final Set<String> enrichments = new LinkedHashSet<>();
+        private final Set<String> observers = new LinkedHashSet<>();
+        private TokenRole tokenRole;
+        private RateLimitRule rateLimit;
+        private Pagination prefetch;
+        private BiFunction<ProxyExchange, Exception, Object> failureBody = FailureBodies.error("请求后端失败");
+        private BiFunction<ProxyExchange, HttpStatusCode, ResponseEntity<?>> serverErrorHandler;
+
+        private Builder(HttpMethod method, String... patterns) {
+            if (patterns.length == 0) {
+                throw new IllegalArgumentException("路由至少需要一个路径");
+            }
+            this.method = method;
+            for (String pattern : patterns) {
+                this.patterns.add(RoutePattern.parse(pattern));
+            }
+        }
+
+        /**
+         * 后端地址模板（相对于 backendUrl），默认与网关路径相同
+         */
+        public Builder upstream(String upstream) {
+            this.upstream = upstream;
+            return this;
+        }
+
+        /**
+         * 可选查询参数，为空时不转发
+         */
+        public Builder query(String name) {
+            queryParams.add(new QueryParam(name, null, false));
+            return this;
+        }
+
+        /**
+         * 带默认值的查询参数
+         */
+        public Builder query(String name, String defaultValue) {
+            queryParams.add(new QueryParam(name, defaultValue, false));
+            return this;
+        }
+
+        /**
+         * 必填查询参数
+         */
+        public Builder required(String name) {
+            queryParams.add(new QueryParam(name, null, true));
+            return this;
+        }
+
+        public Builder group(RouteGroup group) {
+            this.group = group;
+            return this;
+        }
+
+        /**
+         * 不向后端转发 Authorization 头（登录、验证码等匿名接口）
+         */
+        public Builder anonymous() {
+            this.forwardAuthorization = false;
+            return this;
+        }
+
+        /**
+         * 在网关缓存后端响应，缓存时长见 mer.proxy.cache.*
+         * 只用于所有用户看到的结果都相同、几乎不变的 GET 接口，携带 Authorization 的请求才会命中缓存
+         */
+        public Builder cached() {
+            this.cached = true;
+            return this;
+        }
+
+        /**
+         * 按天缓存统计结果：已经过去的日期不会再变，只有包含今天及以后的部分访问后端
+         * 路由需要声明 startDate 和 endDate 查询参数，缓存时长见 mer.proxy.statistics.*
+         */
+        public Builder dailyBuckets(DailyBuckets dailyBuckets) {
+            this.dailyBuckets = dailyBuckets;
+            return this;
+        }
+
+        /**
+         * 合并并发的相同请求，只对 GET 路由生效，开关见 mer.proxy.coalescing.enabled
+         * 合并的请求要完整读入响应，只用于同一时刻被大量重复请求、响应不大的接口；
+         * 响应超过 mer.proxy.max-buffered-size 时不合并，改为直接透传
+         */
+        public Builder coalesce(CoalescingScope coalescing) {
+            this.coalescing = coalescing;
+            return this;
+        }
+
+        /**
+         * 允许请求通过 enrich 参数让网关补充响应内容，名称对应 {@link ResponseEnricher#name()}
+         * 携带 enrich 参数的请求会完整读入响应再改写，不带参数或响应超过 mer.proxy.max-buffered-size 时直接透传
+         */
+        public Builder enrichable(String... names) {
+            enrichments.addAll(List.of(names));
+            return this;
+        }
+
+        /**
+         * 后端返回响应后交给对应的 {@link ResponseObserver} 读取，名称对应 {@link ResponseObserver#name()}
+         * 成功（2xx）的响应会完整读入内存再返回
+         */
+        public Builder observedBy(String... names) {
+            observers.addAll(List.of(names));
+            return this;
+        }
+
+        /**
+         * 声明路由在登录态中的作用，网关据此记录令牌是否有效，见 mer.proxy.token-cache.*
+         */
+        public Builder token(TokenRole tokenRole) {
+            this.tokenRole = tokenRole;
+            return this;
+        }
+
+        /**
+         * 按客户端 IP 和账号限流，超出时返回 429，策略参数见 mer.proxy.rate-limit.policies.{policy}.*
+         *
+         * @param accountFields 请求体 JSON 中表示账号的字段，不传时只按客户端 IP 限流
+         */
+        public Builder rateLimit(String policy, String... accountFields) {
+            this.rateLimit = new RateLimitRule(policy, List.of(accountFields));
+            return this;
+        }
+
+        /**
+         * 返回第 N 页后在后台预取同一用户、相同筛选条件的第 N+1 页，开关和预算见 mer.proxy.prefetch.*
+         * 两个参数都需要在路由中声明
+         */
+        public Builder prefetch(String pageParam, String pageSizeParam) {
+            this.prefetch = new Pagination(pageParam, pageSizeParam);
+            return this;
+        }
+
+        /**
+         * 连接后端失败时返回的响应体，状态码为 500
+         */
+        public Builder onFailure(BiFunction<ProxyExchange, Exception, Object> failureBody) {
+            this.failureBody = failureBody;
+            return this;
+        }
+
+        /**
+         * 后端返回 5xx 时改写响应，未设置时原样透传
+         */
+        public Builder onServerError(BiFunction<ProxyExchange, HttpStatusCode, ResponseEntity<?>> serverErrorHandler) {
+            this.serverErrorHandler = serverErrorHandler;
+            return this;
+        }
+
+        public ProxyRoute build() {
+            if (group == null) {
+                throw new IllegalStateException("路由未指定分组: " + patterns.get(0).pattern());
+            }
+            if ((cached || dailyBuckets != null || !enrichments.isEmpty()) && !HttpMethod.GET.equals(method)) {
+                throw new IllegalStateException("只有 GET 路由可以缓存或补充响应: " + patterns.get(0).pattern());
+            }
+            if (prefetch != null && !(HttpMethod.GET.equals(method)
+                    && declares(prefetch.pageParam()) && declares(prefetch.pageSizeParam()))) {
+                throw new IllegalStateException("预取下一页的路由必须是 GET 并声明分页参数: " + patterns.get(0).pattern());
+            }
+            if (dailyBuckets != null && !(declares(DailyBucketCache.START_DATE) && declares(DailyBucketCache.END_DATE))) {
+                throw new IllegalStateException("按天缓存的路由必须声明 startDate 和 endDate 参数: "
+                        + patterns.get(0).pattern());
+            }
+            return new ProxyRoute(this);
+        }
+
+        private boolean declares(String queryName) {
+            for (QueryParam param : queryParams) {
+                if (param.name().equals(queryName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
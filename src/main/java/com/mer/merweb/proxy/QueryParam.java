@@ -0,0 +1,11 @@
+package com.mer.merweb.proxy;
+
+/**
+ * 路由允许转发的查询参数
+ *
+ * @param name         参数名
+ * @param defaultValue 请求未携带或为空时使用的默认值，为 null 时不转发
+ * @param required     是否必填，缺少时网关直接返回 400
+ */
+public record QueryParam(String name, String defaultValue, boolean required) {
+}
@@ -0,0 +1,58 @@
+package com.mer.merweb.proxy;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 客户端 IP 或账号的请求次数超出限流策略，网关没有访问后端直接拒绝
+ * 代理引擎把它转换为 429 响应；503 只表示网关或后端过载
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    /**
+     * 超限的范围：ip 同一客户端 IP，account 同一账号
+     */
+    public static final String IP = "ip";
+    public static final String ACCOUNT = "account";
+
+    private final String scope;
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String scope, long retryAfterSeconds) {
+        super("请求过于频繁，请 " + retryAfterSeconds + " 秒后重试", null, false, false);
+        this.scope = scope;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * 429 响应，沿用路由的失败响应格式，另外带上拒绝原因和超限的范围，Retry-After 为恢复一次请求机会的等待时间
+     *
+     * @param failureBody 路由按本异常生成的失败响应体
+     */
+    public ResponseEntity<Object> toResponse(Object failureBody) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        if (failureBody instanceof Map<?, ?> map) {
+            map.forEach((key, value) -> body.put(String.valueOf(key), value));
+        } else {
+            body.put("error", true);
+            body.put("message", getMessage());
+        }
+        body.put("reason", "rate_limited");
+        body.put("scope", scope);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(body);
+    }
+}
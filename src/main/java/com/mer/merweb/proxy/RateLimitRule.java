@@ -0,0 +1,17 @@
+package com.mer.merweb.proxy;
+
+import java.util.List;
+
+/**
+ * 路由的限流方式
+ * 同一客户端 IP 和同一账号分别限流，策略参数见 mer.proxy.rate-limit.policies.{policy}.*
+ *
+ * @param policy        策略名
+ * @param accountFields 请求体 JSON 中表示账号的字段，按顺序取第一个非空值；为空时只按客户端 IP 限流
+ */
+public record RateLimitRule(String policy, List<String> accountFields) {
+
+    public RateLimitRule {
+        accountFields = List.copyOf(accountFields);
+    }
+}
@@ -0,0 +1,230 @@
+package com.mer.merweb.proxy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mer.merweb.config.ProxyProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 登录、验证码等接口的限流
+ * 同一客户端 IP、同一账号（请求体中的用户名或邮箱）各有一个令牌桶，两个桶都有令牌时才放行，
+ * 否则返回 429 和 Retry-After，重试风暴和撞库不会原样压到后端。
+ * 令牌桶只用一个 AtomicLong 记录“桶重新装满的时刻”（GCRA），取令牌是一次 CAS，不加锁；
+ * 桶存放在 Caffeine 中，按 maximumKeys 限制总数、idleTimeout 淘汰长期不活动的 IP 和账号，内存有上限。
+ */
+@Component
+public class RateLimiter implements MeterBinder {
+
+    private final boolean enabled;
+    private final int maxBodySize;
+    private final ProxyProperties.RateLimit config;
+    private final Cache<String, TokenBucket> buckets;
+    private final ObjectMapper objectMapper;
+    private final LongSupplier clock;
+
+    private final LongAdder rejectedByIp = new LongAdder();
+    private final LongAdder rejectedByAccount = new LongAdder();
+
+    @Autowired
+    public RateLimiter(ProxyProperties properties, ObjectMapper objectMapper) {
+        this(properties.getRateLimit(), objectMapper, System::nanoTime);
+    }
+
+    RateLimiter(ProxyProperties.RateLimit config, ObjectMapper objectMapper, LongSupplier clock) {
+        this.enabled = config.isEnabled();
+        this.maxBodySize = config.getMaxBodySize();
+        this.config = config;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumKeys())
+                .expireAfterAccess(config.getIdleTimeout())
+                .ticker(clock::getAsLong)
+                .build();
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    /**
+     * 路由是否限流
+     */
+    public boolean applies(ProxyRoute route) {
+        return enabled && route.getRateLimit() != null;
+    }
+
+    /**
+     * 是否需要读取请求体取出账号，读取后由调用方把请求体转发给后端
+     */
+    public boolean readsBody(ProxyRoute route) {
+        return applies(route) && !route.getRateLimit().accountFields().isEmpty();
+    }
+
+    /**
+     * 读取账号时请求体的最大字节数
+     */
+    public int getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * 为一次请求取令牌，先取客户端 IP 的令牌，再取账号的令牌；账号超限时归还已取的 IP 令牌
+     *
+     * @param clientIp 客户端 IP，未知时为 null
+     * @param body     请求体，路由不按账号限流时为 null
+     * @throws RateLimitExceededException 客户端 IP 或账号超限
+     */
+    public void acquire(ProxyRoute route, String clientIp, byte[] body) {
+        if (!applies(route)) {
+            return;
+        }
+        RateLimitRule rule = route.getRateLimit();
+        ProxyProperties.RatePolicy policy = config.policy(rule.policy());
+        long now = clock.getAsLong();
+
+        TokenBucket ipBucket = null;
+        if (clientIp != null) {
+            ipBucket = buckets.get(rule.policy() + "|ip|" + clientIp,
+                    key -> new TokenBucket(policy.getIpCapacity(), policy.getIpRefillPeriod().toNanos(), now));
+            long wait = ipBucket.tryAcquire(now);
+            if (wait > 0) {
+                rejectedByIp.increment();
+                throw new RateLimitExceededException(RateLimitExceededException.IP, seconds(wait));
+            }
+        }
+
+        String account = body != null ? account(rule, body) : null;
+        if (account != null) {
+            TokenBucket accountBucket = buckets.get(rule.policy() + "|account|" + account,
+                    key -> new TokenBucket(policy.getAccountCapacity(), policy.getAccountRefillPeriod().toNanos(),
+                            now));
+            long wait = accountBucket.tryAcquire(now);
+            if (wait > 0) {
+                if (ipBucket != null) {
+                    ipBucket.refund();
+                }
+                rejectedByAccount.increment();
+                throw new RateLimitExceededException(RateLimitExceededException.ACCOUNT, seconds(wait));
+            }
+        }
+    }
+
+    /**
+     * 请求体超过 maxBodySize 时的 413 响应
+     */
+    public ResponseEntity<Object> bodyTooLarge() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", true);
+        body.put("message", "请求体过大");
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(body);
+    }
+
+    /**
+     * 记录的 IP 和账号数、按范围统计的拒绝次数
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("keys", buckets.estimatedSize());
+        stats.put("rejectedByIp", rejectedByIp.sum());
+        stats.put("rejectedByAccount", rejectedByAccount.sum());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("mer.proxy.rate.limit.keys", buckets, Cache::estimatedSize)
+                .description("限流记录的客户端 IP 和账号数")
+                .register(registry);
+        FunctionCounter.builder("mer.proxy.rate.limited", rejectedByIp, LongAdder::sum)
+                .description("超出限流策略、网关直接返回 429 的请求数")
+                .tag("scope", RateLimitExceededException.IP)
+                .register(registry);
+        FunctionCounter.builder("mer.proxy.rate.limited", rejectedByAccount, LongAdder::sum)
+                .description("超出限流策略、网关直接返回 429 的请求数")
+                .tag("scope", RateLimitExceededException.ACCOUNT)
+                .register(registry);
+    }
+
+    /**
+     * 请求体 JSON 中的账号，忽略大小写和首尾空白；请求体不是 JSON 对象或没有账号字段时返回 null
+     */
+    private String account(RateLimitRule rule, byte[] body) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(body);
+        } catch (IOException e) {
+            return null;
+        }
+        if (root == null || !root.isObject()) {
+            return null;
+        }
+        for (String field : rule.accountFields()) {
+            JsonNode value = root.path(field);
+            if (value.isValueNode() && !value.isNull()) {
+                String account = value.asText().trim().toLowerCase(Locale.ROOT);
+                if (!account.isEmpty()) {
+                    return account;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static long seconds(long nanos) {
+        return Math.max(1, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * 令牌桶，full 为桶重新装满的时刻
+     * 桶中的令牌数 = (capacity * interval - (full - now)) / interval，取令牌即 full 推后一个 interval
+     */
+    static final class TokenBucket {
+
+        private final long interval;
+        private final long burst;
+        private final AtomicLong full;
+
+        TokenBucket(int capacity, long interval, long now) {
+            this.interval = interval;
+            this.burst = capacity * interval;
+            this.full = new AtomicLong(now);
+        }
+
+        /**
+         * @return 0 表示取到令牌；否则为恢复一个令牌还需等待的纳秒数
+         */
+        long tryAcquire(long now) {
+            while (true) {
+                long current = full.get();
+                long next = Math.max(current, now) + interval;
+                long wait = next - now - burst;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (full.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        void refund() {
+            full.addAndGet(-interval);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.mer.merweb.proxy;
+
+import com.mer.merweb.config.ProxyProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * 响应式透传代理
+ * 与 PassthroughProxy 相同的透传规则，请求体和响应体以 DataBuffer 流转发，
+ * 浏览器读取慢时按背压减缓从后端读取，不在网关中堆积响应数据。
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePassthroughProxy {
+
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    private final WebClient webClient;
+    private final int maxBufferedSize;
+
+    public ReactivePassthroughProxy(WebClient upstreamWebClient, ProxyProperties properties) {
+        this.webClient = upstreamWebClient;
+        this.maxBufferedSize = properties.getMaxBufferedSize();
+    }
+
+    /**
+     * 向后端发起请求，由 handler 处理尚未读取响应体的后端响应
+     * handler 必须消费或释放响应体，透传时交给 {@link #copy} 即可
+     *
+     * @param request 需要转发请求体（POST、PUT、PATCH）或条件请求头（GET）时传入当前请求，否则为 null
+     */
+    public <T> Mono<T> exchange(HttpMethod method, URI uri, String authorization, ServerHttpRequest request,
+                                Function<ClientResponse, Mono<T>> handler) {
+        WebClient.RequestBodySpec spec = webClient.method(method).uri(uri)
+                .accept(MediaType.APPLICATION_JSON);
+        if (authorization != null && !authorization.isEmpty()) {
+            spec.header(HttpHeaders.AUTHORIZATION, authorization);
+        }
+
+        WebClient.RequestHeadersSpec<?> upstreamRequest = spec;
+        if (request != null && HttpMethod.GET.equals(method)) {
+            for (String name : PassthroughProxy.CONDITIONAL_HEADERS) {
+                String value = request.getHeaders().getFirst(name);
+                if (value != null) {
+                    spec.header(name, value);
+                }
+            }
+        } else if (request != null) {
+            HttpHeaders headers = request.getHeaders();
+            String contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+            spec.header(HttpHeaders.CONTENT_TYPE,
+                    contentType != null ? contentType : MediaType.APPLICATION_JSON_VALUE);
+            long contentLength = headers.getContentLength();
+            if (contentLength >= 0) {
+                spec.contentLength(contentLength);
+            }
+            upstreamRequest = spec.body(BodyInserters.fromDataBuffers(request.getBody()));
+        }
+
+        return upstreamRequest.exchangeToMono(handler);
+    }
+
+    /**
+     * 向后端发起不带请求体的请求，并把响应完整读入内存
+     * 响应体超过 maxBufferedSize 时以 {@link ResponseTooLargeException} 结束
+     *
+     * @param timing 当前请求的分阶段耗时，不需要记录时为 null
+     */
+    public Mono<BufferedResponse> fetch(HttpMethod method, URI uri, String authorization, ServerTiming timing) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return exchange(method, uri, authorization, null, upstream -> {
+                long headers = System.nanoTime();
+                if (upstream.headers().contentLength().orElse(-1) > maxBufferedSize) {
+                    return upstream.releaseBody()
+                            .then(Mono.error(new ResponseTooLargeException(maxBufferedSize, upstream.statusCode())));
+                }
+                return DataBufferUtils.join(upstream.bodyToFlux(DataBuffer.class), maxBufferedSize)
+                        .map(ReactivePassthroughProxy::toBytes)
+                        .onErrorMap(DataBufferLimitException.class,
+                                e -> new ResponseTooLargeException(maxBufferedSize, upstream.statusCode()))
+                        .defaultIfEmpty(EMPTY_BODY)
+                        .map(body -> {
+                            if (timing != null) {
+                                timing.add(ServerTiming.Phase.UPSTREAM, headers - start);
+                                timing.add(ServerTiming.Phase.TRANSFER, System.nanoTime() - headers);
+                            }
+                            return BufferedResponse.of(upstream.statusCode(), upstream.headers().asHttpHeaders(),
+                                    body);
+                        });
+            });
+        });
+    }
+
+    /**
+     * 写出已读入内存的后端响应
+     */
+    public Mono<Void> write(BufferedResponse buffered, ServerHttpResponse response) {
+        response.setStatusCode(buffered.status());
+        response.getHeaders().putAll(buffered.headers());
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(buffered.body())));
+    }
+
+    /**
+     * 把后端响应的状态码、白名单响应头和响应体写入网关响应
+     *
+     * @param written 响应体全部写出后收到写出的字节数
+     */
+    public Mono<Void> copy(ClientResponse upstream, ServerHttpResponse response, LongConsumer written) {
+        return copy(upstream, response, null, null, written);
+    }
+
+    /**
+     * 与 {@link #copy} 相同地边读边写，同时在内存中保留响应体的副本，调用方需要查看响应体时使用（如登录响应中的令牌）
+     * 后端响应体读完时、网关响应结束之前把副本交给 onBuffered，浏览器收到完整响应时副本已经处理完；
+     * 超过 maxBufferedSize 时丢弃副本、不调用 onBuffered，响应照常透传
+     *
+     * @param written 响应体全部写出后收到写出的字节数
+     */
+    public Mono<Void> copyBuffered(ClientResponse upstream, ServerHttpResponse response,
+                                   Consumer<byte[]> onBuffered, LongConsumer written) {
+        boolean fits = upstream.headers().contentLength().orElse(-1) <= maxBufferedSize;
+        ByteArrayOutputStream kept = fits ? new ByteArrayOutputStream() : null;
+        return copy(upstream, response, kept, total -> {
+            if (kept != null && total <= maxBufferedSize) {
+                onBuffered.accept(kept.toByteArray());
+            }
+        }, written);
+    }
+
+    /**
+     * @param kept 同时保留响应体副本时传入，超过 maxBufferedSize 后不再写入；不需要时为 null
+     * @param read 后端响应体读完、最后一段写出之前收到读取的字节数，浏览器收到完整响应时副本已经处理完；不需要时为 null
+     */
+    private Mono<Void> copy(ClientResponse upstream, ServerHttpResponse response, ByteArrayOutputStream kept,
+                            LongConsumer read, LongConsumer written) {
+        response.setStatusCode(upstream.statusCode());
+        copyHeaders(upstream.headers().asHttpHeaders(), response);
+
+        LongAdder bytes = new LongAdder();
+        return response.writeWith(upstream.bodyToFlux(DataBuffer.class)
+                        .doOnNext(buffer -> {
+                            bytes.add(buffer.readableByteCount());
+                            if (kept != null && bytes.sum() <= maxBufferedSize) {
+                                keep(buffer, kept);
+                            }
+                        })
+                        .doOnComplete(() -> {
+                            if (read != null) {
+                                read.accept(bytes.sum());
+                            }
+                        }))
+                .doOnSuccess(ignored -> written.accept(bytes.sum()))
+                .doOnError(e -> {
+                    // 尚未提交的响应清空后交由调用方返回错误信息，已提交的只能中断连接
+                    if (!response.isCommitted()) {
+                        response.getHeaders().clear();
+                    }
+                });
+    }
+
+    /**
+     * 复制 buffer 中可读的数据，不改变它的读取位置，buffer 随后照常写出
+     */
+    private static void keep(DataBuffer buffer, ByteArrayOutputStream kept) {
+        int position = buffer.readPosition();
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        buffer.readPosition(position);
+        kept.write(bytes, 0, bytes.length);
+    }
+
+    private static byte[] toBytes(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private static void copyHeaders(HttpHeaders headers, ServerHttpResponse response) {
+        for (String name : PassthroughProxy.RESPONSE_HEADERS) {
+            List<String> values = headers.get(name);
+            if (values != null) {
+                response.getHeaders().addAll(name, values);
+            }
+        }
+    }
+}
@@ -0,0 +1,538 @@
+package com.mer.merweb.proxy;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+/**
+ * 通用代理引擎（响应式模式）
+ * 与 ProxyEngine 使用同一张路由表和同一套路由策略，接口行为一致；
+ * 整个请求处理过程不阻塞线程，等待后端响应期间事件循环线程可以继续处理其他请求。
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProxyEngine implements UpstreamFetcher {
+
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    private final RouteResolver resolver;
+    private final ReactivePassthroughProxy proxy;
+    private final ResponseCache responseCache;
+    private final DailyBucketCache dailyBucketCache;
+    private final RequestCoalescer coalescer;
+    private final RouteGroupGuard guard;
+    private final ObjectProvider<ResponseEnricher> enrichers;
+    private final ObjectProvider<ResponseObserver> observers;
+    private final ObjectMapper objectMapper;
+    private final ProxyMetrics metrics;
+    private final TokenVerdictCache tokenVerdicts;
+    private final RateLimiter rateLimiter;
+    private final NextPagePrefetcher prefetcher;
+
+    /**
+     * 补充响应的实现大多要经过本引擎调用其他接口，延迟到使用时再获取，避免循环依赖
+     */
+    public ReactiveProxyEngine(RouteResolver resolver, ReactivePassthroughProxy proxy, ResponseCache responseCache,
+                               DailyBucketCache dailyBucketCache, RequestCoalescer coalescer,
+                               RouteGroupGuard guard, ObjectProvider<ResponseEnricher> enrichers,
+                               ObjectProvider<ResponseObserver> observers,
+                               ObjectMapper objectMapper, ProxyMetrics metrics, TokenVerdictCache tokenVerdicts,
+                               RateLimiter rateLimiter, NextPagePrefetcher prefetcher) {
+        this.resolver = resolver;
+        this.proxy = proxy;
+        this.responseCache = responseCache;
+        this.dailyBucketCache = dailyBucketCache;
+        this.coalescer = coalescer;
+        this.guard = guard;
+        this.enrichers = enrichers;
+        this.observers = observers;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.tokenVerdicts = tokenVerdicts;
+        this.rateLimiter = rateLimiter;
+        this.prefetcher = prefetcher;
+    }
+
+    /**
+     * 处理一次代理请求，响应直接写入 exchange
+     *
+     * @param path 去掉 /api 前缀后的请求路径，保持请求 URI 中的编码形式
+     */
+    public Mono<Void> handle(String path, ServerWebExchange webExchange) {
+        ServerHttpRequest request = webExchange.getRequest();
+        ServerHttpResponse response = webExchange.getResponse();
+        HttpMethod method = request.getMethod();
+        MultiValueMap<String, String> queryParams = request.getQueryParams();
+        RouteResolver.Resolution resolution = resolver.resolve(method, path, queryParams::getFirst);
+        if (resolution.rejection() != null) {
+            return write(response, resolution.rejection());
+        }
+
+        ProxyExchange exchange = resolution.exchange();
+        ServerTiming timing = webExchange.getAttribute(ServerTiming.ATTRIBUTE);
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            if (timing != null) {
+                timing.enterHandler(start);
+            }
+            TokenVerdictCache.Verdict verdict = tokenVerdicts.admit(exchange.getRoute(),
+                    request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+            Mono<Void> handled = verdict != null && !verdict.valid()
+                    ? write(response, tokenVerdicts.rejection())
+                    : limit(exchange, method, request, response, timing);
+            return handled
+                    .doFinally(signal -> {
+                        // 浏览器断开的请求没有完整的处理耗时，不计入
+                        if (signal != SignalType.CANCEL) {
+                            HttpStatusCode status = response.getStatusCode();
+                            metrics.recordRequest(exchange.getRoute(),
+                                    status != null ? status.value() : HttpStatus.OK.value(),
+                                    System.nanoTime() - start);
+                        }
+                    });
+        }).contextWrite(context -> {
+            Context withExchange = context.put(ServerWebExchangeContextFilter.EXCHANGE_CONTEXT_ATTRIBUTE, webExchange);
+            return timing != null ? withExchange.put(ServerTiming.ATTRIBUTE, timing) : withExchange;
+        });
+    }
+
+    /**
+     * 限流的路由先取令牌，需要按账号限流时把请求体读入内存，转发时从内存重新读取
+     */
+    private Mono<Void> limit(ProxyExchange exchange, HttpMethod method, ServerHttpRequest request,
+                             ServerHttpResponse response, ServerTiming timing) {
+        ProxyRoute route = exchange.getRoute();
+        if (!rateLimiter.applies(route)) {
+            return dispatch(exchange, method, request, response, timing);
+        }
+        String clientIp = clientIp(request);
+        if (!rateLimiter.readsBody(route)) {
+            try {
+                rateLimiter.acquire(route, clientIp, null);
+            } catch (RateLimitExceededException e) {
+                return write(response, e.toResponse(route.failureBody().apply(exchange, e)));
+            }
+            return dispatch(exchange, method, request, response, timing);
+        }
+        return DataBufferUtils.join(request.getBody(), rateLimiter.getMaxBodySize())
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .defaultIfEmpty(EMPTY_BODY)
+                .flatMap(body -> {
+                    try {
+                        rateLimiter.acquire(route, clientIp, body);
+                    } catch (RateLimitExceededException e) {
+                        return write(response, e.toResponse(route.failureBody().apply(exchange, e)));
+                    }
+                    return dispatch(exchange, method, withBody(request, body), response, timing);
+                })
+                .onErrorResume(DataBufferLimitException.class, e -> write(response, rateLimiter.bodyTooLarge()));
+    }
+
+    private Mono<Void> dispatch(ProxyExchange exchange, HttpMethod method, ServerHttpRequest request,
+                                ServerHttpResponse response, ServerTiming timing) {
+        ProxyRoute route = exchange.getRoute();
+        String authorization = route.isForwardAuthorization()
+                ? request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION) : null;
+        if (!HttpMethod.GET.equals(method)) {
+            prefetcher.invalidate(authorization);
+        }
+        URI uri = resolver.upstreamUri(exchange);
+        if (route.isCached() && authorization != null && !authorization.isEmpty()) {
+            return handleCached(exchange, method, uri, authorization, request, response, timing);
+        }
+        if (authorization != null && !authorization.isEmpty() && dailyBucketCache.applies(exchange)) {
+            return dailyBucketCache.assemble(exchange, authorization,
+                            segment -> load(segment.getRoute(), resolver.upstreamUri(segment), authorization))
+                    .flatMap(assembled -> writeBuffered(exchange, assembled.response(), assembled.cacheStatus(),
+                            request, response, timing))
+                    .onErrorResume(Exception.class, e -> failure(exchange, response, e));
+        }
+        ResponseEnricher enricher = enricher(exchange);
+        if (enricher != null) {
+            return load(route, uri, authorization)
+                    .flatMap(buffered -> Mono.defer(() -> {
+                        long start = System.nanoTime();
+                        return enricher.enrich(buffered, authorization).doOnNext(enriched -> {
+                            if (timing != null) {
+                                timing.add(ServerTiming.Phase.SERIALIZE, System.nanoTime() - start);
+                            }
+                        });
+                    }))
+                    .flatMap(enriched -> writeBuffered(exchange, enriched, null, request, response, timing))
+                    // 响应太大时不补充，直接透传
+                    .onErrorResume(ResponseTooLargeException.class,
+                            e -> stream(exchange, method, uri, authorization, request, response, timing))
+                    .onErrorResume(Exception.class, e -> failure(exchange, response, e));
+        }
+        if (prefetcher.applies(route, authorization)) {
+            return handlePrefetched(exchange, uri, authorization, request, response, timing);
+        }
+        if (coalescer.applies(route)) {
+            return loadCoalesced(route, uri, authorization)
+                    .flatMap(buffered -> writeBuffered(exchange, buffered, null, request, response, timing))
+                    // 响应太大时不合并，直接透传
+                    .onErrorResume(ResponseTooLargeException.class,
+                            e -> stream(exchange, method, uri, authorization, request, response, timing))
+                    .onErrorResume(Exception.class, e -> failure(exchange, response, e));
+        }
+        return stream(exchange, method, uri, authorization, request, response, timing);
+    }
+
+    /**
+     * 边读边写地透传后端响应，不把响应体完整读入内存
+     */
+    private Mono<Void> stream(ProxyExchange exchange, HttpMethod method, URI uri, String authorization,
+                              ServerHttpRequest request, ServerHttpResponse response, ServerTiming timing) {
+        ProxyRoute route = exchange.getRoute();
+        boolean forwardBody = route.isForwardBody() && !HttpMethod.GET.equals(method);
+        return Mono.deferContextual(context -> {
+                    RouteGroupGuard.Permit permit = guard.acquire(route.getGroup());
+                    long start = System.nanoTime();
+                    AtomicBoolean responded = new AtomicBoolean();
+                    return proxy.exchange(method, uri, authorization,
+                                    forwardBody || HttpMethod.GET.equals(method) ? request : null, upstream -> {
+                                        BiFunction<ProxyExchange, HttpStatusCode, ResponseEntity<?>> serverErrorHandler =
+                                                route.serverErrorHandler();
+                                        HttpStatusCode status = upstream.statusCode();
+                                        permit.complete(status);
+                                        responded.set(true);
+                                        if (AdaptiveConcurrencyLimiter.dropped(status.value())) {
+                                            markDropped(context);
+                                        }
+                                        long elapsed = System.nanoTime() - start;
+                                        metrics.recordUpstream(route, status.value(), elapsed);
+                                        if (timing != null) {
+                                            timing.add(ServerTiming.Phase.UPSTREAM, elapsed);
+                                        }
+                                        if (forwardBody) {
+                                            metrics.recordRequestSize(route, request.getHeaders().getContentLength());
+                                        }
+                                        tokenVerdicts.observe(route, authorization, status.value(),
+                                                upstream.headers().asHttpHeaders());
+                                        if (serverErrorHandler != null && status.is5xxServerError()) {
+                                            return upstream.releaseBody()
+                                                    .then(Mono.defer(() -> write(response,
+                                                            serverErrorHandler.apply(exchange, status))));
+                                        }
+                                        boolean issuesToken = route.getTokenRole() == TokenRole.ISSUE;
+                                        if ((issuesToken || !route.getObservers().isEmpty())
+                                                && status.is2xxSuccessful()) {
+                                            return proxy.copyBuffered(upstream, response, body -> {
+                                                if (issuesToken) {
+                                                    tokenVerdicts.issued(body);
+                                                }
+                                                observe(route, authorization, status.value(), body);
+                                            }, bytes -> metrics.recordResponseSize(route, bytes));
+                                        }
+                                        return proxy.copy(upstream, response,
+                                                bytes -> metrics.recordResponseSize(route, bytes));
+                                    })
+                            .doOnError(e -> {
+                                permit.fail(e);
+                                if (!responded.get()) {
+                                    metrics.recordUpstream(route, null, System.nanoTime() - start);
+                                    markDropped(context);
+                                }
+                            })
+                            .doFinally(signal -> permit.release());
+                })
+                .onErrorResume(Exception.class, e -> failure(exchange, response, e));
+    }
+
+    /**
+     * 经过网关缓存的请求，响应头 X-Cache 标明是否命中
+     * 等待其他请求加载时取消不影响加载本身，加载者取消时等待者收到取消异常
+     */
+    private Mono<Void> handleCached(ProxyExchange exchange, HttpMethod method, URI uri,
+                                    String authorization, ServerHttpRequest request, ServerHttpResponse response,
+                                    ServerTiming timing) {
+        return loadCached(exchange.getRoute(), method, uri, authorization)
+                .flatMap(result -> writeBuffered(exchange, result.response(), result.hit() ? "HIT" : "MISS",
+                        request, response, timing))
+                .onErrorResume(Exception.class, e -> failure(exchange, response, e));
+    }
+
+    /**
+     * 分页列表优先使用预取的结果，返回后在后台预取下一页
+     * 等待进行中的预取时取消不影响预取本身
+     */
+    private Mono<Void> handlePrefetched(ProxyExchange exchange, URI uri, String authorization,
+                                        ServerHttpRequest request, ServerHttpResponse response, ServerTiming timing) {
+        ProxyRoute route = exchange.getRoute();
+        return Mono.defer(() -> {
+                    CompletableFuture<BufferedResponse> prefetched =
+                            prefetcher.take(route, uri.toString(), authorization);
+                    AtomicBoolean hit = new AtomicBoolean();
+                    return (prefetched != null ? Mono.fromFuture(prefetched, true) : Mono.<BufferedResponse>empty())
+                            .doOnNext(buffered -> hit.set(true))
+                            .switchIfEmpty(Mono.defer(() -> load(route, uri, authorization)))
+                            .flatMap(buffered -> {
+                                prefetcher.schedule(exchange, authorization, buffered, next -> fetchUpstream(route,
+                                        HttpMethod.GET, resolver.upstreamUri(next), authorization));
+                                String cacheStatus = hit.get() ? NextPagePrefetcher.CACHE_STATUS : null;
+                                return writeBuffered(exchange, buffered, cacheStatus, request, response, timing);
+                            });
+                })
+                // 响应太大时不预取下一页，直接透传
+                .onErrorResume(ResponseTooLargeException.class,
+                        e -> stream(exchange, HttpMethod.GET, uri, authorization, request, response, timing))
+                .onErrorResume(Exception.class, e -> failure(exchange, response, e));
+    }
+
+    /**
+     * 写出完整读入内存的响应，浏览器缓存的版本仍然有效时返回 304
+     */
+    private Mono<Void> writeBuffered(ProxyExchange exchange, BufferedResponse buffered, String cacheStatus,
+                                     ServerHttpRequest request, ServerHttpResponse response, ServerTiming timing) {
+        BiFunction<ProxyExchange, HttpStatusCode, ResponseEntity<?>> serverErrorHandler =
+                exchange.getRoute().serverErrorHandler();
+        if (serverErrorHandler != null && buffered.status().is5xxServerError()) {
+            return write(response, serverErrorHandler.apply(exchange, buffered.status()));
+        }
+        long start = System.nanoTime();
+        HttpHeaders headers = request.getHeaders();
+        buffered = buffered.forEncoding(headers.getFirst(HttpHeaders.ACCEPT_ENCODING));
+        if (buffered.isNotModified(headers.getFirst(HttpHeaders.IF_NONE_MATCH),
+                headers.getFirst(HttpHeaders.IF_MODIFIED_SINCE))) {
+            buffered = buffered.notModified();
+        }
+        if (timing != null) {
+            timing.add(ServerTiming.Phase.SERIALIZE, System.nanoTime() - start);
+        }
+        if (cacheStatus != null) {
+            response.getHeaders().set(ResponseCache.HEADER, cacheStatus);
+        }
+        int size = buffered.body().length;
+        return proxy.write(buffered, response)
+                .doOnSuccess(ignored -> metrics.recordResponseSize(exchange.getRoute(), size));
+    }
+
+    /**
+     * 经过缓存读取完整响应，未命中时由当前请求访问后端，同一个键的并发请求等待同一个结果
+     */
+    private Mono<ResponseCache.Result> loadCached(ProxyRoute route, HttpMethod method, URI uri,
+                                                  String authorization) {
+        ResponseCache.Lookup lookup = responseCache.lookup(route, uri.toString());
+        if (lookup.isOwner()) {
+            return fetchUpstream(route, method, uri, authorization)
+                    .doOnNext(lookup::complete)
+                    .doOnError(lookup::fail)
+                    .doOnCancel(lookup::cancel)
+                    .map(buffered -> new ResponseCache.Result(buffered, false));
+        }
+        return Mono.fromFuture(lookup.future(), true)
+                .flatMap(buffered -> responseCache.isCacheable(buffered)
+                        ? Mono.just(new ResponseCache.Result(buffered, true))
+                        // 其他请求拿到的是与身份相关的响应，不能共用
+                        : fetchUpstream(route, method, uri, authorization)
+                                .map(own -> new ResponseCache.Result(own, false)));
+    }
+
+    /**
+     * 读取 GET 请求的完整响应，路由开启合并时与相同的并发请求共用一次后端调用
+     */
+    private Mono<BufferedResponse> load(ProxyRoute route, URI uri, String authorization) {
+        return coalescer.applies(route) ? loadCoalesced(route, uri, authorization)
+                : fetchUpstream(route, HttpMethod.GET, uri, authorization);
+    }
+
+    /**
+     * 等待领头请求时取消不影响领头请求本身，领头请求取消时等待者自行访问后端
+     */
+    private Mono<BufferedResponse> loadCoalesced(ProxyRoute route, URI uri, String authorization) {
+        return Mono.defer(() -> {
+            RequestCoalescer.Flight flight = coalescer.join(route, uri.toString(), authorization);
+            if (flight.isLeader()) {
+                return fetchUpstream(route, HttpMethod.GET, uri, authorization)
+                        .doOnNext(flight::complete)
+                        .doOnError(flight::fail)
+                        .doOnCancel(flight::cancel);
+            }
+            return Mono.fromFuture(flight.future(), true)
+                    .onErrorResume(CancellationException.class, e -> Mono.empty())
+                    .filter(flight::adopt)
+                    .switchIfEmpty(Mono.defer(() -> fetchUpstream(route, HttpMethod.GET, uri, authorization)));
+        });
+    }
+
+    @Override
+    public BufferedResponse cached(String path, String authorization) {
+        ProxyExchange exchange = resolver.resolveInternal(HttpMethod.GET, path, Map.of());
+        ProxyRoute route = exchange.getRoute();
+        if (!route.isCached() || authorization == null || authorization.isEmpty()
+                || tokenVerdicts.isRejected(authorization)) {
+            return null;
+        }
+        return responseCache.getIfPresent(route, resolver.upstreamUri(exchange).toString());
+    }
+
+    @Override
+    public Mono<BufferedResponse> fetch(String path, Map<String, String> query, String authorization) {
+        return Mono.defer(() -> {
+            ProxyExchange exchange = resolver.resolveInternal(HttpMethod.GET, path, query);
+            ProxyRoute route = exchange.getRoute();
+            String forwarded = route.isForwardAuthorization() ? authorization : null;
+            if (forwarded != null && tokenVerdicts.isRejected(forwarded)) {
+                return Mono.just(tokenVerdicts.rejectedResponse());
+            }
+            URI uri = resolver.upstreamUri(exchange);
+            if (route.isCached() && forwarded != null && !forwarded.isEmpty()) {
+                return loadCached(route, HttpMethod.GET, uri, forwarded).map(ResponseCache.Result::response);
+            }
+            if (forwarded != null && !forwarded.isEmpty() && dailyBucketCache.applies(exchange)) {
+                return dailyBucketCache.assemble(exchange, forwarded,
+                                segment -> load(segment.getRoute(), resolver.upstreamUri(segment), forwarded))
+                        .map(DailyBucketCache.Assembled::response);
+            }
+            return load(route, uri, forwarded);
+        }).contextWrite(context -> context.delete(ServerWebExchangeContextFilter.EXCHANGE_CONTEXT_ATTRIBUTE));
+    }
+
+    /**
+     * 经过路由分组的熔断和并发限制访问后端，分组不可用时以 GroupUnavailableException 结束
+     */
+    private Mono<BufferedResponse> fetchUpstream(ProxyRoute route, HttpMethod method, URI uri,
+                                                 String authorization) {
+        return Mono.deferContextual(context -> {
+            RouteGroupGuard.Permit permit = guard.acquire(route.getGroup());
+            long start = System.nanoTime();
+            return proxy.fetch(method, uri, authorization, context.getOrDefault(ServerTiming.ATTRIBUTE, null))
+                    .doOnNext(buffered -> {
+                        permit.complete(buffered.status());
+                        metrics.recordUpstream(route, buffered.status().value(), System.nanoTime() - start);
+                        if (AdaptiveConcurrencyLimiter.dropped(buffered.status().value())) {
+                            markDropped(context);
+                        }
+                        tokenVerdicts.observe(route, authorization, buffered);
+                        observe(route, authorization, buffered.status().value(), buffered.body());
+                    })
+                    .doOnError(e -> {
+                        if (e instanceof ResponseTooLargeException tooLarge) {
+                            // 后端已正常响应，只是响应体太大，按状态码记录
+                            permit.complete(tooLarge.getStatus());
+                            metrics.recordUpstream(route, tooLarge.getStatus().value(), System.nanoTime() - start);
+                            if (AdaptiveConcurrencyLimiter.dropped(tooLarge.getStatus().value())) {
+                                markDropped(context);
+                            }
+                            return;
+                        }
+                        permit.fail(e);
+                        metrics.recordUpstream(route, null, System.nanoTime() - start);
+                        markDropped(context);
+                    })
+                    .doFinally(signal -> permit.release());
+        });
+    }
+
+    /**
+     * 请求体已读入内存的请求，转发给后端时从内存重新读取
+     */
+    private static ServerHttpRequest withBody(ServerHttpRequest request, byte[] body) {
+        return new ServerHttpRequestDecorator(request) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body)));
+            }
+        };
+    }
+
+    private static String clientIp(ServerHttpRequest request) {
+        InetSocketAddress address = request.getRemoteAddress();
+        if (address == null) {
+            return null;
+        }
+        return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+    }
+
+    /**
+     * 在正在处理的请求上标记后端过载或不可用，入口并发限制据此收缩上限；
+     * 预取和网关内部调用不在某个代理请求的 Context 中，不标记
+     */
+    private static void markDropped(ContextView context) {
+        ServerWebExchangeContextFilter.getExchange(context).ifPresent(exchange ->
+                exchange.getAttributes().put(AdaptiveConcurrencyLimiter.UPSTREAM_DROPPED, Boolean.TRUE));
+    }
+
+    /**
+     * 把完整读入的后端响应交给路由声明的 {@link ResponseObserver}
+     */
+    private void observe(ProxyRoute route, String authorization, int status, byte[] body) {
+        if (!route.getObservers().isEmpty()) {
+            observers.forEach(observer -> {
+                if (route.getObservers().contains(observer.name())) {
+                    observer.observe(route, authorization, status, body);
+                }
+            });
+        }
+    }
+
+    private ResponseEnricher enricher(ProxyExchange exchange) {
+        String name = exchange.getEnrichment();
+        return name == null ? null
+                : enrichers.stream().filter(enricher -> enricher.name().equals(name)).findFirst().orElse(null);
+    }
+
+    private Mono<Void> failure(ProxyExchange exchange, ServerHttpResponse response, Exception e) {
+        if (response.isCommitted()) {
+            return Mono.error(e);
+        }
+        if (e instanceof GroupUnavailableException rejected) {
+            return write(response, rejected.toResponse(exchange.getRoute().failureBody().apply(exchange, rejected)));
+        }
+        return write(response, ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(exchange.getRoute().failureBody().apply(exchange, e)));
+    }
+
+    /**
+     * 以 JSON 写出网关自行生成的响应
+     */
+    private Mono<Void> write(ServerHttpResponse response, ResponseEntity<?> entity) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(entity.getBody());
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        response.setStatusCode(entity.getStatusCode());
+        response.getHeaders().putAll(entity.getHeaders());
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+}
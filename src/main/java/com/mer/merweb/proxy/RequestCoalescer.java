@@ -0,0 +1,155 @@
+package com.mer.merweb.proxy;
+
+import com.mer.merweb.config.ProxyProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 合并并发的相同 GET 请求
+ * 同一时刻相同的请求只有第一个（领头请求）访问后端，其余请求等待并共用它的完整响应；
+ * 响应返回后立即移除，之后的请求重新访问后端，不会像缓存一样返回旧数据。
+ */
+@Component
+public class RequestCoalescer {
+
+    private final Map<Key, CompletableFuture<BufferedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Map<ProxyRoute, Counters> counters = new IdentityHashMap<>();
+    private final boolean enabled;
+
+    public RequestCoalescer(RouteTable routeTable, ProxyProperties properties) {
+        this.enabled = properties.getCoalescing().isEnabled();
+        for (ProxyRoute route : routeTable.getRoutes()) {
+            if (route.getCoalescing() != null) {
+                counters.put(route, new Counters());
+            }
+        }
+    }
+
+    /**
+     * 路由是否合并并发请求
+     */
+    public boolean applies(ProxyRoute route) {
+        return enabled && route.getCoalescing() != null;
+    }
+
+    /**
+     * 加入一次请求，没有相同请求在进行时当前请求成为领头请求
+     * 领头请求访问后端后必须调用 {@link Flight#complete}、{@link Flight#fail} 或 {@link Flight#cancel}
+     *
+     * @param uri 后端地址
+     */
+    public Flight join(ProxyRoute route, String uri, String authorization) {
+        CoalescingScope scope = route.getCoalescing();
+        Key key = new Key(route, uri, scope == CoalescingScope.AUTHORIZATION && authorization != null
+                ? authorization : "");
+        CompletableFuture<BufferedResponse> leading = new CompletableFuture<>();
+        CompletableFuture<BufferedResponse> future = inFlight.putIfAbsent(key, leading);
+        if (future == null) {
+            counters.get(route).leaders.increment();
+            return new Flight(key, leading, true);
+        }
+        return new Flight(key, future, false);
+    }
+
+    /**
+     * 各路由的合并统计，键为路由路径模式：leaders 为实际访问后端的次数，collapsed 为被合并的请求数
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        counters.forEach((route, counter) -> {
+            long leaders = counter.leaders.sum();
+            long collapsed = counter.collapsed.sum();
+            if (leaders > 0) {
+                Map<String, Object> map = new LinkedHashMap<>();
+                map.put("scope", route.getCoalescing());
+                map.put("leaders", leaders);
+                map.put("collapsed", collapsed);
+                result.put(route.getPattern(), map);
+            }
+        });
+        return result;
+    }
+
+    private record Key(ProxyRoute route, String uri, String authorization) {
+    }
+
+    private static final class Counters {
+        private final LongAdder leaders = new LongAdder();
+        private final LongAdder collapsed = new LongAdder();
+    }
+
+    /**
+     * 一次加入的结果
+     */
+    public final class Flight {
+
+        private final Key key;
+        private final CompletableFuture<BufferedResponse> future;
+        private final boolean leader;
+
+        private Flight(Key key, CompletableFuture<BufferedResponse> future, boolean leader) {
+            this.key = key;
+            this.future = future;
+            this.leader = leader;
+        }
+
+        /**
+         * 为 true 时由当前请求访问后端
+         */
+        public boolean isLeader() {
+            return leader;
+        }
+
+        /**
+         * 领头请求的结果，领头请求自己不使用
+         */
+        public CompletableFuture<BufferedResponse> future() {
+            return future;
+        }
+
+        /**
+         * 等待者决定是否采用领头请求的响应，可以共用时计入合并次数并返回 true；
+         * 返回 false 时等待者自行访问后端
+         */
+        public boolean adopt(BufferedResponse response) {
+            if (key.route().getCoalescing() == CoalescingScope.SHARED
+                    && response.status().value() != HttpStatus.OK.value()) {
+                return false;
+            }
+            counters.get(key.route()).collapsed.increment();
+            return true;
+        }
+
+        /**
+         * 领头请求交回后端响应，先移除再通知等待者，之后到达的请求重新访问后端
+         */
+        public void complete(BufferedResponse response) {
+            inFlight.remove(key, future);
+            future.complete(response);
+        }
+
+        /**
+         * 访问后端失败，等待者收到同一个异常
+         */
+        public void fail(Throwable e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+        }
+
+        /**
+         * 领头请求被取消（如浏览器断开），等待者收到取消异常后自行访问后端
+         */
+        public void cancel() {
+            inFlight.remove(key, future);
+            future.completeExceptionally(new CancellationException("领头请求已取消"));
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.mer.merweb.proxy;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mer.merweb.config.ProxyProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 网关响应缓存
+ * 路由表中声明了 cached() 的接口各有一个 Caffeine 缓存，以后端地址（含路径变量和查询参数）为键缓存完整响应：
+ * 200 响应缓存 ttl，404 响应缓存 negative-ttl，其他状态码和异常不缓存。
+ * 同一个键同时只有一个请求访问后端，其余请求等待同一个结果，缓存过期时不会有大量请求同时涌向后端。
+ */
+@Component
+public class ResponseCache implements MeterBinder {
+
+    /**
+     * 标明响应是否来自网关缓存的响应头，取值 HIT 或 MISS
+     */
+    public static final String HEADER = "X-Cache";
+
+    private final Map<ProxyRoute, AsyncCache<String, BufferedResponse>> caches = new IdentityHashMap<>();
+    private final boolean negativeCaching;
+
+    public ResponseCache(RouteTable routeTable, ProxyProperties properties) {
+        ProxyProperties.Cache config = properties.getCache();
+        Duration ttl = config.getTtl();
+        Duration negativeTtl = config.getNegativeTtl();
+        this.negativeCaching = !negativeTtl.isZero() && !negativeTtl.isNegative();
+        for (ProxyRoute route : routeTable.getRoutes()) {
+            if (route.isCached()) {
+                caches.put(route, Caffeine.newBuilder()
+                        .maximumSize(config.getMaximumSize())
+                        .expireAfter(Expiry.<String, BufferedResponse>creating((key, response) ->
+                                response.status().value() == HttpStatus.NOT_FOUND.value() ? negativeTtl : ttl))
+                        .recordStats()
+                        .buildAsync());
+            }
+        }
+    }
+
+    /**
+     * 查找缓存，缓存未命中时当前请求成为加载者
+     * 加载者访问后端后必须调用 {@link Lookup#complete} 或 {@link Lookup#fail} 交回结果
+     *
+     * @param key 后端地址
+     */
+    public Lookup lookup(ProxyRoute route, String key) {
+        AsyncCache<String, BufferedResponse> cache = caches.get(route);
+        if (cache == null) {
+            throw new IllegalArgumentException("路由未启用缓存: " + route);
+        }
+        CompletableFuture<BufferedResponse> loading = new CompletableFuture<>();
+        CompletableFuture<BufferedResponse> future = cache.get(key, (k, executor) -> loading);
+        return new Lookup(cache, key, future, future == loading);
+    }
+
+    /**
+     * 已缓存且可以直接使用的响应，未缓存或仍在加载时返回 null
+     */
+    public BufferedResponse getIfPresent(ProxyRoute route, String key) {
+        AsyncCache<String, BufferedResponse> cache = caches.get(route);
+        CompletableFuture<BufferedResponse> future = cache != null ? cache.getIfPresent(key) : null;
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+        BufferedResponse response = future.join();
+        return isCacheable(response) ? response : null;
+    }
+
+    /**
+     * 只有 200 和 404（开启负缓存时）响应可以缓存，也只有这些响应可以共享给等待同一个键的其他请求；
+     * 401、403 等与调用者身份相关的响应由每个请求自行访问后端
+     */
+    public boolean isCacheable(BufferedResponse response) {
+        int status = response.status().value();
+        return status == HttpStatus.OK.value() || (negativeCaching && status == HttpStatus.NOT_FOUND.value());
+    }
+
+    /**
+     * 各路由缓存的统计信息，键为路由路径模式
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        caches.forEach((route, cache) -> {
+            CacheStats stats = cache.synchronous().stats();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("size", cache.synchronous().estimatedSize());
+            map.put("hits", stats.hitCount());
+            map.put("misses", stats.missCount());
+            map.put("hitRate", stats.hitRate());
+            map.put("evictions", stats.evictionCount());
+            map.put("loadFailures", stats.loadFailureCount());
+            result.put(route.getPattern(), map);
+        });
+        return result;
+    }
+
+    /**
+     * 各路由缓存的命中、未命中、淘汰次数和条目数，以 route 标签区分
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        caches.forEach((route, cache) -> CaffeineCacheMetrics.monitor(registry, cache, "proxy.response",
+                "route", route.getPattern()));
+    }
+
+    /**
+     * 经过缓存得到的响应
+     *
+     * @param hit 是否来自缓存（包括等待其他请求加载的结果）
+     */
+    public record Result(BufferedResponse response, boolean hit) {
+    }
+
+    /**
+     * 一次缓存查找的结果
+     */
+    public final class Lookup {
+
+        private final AsyncCache<String, BufferedResponse> cache;
+        private final String key;
+        private final CompletableFuture<BufferedResponse> future;
+        private final boolean owner;
+
+        private Lookup(AsyncCache<String, BufferedResponse> cache, String key,
+                       CompletableFuture<BufferedResponse> future, boolean owner) {
+            this.cache = cache;
+            this.key = key;
+            this.future = future;
+            this.owner = owner;
+        }
+
+        /**
+         * 为 true 时由当前请求访问后端
+         */
+        public boolean isOwner() {
+            return owner;
+        }
+
+        /**
+         * 已缓存的响应或其他请求正在加载的结果，加载者不使用
+         */
+        public CompletableFuture<BufferedResponse> future() {
+            return future;
+        }
+
+        /**
+         * 加载者交回后端响应，不可缓存的响应先移出缓存再通知等待者
+         */
+        public void complete(BufferedResponse response) {
+            if (!isCacheable(response)) {
+                cache.asMap().remove(key, future);
+            }
+            future.complete(response);
+        }
+
+        /**
+         * 加载失败，等待者收到同一个异常，缓存项自动移除
+         */
+        public void fail(Throwable e) {
+            future.completeExceptionally(e);
+        }
+
+        /**
+         * 加载者的请求被取消（如浏览器断开），等待者收到取消异常
+         */
+        public void cancel() {
+            future.completeExceptionally(new CancellationException("加载缓存的请求已取消"));
+        }
+    }
+}
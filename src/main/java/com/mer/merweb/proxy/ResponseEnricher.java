@@ -0,0 +1,26 @@
+package com.mer.merweb.proxy;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 网关对后端响应的补充
+ * 路由通过 {@link ProxyRoute.Builder#enrichable(String...)} 声明支持的补充方式，
+ * 请求携带 enrich=名称 时代理引擎把完整响应交给对应的实现改写后再返回。
+ */
+public interface ResponseEnricher {
+
+    /**
+     * 选择补充方式的查询参数名
+     */
+    String PARAM = "enrich";
+
+    /**
+     * 补充方式的名称，即 enrich 参数的取值
+     */
+    String name();
+
+    /**
+     * 改写后端响应，无需改写时（如非 200 响应）原样返回
+     */
+    Mono<BufferedResponse> enrich(BufferedResponse response, String authorization);
+}
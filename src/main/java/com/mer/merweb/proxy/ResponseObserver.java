@@ -0,0 +1,22 @@
+package com.mer.merweb.proxy;
+
+/**
+ * 网关对后端响应的旁路读取
+ * 路由通过 {@link ProxyRoute.Builder#observedBy(String...)} 声明需要读取响应的实现，
+ * 代理引擎在后端响应完整读入后把响应体交给对应的实现，响应本身原样返回给调用方。
+ * 在请求线程中同步调用，实现不能阻塞，也不能抛出异常。
+ */
+public interface ResponseObserver {
+
+    /**
+     * 实现的名称，与路由声明的名称对应
+     */
+    String name();
+
+    /**
+     * 读取后端响应，调用方不会修改 body
+     *
+     * @param status 后端响应的状态码
+     */
+    void observe(ProxyRoute route, String authorization, int status, byte[] body);
+}
@@ -0,0 +1,33 @@
+package com.mer.merweb.proxy;
+
+import org.springframework.http.HttpStatusCode;
+
+import java.io.IOException;
+
+/**
+ * 后端响应体超过 mer.proxy.max-buffered-size，网关不把它完整读入内存
+ * 合并、补充和预取等需要完整响应的处理方式收到后改为直接透传，其余情况按访问后端失败处理。
+ * 后端本身已经正常响应，熔断器和后端调用指标按响应的状态码记录，不计为连接失败。
+ */
+public class ResponseTooLargeException extends IOException {
+
+    private final long limit;
+    private final HttpStatusCode status;
+
+    public ResponseTooLargeException(long limit, HttpStatusCode status) {
+        super("后端响应超过 " + limit + " 字节，不能读入网关内存");
+        this.limit = limit;
+        this.status = status;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * 后端响应的状态码
+     */
+    public HttpStatusCode getStatus() {
+        return status;
+    }
+}
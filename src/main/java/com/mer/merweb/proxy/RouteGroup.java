@@ -0,0 +1,15 @@
+package com.mer.merweb.proxy;
+
+/**
+ * 路由分组
+ * 同一分组的接口共享熔断、隔离等策略
+ */
+public enum RouteGroup {
+    AUTH,
+    USER,
+    TASKS,
+    JOURNALS,
+    TEAM,
+    COMMENTS,
+    STATISTICS
+}
@@ -0,0 +1,231 @@
+package com.mer.merweb.proxy;
+
+import com.mer.merweb.config.ProxyProperties;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 按路由分组熔断和限制并发
+ * 每个分组有独立的熔断器和并发上限：统计、日志等接口的后端卡住时，只有本分组的请求失败或被拒绝，
+ * 不会占满全部工作线程和连接，登录等其他分组照常访问后端。
+ * 熔断器按最近的调用计算失败率（连接失败、超时、5xx）和慢调用比例，超过阈值后直接拒绝，
+ * 等待一段时间后进入半开状态放行少量请求探测，探测成功则恢复。
+ * 只有真正访问后端的调用经过这里，缓存命中和合并等待的请求不占用并发数。
+ */
+@Component
+public class RouteGroupGuard implements MeterBinder {
+
+    private final boolean enabled;
+    private final Map<RouteGroup, CircuitBreaker> breakers = new EnumMap<>(RouteGroup.class);
+    private final Map<RouteGroup, Bulkhead> bulkheads = new EnumMap<>(RouteGroup.class);
+    private final Map<RouteGroup, Long> retryAfterSeconds = new EnumMap<>(RouteGroup.class);
+
+    public RouteGroupGuard(ProxyProperties properties) {
+        ProxyProperties.Resilience resilience = properties.getResilience();
+        this.enabled = resilience.isEnabled();
+        for (RouteGroup group : RouteGroup.values()) {
+            ProxyProperties.Policy policy = resilience.policy(group);
+            String name = group.name().toLowerCase(Locale.ROOT);
+            breakers.put(group, CircuitBreaker.of(name, CircuitBreakerConfig.custom()
+                    .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                    .slidingWindowSize(policy.getSlidingWindowSize())
+                    .minimumNumberOfCalls(policy.getMinimumNumberOfCalls())
+                    .failureRateThreshold(policy.getFailureRateThreshold())
+                    .slowCallRateThreshold(policy.getSlowCallRateThreshold())
+                    .slowCallDurationThreshold(policy.getSlowCallDuration())
+                    .waitDurationInOpenState(policy.getWaitInOpenState())
+                    .permittedNumberOfCallsInHalfOpenState(policy.getPermittedCallsInHalfOpenState())
+                    // 后端正常响应、只是响应体太大，不是后端故障
+                    .ignoreExceptions(ResponseTooLargeException.class)
+                    .build()));
+            bulkheads.put(group, Bulkhead.of(name, BulkheadConfig.custom()
+                    .maxConcurrentCalls(policy.getMaxConcurrentCalls())
+                    .maxWaitDuration(Duration.ZERO)
+                    .build()));
+            retryAfterSeconds.put(group, Math.max(1, policy.getWaitInOpenState().toSeconds()));
+        }
+    }
+
+    /**
+     * 申请访问一次后端，拿到的许可必须调用 {@link Permit#release()} 归还
+     *
+     * @throws GroupUnavailableException 分组熔断中或并发已满
+     */
+    public Permit acquire(RouteGroup group) {
+        if (!enabled) {
+            return Permit.UNGUARDED;
+        }
+        CircuitBreaker breaker = breakers.get(group);
+        if (!breaker.tryAcquirePermission()) {
+            throw new GroupUnavailableException(group, GroupUnavailableException.CIRCUIT_OPEN,
+                    "后端服务异常，已暂停访问，请稍后重试", retryAfterSeconds.get(group));
+        }
+        Bulkhead bulkhead = bulkheads.get(group);
+        if (!bulkhead.tryAcquirePermission()) {
+            breaker.releasePermission();
+            throw new GroupUnavailableException(group, GroupUnavailableException.BULKHEAD_FULL,
+                    "后端服务繁忙，请稍后重试", 1);
+        }
+        return new Permit(breaker, bulkhead);
+    }
+
+    /**
+     * 各分组的熔断状态和并发占用，键为分组名
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (RouteGroup group : RouteGroup.values()) {
+            CircuitBreaker breaker = breakers.get(group);
+            CircuitBreaker.Metrics metrics = breaker.getMetrics();
+            Bulkhead bulkhead = bulkheads.get(group);
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("state", breaker.getState().name());
+            stats.put("failureRate", metrics.getFailureRate());
+            stats.put("slowCallRate", metrics.getSlowCallRate());
+            stats.put("bufferedCalls", metrics.getNumberOfBufferedCalls());
+            stats.put("failedCalls", metrics.getNumberOfFailedCalls());
+            stats.put("slowCalls", metrics.getNumberOfSlowCalls());
+            stats.put("notPermittedCalls", metrics.getNumberOfNotPermittedCalls());
+            stats.put("activeCalls", bulkhead.getBulkheadConfig().getMaxConcurrentCalls()
+                    - bulkhead.getMetrics().getAvailableConcurrentCalls());
+            stats.put("maxConcurrentCalls", bulkhead.getBulkheadConfig().getMaxConcurrentCalls());
+            result.put(group.name().toLowerCase(Locale.ROOT), stats);
+        }
+        return result;
+    }
+
+    /**
+     * 各分组的熔断状态（0 关闭、1 打开、2 半开）和并发占用，以 group 标签区分
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (RouteGroup group : RouteGroup.values()) {
+            Tags tags = Tags.of("group", group.name().toLowerCase(Locale.ROOT));
+            CircuitBreaker breaker = breakers.get(group);
+            Bulkhead bulkhead = bulkheads.get(group);
+            Gauge.builder("mer.proxy.circuit.state", breaker, b -> circuitState(b.getState()))
+                    .description("分组熔断状态：0 关闭、1 打开、2 半开")
+                    .tags(tags)
+                    .register(registry);
+            FunctionCounter.builder("mer.proxy.circuit.not.permitted", breaker,
+                            b -> b.getMetrics().getNumberOfNotPermittedCalls())
+                    .description("熔断期间拒绝的请求数")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("mer.proxy.bulkhead.active", bulkhead, b -> b.getBulkheadConfig().getMaxConcurrentCalls()
+                            - b.getMetrics().getAvailableConcurrentCalls())
+                    .description("分组正在访问后端的请求数")
+                    .tags(tags)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * 分组已占用的并发比例，熔断器不在关闭状态时为 1，未启用时为 0
+     */
+    public double utilization(RouteGroup group) {
+        if (!enabled) {
+            return 0;
+        }
+        if (breakers.get(group).getState() != CircuitBreaker.State.CLOSED) {
+            return 1;
+        }
+        Bulkhead bulkhead = bulkheads.get(group);
+        int max = bulkhead.getBulkheadConfig().getMaxConcurrentCalls();
+        return (double) (max - bulkhead.getMetrics().getAvailableConcurrentCalls()) / max;
+    }
+
+    private static int circuitState(CircuitBreaker.State state) {
+        return switch (state) {
+            case OPEN, FORCED_OPEN -> 1;
+            case HALF_OPEN -> 2;
+            default -> 0;
+        };
+    }
+
+    /**
+     * 一次后端调用的许可
+     * 收到后端响应头时调用 {@link #complete}，连接失败时调用 {@link #fail}，结束后（包括取消）调用 {@link #release}；
+     * 三个方法都可以重复调用，只有第一次结果计入熔断器
+     */
+    public static final class Permit {
+
+        static final Permit UNGUARDED = new Permit(null, null);
+
+        private final CircuitBreaker breaker;
+        private final Bulkhead bulkhead;
+        private final long start;
+        private final AtomicBoolean recorded = new AtomicBoolean();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(CircuitBreaker breaker, Bulkhead bulkhead) {
+            this.breaker = breaker;
+            this.bulkhead = bulkhead;
+            this.start = breaker != null ? breaker.getCurrentTimestamp() : 0;
+        }
+
+        /**
+         * 记录后端的响应状态，5xx 计为失败
+         */
+        public void complete(HttpStatusCode status) {
+            if (breaker == null || !recorded.compareAndSet(false, true)) {
+                return;
+            }
+            long duration = breaker.getCurrentTimestamp() - start;
+            if (status.is5xxServerError()) {
+                breaker.onError(duration, breaker.getTimestampUnit(), new UpstreamServerError(status));
+            } else {
+                breaker.onSuccess(duration, breaker.getTimestampUnit());
+            }
+        }
+
+        /**
+         * 记录连接失败或超时
+         */
+        public void fail(Throwable error) {
+            if (breaker == null || !recorded.compareAndSet(false, true)) {
+                return;
+            }
+            breaker.onError(breaker.getCurrentTimestamp() - start, breaker.getTimestampUnit(), error);
+        }
+
+        /**
+         * 归还并发数；没有结果就结束的调用（如客户端取消）不计入熔断器
+         */
+        public void release() {
+            if (bulkhead == null || !released.compareAndSet(false, true)) {
+                return;
+            }
+            bulkhead.onComplete();
+            if (recorded.compareAndSet(false, true)) {
+                breaker.releasePermission();
+            }
+        }
+    }
+
+    /**
+     * 后端返回 5xx，熔断器按失败记录
+     */
+    private static final class UpstreamServerError extends RuntimeException {
+
+        UpstreamServerError(HttpStatusCode status) {
+            super("后端返回 " + status.value(), null, false, false);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.mer.merweb.proxy;
+
+/**
+ * 路由匹配结果
+ *
+ * @param route         匹配到的路由
+ * @param pathVariables 路径变量取值，顺序与路由声明的变量一致，保持请求 URI 中的编码形式
+ */
+public record RouteMatch(ProxyRoute route, String[] pathVariables) {
+}
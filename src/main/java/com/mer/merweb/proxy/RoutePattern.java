@@ -0,0 +1,88 @@
+package com.mer.merweb.proxy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 网关侧路径模式，启动时解析一次
+ * 支持 /tasks/all、/user/{userId}、/user/{userId:number} 三种写法，
+ * number 约束的变量只匹配纯数字路径段；末尾的 / 视为一个空的字面量段。
+ */
+final class RoutePattern {
+
+    /**
+     * 路径段：variable 为 null 表示字面量段
+     */
+    record Segment(String literal, String variable, boolean numeric) {
+        boolean isVariable() {
+            return variable != null;
+        }
+    }
+
+    private final String pattern;
+    private final List<Segment> segments;
+    private final List<String> variables;
+
+    private RoutePattern(String pattern, List<Segment> segments, List<String> variables) {
+        this.pattern = pattern;
+        this.segments = segments;
+        this.variables = variables;
+    }
+
+    static RoutePattern parse(String pattern) {
+        if (!pattern.startsWith("/")) {
+            throw new IllegalArgumentException("路由路径必须以 / 开头: " + pattern);
+        }
+        List<Segment> segments = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        int start = 1;
+        while (true) {
+            int end = pattern.indexOf('/', start);
+            if (end < 0) {
+                end = pattern.length();
+            }
+            String part = pattern.substring(start, end);
+            if (part.startsWith("{") && part.endsWith("}")) {
+                String name = part.substring(1, part.length() - 1);
+                boolean numeric = false;
+                int colon = name.indexOf(':');
+                if (colon >= 0) {
+                    String type = name.substring(colon + 1);
+                    if (!"number".equals(type)) {
+                        throw new IllegalArgumentException("不支持的路径变量类型 " + type + ": " + pattern);
+                    }
+                    numeric = true;
+                    name = name.substring(0, colon);
+                }
+                if (variables.contains(name)) {
+                    throw new IllegalArgumentException("路径变量重复 " + name + ": " + pattern);
+                }
+                variables.add(name);
+                segments.add(new Segment(null, name, numeric));
+            } else {
+                segments.add(new Segment(part, null, false));
+            }
+            if (end == pattern.length()) {
+                break;
+            }
+            start = end + 1;
+        }
+        return new RoutePattern(pattern, List.copyOf(segments), List.copyOf(variables));
+    }
+
+    String pattern() {
+        return pattern;
+    }
+
+    List<Segment> segments() {
+        return segments;
+    }
+
+    List<String> variables() {
+        return variables;
+    }
+
+    boolean isLiteral() {
+        return variables.isEmpty();
+    }
+}
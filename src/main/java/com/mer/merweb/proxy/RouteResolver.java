@@ -0,0 +1,118 @@
+package com.mer.merweb.proxy;
+
+import com.mer.merweb.config.ProxyProperties;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 路由解析
+ * 匹配路由、校验查询参数并拼装后端地址。Servlet 与响应式两种代理引擎共用，
+ * 两种模式下 404、405 和缺少参数的错误响应完全一致。
+ */
+@Component
+public class RouteResolver {
+
+    private final RouteTable routeTable;
+    private final String backendUrl;
+
+    public RouteResolver(RouteTable routeTable, ProxyProperties properties) {
+        this.routeTable = routeTable;
+        this.backendUrl = properties.getBackendUrl();
+    }
+
+    /**
+     * 解析结果，exchange 和 rejection 有且只有一个不为 null
+     *
+     * @param exchange  匹配成功的请求上下文
+     * @param rejection 网关直接返回的错误响应
+     */
+    public record Resolution(ProxyExchange exchange, ResponseEntity<?> rejection) {
+    }
+
+    /**
+     * @param path       去掉 /api 前缀后的请求路径，保持请求 URI 中的编码形式
+     * @param parameters 按名称读取已解码的查询参数，不存在时返回 null
+     */
+    public Resolution resolve(HttpMethod method, String path, Function<String, String> parameters) {
+        RouteMatch match = routeTable.match(method, path);
+        if (match == null) {
+            if (routeTable.matchesOtherMethod(method, path)) {
+                return reject(ResponseEntity.status(HttpStatus.METHOD_NOT_ALLOWED)
+                        .body(Map.of("error", true, "message", "不支持的请求方法: " + method)));
+            }
+            return reject(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", true, "message", "接口不存在: " + path)));
+        }
+
+        QueryParam[] params = match.route().queryParams();
+        String[] queryValues = new String[params.length];
+        for (int i = 0; i < params.length; i++) {
+            String value = parameters.apply(params[i].name());
+            if (value == null || value.isEmpty()) {
+                value = params[i].defaultValue();
+            }
+            if (value == null && params[i].required()) {
+                return reject(ResponseEntity.badRequest()
+                        .body(Map.of("error", true, "message", "缺少必填参数: " + params[i].name())));
+            }
+            queryValues[i] = value;
+        }
+
+        // enrich 是网关自己的参数，不转发给后端；没有声明补充方式的路由忽略该参数
+        String enrichment = null;
+        if (!match.route().getEnrichments().isEmpty()) {
+            enrichment = parameters.apply(ResponseEnricher.PARAM);
+            if (enrichment != null && enrichment.isEmpty()) {
+                enrichment = null;
+            }
+            if (enrichment != null && !match.route().getEnrichments().contains(enrichment)) {
+                return reject(ResponseEntity.badRequest()
+                        .body(Map.of("error", true, "message", "不支持的 enrich 参数: " + enrichment)));
+            }
+        }
+        return new Resolution(new ProxyExchange(match, queryValues, enrichment), null);
+    }
+
+    /**
+     * 解析网关内部调用的接口，接口不存在或缺少必填参数属于代码错误，直接抛出异常
+     */
+    ProxyExchange resolveInternal(HttpMethod method, String path, Map<String, String> query) {
+        Resolution resolution = resolve(method, path, query::get);
+        if (resolution.rejection() != null) {
+            throw new IllegalArgumentException("无法调用接口 " + method + " " + path + ": "
+                    + resolution.rejection().getBody());
+        }
+        return resolution.exchange();
+    }
+
+    /**
+     * 按预编译模板拼装后端地址，查询参数按 UTF-8 百分号编码
+     */
+    URI upstreamUri(ProxyExchange exchange) {
+        ProxyRoute route = exchange.getRoute();
+        String[] queryValues = exchange.queryValues();
+        StringBuilder url = new StringBuilder(backendUrl.length() + route.upstream().literalLength() + 64);
+        url.append(backendUrl);
+        route.upstream().expand(url, exchange.pathVariables());
+
+        char separator = '?';
+        for (int i = 0; i < queryValues.length; i++) {
+            if (queryValues[i] != null) {
+                url.append(separator).append(route.encodedQueryName(i)).append('=');
+                UriEncoding.appendQueryComponent(url, queryValues[i]);
+                separator = '&';
+            }
+        }
+        return URI.create(url.toString());
+    }
+
+    private static Resolution reject(ResponseEntity<?> rejection) {
+        return new Resolution(null, rejection);
+    }
+}
@@ -0,0 +1,191 @@
+package com.mer.merweb.proxy;
+
+import org.springframework.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 路由表
+ * 启动时把全部路由编译成两级结构：不含变量的路径放入哈希表一次命中，
+ * 含变量的路径放入按路径段组织的前缀树。请求时逐段比较原始 URI，
+ * 字面量段优先于变量段，不切分字符串、不使用正则。
+ */
+public final class RouteTable {
+
+    private static final String[] NO_VARIABLES = new String[0];
+
+    private final List<ProxyRoute> routes;
+    private final Map<HttpMethod, Map<String, ProxyRoute>> literalRoutes = new HashMap<>();
+    private final Map<HttpMethod, Node> trees = new HashMap<>();
+    private final int maxVariables;
+
+    public RouteTable(List<ProxyRoute> routes) {
+        this.routes = List.copyOf(routes);
+        int max = 0;
+        for (ProxyRoute route : routes) {
+            for (RoutePattern pattern : route.patterns()) {
+                if (pattern.isLiteral()) {
+                    ProxyRoute previous = literalRoutes
+                            .computeIfAbsent(route.getMethod(), m -> new HashMap<>())
+                            .putIfAbsent(pattern.pattern(), route);
+                    if (previous != null) {
+                        throw duplicate(route, pattern);
+                    }
+                } else {
+                    insert(trees.computeIfAbsent(route.getMethod(), m -> new Node()), pattern, route);
+                }
+            }
+            max = Math.max(max, route.variableCount());
+        }
+        this.maxVariables = max;
+    }
+
+    public static RouteTable of(ProxyRoute.Builder... builders) {
+        List<ProxyRoute> routes = new ArrayList<>(builders.length);
+        for (ProxyRoute.Builder builder : builders) {
+            routes.add(builder.build());
+        }
+        return new RouteTable(routes);
+    }
+
+    public List<ProxyRoute> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * 按请求方法和路径（不含 /api 前缀、保持编码形式）查找路由，未匹配时返回 null
+     */
+    public RouteMatch match(HttpMethod method, String path) {
+        Map<String, ProxyRoute> literals = literalRoutes.get(method);
+        if (literals != null) {
+            ProxyRoute route = literals.get(path);
+            if (route != null) {
+                return new RouteMatch(route, NO_VARIABLES);
+            }
+        }
+
+        Node root = trees.get(method);
+        if (root == null || path.isEmpty() || path.charAt(0) != '/') {
+            return null;
+        }
+        String[] variables = new String[maxVariables];
+        ProxyRoute route = match(root, path, 1, variables, 0);
+        if (route == null) {
+            return null;
+        }
+        return new RouteMatch(route, Arrays.copyOf(variables, route.variableCount()));
+    }
+
+    /**
+     * 路径是否存在其他请求方法的路由，用于区分 404 和 405
+     */
+    public boolean matchesOtherMethod(HttpMethod method, String path) {
+        for (HttpMethod other : allMethods()) {
+            if (!other.equals(method) && match(other, path) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<HttpMethod> allMethods() {
+        List<HttpMethod> methods = new ArrayList<>(literalRoutes.keySet());
+        for (HttpMethod method : trees.keySet()) {
+            if (!methods.contains(method)) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    private static ProxyRoute match(Node node, String path, int start, String[] variables, int variableCount) {
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        boolean last = end == path.length();
+        int length = end - start;
+
+        for (int i = 0; i < node.literalKeys.size(); i++) {
+            String key = node.literalKeys.get(i);
+            if (key.length() == length && path.regionMatches(start, key, 0, length)) {
+                Node child = node.literalChildren.get(i);
+                ProxyRoute route = last ? child.route : match(child, path, end + 1, variables, variableCount);
+                if (route != null) {
+                    return route;
+                }
+            }
+        }
+
+        Node child = node.variableChild;
+        if (child != null && length > 0 && (!node.variableNumeric || isDigits(path, start, end))) {
+            variables[variableCount] = path.substring(start, end);
+            ProxyRoute route = last ? child.route : match(child, path, end + 1, variables, variableCount + 1);
+            if (route != null) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isDigits(String path, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void insert(Node root, RoutePattern pattern, ProxyRoute route) {
+        Node node = root;
+        for (RoutePattern.Segment segment : pattern.segments()) {
+            if (segment.isVariable()) {
+                if (node.variableChild == null) {
+                    node.variableChild = new Node();
+                    node.variableNumeric = segment.numeric();
+                } else if (node.variableNumeric != segment.numeric()) {
+                    throw new IllegalStateException("同一位置的路径变量类型冲突: " + pattern.pattern());
+                }
+                node = node.variableChild;
+            } else {
+                int index = node.literalKeys.indexOf(segment.literal());
+                if (index < 0) {
+                    node.literalKeys.add(segment.literal());
+                    node.literalChildren.add(new Node());
+                    index = node.literalKeys.size() - 1;
+                }
+                node = node.literalChildren.get(index);
+            }
+        }
+        if (node.route != null) {
+            throw duplicate(route, pattern);
+        }
+        node.route = route;
+    }
+
+    private static IllegalStateException duplicate(ProxyRoute route, RoutePattern pattern) {
+        return new IllegalStateException("重复的路由: " + route.getMethod() + " " + pattern.pattern());
+    }
+
+    /**
+     * 前缀树节点，子节点数量很少，线性比较比哈希更快且不需要截取字符串
+     */
+    private static final class Node {
+        private final List<String> literalKeys = new ArrayList<>();
+        private final List<Node> literalChildren = new ArrayList<>();
+        private Node variableChild;
+        private boolean variableNumeric;
+        private ProxyRoute route;
+    }
+
+    @Override
+    public String toString() {
+        return "RouteTable" + routes;
+    }
+}
@@ -0,0 +1,104 @@
+package com.mer.merweb.proxy;
+
+/**
+ * 一次接口请求的分阶段耗时，响应提交时写入 Server-Timing 响应头
+ * 由入口过滤器创建并放入请求属性，各阶段在发生处累加；同一阶段多次发生（如按天拼装时访问多次后端）时耗时相加。
+ * 每个请求只分配一个对象和一个数组，响应头在提交时一次拼出；不要求线程安全，同一请求的各阶段依次发生。
+ * 透传响应在读取后端响应体之前就已提交，没有 transfer 阶段。
+ */
+public final class ServerTiming {
+
+    public static final String HEADER = "Server-Timing";
+
+    /**
+     * 请求属性名（Servlet 请求属性、响应式 exchange 属性和 Reactor Context 的键）
+     */
+    public static final String ATTRIBUTE = ServerTiming.class.getName();
+
+    public enum Phase {
+        /**
+         * 入口并发限制的排队等待
+         */
+        QUEUE("queue"),
+        /**
+         * 安全过滤器链等入口过滤器，从排队结束到进入代理引擎
+         */
+        SECURITY("security"),
+        /**
+         * 访问后端直到收到响应头，包括获取连接和建立连接
+         */
+        UPSTREAM("upstream"),
+        /**
+         * 读取后端响应体
+         */
+        TRANSFER("transfer"),
+        /**
+         * 网关改写和编码响应体，如补充团队名称、按天拼装、压缩
+         */
+        SERIALIZE("serialize");
+
+        private final String metric;
+
+        Phase(String metric) {
+            this.metric = metric;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long start;
+    private final long[] durations = new long[PHASES.length];
+    private int recorded;
+
+    public ServerTiming(long start) {
+        this.start = start;
+    }
+
+    /**
+     * 累加一个阶段的耗时
+     */
+    public void add(Phase phase, long nanos) {
+        durations[phase.ordinal()] += Math.max(0, nanos);
+        recorded |= 1 << phase.ordinal();
+    }
+
+    /**
+     * 进入代理引擎，此前除排队以外的时间计入 security
+     */
+    public void enterHandler(long now) {
+        add(Phase.SECURITY, now - start - durations[Phase.QUEUE.ordinal()]);
+    }
+
+    /**
+     * 已记录的阶段和到目前为止的总耗时，如 queue;dur=0.01, upstream;dur=12.5, total;dur=13.2
+     */
+    public String header(long now) {
+        StringBuilder header = new StringBuilder(128);
+        for (Phase phase : PHASES) {
+            if ((recorded & 1 << phase.ordinal()) != 0) {
+                appendMetric(header, phase.metric, durations[phase.ordinal()]);
+            }
+        }
+        appendMetric(header, "total", now - start);
+        return header.toString();
+    }
+
+    /**
+     * 毫秒保留三位小数，不经过 String.format
+     */
+    private static void appendMetric(StringBuilder header, String name, long nanos) {
+        if (!header.isEmpty()) {
+            header.append(", ");
+        }
+        long micros = Math.max(0, nanos) / 1000;
+        long fraction = micros % 1000;
+        header.append(name).append(";dur=").append(micros / 1000).append('.');
+        if (fraction < 100) {
+            header.append('0');
+        }
+        if (fraction < 10) {
+            header.append('0');
+        }
+        header.append(fraction);
+    }
+}
@@ -0,0 +1,17 @@
+package com.mer.merweb.proxy;
+
+/**
+ * 令牌失效通知
+ * 令牌退出登录或被后端明确判定无效时，{@link TokenVerdictCache} 通知所有实现，
+ * 实现应立即丢弃按该令牌保存的数据；与是否启用令牌校验结果缓存无关。
+ * 在请求线程中同步调用，实现不能阻塞，也不能抛出异常。
+ */
+public interface TokenRevocationListener {
+
+    /**
+     * 令牌已失效
+     *
+     * @param token 去掉 Bearer 前缀的令牌，见 {@link TokenVerdictCache#token(String)}
+     */
+    void revoked(String token);
+}
@@ -0,0 +1,22 @@
+package com.mer.merweb.proxy;
+
+/**
+ * 路由在登录态中的作用，网关据此维护令牌校验结果（{@link TokenVerdictCache}）
+ */
+public enum TokenRole {
+
+    /**
+     * 登录：成功响应中带有新签发的令牌，令牌记为有效
+     */
+    ISSUE,
+
+    /**
+     * 查询当前用户：成功响应说明令牌有效，401 说明令牌无效
+     */
+    VERIFY,
+
+    /**
+     * 退出登录：请求到达时立即把令牌记为无效，之后携带该令牌的请求由网关直接拒绝
+     */
+    REVOKE
+}
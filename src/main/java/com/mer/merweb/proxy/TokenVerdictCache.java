@@ -0,0 +1,266 @@
+package com.mer.merweb.proxy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.mer.merweb.config.ProxyProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 令牌校验结果缓存
+ * 后端明确说明某个令牌无效后，在 rejectedTtl 内携带该令牌的请求由网关直接返回 401，不再访问后端；
+ * 登录成功或查询当前用户成功的令牌记为有效，有效的记录不代替鉴权，请求仍然交给后端。
+ * 退出登录的令牌同样记为无效，网关代理的接口、任务搜索和团队批量查询立即拒绝该令牌。
+ * 令牌退出登录或被后端判定无效时通知 {@link TokenRevocationListener}，不论是否启用缓存。
+ */
+@Component
+public class TokenVerdictCache implements MeterBinder {
+
+    /**
+     * 网关直接拒绝时响应体中的 reason
+     */
+    public static final String REJECTED_REASON = "token_rejected";
+
+    private static final String BEARER = "bearer ";
+
+    private static final String CHALLENGE = "Bearer error=\"invalid_token\"";
+
+    private static final String REJECTED_MESSAGE = "登录已失效，请重新登录";
+
+    private static final byte[] REJECTED_BODY = ("{\"error\":true,\"message\":\"" + REJECTED_MESSAGE
+            + "\",\"reason\":\"" + REJECTED_REASON + "\"}").getBytes(StandardCharsets.UTF_8);
+
+    private static final Verdict VALID = new Verdict(true);
+
+    private static final Verdict REJECTED = new Verdict(false);
+
+    /**
+     * 令牌的校验结果
+     */
+    public record Verdict(boolean valid) {
+    }
+
+    private final boolean enabled;
+    private final Cache<String, Verdict> verdicts;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<TokenRevocationListener> revocationListeners;
+    private final LongAdder rejected = new LongAdder();
+
+    public TokenVerdictCache(ProxyProperties properties, ObjectMapper objectMapper,
+                             ObjectProvider<TokenRevocationListener> revocationListeners) {
+        ProxyProperties.TokenCache config = properties.getTokenCache();
+        Duration validTtl = config.getValidTtl();
+        Duration rejectedTtl = config.getRejectedTtl();
+        this.enabled = config.isEnabled();
+        this.verdicts = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfter(Expiry.<String, Verdict>creating((token, verdict) ->
+                        verdict.valid() ? validTtl : rejectedTtl))
+                .recordStats()
+                .build();
+        this.objectMapper = objectMapper;
+        this.revocationListeners = revocationListeners;
+    }
+
+    /**
+     * 请求到达时查询令牌的校验结果，无效的令牌计入网关拒绝次数
+     * 退出登录的路由把令牌记为无效，退出请求本身仍然交给后端；路由不传递 Authorization 或请求没有携带令牌时返回 null
+     *
+     * @return 没有记录时返回 null
+     */
+    public Verdict admit(ProxyRoute route, String authorization) {
+        String token = route.isForwardAuthorization() ? token(authorization) : null;
+        if (token == null) {
+            return null;
+        }
+        if (route.getTokenRole() == TokenRole.REVOKE) {
+            put(token, REJECTED);
+            revoked(token);
+            return null;
+        }
+        if (!enabled) {
+            return null;
+        }
+        Verdict verdict = verdicts.getIfPresent(token);
+        if (verdict != null && !verdict.valid()) {
+            rejected.increment();
+        }
+        return verdict;
+    }
+
+    /**
+     * 令牌是否已知无效，网关内部调用其他接口前使用，无效时计入网关拒绝次数
+     */
+    public boolean isRejected(String authorization) {
+        String token = enabled ? token(authorization) : null;
+        Verdict verdict = token != null ? verdicts.getIfPresent(token) : null;
+        if (verdict != null && !verdict.valid()) {
+            rejected.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 记录透传的后端响应，只有明确说明令牌无效的 401 才把令牌记为无效：
+     * 查询当前用户的接口返回 401，或 WWW-Authenticate 按 RFC 6750 带有 invalid_token；
+     * 其他 401 可能只是没有权限访问这一个资源，令牌访问其他接口不受影响
+     */
+    public void observe(ProxyRoute route, String authorization, int status, HttpHeaders headers) {
+        if (status == HttpStatus.UNAUTHORIZED.value() && route.isForwardAuthorization()
+                && (route.getTokenRole() == TokenRole.VERIFY || invalidToken(headers))) {
+            put(authorization, REJECTED);
+            String token = token(authorization);
+            if (token != null) {
+                revoked(token);
+            }
+        }
+    }
+
+    /**
+     * 记录读入内存的后端响应，查询当前用户成功时把令牌记为有效
+     */
+    public void observe(ProxyRoute route, String authorization, BufferedResponse response) {
+        int status = response.status().value();
+        observe(route, authorization, status, response.headers());
+        if (status == HttpStatus.OK.value() && route.getTokenRole() == TokenRole.VERIFY
+                && route.isForwardAuthorization()) {
+            put(authorization, VALID);
+        }
+    }
+
+    /**
+     * 记录登录成功响应中签发的令牌（token、access_token 或 data.token）
+     */
+    public void issued(byte[] body) {
+        JsonNode root = enabled ? read(body) : null;
+        if (root == null) {
+            return;
+        }
+        JsonNode data = root.path("data");
+        String token = text(root, "token", "access_token");
+        if (token == null) {
+            token = text(data, "token", "access_token");
+        }
+        if (token != null) {
+            put(token, VALID);
+        }
+    }
+
+    /**
+     * 网关直接返回的 401 响应，WWW-Authenticate 按 RFC 6750 标明令牌无效
+     */
+    public ResponseEntity<Object> rejection() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", true);
+        body.put("message", REJECTED_MESSAGE);
+        body.put("reason", REJECTED_REASON);
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .header(HttpHeaders.WWW_AUTHENTICATE, CHALLENGE)
+                .body(body);
+    }
+
+    /**
+     * 与 {@link #rejection()} 相同的 401 响应，供网关内部调用其他接口时代替后端响应
+     */
+    public BufferedResponse rejectedResponse() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(HttpHeaders.WWW_AUTHENTICATE, CHALLENGE);
+        return BufferedResponse.of(HttpStatus.UNAUTHORIZED, headers, REJECTED_BODY);
+    }
+
+    /**
+     * 记录的有效、无效令牌数和网关直接拒绝的请求数
+     */
+    public Map<String, Object> stats() {
+        long valid = verdicts.asMap().values().stream().filter(Verdict::valid).count();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("valid", valid);
+        stats.put("rejected", verdicts.estimatedSize() - valid);
+        stats.put("rejectedRequests", rejected.sum());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, verdicts, "proxy.token-verdicts", "route", ProxyMetrics.NO_ROUTE);
+        FunctionCounter.builder("mer.proxy.token.rejected", rejected, LongAdder::sum)
+                .description("令牌已知无效、由网关直接返回 401 的请求数")
+                .register(registry);
+    }
+
+    private void put(String authorization, Verdict verdict) {
+        String token = enabled ? token(authorization) : null;
+        if (token != null) {
+            verdicts.put(token, verdict);
+        }
+    }
+
+    private void revoked(String token) {
+        revocationListeners.orderedStream().forEach(listener -> listener.revoked(token));
+    }
+
+    /**
+     * WWW-Authenticate 是否带有 error="invalid_token"，即令牌过期、被撤销或格式错误
+     */
+    private static boolean invalidToken(HttpHeaders headers) {
+        List<String> challenges = headers.get(HttpHeaders.WWW_AUTHENTICATE);
+        return challenges != null && challenges.stream()
+                .anyMatch(challenge -> challenge.toLowerCase(Locale.ROOT).contains("invalid_token"));
+    }
+
+    /**
+     * 去掉 Bearer 前缀的令牌，没有令牌时返回 null；网关按令牌保存的数据都以它为键
+     */
+    public static String token(String authorization) {
+        if (authorization == null) {
+            return null;
+        }
+        String token = authorization.trim();
+        if (token.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            token = token.substring(BEARER.length()).trim();
+        }
+        return token.isEmpty() ? null : token;
+    }
+
+    private JsonNode read(byte[] body) {
+        try {
+            JsonNode root = objectMapper.readTree(body);
+            return root != null && root.isObject() ? root : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String text(JsonNode node, String... names) {
+        for (String name : names) {
+            JsonNode value = node.path(name);
+            if (value.isValueNode() && !value.isNull() && !value.asText().isEmpty()) {
+                return value.asText();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,37 @@
+package com.mer.merweb.proxy;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * 网关内部调用后端接口
+ * 网关自行组合多个后端接口的结果时使用（如批量查询），按路由表的配置拼装后端地址并经过网关缓存。
+ * Servlet 模式由 ProxyEngine 实现，响应式模式由 ReactiveProxyEngine 实现。
+ */
+public interface UpstreamFetcher {
+
+    /**
+     * 网关缓存中已有的响应，路由未启用缓存或未命中时返回 null
+     *
+     * @param path 去掉 /api 前缀的 GET 接口路径，如 /team/7
+     */
+    BufferedResponse cached(String path, String authorization);
+
+    /**
+     * 获取 GET 接口的完整响应，启用缓存的路由先查缓存
+     *
+     * @param path 去掉 /api 前缀的 GET 接口路径，如 /team/7
+     */
+    default Mono<BufferedResponse> fetch(String path, String authorization) {
+        return fetch(path, Map.of(), authorization);
+    }
+
+    /**
+     * 获取带查询参数的 GET 接口的完整响应，查询参数按路由表校验，按天缓存的统计接口同样经过缓存
+     *
+     * @param path  去掉 /api 前缀的 GET 接口路径，如 /tasks/statistic
+     * @param query 未编码的查询参数，路由未声明的参数不转发
+     */
+    Mono<BufferedResponse> fetch(String path, Map<String, String> query, String authorization);
+}
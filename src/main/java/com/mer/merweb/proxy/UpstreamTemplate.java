@@ -0,0 +1,85 @@
+package com.mer.merweb.proxy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预编译的后端地址模板
+ * 启动时把 /user/{userId} 拆成字面量片段和变量下标，请求时按顺序写入 StringBuilder，
+ * 不做任何解析或正则匹配。
+ */
+final class UpstreamTemplate {
+
+    private final String template;
+    private final String[] literals;
+    private final int[] variableIndexes;
+    private final int literalLength;
+
+    private UpstreamTemplate(String template, String[] literals, int[] variableIndexes) {
+        this.template = template;
+        this.literals = literals;
+        this.variableIndexes = variableIndexes;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * @param variables 网关路径模式中的变量名，模板只能引用其中的变量
+     */
+    static UpstreamTemplate compile(String template, List<String> variables) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = template.indexOf('{', position);
+            if (open < 0) {
+                literals.add(template.substring(position));
+                break;
+            }
+            int close = template.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("后端地址模板缺少 }: " + template);
+            }
+            String name = template.substring(open + 1, close);
+            int index = variables.indexOf(name);
+            if (index < 0) {
+                throw new IllegalArgumentException("后端地址模板引用了未定义的变量 " + name + ": " + template);
+            }
+            literals.add(template.substring(position, open));
+            indexes.add(index);
+            position = close + 1;
+        }
+
+        int[] variableIndexes = new int[indexes.size()];
+        for (int i = 0; i < variableIndexes.length; i++) {
+            variableIndexes[i] = indexes.get(i);
+        }
+        return new UpstreamTemplate(template, literals.toArray(new String[0]), variableIndexes);
+    }
+
+    /**
+     * 写入展开后的路径，路径变量取自请求 URI，本身已是编码后的形式，原样写入
+     */
+    void expand(StringBuilder target, String[] pathVariables) {
+        target.append(literals[0]);
+        for (int i = 0; i < variableIndexes.length; i++) {
+            target.append(pathVariables[variableIndexes[i]]);
+            target.append(literals[i + 1]);
+        }
+    }
+
+    /**
+     * 字面量部分的总长度，用于预估 StringBuilder 容量
+     */
+    int literalLength() {
+        return literalLength;
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
@@ -0,0 +1,56 @@
+package com.mer.merweb.proxy;
+
+/**
+ * 查询参数编码
+ * 直接把 UTF-8 百分号编码结果写入目标 StringBuilder，不产生中间字符串
+ */
+final class UriEncoding {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private UriEncoding() {
+    }
+
+    /**
+     * 按 RFC 3986 编码查询参数的名称或取值，只保留非保留字符 A-Z a-z 0-9 - . _ ~
+     */
+    static void appendQueryComponent(StringBuilder target, String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (isUnreserved(c)) {
+                target.append(c);
+            } else if (c < 0x80) {
+                appendByte(target, c);
+            } else if (c < 0x800) {
+                appendByte(target, 0xC0 | (c >> 6));
+                appendByte(target, 0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                appendByte(target, 0xF0 | (codePoint >> 18));
+                appendByte(target, 0x80 | ((codePoint >> 12) & 0x3F));
+                appendByte(target, 0x80 | ((codePoint >> 6) & 0x3F));
+                appendByte(target, 0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // 孤立的代理字符无法编码，按 UTF-8 替换字符处理
+                appendByte(target, 0xEF);
+                appendByte(target, 0xBF);
+                appendByte(target, 0xBD);
+            } else {
+                appendByte(target, 0xE0 | (c >> 12));
+                appendByte(target, 0x80 | ((c >> 6) & 0x3F));
+                appendByte(target, 0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+
+    private static void appendByte(StringBuilder target, int b) {
+        target.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+    }
+}
@@ -1813,6 +1813,37 @@
       });
     },
 
+    // 批量获取团队和部门名称，结果写入上面两个缓存
+    // 一次请求代替每个团队各两次请求，失败时不影响逐个查询的回退逻辑
+    preloadTeamNames: function(teamIds) {
+      var self = this;
+      var ids = (teamIds || []).filter(function(teamId) {
+        return teamId && !(self.teamNameCache[teamId] && self.departmentNameCache[teamId]);
+      });
+      if (ids.length === 0) {
+        return Promise.resolve();
+      }
+
+      var url = base + '/api/team/batch?ids=' + ids.map(encodeURIComponent).join(',');
+      return http('GET', url).then(function(res) {
+        var teams = (res && res.teams) || {};
+        ids.forEach(function(teamId) {
+          var team = teams[String(teamId)];
+          if (!team) {
+            return;
+          }
+          if (team.team_name) {
+            self.teamNameCache[teamId] = team.team_name;
+          }
+          if (team.department_name) {
+            self.departmentNameCache[teamId] = team.department_name;
+          }
+        });
+      }).catch(function(error) {
+        console.warn('批量获取团队名称失败，改为逐个查询:', error);
+      });
+    },
+
     // ==================== 任务管理相关API ====================
     
     // 创建任务
@@ -0,0 +1,210 @@
+package com.mer.merweb.aggregate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mer.merweb.config.ProxyProperties;
+import com.mer.merweb.proxy.ProxyRoute;
+import com.mer.merweb.proxy.RouteGroup;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskRangeIndexTests {
+
+	private static final ProxyRoute TASKS = ProxyRoute.get("/tasks/personal").group(RouteGroup.TASKS)
+			.observedBy(TaskRangeIndex.NAME).build();
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private final TaskRangeIndex index = index(3);
+
+	@Test
+	void tasksOverlappingTheWindowAreReturnedWithDailyCounts() {
+		read("Bearer a", "{\"list\":["
+				+ "{\"task_id\":1,\"title\":\"跨月\",\"startAt\":\"2025-08-25\",\"dueAt\":\"2025-09-02\"},"
+				+ "{\"task_id\":2,\"title\":\"当天\",\"startDate\":\"2025-09-03T09:00:00\",\"endDate\":\"2025-09-03\"},"
+				+ "{\"task_id\":3,\"title\":\"之后\",\"start_at\":\"2025-09-06\",\"due_at\":\"2025-09-10\"},"
+				+ "{\"task_id\":4,\"title\":\"之前\",\"startAt\":\"2025-08-01\",\"dueAt\":\"2025-08-31\"},"
+				+ "{\"task_id\":5,\"title\":\"没有日期\"}"
+				+ "]}");
+
+		Map<String, Object> result = query("2025-09-01", "2025-09-05", "Bearer a");
+		assertThat(ids(result)).containsExactly("1", "2");
+		assertThat(result).containsEntry("total", 2).containsEntry("truncated", false);
+		assertThat(daily(result)).containsExactly(1, 1, 1, 0, 0);
+		assertThat(index.stats()).containsEntry("documents", 4).containsEntry("intervals", 4);
+	}
+
+	@Test
+	void readingATaskAgainMovesItsInterval() {
+		read("Bearer a", "{\"list\":[{\"task_id\":7,\"startAt\":\"2025-09-01\",\"dueAt\":\"2025-09-02\"}]}");
+		read("Bearer a", "{\"ok\":true,\"task\":{\"task_id\":7,\"startAt\":\"2025-09-20\",\"dueAt\":\"2025-09-22\"}}");
+
+		assertThat(ids(query("2025-09-01", "2025-09-10", "Bearer a"))).isEmpty();
+		assertThat(ids(query("2025-09-21", "2025-09-21", "Bearer a"))).containsExactly("7");
+
+		// 日期被清空后不再出现在任何窗口中
+		read("Bearer a", "{\"task_id\":7,\"startAt\":null,\"dueAt\":\"\"}");
+		assertThat(ids(query("2025-01-01", "2025-12-31", "Bearer a"))).isEmpty();
+		assertThat(index.stats()).containsEntry("intervals", 0);
+	}
+
+	@Test
+	void missingOrSwappedDatesAreNormalized() {
+		read("Bearer a", "{\"list\":["
+				+ "{\"task_id\":1,\"dueAt\":\"2025-09-04\"},"
+				+ "{\"task_id\":2,\"startAt\":\"2025-09-08\",\"dueAt\":\"2025-09-06\"}"
+				+ "]}");
+
+		assertThat(daily(query("2025-09-03", "2025-09-08", "Bearer a"))).containsExactly(0, 1, 0, 1, 1, 1);
+	}
+
+	@Test
+	void sessionsOnlySeeTasksTheyHaveRead() {
+		read("Bearer a", "{\"list\":[{\"task_id\":1,\"startAt\":\"2025-09-01\",\"dueAt\":\"2025-09-01\"}]}");
+		read("Bearer b", "{\"list\":[{\"task_id\":2,\"startAt\":\"2025-09-01\",\"dueAt\":\"2025-09-01\"}]}");
+
+		assertThat(ids(query("2025-09-01", "2025-09-01", "Bearer a"))).containsExactly("1");
+		assertThat(ids(query("2025-09-01", "2025-09-01", "Bearer b"))).containsExactly("2");
+		assertThat(daily(query("2025-09-01", "2025-09-01", null))).containsExactly(0);
+
+		clock.addAndGet(TimeUnit.MINUTES.toNanos(31));
+		assertThat(ids(query("2025-09-01", "2025-09-01", "Bearer a"))).isEmpty();
+	}
+
+	@Test
+	void visibilityIsKeyedOnTheTokenAndQueriesDoNotExtendIt() {
+		read("Bearer a", "{\"list\":[{\"task_id\":1,\"startAt\":\"2025-09-01\",\"dueAt\":\"2025-09-01\"}]}");
+
+		assertThat(ids(query("2025-09-01", "2025-09-01", "BEARER a"))).containsExactly("1");
+		clock.addAndGet(TimeUnit.MINUTES.toNanos(20));
+		assertThat(ids(query("2025-09-01", "2025-09-01", "Bearer a"))).containsExactly("1");
+		clock.addAndGet(TimeUnit.MINUTES.toNanos(11));
+		assertThat(ids(query("2025-09-01", "2025-09-01", "Bearer a"))).isEmpty();
+	}
+
+	@Test
+	void revokedTokensCanNoLongerQuery() {
+		read("Bearer a", "{\"list\":[{\"task_id\":1,\"startAt\":\"2025-09-01\",\"dueAt\":\"2025-09-01\"}]}");
+
+		index.revoked("a");
+
+		assertThat(ids(query("2025-09-01", "2025-09-01", "Bearer a"))).isEmpty();
+		assertThat(index.stats()).containsEntry("sessions", 0L);
+	}
+
+	@Test
+	void queriesReportTasksLeftOutOfAFullIndex() {
+		ProxyProperties.TaskRange config = new ProxyProperties.TaskRange();
+		config.setMaxDocuments(1);
+		TaskRangeIndex full = new TaskRangeIndex(new ObjectMapper(), config, clock::get);
+		// 没有日期的任务本来就不加入索引，不算遗漏
+		full.observe(TASKS, "Bearer a", 200, ("{\"list\":[{\"task_id\":1,\"startAt\":\"2025-09-01\"},"
+				+ "{\"task_id\":2}]}").getBytes(StandardCharsets.UTF_8));
+		assertThat(full.query(full.parseWindow("2025-09-01", "2025-09-01"), "Bearer a"))
+				.containsEntry("incomplete", false);
+
+		full.observe(TASKS, "Bearer a", 200,
+				"{\"list\":[{\"task_id\":3,\"startAt\":\"2025-09-01\"}]}".getBytes(StandardCharsets.UTF_8));
+		Map<String, Object> result = full.query(full.parseWindow("2025-09-01", "2025-09-01"), "Bearer a");
+		assertThat(ids(result)).containsExactly("1");
+		assertThat(result).containsEntry("incomplete", true);
+		assertThat(full.stats()).containsEntry("full", true);
+	}
+
+	@Test
+	void resultsAreTruncatedButDailyCountsCoverEveryHit() {
+		read("Bearer a", "{\"list\":["
+				+ "{\"task_id\":4,\"startAt\":\"2025-09-04\",\"dueAt\":\"2025-09-04\"},"
+				+ "{\"task_id\":1,\"startAt\":\"2025-09-01\",\"dueAt\":\"2025-09-04\"},"
+				+ "{\"task_id\":3,\"startAt\":\"2025-09-03\",\"dueAt\":\"2025-09-04\"},"
+				+ "{\"task_id\":2,\"startAt\":\"2025-09-02\",\"dueAt\":\"2025-09-04\"}"
+				+ "]}");
+
+		Map<String, Object> result = query("2025-09-01", "2025-09-04", "Bearer a");
+		assertThat(ids(result)).containsExactly("1", "2", "3");
+		assertThat(result).containsEntry("total", 4).containsEntry("truncated", true);
+		assertThat(daily(result)).containsExactly(1, 2, 3, 4);
+	}
+
+	@Test
+	void queriesMatchABruteForceScanAfterRandomUpdates() {
+		TaskRangeIndex large = index(100000);
+		Random random = new Random(42);
+		LocalDate base = LocalDate.of(2025, 1, 1);
+		Map<Integer, int[]> expected = new HashMap<>();
+		for (int round = 0; round < 20; round++) {
+			StringBuilder list = new StringBuilder();
+			for (int i = 0; i < 200; i++) {
+				int id = random.nextInt(1000);
+				int start = random.nextInt(365);
+				int end = start + random.nextInt(30);
+				expected.put(id, new int[]{start, end});
+				list.append(i > 0 ? "," : "").append("{\"task_id\":").append(id)
+						.append(",\"startAt\":\"").append(base.plusDays(start))
+						.append("\",\"dueAt\":\"").append(base.plusDays(end)).append("\"}");
+			}
+			large.observe(TASKS, "Bearer a", 200, ("{\"list\":[" + list + "]}").getBytes(StandardCharsets.UTF_8));
+
+			int from = random.nextInt(365);
+			int to = from + random.nextInt(40);
+			List<String> scanned = new ArrayList<>();
+			expected.entrySet().stream()
+					.filter(e -> e.getValue()[0] <= to && e.getValue()[1] >= from)
+					.forEach(e -> scanned.add(String.valueOf(e.getKey())));
+			Map<String, Object> result = large.query(large.parseWindow(base.plusDays(from).toString(),
+					base.plusDays(to).toString()), "Bearer a");
+			assertThat(ids(result)).containsExactlyInAnyOrderElementsOf(scanned);
+			assertThat(result).containsEntry("total", scanned.size());
+		}
+	}
+
+	@Test
+	void invalidWindowsAreRejected() {
+		assertThatThrownBy(() -> index.parseWindow(null, "2025-09-30")).hasMessage("缺少必填参数: from");
+		assertThatThrownBy(() -> index.parseWindow("2025-09-01", " ")).hasMessage("缺少必填参数: to");
+		assertThatThrownBy(() -> index.parseWindow("2025/09/01", "2025-09-30"))
+				.hasMessage("日期格式无效: from=2025/09/01");
+		assertThatThrownBy(() -> index.parseWindow("2025-09-30", "2025-09-01")).hasMessage("开始日期不能晚于结束日期");
+		assertThatThrownBy(() -> index.parseWindow("2025-01-01", "2026-01-02")).hasMessage("日期范围最多 366 天");
+	}
+
+	private TaskRangeIndex index(int maxResults) {
+		ProxyProperties.TaskRange config = new ProxyProperties.TaskRange();
+		config.setVisibilityTtl(Duration.ofMinutes(30));
+		config.setMaxResults(maxResults);
+		return new TaskRangeIndex(new ObjectMapper(), config, clock::get);
+	}
+
+	private void read(String authorization, String body) {
+		index.observe(TASKS, authorization, 200, body.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private Map<String, Object> query(String from, String to, String authorization) {
+		return index.query(index.parseWindow(from, to), authorization);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<String> ids(Map<String, Object> result) {
+		return ((List<JsonNode>) result.get("list")).stream().map(task -> task.get("task_id").asText()).toList();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Integer> daily(Map<String, Object> result) {
+		return ((List<Map<String, Object>>) result.get("daily")).stream()
+				.map(day -> (Integer) day.get("count"))
+				.toList();
+	}
+}
@@ -0,0 +1,172 @@
+package com.mer.merweb.aggregate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mer.merweb.config.ProxyProperties;
+import com.mer.merweb.proxy.ProxyRoute;
+import com.mer.merweb.proxy.RouteGroup;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskSearchIndexTests {
+
+	private static final ProxyRoute TASKS = ProxyRoute.get("/tasks/personal").group(RouteGroup.TASKS)
+			.observedBy(TaskSearchIndex.NAME).build();
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private final TaskSearchIndex index = index();
+
+	@Test
+	void tasksAreRankedByTheFieldsTheKeywordsHit() {
+		read("Bearer a", "{\"list\":["
+				+ "{\"task_id\":1,\"title\":\"登录界面动效优化\",\"description\":\"周报模板另行处理\"},"
+				+ "{\"task_id\":2,\"title\":\"整理周报并提交\",\"creator\":{\"name\":\"Alice\"}},"
+				+ "{\"task_id\":3,\"title\":\"周报整理与提交\",\"description\":\"汇总各成员产出\"},"
+				+ "{\"task_id\":4,\"title\":\"邮件验证码服务联调\",\"assignees\":[{\"name\":\"周报专员\"}]}"
+				+ "],\"total\":4}");
+
+		// 标题以关键词开头的在前，其次是标题、人员、描述中包含关键词的
+		assertThat(ids(search("周报", "Bearer a"))).containsExactly("3", "2", "4", "1");
+		// 多个关键词需要同时命中，NFKC 统一全角字母和大小写
+		assertThat(ids(search("周报 ＡＬＩＣＥ", "Bearer a"))).containsExactly("2");
+		assertThat(ids(search("周", "Bearer a"))).containsExactly("3", "2", "4", "1");
+		assertThat(ids(search("周报汇总", "Bearer a"))).isEmpty();
+	}
+
+	@Test
+	void everyBigramMatchingIsNotEnoughWithoutTheWholeKeyword() {
+		// “整理”和“理周”都在标题中，但标题不包含“整理周”
+		read("Bearer a", "{\"list\":[{\"id\":\"T-001\",\"name\":\"整理 理周\",\"summary\":\"\"}]}");
+
+		assertThat(ids(search("整理", "Bearer a"))).containsExactly("T-001");
+		assertThat(ids(search("整理周", "Bearer a"))).isEmpty();
+	}
+
+	@Test
+	void readingATaskAgainReplacesItsIndexedText() {
+		read("Bearer a", "{\"list\":[{\"task_id\":7,\"title\":\"周报整理\",\"description\":\"旧的描述\"}]}");
+		read("Bearer a", "{\"ok\":true,\"task\":{\"task_id\":7,\"title\":\"月报整理\",\"description\":\"新的描述\"}}");
+
+		assertThat(ids(search("周报", "Bearer a"))).isEmpty();
+		assertThat(ids(search("旧的", "Bearer a"))).isEmpty();
+		assertThat(ids(search("月报 新的", "Bearer a"))).containsExactly("7");
+		assertThat(index.stats()).containsEntry("documents", 1);
+	}
+
+	@Test
+	void sessionsOnlySearchTasksTheyHaveRead() {
+		read("Bearer a", "{\"list\":[{\"task_id\":1,\"title\":\"周报整理\"}]}");
+		read("Bearer b", "{\"list\":[{\"task_id\":2,\"title\":\"周报提交\"}]}");
+
+		assertThat(ids(search("周报", "Bearer a"))).containsExactly("1");
+		assertThat(ids(search("周报", "Bearer b"))).containsExactly("2");
+		assertThat(ids(search("周报", null))).isEmpty();
+
+		clock.addAndGet(TimeUnit.MINUTES.toNanos(31));
+		assertThat(ids(search("周报", "Bearer a"))).isEmpty();
+	}
+
+	@Test
+	void visibilityIsKeyedOnTheTokenAndExpiresAfterTheLastRead() {
+		read("Bearer a", "{\"list\":[{\"task_id\":1,\"title\":\"周报整理\"}]}");
+
+		// 与令牌校验结果缓存一样，Bearer 前缀不区分大小写、忽略首尾空白
+		assertThat(ids(search("周报", " bearer a "))).containsExactly("1");
+		assertThat(ids(search("周报", "a"))).containsExactly("1");
+
+		// 搜索不延长保留时间，重新读取任务才延长
+		clock.addAndGet(TimeUnit.MINUTES.toNanos(20));
+		assertThat(ids(search("周报", "Bearer a"))).containsExactly("1");
+		clock.addAndGet(TimeUnit.MINUTES.toNanos(11));
+		assertThat(ids(search("周报", "Bearer a"))).isEmpty();
+
+		read("Bearer a", "{\"list\":[{\"task_id\":1,\"title\":\"周报整理\"}]}");
+		clock.addAndGet(TimeUnit.MINUTES.toNanos(20));
+		read("bearer a", "{\"list\":[{\"task_id\":2,\"title\":\"周报提交\"}]}");
+		clock.addAndGet(TimeUnit.MINUTES.toNanos(20));
+		assertThat(ids(search("周报", "Bearer a"))).containsExactly("1", "2");
+	}
+
+	@Test
+	void revokedTokensCanNoLongerSearch() {
+		read("Bearer a", "{\"list\":[{\"task_id\":1,\"title\":\"周报整理\"}]}");
+		read("Bearer b", "{\"list\":[{\"task_id\":1,\"title\":\"周报整理\"}]}");
+
+		index.revoked("a");
+
+		assertThat(ids(search("周报", "Bearer a"))).isEmpty();
+		assertThat(ids(search("周报", "Bearer b"))).containsExactly("1");
+		assertThat(index.stats()).containsEntry("sessions", 1L);
+	}
+
+	@Test
+	void searchesReportTasksLeftOutOfAFullIndex() {
+		ProxyProperties.TaskSearch config = new ProxyProperties.TaskSearch();
+		config.setMaxDocuments(1);
+		TaskSearchIndex full = new TaskSearchIndex(new ObjectMapper(), config, clock::get);
+		full.observe(TASKS, "Bearer a", 200, ("{\"list\":[{\"task_id\":1,\"title\":\"周报整理\"},"
+				+ "{\"task_id\":2,\"title\":\"周报提交\"}]}").getBytes(StandardCharsets.UTF_8));
+		full.observe(TASKS, "Bearer b", 200,
+				"{\"task\":{\"task_id\":1,\"title\":\"周报整理\"}}".getBytes(StandardCharsets.UTF_8));
+
+		Map<String, Object> result = full.search(full.parseQuery("周报", null, null), "Bearer a");
+		assertThat(ids(result)).containsExactly("1");
+		assertThat(result).containsEntry("incomplete", true);
+		assertThat(full.search(full.parseQuery("周报", null, null), "Bearer b")).containsEntry("incomplete", false);
+		assertThat(full.stats()).containsEntry("documents", 1).containsEntry("full", true);
+	}
+
+	@Test
+	void resultsArePaginated() {
+		StringBuilder list = new StringBuilder();
+		for (int i = 1; i <= 25; i++) {
+			list.append(i > 1 ? "," : "").append("{\"task_id\":").append(i).append(",\"title\":\"周报 ").append(i).append("\"}");
+		}
+		read("Bearer a", "{\"list\":[" + list + "]}");
+
+		Map<String, Object> page = index.search(index.parseQuery("周报", "3", "10"), "Bearer a");
+		assertThat(page).containsEntry("total", 25).containsEntry("page", 3).containsEntry("pageSize", 10);
+		assertThat(ids(page)).containsExactly("21", "22", "23", "24", "25");
+		assertThat(ids(index.search(index.parseQuery("周报", "9", "10"), "Bearer a"))).isEmpty();
+	}
+
+	@Test
+	void invalidQueriesAreRejected() {
+		assertThatThrownBy(() -> index.parseQuery(" ", null, null)).hasMessage("缺少必填参数: q");
+		assertThatThrownBy(() -> index.parseQuery("!?", null, null)).hasMessage("搜索关键词需要包含文字或数字");
+		assertThatThrownBy(() -> index.parseQuery("x".repeat(65), null, null)).hasMessage("搜索关键词最多 64 个字符");
+		assertThatThrownBy(() -> index.parseQuery("周报", "0", null)).hasMessage("参数无效: page");
+		assertThatThrownBy(() -> index.parseQuery("周报", null, "101")).hasMessage("每页最多 100 条");
+	}
+
+	private TaskSearchIndex index() {
+		ProxyProperties.TaskSearch config = new ProxyProperties.TaskSearch();
+		config.setVisibilityTtl(Duration.ofMinutes(30));
+		return new TaskSearchIndex(new ObjectMapper(), config, clock::get);
+	}
+
+	private void read(String authorization, String body) {
+		index.observe(TASKS, authorization, 200, body.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private Map<String, Object> search(String q, String authorization) {
+		return index.search(index.parseQuery(q, null, "100"), authorization);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<String> ids(Map<String, Object> result) {
+		return ((List<JsonNode>) result.get("list")).stream()
+				.map(task -> task.has("task_id") ? task.get("task_id").asText() : task.get("id").asText())
+				.toList();
+	}
+}
@@ -0,0 +1,37 @@
+package com.mer.merweb.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * 运行指标和网关状态接口只对允许的地址开放，Servlet 与响应式两种模式各自继承运行
+ * 测试客户端从 127.0.0.1 访问，允许的地址设为其他网段
+ */
+@AutoConfigureObservability
+@TestPropertySource(properties = "mer.proxy.management.allowed-addresses=10.0.0.0/8")
+abstract class ManagementAccessTests {
+
+	@Autowired
+	WebTestClient client;
+
+	@Test
+	void metricsAndGatewayStatusAreForbiddenFromOtherAddresses() {
+		for (String uri : new String[] {"/actuator/prometheus", "/gateway/caches", "/gateway/limiter"}) {
+			client.get().uri(uri)
+					.exchange()
+					.expectStatus().isForbidden()
+					.expectBody();
+		}
+	}
+
+	@Test
+	void healthStaysOpenForProbes() {
+		client.get().uri("/actuator/health")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.status").isEqualTo("UP");
+	}
+}
@@ -0,0 +1,8 @@
+package com.mer.merweb.config;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"spring.main.web-application-type=reactive", "server.shutdown=immediate"})
+class ReactiveManagementAccessTests extends ManagementAccessTests {
+}
@@ -0,0 +1,393 @@
+package com.mer.merweb.perf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mer.merweb.MerWebApplication;
+import com.mer.merweb.support.StubBackend;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+/**
+ * 网关端到端压测
+ * 进程内启动后端桩服务和网关，按固定速率打开页面，每个页面同时发出浏览器打开该页时的接口请求，
+ * 统计各页面接口的吞吐量和 p50/p99/p999 延迟。任务数据取自 static/data/tasks.json。
+ * 发送节奏不受响应快慢影响，延迟从计划发送的时刻算起，网关处理不过来时的排队时间也计入结果。
+ * 页面按固定的权重顺序轮换，后端错误按请求序号注入，相同参数的多次运行负载一致，
+ * 可以用来比较连接池、缓存和线程模型等配置修改前后的表现。
+ * <p>
+ * 运行：mvn -Pperf test -Dtest=GatewayLoadTests，可用系统属性调整：
+ * <ul>
+ *     <li>load.rate：每秒打开的页面数，默认 50</li>
+ *     <li>load.seconds：计入结果的时长（秒），默认 20；load.warmup：预热时长，默认 5</li>
+ *     <li>load.latency、load.jitter：后端固定延迟和随机附加延迟（毫秒），默认 20 和 10</li>
+ *     <li>load.faults：后端返回 503 的请求比例，默认 0.01</li>
+ *     <li>load.modes：依次压测的网关模式 servlet、reactive、virtual（需要 Java 21），默认 servlet,reactive</li>
+ *     <li>load.args：附加的网关启动参数，空格分隔，如 "--mer.proxy.pool.max-total=20"</li>
+ * </ul>
+ */
+@Tag("perf")
+class GatewayLoadTests {
+
+	private static final double RATE = Double.parseDouble(System.getProperty("load.rate", "50"));
+	private static final int SECONDS = Integer.getInteger("load.seconds", 20);
+	private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup", 5);
+	private static final long LATENCY_MILLIS = Long.getLong("load.latency", 20);
+	private static final long JITTER_MILLIS = Long.getLong("load.jitter", 10);
+	private static final double FAULT_RATE = Double.parseDouble(System.getProperty("load.faults", "0.01"));
+	private static final List<String> MODES = List.of(System.getProperty("load.modes", "servlet,reactive").split(","));
+	private static final String EXTRA_ARGS = System.getProperty("load.args", "");
+
+	private static final int TASK_COUNT = 40;
+	private static final int TEAM_COUNT = 5;
+	private static final int FIRST_TEAM = 50;
+
+	/**
+	 * 一个页面打开时发出的接口请求，n 为页面序号，用来轮换分页、任务编号和日期
+	 */
+	record Page(String name, int weight, IntFunction<List<String>> paths) {
+	}
+
+	private static final List<Page> PAGES = List.of(
+			new Page("tasks", 4, n -> List.of(
+					"/tasks/all?page=" + (n % 4 + 1) + "&pageSize=10&enrich=team",
+					"/user/profile")),
+			new Page("dashboard", 2, n -> List.of(
+					"/dashboard/summary?timeUnit=day&startDate=2025-09-12&endDate=2025-09-18",
+					"/user/profile")),
+			new Page("calendar", 2, n -> {
+				LocalDate month = LocalDate.of(2025, n % 12 + 1, 1);
+				String range = "startDate=" + month + "&endDate=" + month.plusMonths(1).minusDays(1);
+				return List.of(
+						"/tasks/statistic?" + range,
+						"/journals/statistic?" + range,
+						"/login/statistic?timeUnit=day&" + range);
+			}),
+			new Page("comments", 2, n -> List.of(
+					"/tasks/" + (n % TASK_COUNT + 1),
+					"/comments?ownerType=task&ownerId=" + (n % TASK_COUNT + 1) + "&page=1&pageSize=10")));
+
+	/**
+	 * 按权重交错排列的页面顺序，如 tasks, dashboard, calendar, comments, tasks, dashboard, ...
+	 */
+	private static final List<Page> SCHEDULE = schedule();
+
+	/**
+	 * 一个页面的接口延迟（微秒）和错误数
+	 */
+	static final class Stats {
+
+		private long[] latencies = new long[1024];
+		private int count;
+		private final Map<Integer, Integer> errors = new TreeMap<>();
+
+		synchronized void success(long micros) {
+			if (count == latencies.length) {
+				latencies = Arrays.copyOf(latencies, count * 2);
+			}
+			latencies[count++] = micros;
+		}
+
+		/**
+		 * @param status 网关返回的状态码，请求失败为 -1
+		 */
+		synchronized void error(int status) {
+			errors.merge(status, 1, Integer::sum);
+		}
+
+		synchronized long[] sorted() {
+			long[] copy = Arrays.copyOf(latencies, count);
+			Arrays.sort(copy);
+			return copy;
+		}
+
+		synchronized int errorCount() {
+			return errors.values().stream().mapToInt(Integer::intValue).sum();
+		}
+
+		synchronized String errorSummary() {
+			return errors.isEmpty() ? "-" : errors.toString();
+		}
+
+		synchronized void addAll(Stats other) {
+			for (long latency : other.sorted()) {
+				success(latency);
+			}
+			other.errors.forEach((status, n) -> errors.merge(status, n, Integer::sum));
+		}
+	}
+
+	record Run(String mode, Map<String, Stats> pages, long wallNanos) {
+	}
+
+	@Test
+	void pageMix() throws Exception {
+		try (StubBackend backend = cannedBackend()) {
+			backend.latency(LATENCY_MILLIS, JITTER_MILLIS).faults(FAULT_RATE, 503);
+
+			List<Run> runs = new ArrayList<>();
+			for (String mode : MODES) {
+				runs.add(run(mode.trim(), backend));
+			}
+
+			System.out.printf("%n压测参数：%.0f 页/秒，%d 秒，后端延迟 %d+%dms，错误比例 %.3f，附加参数 [%s]%n",
+					RATE, SECONDS, LATENCY_MILLIS, JITTER_MILLIS, FAULT_RATE, EXTRA_ARGS);
+			System.out.printf("%-9s %-10s %8s %9s %9s %9s %9s  %s%n",
+					"mode", "page", "ok", "req/s", "p50 ms", "p99 ms", "p999 ms", "errors");
+			for (Run run : runs) {
+				Stats all = new Stats();
+				run.pages().forEach((name, stats) -> {
+					print(run, name, stats);
+					all.addAll(stats);
+				});
+				print(run, "all", all);
+			}
+		}
+	}
+
+	private Run run(String mode, StubBackend backend) throws Exception {
+		List<String> args = new ArrayList<>(List.of(
+				"--server.port=0",
+				"--mer.proxy.backend-url=" + backend.baseUrl(),
+				"--spring.devtools.restart.enabled=false"));
+		switch (mode) {
+			case "servlet" -> {
+			}
+			case "reactive" -> args.add("--spring.main.web-application-type=reactive");
+			case "virtual" -> args.add("--spring.threads.virtual.enabled=true");
+			default -> throw new IllegalArgumentException("未知的网关模式: " + mode);
+		}
+		if (!EXTRA_ARGS.isBlank()) {
+			args.addAll(List.of(EXTRA_ARGS.trim().split("\\s+")));
+		}
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(MerWebApplication.class)
+				.run(args.toArray(new String[0]));
+		ExecutorService clientExecutor = Executors.newFixedThreadPool(16);
+		try {
+			int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+			String base = "http://127.0.0.1:" + port + "/api";
+			HttpClient client = HttpClient.newBuilder()
+					.version(HttpClient.Version.HTTP_1_1)
+					.executor(clientExecutor)
+					.connectTimeout(Duration.ofSeconds(10))
+					.build();
+
+			// 预热阶段的结果丢弃，JIT、连接建立和缓存填充不计入结果
+			drive(client, base, WARMUP_SECONDS);
+			backend.resetCounters();
+			long start = System.nanoTime();
+			Map<String, Stats> stats = drive(client, base, SECONDS);
+			return new Run(mode, stats, System.nanoTime() - start);
+		} finally {
+			clientExecutor.shutdownNow();
+			context.close();
+		}
+	}
+
+	/**
+	 * 按固定速率打开页面，等所有请求完成后返回各页面的统计
+	 */
+	private static Map<String, Stats> drive(HttpClient client, String base, int seconds) {
+		Map<String, Stats> stats = new LinkedHashMap<>();
+		for (Page page : PAGES) {
+			stats.put(page.name(), new Stats());
+		}
+		long interval = (long) (1_000_000_000L / RATE);
+		long total = (long) (RATE * seconds);
+		List<CompletableFuture<Void>> pending = new ArrayList<>();
+		long start = System.nanoTime();
+		for (int i = 0; i < total; i++) {
+			long intended = start + i * interval;
+			long wait;
+			while ((wait = intended - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			Page page = SCHEDULE.get(i % SCHEDULE.size());
+			for (String path : page.paths().apply(i / SCHEDULE.size())) {
+				pending.add(send(client, base + path, intended, stats.get(page.name())));
+			}
+		}
+		CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+		return stats;
+	}
+
+	private static CompletableFuture<Void> send(HttpClient client, String url, long intended, Stats stats) {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+				.header("Authorization", "Bearer perf")
+				.timeout(Duration.ofSeconds(30))
+				.build();
+		return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+				.thenAccept(response -> {
+					if (response.statusCode() == 200) {
+						stats.success((System.nanoTime() - intended) / 1000);
+					} else {
+						stats.error(response.statusCode());
+					}
+				})
+				.exceptionally(e -> {
+					stats.error(-1);
+					return null;
+				});
+	}
+
+	private static void print(Run run, String page, Stats stats) {
+		long[] latencies = stats.sorted();
+		System.out.printf("%-9s %-10s %8d %9.1f %9.2f %9.2f %9.2f  %s%n", run.mode(), page, latencies.length,
+				latencies.length / (run.wallNanos() / 1e9),
+				percentile(latencies, 50), percentile(latencies, 99), percentile(latencies, 99.9),
+				stats.errorSummary());
+	}
+
+	/**
+	 * 最近秩百分位，单位毫秒
+	 */
+	private static double percentile(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return -1;
+		}
+		int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, index)] / 1000.0;
+	}
+
+	private static List<Page> schedule() {
+		List<Page> schedule = new ArrayList<>();
+		int maxWeight = PAGES.stream().mapToInt(Page::weight).max().orElse(1);
+		for (int round = 0; round < maxWeight; round++) {
+			for (Page page : PAGES) {
+				if (page.weight() > round) {
+					schedule.add(page);
+				}
+			}
+		}
+		return schedule;
+	}
+
+	/**
+	 * 后端桩服务，任务列表、详情、评论和统计的响应体按 tasks.json 中的任务和请求参数生成
+	 */
+	private static StubBackend cannedBackend() throws IOException {
+		ObjectMapper mapper = new ObjectMapper();
+		List<ObjectNode> tasks = tasks(mapper);
+
+		StubBackend backend = new StubBackend();
+		backend.stub("/user/profile", "{\"ok\":true,\"user\":{\"id\":1,\"name\":\"Alice\",\"team_id\":" + FIRST_TEAM + "}}")
+				.stub("/tasks/all", query -> taskPage(mapper, tasks, query))
+				.stub("/tasks/personal", query -> taskPage(mapper, tasks, query))
+				.stub("/tasks/myView", query -> taskPage(mapper, tasks, query))
+				.stub("/company-tasks/important", query -> "{\"tasks\":" + tasks.subList(0, 3) + "}")
+				.stub("/comments", query -> comments(mapper, params(query).get("ownerId")))
+				.stub("/tasks/statistic", query -> daily(params(query), "daily", "date", "taskCreateCount"))
+				.stub("/journals/statistic", query -> daily(params(query), "daily", "date", "journalCount"))
+				.stub("/login/statistic", query -> daily(params(query), "points", "timeBucket", "loginCount"))
+				.stub("/user/statistic", "{\"total\":3,\"list\":[]}");
+		for (ObjectNode task : tasks) {
+			backend.stub("/tasks/" + task.get("task_id").asInt(), "{\"ok\":true,\"task\":" + task + "}");
+		}
+		for (int team = FIRST_TEAM; team < FIRST_TEAM + TEAM_COUNT; team++) {
+			backend.stub("/team/" + team, "{\"ok\":true,\"team_name\":\"团队" + team + "\"}")
+					.stub("/team/department/" + team, "{\"ok\":true,\"department_name\":\"部门" + team % 2 + "\"}");
+		}
+		return backend;
+	}
+
+	/**
+	 * tasks.json 中的任务按后端字段名改写，循环使用直到 TASK_COUNT 个
+	 */
+	private static List<ObjectNode> tasks(ObjectMapper mapper) throws IOException {
+		JsonNode samples;
+		try (InputStream in = GatewayLoadTests.class.getResourceAsStream("/static/data/tasks.json")) {
+			samples = mapper.readTree(in);
+		}
+		List<ObjectNode> tasks = new ArrayList<>();
+		for (int id = 1; id <= TASK_COUNT; id++) {
+			JsonNode sample = samples.get((id - 1) % samples.size());
+			int team = FIRST_TEAM + id % TEAM_COUNT;
+			ObjectNode task = mapper.createObjectNode()
+					.put("task_id", id)
+					.put("title", sample.path("name").asText())
+					.put("summary", sample.path("summary").asText())
+					.put("description", sample.path("details").asText())
+					.put("start_date", sample.path("startDate").asText())
+					.put("end_date", sample.path("endDate").asText())
+					.put("progress", sample.path("progress").asInt())
+					.put("team_id", team);
+			task.putObject("creator").put("name", sample.path("publisher").asText()).put("team_id", team);
+			task.putArray("assignees").addObject().put("name", sample.path("owner").asText())
+					.put("team_id", FIRST_TEAM + (id + 1) % TEAM_COUNT);
+			tasks.add(task);
+		}
+		return tasks;
+	}
+
+	private static String taskPage(ObjectMapper mapper, List<ObjectNode> tasks, String query) {
+		Map<String, String> params = params(query);
+		int page = Integer.parseInt(params.getOrDefault("page", "1"));
+		int pageSize = Integer.parseInt(params.getOrDefault("pageSize", "10"));
+		ObjectNode body = mapper.createObjectNode();
+		ArrayNode list = body.putArray("list");
+		for (int i = (page - 1) * pageSize; i < Math.min(page * pageSize, tasks.size()); i++) {
+			list.add(tasks.get(i));
+		}
+		return body.put("total", tasks.size()).put("page", page).put("pageSize", pageSize).toString();
+	}
+
+	private static String comments(ObjectMapper mapper, String ownerId) {
+		ObjectNode body = mapper.createObjectNode();
+		ArrayNode list = body.putArray("list");
+		for (int i = 1; i <= 5; i++) {
+			list.addObject().put("id", i).put("owner_id", ownerId).put("user_name", "Bob")
+					.put("content", "已按模板整理，请查收第 " + i + " 版。").put("created_at", "2025-09-1" + i + " 10:00:00");
+		}
+		return body.put("total", 5).toString();
+	}
+
+	/**
+	 * 按天的统计，每天的数量等于当月日期
+	 */
+	private static String daily(Map<String, String> params, String listField, String dateField, String countField) {
+		LocalDate start = LocalDate.parse(params.get("startDate"));
+		LocalDate end = LocalDate.parse(params.get("endDate"));
+		StringBuilder daily = new StringBuilder();
+		for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+			daily.append(daily.isEmpty() ? "" : ",")
+					.append("{\"").append(dateField).append("\":\"").append(day).append("\",\"")
+					.append(countField).append("\":").append(day.getDayOfMonth()).append('}');
+		}
+		return "{\"startDate\":\"" + start + "\",\"endDate\":\"" + end + "\",\"" + listField + "\":[" + daily + "]}";
+	}
+
+	private static Map<String, String> params(String query) {
+		Map<String, String> params = new HashMap<>();
+		if (query != null) {
+			for (String pair : query.split("&")) {
+				String[] parts = pair.split("=", 2);
+				params.put(parts[0], parts.length > 1 ? parts[1] : "");
+			}
+		}
+		return params;
+	}
+}
@@ -0,0 +1,151 @@
+package com.mer.merweb.perf;
+
+import com.mer.merweb.MerWebApplication;
+import com.mer.merweb.support.StubBackend;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 平台线程、虚拟线程与响应式模式对比
+ * 慢统计接口（1 秒）并发请求数为 Tomcat 默认工作线程数（200）的两倍，同时发送快接口请求，
+ * 比较两种模式下的后端峰值并发（网关能同时挂起的上游调用数）和快、慢接口的 p50/p99 延迟。
+ * 每种模式先以相同负载预热一轮，第二轮计入结果。
+ * 响应式模式在任意 JDK 上运行，虚拟线程模式需要 Java 21：mvn -Pjava21,perf test -Dtest=VirtualThreadComparisonTests
+ */
+@Tag("perf")
+class VirtualThreadComparisonTests {
+
+	private static final int SLOW_CALLS = 400;
+	private static final long SLOW_MILLIS = 1000;
+	private static final int FAST_CALLS = 100;
+
+	record Result(String mode, int peakUpstream, long[] slow, long[] fast, int errors, long wallMillis) {
+		Result withMode(String mode) {
+			return new Result(mode, peakUpstream, slow, fast, errors, wallMillis);
+		}
+	}
+
+	@Test
+	void compareThreadModels() throws Exception {
+		try (StubBackend backend = new StubBackend()) {
+			backend.stub("/login/statistic", 200, "{\"points\":[]}", SLOW_MILLIS)
+					.stub("/user/profile", "{\"ok\":true}");
+
+			List<Result> results = new ArrayList<>();
+			results.add(run("platform", backend));
+			results.add(run("reactive", backend, "--spring.main.web-application-type=reactive"));
+			if (Runtime.version().feature() >= 21) {
+				results.add(run("virtual", backend, "--spring.threads.virtual.enabled=true"));
+			} else {
+				System.out.println("当前 JDK 不支持虚拟线程，仅运行平台线程模式");
+			}
+
+			System.out.printf("%n%-9s %8s %10s %10s %10s %10s %7s %8s%n",
+					"mode", "peakUp", "slow p50", "slow p99", "fast p50", "fast p99", "errors", "wall ms");
+			for (Result r : results) {
+				System.out.printf("%-9s %8d %10d %10d %10d %10d %7d %8d%n", r.mode(), r.peakUpstream(),
+						percentile(r.slow(), 50), percentile(r.slow(), 99),
+						percentile(r.fast(), 50), percentile(r.fast(), 99), r.errors(), r.wallMillis());
+			}
+		}
+	}
+
+	private Result run(String mode, StubBackend backend, String... modeArgs) throws Exception {
+		List<String> args = new ArrayList<>(List.of(
+				"--server.port=0",
+				"--mer.proxy.backend-url=" + backend.baseUrl(),
+				// 连接池放开，比较的是线程模型本身
+				"--mer.proxy.pool.max-total=2000",
+				"--mer.proxy.pool.max-per-route=2000",
+				"--mer.proxy.pool.acquire-timeout=30s",
+				"--mer.proxy.resilience.enabled=false",
+				"--mer.proxy.limiter.enabled=false",
+				"--server.tomcat.max-connections=10000",
+				"--server.tomcat.accept-count=2000",
+				"--spring.devtools.restart.enabled=false"));
+		args.addAll(List.of(modeArgs));
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(MerWebApplication.class)
+				.run(args.toArray(new String[0]));
+		ExecutorService clientExecutor = Executors.newFixedThreadPool(16);
+		try {
+			int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+			String base = "http://127.0.0.1:" + port + "/api";
+			HttpClient client = HttpClient.newBuilder()
+					.version(HttpClient.Version.HTTP_1_1)
+					.executor(clientExecutor)
+					.connectTimeout(Duration.ofSeconds(10))
+					.build();
+
+			// 预热一轮，JIT 和连接建立的开销不计入结果
+			round(client, base, backend);
+			return round(client, base, backend).withMode(mode);
+		} finally {
+			clientExecutor.shutdownNow();
+			context.close();
+		}
+	}
+
+	private static Result round(HttpClient client, String base, StubBackend backend) throws InterruptedException {
+		backend.resetCounters();
+		long start = System.nanoTime();
+		List<CompletableFuture<Long>> slow = new ArrayList<>();
+		for (int i = 0; i < SLOW_CALLS; i++) {
+			slow.add(send(client, base + "/login/statistic?timeUnit=day&startDate=2025-09-01&endDate=2025-09-30"));
+		}
+		// 慢请求占满网关后，均匀发送快请求
+		Thread.sleep(200);
+		List<CompletableFuture<Long>> fast = new ArrayList<>();
+		for (int i = 0; i < FAST_CALLS; i++) {
+			fast.add(send(client, base + "/user/profile"));
+			Thread.sleep(5);
+		}
+
+		long[] slowLatencies = collect(slow);
+		long[] fastLatencies = collect(fast);
+		long wall = (System.nanoTime() - start) / 1_000_000;
+		int errors = (int) (Arrays.stream(slowLatencies).filter(l -> l < 0).count()
+				+ Arrays.stream(fastLatencies).filter(l -> l < 0).count());
+		return new Result(null, backend.peakInFlight(), slowLatencies, fastLatencies, errors, wall);
+	}
+
+	/**
+	 * 返回请求耗时（毫秒），非 200 响应或异常记为 -1
+	 */
+	private static CompletableFuture<Long> send(HttpClient client, String url) {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+				.header("Authorization", "Bearer perf")
+				.timeout(Duration.ofSeconds(60))
+				.build();
+		long start = System.nanoTime();
+		return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+				.thenApply(response -> response.statusCode() == 200 ? (System.nanoTime() - start) / 1_000_000 : -1L)
+				.exceptionally(e -> -1L);
+	}
+
+	private static long[] collect(List<CompletableFuture<Long>> futures) {
+		return futures.stream().mapToLong(CompletableFuture::join).toArray();
+	}
+
+	private static long percentile(long[] latencies, int percentile) {
+		long[] ok = Arrays.stream(latencies).filter(l -> l >= 0).sorted().toArray();
+		if (ok.length == 0) {
+			return -1;
+		}
+		int index = (int) Math.ceil(percentile / 100.0 * ok.length) - 1;
+		return ok[Math.max(0, index)];
+	}
+}
@@ -0,0 +1,110 @@
+package com.mer.merweb.proxy;
+
+import com.mer.merweb.config.ProxyProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTests {
+
+	private final AtomicLong clock = new AtomicLong();
+
+	@Test
+	void callsBeyondTheLimitQueueAndThenAreShed() {
+		AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 10, 1, Duration.ofSeconds(5));
+
+		AdaptiveConcurrencyLimiter.Permit first = limiter.acquire().join();
+		limiter.acquire().join();
+		CompletableFuture<AdaptiveConcurrencyLimiter.Permit> queued = limiter.acquire();
+		assertThat(queued).isNotDone();
+		assertThat(limiter.acquire()).isNull();
+		assertThat(limiter.stats()).containsEntry("inFlight", 2).containsEntry("queued", 1).containsEntry("shed", 1L);
+
+		first.onIgnore();
+		first.onIgnore();
+		assertThat(queued).isDone();
+		assertThat(limiter.stats()).containsEntry("inFlight", 2).containsEntry("queued", 0);
+	}
+
+	@Test
+	void queuedCallsGiveUpAfterMaxWait() throws Exception {
+		AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 10, 10, Duration.ofMillis(20));
+
+		AdaptiveConcurrencyLimiter.Permit first = limiter.acquire().join();
+		CompletableFuture<AdaptiveConcurrencyLimiter.Permit> queued = limiter.acquire();
+		assertThatThrownBy(() -> queued.get(5, TimeUnit.SECONDS))
+				.isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(TimeoutException.class);
+		assertThat(limiter.stats()).containsEntry("queued", 0).containsEntry("shed", 1L);
+
+		first.onSuccess();
+		assertThat(limiter.stats()).containsEntry("inFlight", 0);
+	}
+
+	@Test
+	void limitGrowsWhileHealthyAndShrinksWhenLatencyRises() {
+		AdaptiveConcurrencyLimiter limiter = limiter(50, 10, 500, 0, Duration.ZERO);
+
+		for (int i = 0; i < 20; i++) {
+			round(limiter, 10);
+		}
+		int grown = limiter.limit();
+		assertThat(grown).isGreaterThan(50);
+
+		// 耗时突然变为 10 倍，几十个样本就把上限压下来（并发低于上限一半的样本不参与调整）
+		List<AdaptiveConcurrencyLimiter.Permit> slow = occupy(limiter);
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+		slow.subList(slow.size() - 50, slow.size()).forEach(AdaptiveConcurrencyLimiter.Permit::onSuccess);
+		assertThat(limiter.limit()).isLessThan(grown / 2);
+		slow.forEach(AdaptiveConcurrencyLimiter.Permit::onIgnore);
+		assertThat(limiter.stats()).containsEntry("inFlight", 0);
+	}
+
+	@Test
+	void droppedCallsBackOffMultiplicatively() {
+		AdaptiveConcurrencyLimiter limiter = limiter(100, 80, 500, 0, Duration.ZERO);
+
+		limiter.acquire().join().onDropped();
+		assertThat(limiter.limit()).isEqualTo(90);
+		limiter.acquire().join().onDropped();
+		limiter.acquire().join().onDropped();
+		assertThat(limiter.limit()).isEqualTo(80);
+	}
+
+	/**
+	 * 占满当前上限，经过 millis 毫秒后全部正常完成
+	 */
+	private void round(AdaptiveConcurrencyLimiter limiter, long millis) {
+		List<AdaptiveConcurrencyLimiter.Permit> permits = occupy(limiter);
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+		permits.forEach(AdaptiveConcurrencyLimiter.Permit::onSuccess);
+	}
+
+	private static List<AdaptiveConcurrencyLimiter.Permit> occupy(AdaptiveConcurrencyLimiter limiter) {
+		List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+		for (int i = limiter.limit(); i > 0; i--) {
+			permits.add(limiter.acquire().join());
+		}
+		return permits;
+	}
+
+	private AdaptiveConcurrencyLimiter limiter(int initial, int min, int max, int maxQueue, Duration maxWait) {
+		ProxyProperties.Limiter config = new ProxyProperties.Limiter();
+		config.setInitialLimit(initial);
+		config.setMinLimit(min);
+		config.setMaxLimit(max);
+		config.setMaxQueue(maxQueue);
+		config.setMaxWait(maxWait);
+		return new AdaptiveConcurrencyLimiter(config, clock::get);
+	}
+}
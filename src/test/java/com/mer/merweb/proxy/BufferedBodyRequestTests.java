@@ -0,0 +1,75 @@
+package com.mer.merweb.proxy;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BufferedBodyRequestTests {
+
+	@Test
+	void readListenerReceivesTheWholeBodyImmediately() throws IOException {
+		byte[] body = "{\"username\":\"alice\"}".getBytes(StandardCharsets.UTF_8);
+		ServletInputStream in = new BufferedBodyRequest(new MockHttpServletRequest(), body).getInputStream();
+		ByteArrayOutputStream read = new ByteArrayOutputStream();
+		List<String> events = new ArrayList<>();
+
+		in.setReadListener(new ReadListener() {
+			@Override
+			public void onDataAvailable() throws IOException {
+				events.add("data");
+				byte[] buffer = new byte[8];
+				while (in.isReady() && !in.isFinished()) {
+					int n = in.read(buffer, 0, buffer.length);
+					read.write(buffer, 0, n);
+				}
+			}
+
+			@Override
+			public void onAllDataRead() {
+				events.add("done");
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				events.add("error");
+			}
+		});
+
+		assertThat(events).containsExactly("data", "done");
+		assertThat(read.toByteArray()).isEqualTo(body);
+	}
+
+	@Test
+	void emptyBodyIsReportedAsFullyRead() {
+		ServletInputStream in = new BufferedBodyRequest(new MockHttpServletRequest(), new byte[0]).getInputStream();
+		List<String> events = new ArrayList<>();
+
+		in.setReadListener(new ReadListener() {
+			@Override
+			public void onDataAvailable() {
+				events.add("data");
+			}
+
+			@Override
+			public void onAllDataRead() {
+				events.add("done");
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				events.add("error");
+			}
+		});
+
+		assertThat(events).containsExactly("done");
+	}
+}
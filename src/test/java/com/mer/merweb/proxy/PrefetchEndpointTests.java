@@ -0,0 +1,165 @@
+package com.mer.merweb.proxy;
+
+import com.mer.merweb.support.StubBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 分页列表预取下一页，Servlet 与响应式两种模式各自继承运行
+ * 预取会在后台访问后端，使用独立的后端桩服务，避免影响 {@link ProxyEndpointTests} 中按请求数断言的测试
+ */
+abstract class PrefetchEndpointTests {
+
+	static StubBackend backend;
+
+	/**
+	 * 后端收到的评论列表请求数，键为 ownerId:page
+	 */
+	static final Map<String, AtomicInteger> pageRequests = new ConcurrentHashMap<>();
+
+	static final AtomicInteger owners = new AtomicInteger();
+
+	private static final Pattern OWNER_AND_PAGE = Pattern.compile("ownerId=(\\d+)&page=(\\d+)");
+
+	@BeforeAll
+	static void startBackend() throws IOException {
+		backend = new StubBackend();
+	}
+
+	@AfterAll
+	static void stopBackend() {
+		backend.close();
+	}
+
+	@DynamicPropertySource
+	static void backendProperties(DynamicPropertyRegistry registry) {
+		registry.add("mer.proxy.backend-url", backend::baseUrl);
+		registry.add("mer.proxy.prefetch.enabled", () -> "true");
+	}
+
+	@Autowired
+	WebTestClient client;
+
+	@BeforeEach
+	void stubBackend() {
+		// 每页 10 条，共 30 条；创建评论（POST，没有查询参数）返回 code 0
+		backend.stub("/comments", query -> {
+			Matcher matcher = OWNER_AND_PAGE.matcher(query != null ? query : "");
+			if (!matcher.find()) {
+				return "{\"code\":0}";
+			}
+			pageRequests.computeIfAbsent(matcher.group(1) + ":" + matcher.group(2), key -> new AtomicInteger())
+					.incrementAndGet();
+			return "{\"list\":[{\"page\":" + matcher.group(2) + "}],\"total\":30}";
+		});
+	}
+
+	@Test
+	void servesTheNextPageFromThePrefetchedResult() {
+		int owner = owners.incrementAndGet();
+		String token = "Bearer prefetch-" + owner;
+
+		assertThat(comments(owner, 1, token)
+				.expectBody().returnResult().getResponseHeaders().getFirst("X-Cache")).isNull();
+		awaitPageRequest(owner, 2);
+
+		WebTestClient.ResponseSpec second = comments(owner, 2, token);
+		second.expectHeader().valueEquals("X-Cache", NextPagePrefetcher.CACHE_STATUS);
+		second.expectBody().jsonPath("$.list[0].page").isEqualTo(2);
+		assertThat(pageRequests(owner, 2)).isEqualTo(1);
+
+		// 第 3 页也已预取；它是最后一页，不再预取第 4 页
+		awaitPageRequest(owner, 3);
+		comments(owner, 3, token).expectHeader().valueEquals("X-Cache", NextPagePrefetcher.CACHE_STATUS)
+				.expectBody();
+		assertThat(pageRequests(owner, 3)).isEqualTo(1);
+		assertThat(pageRequests(owner, 4)).isZero();
+
+		client.get().uri("/gateway/prefetch")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.enabled").isEqualTo(true);
+	}
+
+	@Test
+	void prefetchedPagesAreKeptPerSessionAndQuery() {
+		int owner = owners.incrementAndGet();
+		int other = owners.incrementAndGet();
+		String token = "Bearer prefetch-" + owner;
+
+		comments(owner, 1, token).expectBody();
+		awaitPageRequest(owner, 2);
+
+		// 其他登录凭证、其他筛选条件都不使用这次预取的结果
+		assertThat(comments(owner, 2, "Bearer prefetch-other-" + owner)
+				.expectBody().returnResult().getResponseHeaders().getFirst("X-Cache")).isNull();
+		assertThat(comments(other, 2, token)
+				.expectBody().returnResult().getResponseHeaders().getFirst("X-Cache")).isNull();
+		assertThat(pageRequests(owner, 2)).isEqualTo(2);
+	}
+
+	@Test
+	void writesFromTheSameSessionDiscardPrefetchedPages() {
+		int owner = owners.incrementAndGet();
+		String token = "Bearer prefetch-" + owner;
+
+		comments(owner, 1, token).expectBody();
+		awaitPageRequest(owner, 2);
+
+		client.post().uri("/api/comments")
+				.header(HttpHeaders.AUTHORIZATION, token)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"ownerType\":\"task\",\"ownerId\":" + owner + ",\"content\":\"新评论\"}")
+				.exchange()
+				.expectBody();
+
+		assertThat(comments(owner, 2, token)
+				.expectBody().returnResult().getResponseHeaders().getFirst("X-Cache")).isNull();
+		assertThat(pageRequests(owner, 2)).isEqualTo(2);
+	}
+
+	private WebTestClient.ResponseSpec comments(int owner, int page, String token) {
+		return client.get().uri("/api/comments?ownerType=task&ownerId={owner}&page={page}", owner, page)
+				.header(HttpHeaders.AUTHORIZATION, token)
+				.exchange()
+				.expectStatus().isOk();
+	}
+
+	private static int pageRequests(int owner, int page) {
+		AtomicInteger count = pageRequests.get(owner + ":" + page);
+		return count != null ? count.get() : 0;
+	}
+
+	/**
+	 * 等待后台预取的请求到达后端
+	 */
+	private static void awaitPageRequest(int owner, int page) {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (pageRequests(owner, page) == 0 && System.currentTimeMillis() < deadline) {
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		assertThat(pageRequests(owner, page)).as("后台预取第 %d 页", page).isEqualTo(1);
+	}
+}
@@ -0,0 +1,1231 @@
+package com.mer.merweb.proxy;
+
+import com.mer.merweb.support.StubBackend;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.MeterRegistryCustomizer;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.netty.http.client.HttpClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 代理接口与静态资源测试，Servlet 与响应式两种模式各自继承运行，保证接口行为一致
+ * 测试默认不导出指标，这里开启以检查 /actuator/prometheus
+ */
+@AutoConfigureObservability(tracing = false)
+@Import(ProxyEndpointTests.MeterRegistrations.class)
+abstract class ProxyEndpointTests {
+
+	/**
+	 * 注册失败的指标，Prometheus 拒绝标签键不一致的同名指标时只打印警告
+	 */
+	static final List<String> rejectedMeters = new CopyOnWriteArrayList<>();
+
+	static StubBackend backend;
+
+	/**
+	 * 网关读入内存的响应体上限，大于 WebClient 默认的 256KB
+	 */
+	static final int MAX_BUFFERED_SIZE = 512 * 1024;
+
+	/**
+	 * 每个子类使用自己的后端桩服务，测试类结束时关闭，不留下 HTTP 服务线程
+	 */
+	@BeforeAll
+	static void startBackend() throws IOException {
+		backend = new StubBackend();
+	}
+
+	@AfterAll
+	static void stopBackend() {
+		backend.close();
+	}
+
+	@DynamicPropertySource
+	static void backendProperties(DynamicPropertyRegistry registry) {
+		registry.add("mer.proxy.backend-url", backend::baseUrl);
+		registry.add("mer.proxy.dashboard.timeout", () -> "800ms");
+		registry.add("mer.proxy.server-timing.enabled", () -> "true");
+		registry.add("mer.proxy.max-buffered-size", () -> String.valueOf(MAX_BUFFERED_SIZE));
+		registry.add("mer.proxy.resilience.groups.comments.max-concurrent-calls", () -> "2");
+		registry.add("mer.proxy.resilience.groups.journals.sliding-window-size", () -> "4");
+		registry.add("mer.proxy.resilience.groups.journals.minimum-number-of-calls", () -> "4");
+		registry.add("mer.proxy.resilience.groups.journals.wait-in-open-state", () -> "1s");
+		registry.add("mer.proxy.resilience.groups.journals.permitted-calls-in-half-open-state", () -> "1");
+		registry.add("mer.proxy.rate-limit.policies.verification-code.ip-capacity", () -> "4");
+		registry.add("mer.proxy.rate-limit.policies.verification-code.account-capacity", () -> "2");
+	}
+
+	@Autowired
+	WebTestClient client;
+
+	@LocalServerPort
+	int port;
+
+	@BeforeEach
+	void stubBackend() {
+		backend.stub("/user/profile", "{\"ok\":true,\"name\":\"张三\"}")
+				.stub("/user", "{\"list\":[],\"total\":0}")
+				.stub("/login", "{\"token\":\"t-1\"}")
+				.stub("/team/7", "{\"ok\":true,\"team_name\":\"研发部\"}")
+				.stub("/team/11", "{\"ok\":true,\"team_name\":\"测试部\"}")
+				.stub("/team/12", "{\"ok\":true,\"team_name\":\"运维部\"}")
+				.stub("/team/14", 200, "{\"ok\":true,\"team_name\":\"产品部\"}", 300)
+				.stub("/team/15", 401, "{\"ok\":false,\"message\":\"token expired\"}", 0)
+				.stub("/team/21", "{\"ok\":true,\"team_name\":\"研发部\"}")
+				.stub("/team/department/21", "{\"ok\":true,\"department_name\":\"技术中心\"}")
+				.stub("/team/22", "{\"ok\":true,\"team_name\":\"市场部\"}")
+				.stub("/team/department/22", "{\"ok\":true,\"department_name\":\"营销中心\"}")
+				.stub("/journals/", 500, "{\"message\":\"boom\"}", 0)
+				.stub("/tasks/all", 503, "{\"message\":\"busy\"}", 0);
+	}
+
+	@Test
+	void passesThroughStatusHeadersAndBody() {
+		client.get().uri("/api/user/profile")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+				.expectBody(String.class).isEqualTo("{\"ok\":true,\"name\":\"张三\"}");
+
+		StubBackend.Recorded recorded = backend.lastRequest();
+		assertThat(recorded.method()).isEqualTo("GET");
+		assertThat(recorded.uri()).isEqualTo("/api/user/profile");
+		assertThat(recorded.authorization()).isEqualTo("Bearer t-1");
+	}
+
+	@Test
+	void expandsPathVariables() {
+		client.get().uri("/api/team/7")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.team_name").isEqualTo("研发部");
+
+		assertThat(backend.lastRequest().uri()).isEqualTo("/api/team/7");
+	}
+
+	@Test
+	void forwardsDeclaredQueryParamsWithDefaults() {
+		client.get().uri("/api/user?keyword={keyword}&unknown=1", "张 三")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody();
+
+		assertThat(backend.lastRequest().uri())
+				.isEqualTo("/api/user?page=1&pageSize=10&keyword=%E5%BC%A0%20%E4%B8%89");
+	}
+
+	@Test
+	void forwardsBodyWithoutAuthorizationForAnonymousRoutes() {
+		client.post().uri("/api/login/")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer stale")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"username\":\"admin\"}")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.token").isEqualTo("t-1");
+
+		StubBackend.Recorded recorded = backend.lastRequest();
+		assertThat(recorded.method()).isEqualTo("POST");
+		assertThat(recorded.uri()).isEqualTo("/api/login");
+		assertThat(recorded.authorization()).isNull();
+		assertThat(recorded.body()).isEqualTo("{\"username\":\"admin\"}");
+	}
+
+	@Test
+	void serverErrorsAreRewrittenOnlyWhenTheRouteAsks() {
+		client.get().uri("/api/journals/?page=2")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.error").isEqualTo(true)
+				.jsonPath("$.page").isEqualTo(2)
+				.jsonPath("$.pageSize").isEqualTo(9)
+				.jsonPath("$.list").isEmpty();
+
+		client.get().uri("/api/tasks/all")
+				.exchange()
+				.expectStatus().isEqualTo(503)
+				.expectBody(String.class).isEqualTo("{\"message\":\"busy\"}");
+	}
+
+	@Test
+	void conditionalGetReturnsNotModifiedForUnchangedBodies() {
+		String etag = uncompressingClient().get().uri("/api/user/profile")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().exists(HttpHeaders.ETAG)
+				.expectBody().returnResult().getResponseHeaders().getETag();
+		assertThat(etag).startsWith("\"").endsWith("\"");
+
+		for (String ifNoneMatch : List.of(etag, "W/" + etag, "\"other\", " + etag)) {
+			uncompressingClient().get().uri("/api/user/profile")
+					.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+					.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch)
+					.exchange()
+					.expectStatus().isNotModified()
+					.expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+					.expectBody().isEmpty();
+		}
+
+		backend.stub("/user/profile", "{\"ok\":true,\"name\":\"李四\"}");
+		uncompressingClient().get().uri("/api/user/profile")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.header(HttpHeaders.IF_NONE_MATCH, etag)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.name").isEqualTo("李四");
+	}
+
+	@Test
+	void backendValidatorsArePropagatedAndHonored() {
+		backend.stub("/tasks/personal", "{\"list\":[],\"total\":0}", Map.of(
+				"ETag", "\"v7\"",
+				"Last-Modified", "Tue, 14 Oct 2025 08:00:00 GMT"));
+		uncompressingClient().get().uri("/api/tasks/personal")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"v7\"")
+				.expectHeader().valueEquals(HttpHeaders.LAST_MODIFIED, "Tue, 14 Oct 2025 08:00:00 GMT")
+				.expectBody();
+
+		uncompressingClient().get().uri("/api/tasks/personal")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.header(HttpHeaders.IF_NONE_MATCH, "\"v7\"")
+				.exchange()
+				.expectStatus().isNotModified()
+				.expectBody();
+		uncompressingClient().get().uri("/api/tasks/personal")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.header(HttpHeaders.IF_MODIFIED_SINCE, "Wed, 15 Oct 2025 08:00:00 GMT")
+				.exchange()
+				.expectStatus().isNotModified()
+				.expectHeader().valueEquals(HttpHeaders.LAST_MODIFIED, "Tue, 14 Oct 2025 08:00:00 GMT")
+				.expectBody();
+		// If-None-Match 优先于 If-Modified-Since
+		uncompressingClient().get().uri("/api/tasks/personal")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.header(HttpHeaders.IF_NONE_MATCH, "\"v6\"")
+				.header(HttpHeaders.IF_MODIFIED_SINCE, "Wed, 15 Oct 2025 08:00:00 GMT")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody();
+	}
+
+	@Test
+	void largeJsonResponsesAreCompressed() {
+		backend.stub("/tasks/personal", "{\"list\":[" + "{\"title\":\"季度任务\",\"progress\":50},".repeat(100)
+				+ "{}],\"total\":101}");
+		byte[] body = uncompressingClient().get().uri("/api/tasks/personal")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+				.expectHeader().value(HttpHeaders.ETAG, etag -> assertThat(etag).startsWith("W/\""))
+				.expectBody().returnResult().getResponseBody();
+		assertThat(body).hasSizeLessThan(1024);
+
+		client.get().uri("/api/user/profile")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+				.expectBody();
+	}
+
+	@Test
+	void staticAssetsAreServedPrecompressed() {
+		for (String encoding : List.of("br", "gzip")) {
+			uncompressingClient().get().uri("/js/api.js")
+					.header(HttpHeaders.ACCEPT_ENCODING, encoding)
+					.exchange()
+					.expectStatus().isOk()
+					.expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, encoding)
+					.expectHeader().value(HttpHeaders.VARY, vary -> assertThat(vary).contains("Accept-Encoding"))
+					.expectBody();
+		}
+		client.get().uri("/js/api.js")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+				.expectBody(String.class).value(script -> assertThat(script).contains("preloadTeamNames"));
+	}
+
+	@Test
+	void fingerprintedAssetsAreImmutableAndPagesRevalidate() {
+		String page = client.get().uri("/tasks.html")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().cacheControl(CacheControl.noCache())
+				.expectBody(String.class).returnResult().getResponseBody();
+		Matcher script = Pattern.compile("src=\"(js/api-[0-9a-f]{32}\\.js)\"").matcher(page);
+		assertThat(script.find()).as("构建时改写的脚本引用").isTrue();
+
+		uncompressingClient().get().uri("/" + script.group(1))
+				.header(HttpHeaders.ACCEPT_ENCODING, "br")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable")
+				.expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "br")
+				.expectHeader().doesNotExist(HttpHeaders.PRAGMA)
+				.expectBody();
+
+		// 指纹与内容不符时找不到资源，错误响应不能长期缓存
+		client.get().uri("/js/api-00000000000000000000000000000000.js")
+				.exchange()
+				.expectStatus().isNotFound()
+				.expectHeader().cacheControl(CacheControl.noCache())
+				.expectBody();
+
+		client.get().uri("/api/user/profile")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "private, no-cache")
+				.expectBody();
+	}
+
+	@Test
+	void rejectsUnknownRoutesMethodsAndMissingParams() {
+		client.get().uri("/api/unknown")
+				.exchange()
+				.expectStatus().isNotFound()
+				.expectBody().jsonPath("$.message").isEqualTo("接口不存在: /unknown");
+
+		client.delete().uri("/api/user/profile")
+				.exchange()
+				.expectStatus().isEqualTo(405)
+				.expectBody();
+
+		client.get().uri("/api/comments?ownerType=task")
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody().jsonPath("$.message").isEqualTo("缺少必填参数: ownerId");
+	}
+
+	@Test
+	void cachesTeamLookupsForAuthenticatedRequests() {
+		long before = backend.requestCount();
+		for (String expected : List.of("MISS", "HIT", "HIT")) {
+			client.get().uri("/api/team/11")
+					.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+					.exchange()
+					.expectStatus().isOk()
+					.expectHeader().valueEquals("X-Cache", expected)
+					.expectBody().jsonPath("$.team_name").isEqualTo("测试部");
+		}
+		assertThat(backend.requestCount() - before).isEqualTo(1);
+
+		client.get().uri("/gateway/caches")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$['/team/{teamId:number}'].hits").isNumber();
+	}
+
+	@Test
+	void requestsWithoutAuthorizationBypassTheCache() {
+		long before = backend.requestCount();
+		for (int i = 0; i < 2; i++) {
+			client.get().uri("/api/team/12")
+					.exchange()
+					.expectStatus().isOk()
+					.expectHeader().doesNotExist("X-Cache")
+					.expectBody();
+		}
+		assertThat(backend.requestCount() - before).isEqualTo(2);
+	}
+
+	@Test
+	void notFoundIsCachedButUnauthorizedIsNot() {
+		long before = backend.requestCount();
+		for (String expected : List.of("MISS", "HIT")) {
+			client.get().uri("/api/team/department/13")
+					.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+					.exchange()
+					.expectStatus().isNotFound()
+					.expectHeader().valueEquals("X-Cache", expected)
+					.expectBody();
+		}
+		assertThat(backend.requestCount() - before).isEqualTo(1);
+
+		for (int i = 0; i < 2; i++) {
+			client.get().uri("/api/team/15")
+					.header(HttpHeaders.AUTHORIZATION, "Bearer stale-" + i)
+					.exchange()
+					.expectStatus().isUnauthorized()
+					.expectHeader().valueEquals("X-Cache", "MISS")
+					.expectBody();
+		}
+		assertThat(backend.requestCount() - before).isEqualTo(3);
+	}
+
+	@Test
+	void tokensRejectedByTheBackendAreRejectedAtTheGateway() {
+		backend.stub("/user/71", 401, "{\"ok\":false,\"message\":\"token expired\"}",
+						Map.of(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\""))
+				.stub("/user/72", "{\"ok\":true,\"username\":\"lisi\"}")
+				.stub("/user/logout", "{\"ok\":true}");
+		long before = backend.requestCount();
+		client.get().uri("/api/user/71")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer bad-71")
+				.exchange()
+				.expectStatus().isUnauthorized()
+				.expectBody().jsonPath("$.message").isEqualTo("token expired");
+		assertThat(backend.requestCount() - before).isEqualTo(1);
+
+		// 同一个令牌访问其他接口不再经过后端，大小写不同的 Bearer 前缀视为同一个令牌
+		for (String authorization : List.of("Bearer bad-71", "bearer bad-71")) {
+			client.get().uri("/api/user/72")
+					.header(HttpHeaders.AUTHORIZATION, authorization)
+					.exchange()
+					.expectStatus().isUnauthorized()
+					.expectHeader().valueEquals(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"")
+					.expectBody().jsonPath("$.reason").isEqualTo("token_rejected");
+		}
+		assertThat(backend.requestCount() - before).isEqualTo(1);
+
+		// 其他令牌不受影响
+		client.get().uri("/api/user/72")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer good-72")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.username").isEqualTo("lisi");
+		assertThat(backend.requestCount() - before).isEqualTo(2);
+
+		// 退出登录请求交给后端，之后令牌记为无效，代理的接口、任务搜索和团队批量查询都由网关直接拒绝
+		client.post().uri("/api/user/logout")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer good-72")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.ok").isEqualTo(true);
+		for (String uri : List.of("/api/user/72", "/api/tasks/search?q=x", "/api/tasks/range?from=2031-04-01&to=2031-04-01",
+				"/api/team/batch?ids=21")) {
+			client.get().uri(uri)
+					.header(HttpHeaders.AUTHORIZATION, "Bearer good-72")
+					.exchange()
+					.expectStatus().isUnauthorized()
+					.expectBody().jsonPath("$.reason").isEqualTo("token_rejected");
+		}
+		assertThat(backend.requestCount() - before).isEqualTo(3);
+
+		client.get().uri("/gateway/tokens")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.enabled").isEqualTo(true)
+				.jsonPath("$.rejectedRequests").isNumber();
+	}
+
+	@Test
+	void onlyUnauthorizedResponsesThatInvalidateTheTokenAreRemembered() {
+		backend.stub("/user/72", "{\"ok\":true,\"username\":\"lisi\"}");
+		long before = backend.requestCount();
+		// 其他接口的 401 没有说明令牌无效，可能只是没有权限访问该资源，令牌仍可访问其他接口
+		for (int i = 0; i < 2; i++) {
+			client.get().uri("/api/team/15")
+					.header(HttpHeaders.AUTHORIZATION, "Bearer forbidden-15")
+					.exchange()
+					.expectStatus().isUnauthorized()
+					.expectBody().jsonPath("$.message").isEqualTo("token expired");
+		}
+		client.get().uri("/api/user/72")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer forbidden-15")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody();
+		assertThat(backend.requestCount() - before).isEqualTo(3);
+
+		// 查询当前用户返回 401 说明令牌无效
+		backend.stub("/user/profile", 401, "{\"ok\":false,\"message\":\"token expired\"}", 0);
+		client.get().uri("/api/user/profile")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer expired-profile")
+				.exchange()
+				.expectStatus().isUnauthorized()
+				.expectBody().jsonPath("$.message").isEqualTo("token expired");
+		client.get().uri("/api/user/72")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer expired-profile")
+				.exchange()
+				.expectStatus().isUnauthorized()
+				.expectBody().jsonPath("$.reason").isEqualTo("token_rejected");
+		assertThat(backend.requestCount() - before).isEqualTo(4);
+	}
+
+	@Test
+	void loginResponsesArePassedThroughAndTheIssuedTokenIsRecorded() {
+		client.post().uri("/api/login")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"username\":\"admin\"}")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().doesNotExist(HttpHeaders.ETAG)
+				.expectBody(String.class).isEqualTo("{\"token\":\"t-1\"}");
+
+		Map<String, Object> stats = client.get().uri("/gateway/tokens")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(new ParameterizedTypeReference<Map<String, Object>>() {
+				}).returnResult().getResponseBody();
+		assertThat(((Number) stats.get("valid")).longValue()).isPositive();
+	}
+
+	@Test
+	void verificationCodesAreRateLimitedPerAccountAndClientIp() {
+		backend.stub("/send-verification-code/", "{\"ok\":true}");
+		long before = backend.requestCount();
+		for (String email : List.of("a@mer.com", "a@mer.com")) {
+			sendVerificationCode(email).expectStatus().isOk()
+					.expectBody();
+		}
+		// 账号忽略大小写，超限时归还已取的 IP 令牌
+		sendVerificationCode("A@mer.com")
+				.expectStatus().isEqualTo(429)
+				.expectHeader().exists(HttpHeaders.RETRY_AFTER)
+				.expectBody()
+				.jsonPath("$.reason").isEqualTo("rate_limited")
+				.jsonPath("$.scope").isEqualTo("account")
+				.jsonPath("$.error").isEqualTo(true);
+		assertThat(backend.requestCount() - before).isEqualTo(2);
+
+		sendVerificationCode("b@mer.com").expectStatus().isOk()
+				.expectBody();
+		sendVerificationCode("c@mer.com").expectStatus().isOk()
+				.expectBody();
+		assertThat(backend.lastRequest().body()).isEqualTo("{\"email\":\"c@mer.com\"}");
+		sendVerificationCode("d@mer.com")
+				.expectStatus().isEqualTo(429)
+				.expectBody().jsonPath("$.scope").isEqualTo("ip");
+		assertThat(backend.requestCount() - before).isEqualTo(4);
+
+		client.post().uri("/api/send-verification-code/")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"email\":\"" + "x".repeat(20000) + "\"}")
+				.exchange()
+				.expectStatus().isEqualTo(413)
+				.expectBody().jsonPath("$.error").isEqualTo(true);
+
+		client.get().uri("/gateway/rate-limits")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.rejectedByIp").isEqualTo(1)
+				.jsonPath("$.rejectedByAccount").isEqualTo(1);
+	}
+
+	private WebTestClient.ResponseSpec sendVerificationCode(String email) {
+		return client.post().uri("/api/send-verification-code/")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"email\":\"" + email + "\"}")
+				.exchange();
+	}
+
+	@Test
+	void concurrentMissesLoadOnce() throws Exception {
+		long before = backend.requestCount();
+		ExecutorService executor = Executors.newFixedThreadPool(10);
+		try {
+			List<Callable<String>> calls = new ArrayList<>();
+			for (int i = 0; i < 10; i++) {
+				calls.add(() -> client.get().uri("/api/team/14")
+						.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+						.exchange()
+						.expectStatus().isOk()
+						.expectBody(String.class).returnResult().getResponseBody());
+			}
+			for (Future<String> result : executor.invokeAll(calls)) {
+				assertThat(result.get()).contains("产品部");
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertThat(backend.requestCount() - before).isEqualTo(1);
+	}
+
+	@Test
+	void concurrentIdenticalGetsShareOneUpstreamCall() throws Exception {
+		backend.stub("/company-tasks/important", 200, "{\"tasks\":[{\"id\":1}]}", 500)
+				.stub("/tasks/personal", 200, "{\"list\":[],\"total\":0}", 500);
+		long before = backend.requestCount();
+		ExecutorService executor = Executors.newFixedThreadPool(12);
+		try {
+			List<Callable<String>> calls = new ArrayList<>();
+			for (int i = 0; i < 6; i++) {
+				String shared = "Bearer c-" + i;
+				String personal = "Bearer c-" + (i % 2);
+				calls.add(() -> client.get().uri("/api/company-tasks/important")
+						.header(HttpHeaders.AUTHORIZATION, shared)
+						.exchange()
+						.expectStatus().isOk()
+						.expectBody(String.class).returnResult().getResponseBody());
+				calls.add(() -> client.get().uri("/api/tasks/personal")
+						.header(HttpHeaders.AUTHORIZATION, personal)
+						.exchange()
+						.expectStatus().isOk()
+						.expectBody(String.class).returnResult().getResponseBody());
+			}
+			for (Future<String> result : executor.invokeAll(calls)) {
+				assertThat(result.get()).isNotEmpty();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		// 公司重要任务不区分调用者合并为一次，个人任务按登录凭证各一次
+		assertThat(backend.requestCount() - before).isEqualTo(3);
+
+		client.get().uri("/gateway/coalescing")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$['/company-tasks/important'].leaders").isEqualTo(1)
+				.jsonPath("$['/company-tasks/important'].collapsed").isEqualTo(5)
+				.jsonPath("$['/tasks/personal'].collapsed").isEqualTo(4);
+	}
+
+	@Test
+	void responsesLargerThanTheDefaultCodecLimitAreBuffered() {
+		String body = largeTaskList(400 * 1024);
+		backend.stub("/company-tasks/important", body).stub("/tasks/all", body);
+		long before = backend.requestCount();
+
+		assertThat(largeBodyClient().get().uri("/api/company-tasks/important")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class).returnResult().getResponseBody()).isEqualTo(body);
+		assertThat(backend.requestCount() - before).isEqualTo(1);
+		// 分页列表读入内存后在后台预取下一页
+		assertThat(largeBodyClient().get().uri("/api/tasks/all")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer large-1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class).returnResult().getResponseBody()).isEqualTo(body);
+	}
+
+	@Test
+	void responsesOverTheBufferLimitAreStreamed() {
+		String body = largeTaskList(MAX_BUFFERED_SIZE + 100 * 1024);
+		backend.stub("/company-tasks/important", body)
+				.stub("/tasks/personal", body)
+				.stub("/tasks/all", body);
+		// 合并、补充、预取都需要完整响应，响应太大时改为直接透传
+		for (String uri : List.of("/api/company-tasks/important", "/api/tasks/personal",
+				"/api/tasks/personal?enrich=team", "/api/tasks/all")) {
+			assertThat(largeBodyClient().get().uri(uri)
+					.header(HttpHeaders.AUTHORIZATION, "Bearer large-2")
+					.exchange()
+					.expectStatus().isOk()
+					.expectBody(String.class).returnResult().getResponseBody()).as(uri).isEqualTo(body);
+		}
+		// 后端已正常响应，不计为访问后端失败
+		String metrics = client.get().uri("/actuator/prometheus")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class).returnResult().getResponseBody();
+		assertThat(metrics)
+				.containsPattern("mer_proxy_upstream_seconds_count\\{[^}]*route=\"/company-tasks/important\"[^}]*status=\"2xx\"")
+				.doesNotContainPattern("mer_proxy_upstream_seconds_count\\{[^}]*route=\"/(company-tasks/important|tasks/personal)\"[^}]*status=\"none\"");
+	}
+
+	@Test
+	void bulkheadRejectsCallsBeyondTheGroupLimitWithoutStarvingOtherGroups() throws Exception {
+		backend.stub("/comments", 200, "{\"list\":[]}", 600);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<EntityExchangeResult<String>>> comments = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				// 登录凭证各不相同，避免被合并为一次后端调用
+				String authorization = "Bearer b-" + i;
+				comments.add(executor.submit(() -> client.get().uri("/api/comments?ownerType=task&ownerId=1")
+						.header(HttpHeaders.AUTHORIZATION, authorization)
+						.exchange()
+						.expectBody(String.class).returnResult()));
+			}
+			Thread.sleep(200);
+			// 评论分组占满时其他分组照常访问后端
+			client.get().uri("/api/user/profile")
+					.exchange()
+					.expectStatus().isOk()
+					.expectBody();
+
+			List<Integer> statuses = new ArrayList<>();
+			for (Future<EntityExchangeResult<String>> future : comments) {
+				EntityExchangeResult<String> result = future.get();
+				statuses.add(result.getStatus().value());
+				if (result.getStatus().value() == 503) {
+					assertThat(result.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+					assertThat(result.getResponseBody())
+							.contains("\"reason\":\"bulkhead_full\"", "\"group\":\"comments\"");
+				}
+			}
+			assertThat(statuses).containsExactlyInAnyOrder(200, 200, 503, 503);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void circuitBreakerOpensOnFailuresAndRecoversAfterAProbe() throws Exception {
+		backend.stub("/journals/", 500, "{\"message\":\"boom\"}", 0);
+		boolean open = false;
+		for (int i = 0; i < 8 && !open; i++) {
+			open = client.get().uri("/api/journals/")
+					.exchange()
+					.expectBody(String.class).returnResult()
+					.getStatus().value() == 503;
+		}
+		assertThat(open).isTrue();
+
+		long before = backend.requestCount();
+		client.get().uri("/api/journals/")
+				.exchange()
+				.expectStatus().isEqualTo(503)
+				.expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1")
+				.expectBody()
+				.jsonPath("$.reason").isEqualTo("circuit_open")
+				.jsonPath("$.group").isEqualTo("journals");
+		assertThat(backend.requestCount()).isEqualTo(before);
+		client.get().uri("/gateway/resilience")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.journals.state").isEqualTo("OPEN")
+				.jsonPath("$.auth.state").isEqualTo("CLOSED")
+				.jsonPath("$.comments.maxConcurrentCalls").isEqualTo(2)
+				.jsonPath("$.statistics.maxConcurrentCalls").isEqualTo(10);
+
+		// 熔断 1s 后放行一个探测请求，后端恢复则关闭熔断
+		backend.stub("/journals/", "{\"list\":[],\"total\":0}");
+		Thread.sleep(1100);
+		client.get().uri("/api/journals/")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.total").isEqualTo(0);
+		client.get().uri("/gateway/resilience")
+				.exchange()
+				.expectBody().jsonPath("$.journals.state").isEqualTo("CLOSED");
+	}
+
+	@Test
+	void limiterAdmitsRequestsAndReleasesPermits() throws InterruptedException {
+		for (int i = 0; i < 5; i++) {
+			client.get().uri("/api/user/profile").exchange().expectStatus().isOk()
+					.expectBody();
+		}
+		client.get().uri("/api/tasks/all").exchange().expectStatus().isEqualTo(503)
+				.expectBody();
+
+		// 许可在响应写完后归还，稍等片刻
+		Map<String, Object> stats = null;
+		for (int i = 0; i < 50; i++) {
+			stats = client.get().uri("/gateway/limiter").exchange()
+					.expectStatus().isOk()
+					.expectBody(new ParameterizedTypeReference<Map<String, Object>>() {
+					}).returnResult().getResponseBody();
+			if (Integer.valueOf(0).equals(stats.get("inFlight"))) {
+				break;
+			}
+			Thread.sleep(20);
+		}
+		assertThat(stats).containsEntry("enabled", true)
+				.containsEntry("inFlight", 0)
+				.containsEntry("queued", 0)
+				.containsEntry("shed", 0);
+		assertThat((Integer) stats.get("limit")).isBetween(20, 1000);
+	}
+
+	@Test
+	void metricsAreExportedWithRouteTemplateTags() {
+		client.get().uri("/api/team/7").exchange().expectStatus().isOk()
+				.expectBody();
+		client.get().uri("/api/user/profile").header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.exchange().expectStatus().isOk()
+				.expectBody();
+
+		String metrics = client.get().uri("/actuator/prometheus")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class).returnResult().getResponseBody();
+		assertThat(metrics)
+				.containsPattern("mer_proxy_requests_seconds_count\\{[^}]*route=\"/team/\\{teamId:number}\"[^}]*status=\"2xx\"")
+				.containsPattern("mer_proxy_requests_seconds_bucket\\{[^}]*route=\"/user/profile\"[^}]*le=\"0.25\"")
+				.containsPattern("mer_proxy_upstream_seconds_bucket\\{[^}]*route=\"/user/profile\"")
+				.containsPattern("mer_proxy_response_size_bytes_sum\\{[^}]*route=\"/user/profile\"")
+				.containsPattern("cache_gets_total\\{[^}]*cache=\"proxy.response\"[^}]*route=\"/team/\\{teamId:number}\"")
+				.containsPattern("cache_gets_total\\{[^}]*cache=\"proxy.daily-buckets\"")
+				.containsPattern("cache_gets_total\\{[^}]*cache=\"proxy.token-verdicts\"")
+				.contains("mer_proxy_circuit_state{")
+				.contains("mer_proxy_limiter_limit")
+				.doesNotContain("route=\"/team/7\"");
+		assertThat(metrics).containsPattern("httpcomponents_httpclient_pool_total_connections|mer_proxy_upstream_pool_allocated");
+		assertThat(rejectedMeters).isEmpty();
+	}
+
+	@Test
+	void responsesCarryServerTimingBreakdown() {
+		String passthrough = client.post().uri("/api/login")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"username\":\"a\",\"password\":\"b\"}")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class).returnResult().getResponseHeaders().getFirst("Server-Timing");
+		assertThat(passthrough).matches("queue;dur=\\d+\\.\\d{3}, security;dur=\\d+\\.\\d{3}, "
+				+ "upstream;dur=\\d+\\.\\d{3}, total;dur=\\d+\\.\\d{3}");
+
+		backend.stub("/team/61", "{\"ok\":true,\"team_name\":\"财务部\"}");
+		String cached = client.get().uri("/api/team/61")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(ResponseCache.HEADER, "MISS")
+				.expectBody(String.class).returnResult().getResponseHeaders().getFirst("Server-Timing");
+		assertThat(cached).contains("upstream;dur=", "transfer;dur=", "serialize;dur=", "total;dur=");
+
+		String hit = client.get().uri("/api/team/61")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.exchange()
+				.expectHeader().valueEquals(ResponseCache.HEADER, "HIT")
+				.expectBody(String.class).returnResult().getResponseHeaders().getFirst("Server-Timing");
+		assertThat(hit).contains("serialize;dur=").doesNotContain("upstream");
+
+		client.get().uri("/gateway/limiter").exchange()
+				.expectHeader().doesNotExist("Server-Timing")
+				.expectBody().returnResult();
+	}
+
+	@Test
+	void batchDeduplicatesIdsAndSharesTheCache() {
+		long before = backend.requestCount();
+		client.get().uri("/api/team/batch?ids=21,22,21&ids=022,23")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.ok").isEqualTo(true)
+				.jsonPath("$.teams.length()").isEqualTo(3)
+				.jsonPath("$.teams['21'].team_name").isEqualTo("研发部")
+				.jsonPath("$.teams['21'].department_name").isEqualTo("技术中心")
+				.jsonPath("$.teams['22'].department_name").isEqualTo("营销中心")
+				.jsonPath("$.teams['23'].team_name").isEmpty();
+		assertThat(backend.requestCount() - before).isEqualTo(6);
+
+		// 批量查询的结果与单个查询共用缓存，404 同样被缓存
+		client.get().uri("/api/team/batch?ids=22,21,23")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.teams['22'].team_name").isEqualTo("市场部");
+		client.get().uri("/api/team/department/21")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.exchange()
+				.expectHeader().valueEquals("X-Cache", "HIT")
+				.expectBody();
+		assertThat(backend.requestCount() - before).isEqualTo(6);
+	}
+
+	@Test
+	void batchFanOutIsBounded() {
+		StringBuilder ids = new StringBuilder();
+		for (int id = 31; id <= 40; id++) {
+			backend.stub("/team/" + id, 200, "{\"ok\":true,\"team_name\":\"T" + id + "\"}", 100)
+					.stub("/team/department/" + id, 200, "{\"ok\":true,\"department_name\":\"D" + id + "\"}", 100);
+			ids.append(id).append(',');
+		}
+		backend.resetCounters();
+		client.get().uri("/api/team/batch?ids=" + ids)
+				.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.teams['40'].department_name").isEqualTo("D40");
+		assertThat(backend.requestCount()).isEqualTo(20);
+		assertThat(backend.peakInFlight()).isBetween(2, 8);
+	}
+
+	@Test
+	void batchRejectsMissingOrInvalidIds() {
+		client.get().uri("/api/team/batch")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody().jsonPath("$.message").isEqualTo("缺少必填参数: ids");
+
+		client.get().uri("/api/team/batch?ids=1,abc")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer t-1")
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody().jsonPath("$.message").isEqualTo("团队编号无效: abc");
+	}
+
+	@Test
+	void batchRequiresAcceptedCredentials() {
+		long before = backend.requestCount();
+		client.get().uri("/api/team/batch?ids=21,22")
+				.exchange()
+				.expectStatus().isUnauthorized()
+				.expectHeader().exists(HttpHeaders.WWW_AUTHENTICATE)
+				.expectBody().jsonPath("$.error").isEqualTo(true);
+		assertThat(backend.requestCount() - before).isZero();
+
+		// 后端拒绝登录凭证时整体返回 401，而不是全部为 null 的名称
+		client.get().uri("/api/team/batch?ids=21,15")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer batch-401")
+				.exchange()
+				.expectStatus().isUnauthorized()
+				.expectBody();
+	}
+
+	@Test
+	void taskListsAreEnrichedWithTeamNamesOnRequest() {
+		backend.stub("/tasks/all", "{\"list\":["
+						+ "{\"task_id\":1,\"team_id\":51,\"creator\":{\"id\":5,\"team_id\":\"052\"}},"
+						+ "{\"task_id\":2,\"team_id\":51,\"team_name\":\"后端给的\",\"assignees\":[{\"id\":6,\"team_id\":52}]}"
+						+ "],\"total\":2}")
+				.stub("/team/51", "{\"ok\":true,\"team_name\":\"研发部\"}")
+				.stub("/team/department/51", "{\"ok\":true,\"department_name\":\"技术中心\"}")
+				.stub("/team/52", "{\"ok\":true,\"team_name\":\"市场部\"}");
+		long before = backend.requestCount();
+		for (int i = 0; i < 2; i++) {
+			client.get().uri("/api/tasks/all?enrich=team&page=2")
+					.header(HttpHeaders.AUTHORIZATION, "Bearer e-1")
+					.exchange()
+					.expectStatus().isOk()
+					.expectHeader().exists(HttpHeaders.ETAG)
+					.expectBody()
+					.jsonPath("$.total").isEqualTo(2)
+					.jsonPath("$.list[0].team_name").isEqualTo("研发部")
+					.jsonPath("$.list[0].department_name").isEqualTo("技术中心")
+					.jsonPath("$.list[0].creator.team_name").isEqualTo("市场部")
+					.jsonPath("$.list[0].creator.department_name").doesNotExist()
+					.jsonPath("$.list[1].team_name").isEqualTo("后端给的")
+					.jsonPath("$.list[1].department_name").isEqualTo("技术中心")
+					.jsonPath("$.list[1].assignees[0].team_name").isEqualTo("市场部");
+		}
+		// 第一次：任务列表 1 次，两个团队的名称和部门各 1 次；第二次名称来自网关缓存
+		assertThat(backend.requestCount() - before).isEqualTo(6);
+		assertThat(backend.lastRequest().uri()).isEqualTo("/api/tasks/all?page=2&pageSize=10");
+
+		client.get().uri("/api/tasks/all")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer e-1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.list[0].team_name").doesNotExist();
+		client.get().uri("/api/tasks/all?enrich=user")
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody().jsonPath("$.message").isEqualTo("不支持的 enrich 参数: user");
+	}
+
+	@Test
+	void tasksReadThroughTheGatewayAreSearchable() {
+		backend.stub("/tasks/personal", "{\"list\":["
+						+ "{\"task_id\":901,\"title\":\"登录界面动效优化\",\"description\":\"周报模板另行处理\"},"
+						+ "{\"task_id\":902,\"title\":\"周报整理与提交\",\"creator\":{\"id\":5,\"name\":\"Alice\"}}"
+						+ "],\"total\":2}");
+		client.get().uri("/api/tasks/personal")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer search-1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody();
+		long before = backend.requestCount();
+
+		client.get().uri("/api/tasks/search?q={q}", "周报")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer search-1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.total").isEqualTo(2)
+				.jsonPath("$.list[0].task_id").isEqualTo(902)
+				.jsonPath("$.list[0].creator.name").isEqualTo("Alice")
+				.jsonPath("$.list[1].task_id").isEqualTo(901)
+				.jsonPath("$.incomplete").isEqualTo(false);
+		client.get().uri("/api/tasks/search?q={q}", "周报 alice")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer search-1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.total").isEqualTo(1);
+		// 其他登录凭证没有读取过这些任务
+		client.get().uri("/api/tasks/search?q={q}", "周报")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer search-2")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.total").isEqualTo(0);
+		assertThat(backend.requestCount()).isEqualTo(before);
+
+		// 退出登录后立即不能再搜索该令牌读取过的任务
+		backend.stub("/user/logout", "{\"ok\":true}");
+		client.post().uri("/api/user/logout")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer search-1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody();
+		client.get().uri("/api/tasks/search?q={q}", "周报")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer search-1")
+				.exchange()
+				.expectStatus().isUnauthorized()
+				.expectBody();
+
+		client.get().uri("/api/tasks/search")
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody().jsonPath("$.message").isEqualTo("缺少必填参数: q");
+		client.get().uri("/gateway/task-search")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.documents").isNumber();
+	}
+
+	@Test
+	void tasksReadThroughTheGatewayAreQueryableByDateRange() {
+		backend.stub("/tasks/903", "{\"ok\":true,\"task\":{\"task_id\":903,\"title\":\"月度盘点\","
+				+ "\"startAt\":\"2031-03-30\",\"dueAt\":\"2031-04-02\"}}");
+		client.get().uri("/api/tasks/903")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer range-1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody();
+		long before = backend.requestCount();
+
+		client.get().uri("/api/tasks/range?from=2031-04-01&to=2031-04-03")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer range-1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.total").isEqualTo(1)
+				.jsonPath("$.list[0].task_id").isEqualTo(903)
+				.jsonPath("$.daily.length()").isEqualTo(3)
+				.jsonPath("$.daily[1].date").isEqualTo("2031-04-02")
+				.jsonPath("$.daily[1].count").isEqualTo(1)
+				.jsonPath("$.daily[2].count").isEqualTo(0);
+		// 其他登录凭证没有读取过这个任务
+		client.get().uri("/api/tasks/range?from=2031-04-01&to=2031-04-03")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer range-2")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.total").isEqualTo(0);
+		assertThat(backend.requestCount()).isEqualTo(before);
+
+		// 退出登录后立即不能再查询该令牌读取过的任务
+		backend.stub("/user/logout", "{\"ok\":true}");
+		client.post().uri("/api/user/logout")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer range-1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody();
+		client.get().uri("/api/tasks/range?from=2031-04-01&to=2031-04-03")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer range-1")
+				.exchange()
+				.expectStatus().isUnauthorized()
+				.expectBody();
+
+		client.get().uri("/api/tasks/range?from=2031-04-03&to=2031-04-01")
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody().jsonPath("$.message").isEqualTo("开始日期不能晚于结束日期");
+		client.get().uri("/gateway/task-range")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.intervals").isNumber();
+	}
+
+	@Test
+	void statisticsReuseCachedHistoricalDays() {
+		List<String> queries = new CopyOnWriteArrayList<>();
+		backend.stub("/tasks/statistic", query -> {
+			queries.add(query);
+			return dailyStatistics(query);
+		});
+		LocalDate today = LocalDate.now();
+
+		fetchStatistics("Bearer s-1", today.minusDays(6), today, "MISS", 7);
+		fetchStatistics("Bearer s-1", today.minusDays(6), today, "PARTIAL", 7);
+		fetchStatistics("Bearer s-1", today.minusDays(6), today.minusDays(1), "HIT", 6);
+		fetchStatistics("Bearer s-1", today.minusDays(8), today.minusDays(3), "PARTIAL", 6);
+		// 缓存按登录凭证隔离
+		fetchStatistics("Bearer s-2", today.minusDays(6), today.minusDays(1), "MISS", 6);
+
+		assertThat(queries).containsExactly(
+				range(today.minusDays(6), today),
+				range(today, today),
+				range(today.minusDays(8), today.minusDays(7)),
+				range(today.minusDays(6), today.minusDays(1)));
+	}
+
+	@Test
+	void statisticsWithoutDailyBucketsArePassedThrough() {
+		backend.stub("/login/statistic", "{\"points\":[{\"timeBucket\":\"2025-W40\",\"loginCount\":3}]}");
+		long before = backend.requestCount();
+		for (int i = 0; i < 2; i++) {
+			client.get().uri("/api/login/statistic?timeUnit=week&startDate=2025-09-01&endDate=2025-10-31")
+					.header(HttpHeaders.AUTHORIZATION, "Bearer s-1")
+					.exchange()
+					.expectStatus().isOk()
+					.expectHeader().doesNotExist("X-Cache")
+					.expectBody().jsonPath("$.points[0].timeBucket").isEqualTo("2025-W40");
+		}
+		assertThat(backend.requestCount() - before).isEqualTo(2);
+	}
+
+	@Test
+	void dashboardSummaryFansOutAndReportsFailedSections() {
+		List<String> taskQueries = new CopyOnWriteArrayList<>();
+		backend.stub("/company-tasks/important", "{\"tasks\":[\"季度复盘\"]}")
+				.stub("/tasks/personal", "{\"list\":[{\"id\":1}],\"total\":1}")
+				.stub("/tasks/myView", "{\"list\":[],\"total\":0}")
+				.stub("/login/statistic", query -> dailyStatistics(query.replace("timeUnit=day&", ""))
+						.replace("\"daily\"", "\"points\"").replace("\"date\"", "\"timeBucket\""))
+				.stub("/user/statistic", 500, "{\"message\":\"boom\"}", 0)
+				.stub("/tasks/statistic", query -> {
+					taskQueries.add(query);
+					return dailyStatistics(query);
+				})
+				.stub("/journals/statistic", 200, "{\"daily\":[]}", 3000);
+		LocalDate today = LocalDate.now();
+
+		for (int i = 0; i < 2; i++) {
+			long started = System.nanoTime();
+			client.get().uri("/api/dashboard/summary")
+					.header(HttpHeaders.AUTHORIZATION, "Bearer d-1")
+					.exchange()
+					.expectStatus().isOk()
+					.expectBody()
+					.jsonPath("$.ok").isEqualTo(true)
+					.jsonPath("$.partial").isEqualTo(true)
+					.jsonPath("$.range.startDate").isEqualTo(today.minusDays(6).toString())
+					.jsonPath("$.sections.importantTasks.ok").isEqualTo(true)
+					.jsonPath("$.sections.importantTasks.data.tasks[0]").isEqualTo("季度复盘")
+					.jsonPath("$.sections.personalTasks.data.total").isEqualTo(1)
+					.jsonPath("$.sections.viewableTasks.status").isEqualTo(200)
+					.jsonPath("$.sections.loginTrend.data.points.length()").isEqualTo(7)
+					.jsonPath("$.sections.passwordResets.ok").isEqualTo(false)
+					.jsonPath("$.sections.passwordResets.error").isEqualTo("upstream")
+					.jsonPath("$.sections.passwordResets.status").isEqualTo(500)
+					.jsonPath("$.sections.passwordResets.data.message").isEqualTo("boom")
+					.jsonPath("$.sections.taskStatistic.data.daily.length()").isEqualTo(7)
+					.jsonPath("$.sections.journalStatistic.ok").isEqualTo(false)
+					.jsonPath("$.sections.journalStatistic.error").isEqualTo("timeout");
+			// 分项并发执行，总耗时取决于超时而不是各分项之和
+			assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofMillis(2500));
+		}
+		// 统计分项同样经过按天缓存，第二次只取今天
+		assertThat(taskQueries).containsExactly(range(today.minusDays(6), today), range(today, today));
+
+		client.get().uri("/api/dashboard/summary?startDate=2025-10-31&endDate=2025-10-01")
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody().jsonPath("$.message").isEqualTo("开始日期不能晚于结束日期");
+	}
+
+	private void fetchStatistics(String authorization, LocalDate start, LocalDate end, String cacheStatus, int days) {
+		client.get().uri("/api/tasks/statistic?startDate={start}&endDate={end}", start, end)
+				.header(HttpHeaders.AUTHORIZATION, authorization)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals("X-Cache", cacheStatus)
+				.expectBody()
+				.jsonPath("$.startDate").isEqualTo(start.toString())
+				.jsonPath("$.endDate").isEqualTo(end.toString())
+				.jsonPath("$.daily.length()").isEqualTo(days)
+				.jsonPath("$.daily[0].date").isEqualTo(start.toString())
+				.jsonPath(String.format("$.daily[%d].taskCreateCount", days - 1)).isEqualTo(end.getDayOfMonth());
+	}
+
+	private static String range(LocalDate start, LocalDate end) {
+		return "startDate=" + start + "&endDate=" + end;
+	}
+
+	/**
+	 * 模拟后端的每日统计，每天的任务数等于当月日期
+	 */
+	private static String dailyStatistics(String query) {
+		Map<String, String> params = new HashMap<>();
+		for (String pair : query.split("&")) {
+			String[] parts = pair.split("=", 2);
+			params.put(parts[0], parts[1]);
+		}
+		LocalDate start = LocalDate.parse(params.get("startDate"));
+		LocalDate end = LocalDate.parse(params.get("endDate"));
+		StringBuilder daily = new StringBuilder();
+		for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+			daily.append(daily.isEmpty() ? "" : ",")
+					.append("{\"date\":\"").append(day).append("\",\"taskCreateCount\":")
+					.append(day.getDayOfMonth()).append('}');
+		}
+		return "{\"startDate\":\"" + start + "\",\"endDate\":\"" + end + "\",\"daily\":[" + daily + "]}";
+	}
+
+	@TestConfiguration
+	static class MeterRegistrations {
+
+		@Bean
+		MeterRegistryCustomizer<MeterRegistry> recordRejectedMeters() {
+			return registry -> registry.config().onMeterRegistrationFailed(
+					(id, reason) -> rejectedMeters.add(id.getName() + ": " + reason));
+		}
+	}
+
+	/**
+	 * 任务列表，至少 size 字节
+	 */
+	private static String largeTaskList(int size) {
+		StringBuilder json = new StringBuilder("{\"list\":[");
+		for (int i = 0; json.length() < size; i++) {
+			json.append(i > 0 ? "," : "")
+					.append("{\"task_id\":").append(i)
+					.append(",\"title\":\"").append("x".repeat(100)).append("\"}");
+		}
+		return json.append("]}").toString();
+	}
+
+	/**
+	 * 测试客户端同样有 256KB 的读取上限，读取大响应时放宽
+	 */
+	private WebTestClient largeBodyClient() {
+		return client.mutate()
+				.codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(4 * MAX_BUFFERED_SIZE))
+				.build();
+	}
+
+	/**
+	 * 不自动解压的客户端，默认的 WebTestClient 会解压 gzip 响应并去掉 Content-Encoding
+	 */
+	private WebTestClient uncompressingClient() {
+		return WebTestClient.bindToServer(new ReactorClientHttpConnector(HttpClient.create()))
+				.baseUrl("http://localhost:" + port)
+				.build();
+	}
+}
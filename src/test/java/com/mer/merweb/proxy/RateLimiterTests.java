@@ -0,0 +1,123 @@
+package com.mer.merweb.proxy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mer.merweb.config.ProxyProperties;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimiterTests {
+
+	private static final ProxyRoute LOGIN = ProxyRoute.post("/login").group(RouteGroup.AUTH).anonymous()
+			.rateLimit("login", "username").build();
+
+	private final AtomicLong clock = new AtomicLong();
+
+	@Test
+	void burstIsAllowedThenOneRequestPerRefillPeriod() {
+		RateLimiter limiter = limiter(3, Duration.ofSeconds(10), 100, Duration.ofSeconds(1));
+
+		for (int i = 0; i < 3; i++) {
+			limiter.acquire(LOGIN, "10.0.0.1", null);
+		}
+		assertThatThrownBy(() -> limiter.acquire(LOGIN, "10.0.0.1", null))
+				.isInstanceOfSatisfying(RateLimitExceededException.class, e -> {
+					assertThat(e.getScope()).isEqualTo(RateLimitExceededException.IP);
+					assertThat(e.getRetryAfterSeconds()).isEqualTo(10);
+				});
+		// 其他 IP 不受影响
+		limiter.acquire(LOGIN, "10.0.0.2", null);
+
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(4));
+		assertThatThrownBy(() -> limiter.acquire(LOGIN, "10.0.0.1", null))
+				.isInstanceOfSatisfying(RateLimitExceededException.class,
+						e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(6));
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(6));
+		limiter.acquire(LOGIN, "10.0.0.1", null);
+		assertThatThrownBy(() -> limiter.acquire(LOGIN, "10.0.0.1", null))
+				.isInstanceOf(RateLimitExceededException.class);
+	}
+
+	@Test
+	void accountsAreLimitedAcrossClientIps() {
+		RateLimiter limiter = limiter(100, Duration.ofSeconds(1), 2, Duration.ofMinutes(1));
+
+		limiter.acquire(LOGIN, "10.0.0.1", body("{\"username\":\"Admin\"}"));
+		limiter.acquire(LOGIN, "10.0.0.2", body("{\"username\":\" admin \"}"));
+		assertThatThrownBy(() -> limiter.acquire(LOGIN, "10.0.0.3", body("{\"username\":\"admin\"}")))
+				.isInstanceOfSatisfying(RateLimitExceededException.class, e -> {
+					assertThat(e.getScope()).isEqualTo(RateLimitExceededException.ACCOUNT);
+					assertThat(e.getRetryAfterSeconds()).isEqualTo(60);
+				});
+		// 没有账号字段或不是 JSON 时只按 IP 限流
+		limiter.acquire(LOGIN, "10.0.0.3", body("{\"password\":\"x\"}"));
+		limiter.acquire(LOGIN, "10.0.0.3", body("not json"));
+		assertThat(limiter.stats()).containsEntry("rejectedByAccount", 1L).containsEntry("rejectedByIp", 0L);
+	}
+
+	@Test
+	void idleKeysAreEvicted() {
+		RateLimiter limiter = limiter(1, Duration.ofHours(1), 100, Duration.ofSeconds(1));
+
+		limiter.acquire(LOGIN, "10.0.0.1", null);
+		assertThatThrownBy(() -> limiter.acquire(LOGIN, "10.0.0.1", null))
+				.isInstanceOf(RateLimitExceededException.class);
+
+		clock.addAndGet(TimeUnit.MINUTES.toNanos(31));
+		limiter.acquire(LOGIN, "10.0.0.1", null);
+	}
+
+	@Test
+	void concurrentCallersNeverExceedTheBurst() throws Exception {
+		RateLimiter limiter = limiter(50, Duration.ofHours(1), 100, Duration.ofSeconds(1));
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Callable<Boolean>> calls = new ArrayList<>();
+			for (int i = 0; i < 400; i++) {
+				calls.add(() -> {
+					try {
+						limiter.acquire(LOGIN, "10.0.0.1", null);
+						return true;
+					} catch (RateLimitExceededException e) {
+						return false;
+					}
+				});
+			}
+			int admitted = 0;
+			for (Future<Boolean> result : executor.invokeAll(calls)) {
+				admitted += result.get() ? 1 : 0;
+			}
+			assertThat(admitted).isEqualTo(50);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private RateLimiter limiter(int ipCapacity, Duration ipRefillPeriod, int accountCapacity,
+								Duration accountRefillPeriod) {
+		ProxyProperties.RatePolicy policy = new ProxyProperties.RatePolicy();
+		policy.setIpCapacity(ipCapacity);
+		policy.setIpRefillPeriod(ipRefillPeriod);
+		policy.setAccountCapacity(accountCapacity);
+		policy.setAccountRefillPeriod(accountRefillPeriod);
+		ProxyProperties.RateLimit config = new ProxyProperties.RateLimit();
+		config.getPolicies().put("login", policy);
+		return new RateLimiter(config, new ObjectMapper(), clock::get);
+	}
+
+	private static byte[] body(String json) {
+		return json.getBytes(StandardCharsets.UTF_8);
+	}
+}
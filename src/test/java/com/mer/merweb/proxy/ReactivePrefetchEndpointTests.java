@@ -0,0 +1,11 @@
+package com.mer.merweb.proxy;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * 测试客户端连接池中保持的空闲连接会让 Netty 的优雅停机一直等到超时，测试结束时直接停止
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"spring.main.web-application-type=reactive", "server.shutdown=immediate"})
+class ReactivePrefetchEndpointTests extends PrefetchEndpointTests {
+}
@@ -0,0 +1,22 @@
+package com.mer.merweb.proxy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 测试客户端连接池中保持的空闲连接会让 Netty 的优雅停机一直等到超时，测试结束时直接停止
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"spring.main.web-application-type=reactive", "server.shutdown=immediate"})
+class ReactiveProxyEndpointTests extends ProxyEndpointTests {
+
+	@Test
+	void runsOnNetty(@Autowired ReactiveWebServerApplicationContext context) {
+		assertThat(context.getWebServer()).isInstanceOf(NettyWebServer.class);
+	}
+}
@@ -0,0 +1,66 @@
+package com.mer.merweb.proxy;
+
+import com.mer.merweb.config.ProxyRouteConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RouteTableTests {
+
+	private final RouteTable table = new ProxyRouteConfig().proxyRouteTable();
+
+	@Test
+	void literalRoutesWinOverVariables() {
+		assertThat(table.match(HttpMethod.GET, "/user/profile").route().getPattern()).isEqualTo("/user/profile");
+		assertThat(table.match(HttpMethod.GET, "/tasks/all").route().getPattern()).isEqualTo("/tasks/all");
+		assertThat(table.match(HttpMethod.GET, "/tasks/statistic").route().getPattern()).isEqualTo("/tasks/statistic");
+	}
+
+	@Test
+	void variablesAreCapturedAndTyped() {
+		RouteMatch match = table.match(HttpMethod.GET, "/team/department/42");
+		assertThat(match.route().getPattern()).isEqualTo("/team/department/{teamId:number}");
+		assertThat(match.pathVariables()).containsExactly("42");
+
+		assertThat(table.match(HttpMethod.GET, "/user/abc")).isNull();
+		assertThat(table.match(HttpMethod.DELETE, "/comments/C-7").pathVariables()).containsExactly("C-7");
+	}
+
+	@Test
+	void trailingSlashAndAliases() {
+		assertThat(table.match(HttpMethod.GET, "/journals/").route().getPattern()).isEqualTo("/journals/");
+		assertThat(table.match(HttpMethod.GET, "/journals")).isNull();
+		assertThat(table.match(HttpMethod.POST, "/login/").route().getPattern()).isEqualTo("/login");
+	}
+
+	@Test
+	void otherMethodIsDetected() {
+		assertThat(table.match(HttpMethod.DELETE, "/user/profile")).isNull();
+		assertThat(table.matchesOtherMethod(HttpMethod.DELETE, "/user/profile")).isTrue();
+		assertThat(table.matchesOtherMethod(HttpMethod.GET, "/unknown")).isFalse();
+	}
+
+	@Test
+	void duplicateRoutesAreRejected() {
+		assertThatThrownBy(() -> RouteTable.of(
+				ProxyRoute.get("/team/{teamId}").group(RouteGroup.TEAM),
+				ProxyRoute.get("/team/{id}").group(RouteGroup.TEAM)))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void onlyGetRoutesCanBeCached() {
+		assertThat(table.match(HttpMethod.GET, "/team/3").route().isCached()).isTrue();
+		assertThatThrownBy(() -> ProxyRoute.post("/team").group(RouteGroup.TEAM).cached().build())
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void queryComponentsArePercentEncoded() {
+		StringBuilder target = new StringBuilder();
+		UriEncoding.appendQueryComponent(target, "a b&c=张三~");
+		assertThat(target).hasToString("a%20b%26c%3D%E5%BC%A0%E4%B8%89~");
+	}
+}
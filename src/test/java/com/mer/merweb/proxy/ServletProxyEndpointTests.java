@@ -0,0 +1,7 @@
+package com.mer.merweb.proxy;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ServletProxyEndpointTests extends ProxyEndpointTests {
+}
@@ -0,0 +1,196 @@
+package com.mer.merweb.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 测试用的后端桩服务，模拟 http://localhost:8080/api
+ * 每个路径可以配置固定的响应和延迟，并记录请求数和峰值并发数。
+ * 压测时可以为所有请求附加随机延迟（{@link #latency}）和按比例注入错误响应（{@link #faults}）。
+ */
+public class StubBackend implements AutoCloseable {
+
+	static {
+		// JDK HttpServer 默认开启 Nagle 算法，与客户端的延迟确认叠加会让每个响应多等约 40ms
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		// 空闲长连接超过上限（默认 200）时服务端会直接关闭，网关连接池复用到这些连接会报 failed to respond
+		System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+	}
+
+	public record Stub(int status, String body, long delayMillis, Map<String, String> headers) {
+	}
+
+	/**
+	 * 后端收到的请求，uri 为原始（未解码）的路径和查询串
+	 */
+	public record Recorded(String method, String uri, String authorization, String body) {
+	}
+
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final Map<String, Function<String, Stub>> stubs = new ConcurrentHashMap<>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger peakInFlight = new AtomicInteger();
+	private final AtomicLong requests = new AtomicLong();
+	private volatile Recorded lastRequest;
+	private volatile Stub fallback = new Stub(404, "{\"ok\":false,\"message\":\"not found\"}", 0, Map.of());
+	private volatile long latencyMillis;
+	private volatile long jitterMillis;
+	private volatile double faultRate;
+	private volatile Stub fault;
+
+	public StubBackend() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+		server.setExecutor(executor);
+		server.createContext("/", this::handle);
+		server.start();
+	}
+
+	/**
+	 * 后端地址，对应 mer.proxy.backend-url
+	 */
+	public String baseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/api";
+	}
+
+	/**
+	 * 为路径（不含 /api 前缀和查询参数）配置响应
+	 */
+	public StubBackend stub(String path, int status, String body, long delayMillis) {
+		Stub stub = new Stub(status, body, delayMillis, Map.of());
+		stubs.put(path, query -> stub);
+		return this;
+	}
+
+	/**
+	 * 带额外响应头的 200 响应
+	 */
+	public StubBackend stub(String path, String body, Map<String, String> headers) {
+		return stub(path, 200, body, headers);
+	}
+
+	/**
+	 * 带额外响应头的响应
+	 */
+	public StubBackend stub(String path, int status, String body, Map<String, String> headers) {
+		Stub stub = new Stub(status, body, 0, headers);
+		stubs.put(path, query -> stub);
+		return this;
+	}
+
+	/**
+	 * 按查询串（原始形式，没有查询参数时为 null）生成 200 响应
+	 */
+	public StubBackend stub(String path, Function<String, String> body) {
+		stubs.put(path, query -> new Stub(200, body.apply(query), 0, Map.of()));
+		return this;
+	}
+
+	public StubBackend stub(String path, String body) {
+		return stub(path, 200, body, 0);
+	}
+
+	public StubBackend fallback(int status, String body) {
+		fallback = new Stub(status, body, 0, Map.of());
+		return this;
+	}
+
+	/**
+	 * 所有请求在各自配置的延迟之外再等待 baseMillis 加上 [0, jitterMillis] 内的随机时间
+	 */
+	public StubBackend latency(long baseMillis, long jitterMillis) {
+		this.latencyMillis = baseMillis;
+		this.jitterMillis = jitterMillis;
+		return this;
+	}
+
+	/**
+	 * 按比例把请求替换为错误响应，按请求序号均匀分布（rate 为 0.01 时每 100 个请求中第 100 个出错），
+	 * 相同的请求序列每次注入的位置相同
+	 */
+	public StubBackend faults(double rate, int status) {
+		this.fault = new Stub(status, "{\"ok\":false,\"message\":\"injected fault\"}", 0, Map.of());
+		this.faultRate = rate;
+		return this;
+	}
+
+	public long requestCount() {
+		return requests.get();
+	}
+
+	public int peakInFlight() {
+		return peakInFlight.get();
+	}
+
+	public Recorded lastRequest() {
+		return lastRequest;
+	}
+
+	public void resetCounters() {
+		requests.set(0);
+		peakInFlight.set(0);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		long sequence = requests.incrementAndGet();
+		int current = inFlight.incrementAndGet();
+		peakInFlight.accumulateAndGet(current, Math::max);
+		try {
+			byte[] requestBody = exchange.getRequestBody().readAllBytes();
+			String uri = exchange.getRequestURI().getRawPath();
+			if (exchange.getRequestURI().getRawQuery() != null) {
+				uri += "?" + exchange.getRequestURI().getRawQuery();
+			}
+			lastRequest = new Recorded(exchange.getRequestMethod(), uri,
+					exchange.getRequestHeaders().getFirst("Authorization"),
+					new String(requestBody, StandardCharsets.UTF_8));
+			String path = exchange.getRequestURI().getRawPath().substring("/api".length());
+			Function<String, Stub> responder = stubs.get(path);
+			Stub stub = responder != null ? responder.apply(exchange.getRequestURI().getRawQuery()) : fallback;
+			if (faulty(sequence)) {
+				stub = fault;
+			}
+			long delay = stub.delayMillis() + latencyMillis
+					+ (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+			if (delay > 0) {
+				Thread.sleep(delay);
+			}
+			byte[] body = stub.body().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+			stub.headers().forEach(exchange.getResponseHeaders()::set);
+			exchange.sendResponseHeaders(stub.status(), body.length == 0 ? -1 : body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			inFlight.decrementAndGet();
+			exchange.close();
+		}
+	}
+
+	private boolean faulty(long sequence) {
+		double rate = faultRate;
+		return rate > 0 && (long) (sequence * rate) > (long) ((sequence - 1) * rate);
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+}